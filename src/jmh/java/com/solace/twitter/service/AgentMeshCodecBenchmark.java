@@ -0,0 +1,118 @@
+package com.solace.twitter.service;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.json.JSONObject;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Encoding of Agent Mesh requests and decoding of their responses, per question: the original
+ * org.json String round trip against the streaming AgentMeshCodec
+ * Run with -prof gc to compare allocation per call as well as time
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class AgentMeshCodecBenchmark {
+    private static final String ANSWER =
+        "Guaranteed messages move to the DMQ when they exceed the queue's max redelivery count or their TTL "
+        + "expires. Check the queue's \"max-redelivery\" setting and whether your consumer rejects messages with "
+        + "a negative acknowledgement; both show up in the queue stats in Broker Manager.\n\nIf the consumer is "
+        + "simply too slow, raise its window size or add consumers to the non-exclusive queue.";
+    
+    private String[] questions;
+    private String responseBody;
+    private byte[] responseBytes;
+    private ByteArrayOutputStream requestStream;
+    private int next;
+    
+    @Setup
+    public void setup() {
+        questions = TweetCorpus.get().texts();
+        
+        // Agent Mesh wraps the answer with request metadata and token usage
+        JSONObject usage = new JSONObject();
+        usage.put("prompt_tokens", 212);
+        usage.put("completion_tokens", 96);
+        JSONObject response = new JSONObject();
+        response.put("id", "chatcmpl-8f2a61c0");
+        response.put("model", "solace-chat");
+        response.put("response", ANSWER);
+        response.put("usage", usage);
+        responseBody = response.toString();
+        responseBytes = responseBody.getBytes(StandardCharsets.UTF_8);
+        
+        // Stands in for the connection's output stream, which is reused across requests
+        requestStream = new ByteArrayOutputStream(1024);
+        next = 0;
+    }
+    
+    private String nextQuestion() {
+        String question = questions[next];
+        next = next + 1 == questions.length ? 0 : next + 1;
+        return question;
+    }
+    
+    @Benchmark
+    public byte[] legacyEncodeRequest() {
+        // StringEntity copies the String into bytes before sending
+        return legacyCreateRequestBody(nextQuestion()).getBytes(StandardCharsets.UTF_8);
+    }
+    
+    @Benchmark
+    public int streamingEncodeRequest() throws IOException {
+        requestStream.reset();
+        AgentMeshCodec.writeRequest(nextQuestion(), requestStream);
+        return requestStream.size();
+    }
+    
+    @Benchmark
+    public byte[] streamingEncodeRequestBytes() {
+        return AgentMeshCodec.encodeRequest(nextQuestion());
+    }
+    
+    @Benchmark
+    public String legacyDecodeResponse() {
+        // EntityUtils.toString decodes the whole body before it is parsed
+        return legacyParseAnswer(new String(responseBytes, StandardCharsets.UTF_8));
+    }
+    
+    @Benchmark
+    public String streamingDecodeResponse() throws IOException {
+        return AgentMeshCodec.readAnswer(new ByteArrayInputStream(responseBytes));
+    }
+    
+    /**
+     * The request encoding AgentMeshCodec replaced, kept as the baseline
+     */
+    static String legacyCreateRequestBody(String question) {
+        JSONObject requestBody = new JSONObject();
+        requestBody.put("message", question);
+        requestBody.put("model", "solace-chat");
+        return requestBody.toString();
+    }
+    
+    /**
+     * The response decoding AgentMeshCodec replaced, kept as the baseline
+     */
+    static String legacyParseAnswer(String responseString) {
+        JSONObject responseJson = new JSONObject(responseString);
+        return responseJson.has("response") ? responseJson.getString("response") : null;
+    }
+}
\ No newline at end of file
@@ -0,0 +1,86 @@
+package com.solace.twitter.service;
+
+import com.solace.twitter.messaging.InMemoryMessageBroker;
+import com.solace.twitter.messaging.TweetPublisher;
+import com.solace.twitter.model.ProcessedTweet;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import twitter4j.Status;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Recording an answered tweet: the dedupe lookup, the append to the tweet store and the dispatch to
+ * the update listeners the application registers, the tweet publisher and the main window
+ * Uses the in-memory store and broker so only the in-process path is measured
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class ListenerDispatchBenchmark {
+    private static final String ANSWER = "Yes, PubSub+ supports MQTT 5 on every broker edition.";
+    
+    private AgentMeshService agentMeshService;
+    private TwitterService twitterService;
+    private InMemoryMessageBroker broker;
+    private TweetPublisher publisher;
+    private Status[] statuses;
+    private long nextId;
+    private int next;
+    
+    @Setup
+    public void setup() {
+        ConfigManager configManager = new ConfigManager();
+        configManager.setConfig(ConfigManager.STORE_TYPE, "memory");
+        configManager.setConfig(ConfigManager.REPLY_QUEUE_FILE, "");
+        configManager.setConfig(ConfigManager.CACHE_ENABLED, "false");
+        configManager.setConfig(ConfigManager.AUTO_REPLY_ENABLED, "false");
+        
+        agentMeshService = new AgentMeshService(configManager);
+        twitterService = new TwitterService(configManager, agentMeshService);
+        broker = new InMemoryMessageBroker();
+        publisher = new TweetPublisher(broker, "twitter", false, 50, 255, 10000);
+        publisher.start();
+        twitterService.addUpdateListener(publisher);
+        
+        // Stands in for MainFrame, which only flags the table for the next batched update
+        AtomicBoolean tweetsAdded = new AtomicBoolean();
+        twitterService.addUpdateListener(tweet -> tweetsAdded.set(true));
+        
+        statuses = TweetCorpus.get().statuses();
+        nextId = 1;
+        next = 0;
+    }
+    
+    @TearDown
+    public void tearDown() {
+        twitterService.shutdown(1000);
+        publisher.close(1000);
+        broker.close();
+        agentMeshService.close();
+    }
+    
+    @Benchmark
+    public void recordAnsweredTweet() {
+        Status status = statuses[next];
+        next = next + 1 == statuses.length ? 0 : next + 1;
+        
+        // A fresh ID per call, so the tweet is never skipped as already recorded
+        twitterService.recordAnsweredTweet(new ProcessedTweet(nextId++, status.getUser().getScreenName(),
+            status.getUser().getName(), status.getCreatedAt(), status.getText(), status.getText(), ANSWER,
+            false, status.getLang()));
+    }
+}
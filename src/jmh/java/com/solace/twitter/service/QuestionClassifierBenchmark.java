@@ -0,0 +1,79 @@
+package com.solace.twitter.service;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.Arrays;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Per-tweet cost of question detection: the original substring matcher against QuestionClassifier
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class QuestionClassifierBenchmark {
+    private static final String[] TWEETS = {
+        "Just deployed our first event mesh with Solace PubSub+ across three clouds. Latency is great.",
+        "How do I connect to PubSub+ from Spring Boot? The docs mention JCSMP and JMS @solacedotcom",
+        "Scanning the Solace event portal for schema drift this morning #eventdriven #kafka",
+        "Which event broker would you pick for IoT telemetry at 1M msg/s: Solace or Kafka?",
+        "Showhow webinar on event brokers starts in 10 minutes https://t.co/abcdef",
+        "RT @solacedotcom: Event Portal 2.0 is here, design and govern your event-driven architecture",
+        "Our team can't stop talking about the new PubSub+ cloud console",
+        "Loving the replay feature in Solace PubSub+ for debugging consumers"
+    };
+    private static final QuestionClassifier CLASSIFIER = new QuestionClassifier(
+        Arrays.asList("how", "what", "when", "where", "why", "who", "which", "can", "could"));
+    
+    private int next;
+    
+    @Setup
+    public void setup() {
+        next = 0;
+    }
+    
+    private String nextTweet() {
+        String tweet = TWEETS[next];
+        next = (next + 1) % TWEETS.length;
+        return tweet;
+    }
+    
+    @Benchmark
+    public void substringMatcher(Blackhole blackhole) {
+        blackhole.consume(legacyContainsQuestion(nextTweet()));
+    }
+    
+    @Benchmark
+    public void questionClassifier(Blackhole blackhole) {
+        blackhole.consume(CLASSIFIER.containsQuestion(nextTweet()));
+    }
+    
+    /**
+     * The containsQuestion implementation QuestionClassifier replaced, kept as the baseline
+     */
+    static boolean legacyContainsQuestion(String text) {
+        return text.contains("?") ||
+               text.toLowerCase().contains("how") ||
+               text.toLowerCase().contains("what") ||
+               text.toLowerCase().contains("when") ||
+               text.toLowerCase().contains("where") ||
+               text.toLowerCase().contains("why") ||
+               text.toLowerCase().contains("who") ||
+               text.toLowerCase().contains("which") ||
+               text.toLowerCase().contains("can") ||
+               text.toLowerCase().contains("could");
+    }
+}
\ No newline at end of file
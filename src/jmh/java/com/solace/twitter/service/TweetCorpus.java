@@ -0,0 +1,109 @@
+package com.solace.twitter.service;
+
+import twitter4j.Status;
+import twitter4j.TwitterException;
+import twitter4j.TwitterObjectFactory;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Recorded stream statuses shared by the benchmarks, loaded from tweets.jsonl in the benchmark resources
+ * One status JSON object per line, in stream order: a mix of questions, statements, retweets and
+ * non-English tweets matching the default search keywords
+ */
+final class TweetCorpus {
+    private static final String RESOURCE = "/tweets.jsonl";
+    
+    private static volatile TweetCorpus instance;
+    
+    private final String[] rawJson;
+    private final Status[] statuses;
+    
+    private TweetCorpus(String[] rawJson, Status[] statuses) {
+        this.rawJson = rawJson;
+        this.statuses = statuses;
+    }
+    
+    /**
+     * Get the corpus, loading and parsing it on first use
+     * @return Tweet corpus
+     */
+    static TweetCorpus get() {
+        if (instance == null) {
+            synchronized (TweetCorpus.class) {
+                if (instance == null) {
+                    instance = load();
+                }
+            }
+        }
+        return instance;
+    }
+    
+    private static TweetCorpus load() {
+        List<String> lines = new ArrayList<>();
+        try (InputStream in = TweetCorpus.class.getResourceAsStream(RESOURCE)) {
+            if (in == null) {
+                throw new IllegalStateException("Benchmark corpus not found on the classpath: " + RESOURCE);
+            }
+            BufferedReader reader = new BufferedReader(new InputStreamReader(in, StandardCharsets.UTF_8));
+            String line;
+            while ((line = reader.readLine()) != null) {
+                if (!line.isBlank()) {
+                    lines.add(line);
+                }
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException("Failed to read benchmark corpus", e);
+        }
+        
+        String[] rawJson = lines.toArray(new String[0]);
+        Status[] statuses = new Status[rawJson.length];
+        try {
+            for (int i = 0; i < rawJson.length; i++) {
+                statuses[i] = TwitterObjectFactory.createStatus(rawJson[i]);
+            }
+        } catch (TwitterException e) {
+            throw new IllegalStateException("Invalid status in benchmark corpus", e);
+        }
+        return new TweetCorpus(rawJson, statuses);
+    }
+    
+    /**
+     * Get the raw stream messages
+     * @return Status JSON, one message per element
+     */
+    String[] rawJson() {
+        return rawJson.clone();
+    }
+    
+    /**
+     * Get the parsed statuses
+     * @return Statuses in stream order
+     */
+    Status[] statuses() {
+        return statuses.clone();
+    }
+    
+    /**
+     * Get the text of every status
+     * @return Tweet texts in stream order
+     */
+    String[] texts() {
+        String[] texts = new String[statuses.length];
+        for (int i = 0; i < statuses.length; i++) {
+            texts[i] = statuses[i].getText();
+        }
+        return texts;
+    }
+    
+    int size() {
+        return statuses.length;
+    }
+}
@@ -0,0 +1,84 @@
+package com.solace.twitter.service;
+
+import com.solace.twitter.model.ProcessedTweet;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import twitter4j.Status;
+
+import java.util.Arrays;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Per-tweet cost of each classify and reply step of TwitterService, cycling through the recorded corpus
+ * so branch predictors and JIT profiles see the real mix of questions, statements and retweets
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class TweetProcessingBenchmark {
+    // Typical Agent Mesh answer, longer than a tweet so formatReply has to truncate
+    private static final String LONG_ANSWER =
+        "Guaranteed messages move to the DMQ when they exceed the queue's max redelivery count or their TTL "
+        + "expires. Check the queue's max-redelivery setting and whether your consumer rejects messages with "
+        + "a negative acknowledgement; both show up in the queue stats in Broker Manager. If the consumer is "
+        + "simply too slow, raise its window size or add consumers to the non-exclusive queue.";
+    private static final String SHORT_ANSWER = "Yes, PubSub+ supports MQTT 5 on every broker edition.";
+    
+    private static final QuestionClassifier CLASSIFIER = new QuestionClassifier(
+        Arrays.asList("how", "what", "when", "where", "why", "who", "which", "can", "could"));
+    
+    private String[] texts;
+    private Status[] statuses;
+    private int next;
+    
+    @Setup
+    public void setup() {
+        TweetCorpus corpus = TweetCorpus.get();
+        texts = corpus.texts();
+        statuses = corpus.statuses();
+        next = 0;
+    }
+    
+    private int nextIndex() {
+        int index = next;
+        next = index + 1 == texts.length ? 0 : index + 1;
+        return index;
+    }
+    
+    @Benchmark
+    public boolean containsQuestion() {
+        return CLASSIFIER.containsQuestion(texts[nextIndex()]);
+    }
+    
+    @Benchmark
+    public String extractQuestion() {
+        return TwitterService.extractQuestion(texts[nextIndex()]);
+    }
+    
+    @Benchmark
+    public String formatReplyTruncated() {
+        return TwitterService.formatReply(LONG_ANSWER);
+    }
+    
+    @Benchmark
+    public String formatReplyFits() {
+        return TwitterService.formatReply(SHORT_ANSWER);
+    }
+    
+    @Benchmark
+    public ProcessedTweet createProcessedTweet() {
+        Status status = statuses[nextIndex()];
+        return TwitterService.createProcessedTweet(status, status.getText(), SHORT_ANSWER);
+    }
+}
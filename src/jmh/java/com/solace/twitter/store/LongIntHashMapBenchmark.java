@@ -0,0 +1,101 @@
+package com.solace.twitter.store;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Tweet ID index operations: HashMap with boxed keys against LongIntHashMap
+ * The lookup benchmarks probe a full index with random retained IDs; the churn benchmarks add the
+ * next tweet and evict the oldest one, as the ingest dedupe window and history retention do
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class LongIntHashMapBenchmark {
+    // Snowflake IDs: millisecond timestamp, worker and sequence bits
+    private static final long FIRST_TWEET_ID = 1_600_000_000_000_000_000L;
+    
+    @Param({"100000"})
+    private int size;
+    
+    private long[] ids;
+    private int[] probes;
+    private Map<Long, Integer> hashMap;
+    private LongIntHashMap longIntHashMap;
+    private int nextProbe;
+    private int oldest;
+    private long nextId;
+    
+    @Setup
+    public void setup() {
+        Random random = new Random(42);
+        ids = new long[size];
+        long id = FIRST_TWEET_ID;
+        for (int i = 0; i < size; i++) {
+            id += (1 + random.nextInt(50)) << 22;
+            ids[i] = id | random.nextInt(1 << 22);
+        }
+        
+        probes = new int[4096];
+        for (int i = 0; i < probes.length; i++) {
+            probes[i] = random.nextInt(size);
+        }
+        
+        hashMap = new HashMap<>();
+        longIntHashMap = new LongIntHashMap(size);
+        for (int i = 0; i < size; i++) {
+            hashMap.put(ids[i], i);
+            longIntHashMap.put(ids[i], i);
+        }
+        nextProbe = 0;
+        oldest = 0;
+        nextId = id + (1L << 22);
+    }
+    
+    @Benchmark
+    public Integer hashMapLookup() {
+        nextProbe = (nextProbe + 1) & (probes.length - 1);
+        return hashMap.get(ids[probes[nextProbe]]);
+    }
+    
+    @Benchmark
+    public int longIntHashMapLookup() {
+        nextProbe = (nextProbe + 1) & (probes.length - 1);
+        return longIntHashMap.get(ids[probes[nextProbe]]);
+    }
+    
+    @Benchmark
+    public Integer hashMapChurn() {
+        int slot = oldest;
+        oldest = (oldest + 1) % size;
+        hashMap.remove(ids[slot]);
+        ids[slot] = nextId++;
+        return hashMap.put(ids[slot], slot);
+    }
+    
+    @Benchmark
+    public int longIntHashMapChurn() {
+        int slot = oldest;
+        oldest = (oldest + 1) % size;
+        longIntHashMap.remove(ids[slot]);
+        ids[slot] = nextId++;
+        return longIntHashMap.put(ids[slot], slot);
+    }
+}
\ No newline at end of file
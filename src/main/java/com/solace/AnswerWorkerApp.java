@@ -0,0 +1,67 @@
+package com.solace.twitter;
+
+import com.solace.twitter.messaging.AnswerWorker;
+import com.solace.twitter.messaging.MessageBroker;
+import com.solace.twitter.metrics.ApplicationMetrics;
+import com.solace.twitter.metrics.JvmMetrics;
+import com.solace.twitter.metrics.MetricsExporter;
+import com.solace.twitter.metrics.MetricsRegistry;
+import com.solace.twitter.service.AgentMeshService;
+import com.solace.twitter.service.ConfigManager;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Headless answer worker process
+ * Binds to the question queue, answers questions through Solace Agent Mesh and publishes the
+ * answers back to the ingest application. Run as many as needed from the same jar with
+ * the --worker argument
+ */
+public class AnswerWorkerApp {
+    private static final Logger LOGGER = Logger.getLogger(AnswerWorkerApp.class.getName());
+    private static final long SHUTDOWN_TIMEOUT_MS = 5000;
+    
+    public static void main(String[] args) {
+        ConfigManager configManager = new ConfigManager();
+        AgentMeshService agentMeshService = new AgentMeshService(configManager);
+        MessageBroker broker;
+        AnswerWorker worker;
+        try {
+            broker = MessageBroker.fromConfig(configManager);
+            worker = AnswerWorker.fromConfig(configManager, broker, agentMeshService);
+            worker.start();
+        } catch (Exception e) {
+            LOGGER.log(Level.SEVERE, "Failed to start answer worker", e);
+            agentMeshService.close();
+            System.exit(1);
+            return;
+        }
+        
+        // Export metrics over JMX and the HTTP scrape endpoint
+        MetricsRegistry metricsRegistry = new MetricsRegistry();
+        JvmMetrics.register(metricsRegistry);
+        ApplicationMetrics.register(metricsRegistry, worker);
+        ApplicationMetrics.register(metricsRegistry, agentMeshService);
+        MetricsExporter metricsExporter = MetricsExporter.start(configManager, metricsRegistry);
+        
+        // Finish the questions in flight before exiting; the rest stay on the queue for other workers
+        CountDownLatch stopped = new CountDownLatch(1);
+        Runtime.getRuntime().addShutdownHook(new Thread(() -> {
+            worker.close(SHUTDOWN_TIMEOUT_MS);
+            broker.close();
+            agentMeshService.close();
+            metricsExporter.close();
+            LOGGER.info("Answer worker stopped");
+            stopped.countDown();
+        }, "shutdown"));
+        
+        LOGGER.info("Answer worker started");
+        try {
+            stopped.await();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
\ No newline at end of file
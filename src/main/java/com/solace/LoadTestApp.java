@@ -0,0 +1,109 @@
+package com.solace.twitter;
+
+import com.solace.twitter.loadtest.LatencyDistribution;
+import com.solace.twitter.loadtest.LoadTestHarness;
+import com.solace.twitter.loadtest.MockAgentMeshServer;
+import com.solace.twitter.service.AgentMeshService;
+import com.solace.twitter.service.ConfigManager;
+import com.solace.twitter.service.TwitterService;
+
+import java.io.IOException;
+import java.nio.file.Paths;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Headless load test: replays recorded statuses through the processing pipeline
+ * Runs against an embedded mock Agent Mesh unless loadtest.mock.enabled=false, never connects to
+ * the Twitter stream and never replies. Settings come from config.properties and can be
+ * overridden with key=value arguments after --loadtest, which are not saved
+ */
+public class LoadTestApp {
+    private static final Logger LOGGER = Logger.getLogger(LoadTestApp.class.getName());
+    private static final long SHUTDOWN_TIMEOUT_MS = 5000;
+    private static final String PLACEHOLDER_CREDENTIAL = "load-test";
+    
+    public static void main(String[] args) {
+        ConfigManager configManager = new ConfigManager();
+        for (String arg : args) {
+            int separator = arg.indexOf('=');
+            if (separator > 0) {
+                configManager.setConfig(arg.substring(0, separator).trim(), arg.substring(separator + 1).trim());
+            }
+        }
+        
+        // Keep the run self-contained: no persisted history, queues or cache, and no replies
+        configManager.setConfig(ConfigManager.STORE_TYPE, "memory");
+        configManager.setConfig(ConfigManager.REPLY_QUEUE_FILE, "");
+        configManager.setConfig(ConfigManager.CACHE_PERSIST_FILE, "");
+        configManager.setConfig(ConfigManager.AUTO_REPLY_ENABLED, "false");
+        configManager.setConfig(ConfigManager.PIPELINE_ANSWER_MODE, "local");
+        
+        MockAgentMeshServer mockServer = null;
+        if (configManager.getBooleanConfig(ConfigManager.LOADTEST_MOCK_ENABLED)) {
+            try {
+                mockServer = new MockAgentMeshServer(
+                    LatencyDistribution.parse(configManager.getConfig(ConfigManager.LOADTEST_MOCK_LATENCY)),
+                    parseRate(configManager, ConfigManager.LOADTEST_MOCK_ERROR_RATE),
+                    parseRate(configManager, ConfigManager.LOADTEST_MOCK_THROTTLE_RATE),
+                    configManager.getIntConfig(ConfigManager.LOADTEST_MOCK_PORT));
+                mockServer.start();
+            } catch (IOException | IllegalArgumentException e) {
+                LOGGER.log(Level.SEVERE, "Failed to start mock Agent Mesh", e);
+                System.exit(1);
+                return;
+            }
+            configManager.setConfig(ConfigManager.AGENT_MESH_ENDPOINT, mockServer.getEndpoint());
+            fillCredential(configManager, ConfigManager.AGENT_MESH_API_KEY);
+        }
+        
+        // The Twitter client is created but never used, so it only needs credentials to pass validation
+        fillCredential(configManager, ConfigManager.TWITTER_API_KEY);
+        fillCredential(configManager, ConfigManager.TWITTER_API_SECRET);
+        fillCredential(configManager, ConfigManager.TWITTER_ACCESS_TOKEN);
+        fillCredential(configManager, ConfigManager.TWITTER_ACCESS_SECRET);
+        if (!configManager.isConfigValid()) {
+            LOGGER.severe("Cannot run load test: config.properties is missing or incomplete");
+            System.exit(1);
+            return;
+        }
+        
+        AgentMeshService agentMeshService = new AgentMeshService(configManager);
+        TwitterService twitterService = new TwitterService(configManager, agentMeshService);
+        boolean drained = false;
+        try {
+            LoadTestHarness harness = LoadTestHarness.fromConfig(configManager, twitterService, agentMeshService);
+            harness.load(Paths.get(configManager.getConfig(ConfigManager.LOADTEST_FILE)));
+            drained = harness.run(configManager.getIntConfig(ConfigManager.LOADTEST_DRAIN_TIMEOUT_MS));
+            
+            System.out.println();
+            System.out.print(harness.formatReport());
+            if (mockServer != null) {
+                System.out.println(mockServer);
+            }
+        } catch (IOException | IllegalArgumentException e) {
+            LOGGER.log(Level.SEVERE, "Load test failed", e);
+        } finally {
+            twitterService.shutdown(SHUTDOWN_TIMEOUT_MS);
+            agentMeshService.close();
+            if (mockServer != null) {
+                mockServer.close();
+            }
+        }
+        System.exit(drained ? 0 : 1);
+    }
+    
+    private static void fillCredential(ConfigManager configManager, String key) {
+        if (configManager.getConfig(key).isEmpty()) {
+            configManager.setConfig(key, PLACEHOLDER_CREDENTIAL);
+        }
+    }
+    
+    private static double parseRate(ConfigManager configManager, String key) {
+        try {
+            return Double.parseDouble(configManager.getConfig(key).trim());
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("Invalid rate for " + key + ": " + configManager.getConfig(key), e);
+        }
+    }
+}
\ No newline at end of file
@@ -1,12 +1,25 @@
 package com.solace.twitter;
 
-import com.formdev.flatlaf.FlatLightLaf;
-import com.solace.twitter.gui.MainFrame;
+import com.solace.twitter.gui.DesktopUi;
+import com.solace.twitter.messaging.AnswerWorker;
+import com.solace.twitter.messaging.InMemoryMessageBroker;
+import com.solace.twitter.messaging.RemoteAnswerClient;
+import com.solace.twitter.messaging.TweetPublisher;
+import com.solace.twitter.metrics.ApplicationMetrics;
+import com.solace.twitter.metrics.JvmMetrics;
+import com.solace.twitter.metrics.MetricsExporter;
+import com.solace.twitter.metrics.MetricsRegistry;
 import com.solace.twitter.service.AgentMeshService;
 import com.solace.twitter.service.ConfigManager;
+import com.solace.twitter.service.ConfigWatcher;
 import com.solace.twitter.service.TwitterService;
 
-import javax.swing.*;
+import java.io.IOException;
+import java.lang.management.ManagementFactory;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.util.Arrays;
+import java.util.concurrent.CountDownLatch;
 import java.util.logging.Level;
 import java.util.logging.Logger;
 
@@ -15,58 +28,96 @@ import java.util.logging.Logger;
  * This application monitors Twitter for Solace-related questions,
  * processes them through Solace Agent Mesh, and can optionally
  * reply with AI-generated answers.
+ * With --headless or app.headless=true it runs without a user interface and
+ * never loads AWT or Swing classes; this class must not reference them directly.
  */
 public class SolaceTwitterApp {
     private static final Logger LOGGER = Logger.getLogger(SolaceTwitterApp.class.getName());
+    private static final long SHUTDOWN_TIMEOUT_MS = 5000;
     
-    private ConfigManager configManager;
+    private final ConfigManager configManager;
     private TwitterService twitterService;
     private AgentMeshService agentMeshService;
-    private MainFrame mainFrame;
+    private TweetPublisher tweetPublisher;
+    private RemoteAnswerClient remoteAnswerClient;
+    private AnswerWorker localAnswerWorker;
+    private MetricsExporter metricsExporter;
+    private ConfigWatcher configWatcher;
+    private DesktopUi desktopUi;
+    private final boolean headless;
+    private final CountDownLatch stopped = new CountDownLatch(1);
     
-    public SolaceTwitterApp() {
+    public SolaceTwitterApp(ConfigManager configManager, boolean headless) {
+        this.configManager = configManager;
+        this.headless = headless;
         initializeServices();
-        initializeGUI();
+        if (!headless) {
+            initializeGUI();
+        }
     }
     
     private void initializeServices() {
         try {
-            // Initialize configuration manager
-            configManager = new ConfigManager();
-            
             // Initialize Agent Mesh service
             agentMeshService = new AgentMeshService(configManager);
             
             // Initialize Twitter service
             twitterService = new TwitterService(configManager, agentMeshService);
             
+            // Publish processed tweets to Solace topics if enabled
+            tweetPublisher = TweetPublisher.fromConfig(configManager);
+            if (tweetPublisher != null) {
+                tweetPublisher.start();
+                twitterService.addUpdateListener(tweetPublisher);
+            }
+            
+            // Hand questions to answer workers through the broker if configured
+            remoteAnswerClient = RemoteAnswerClient.fromConfig(configManager, twitterService::recordAnsweredTweet);
+            if (remoteAnswerClient != null) {
+                remoteAnswerClient.start();
+                twitterService.setQuestionDispatcher(remoteAnswerClient::dispatch);
+                
+                // Workers in other processes cannot reach the in-process broker, so run one here
+                if (remoteAnswerClient.getBroker() instanceof InMemoryMessageBroker) {
+                    localAnswerWorker = AnswerWorker.fromConfig(configManager, remoteAnswerClient.getBroker(), agentMeshService);
+                    localAnswerWorker.start();
+                }
+            }
+            
+            // Export metrics over JMX and the HTTP scrape endpoint
+            MetricsRegistry metricsRegistry = new MetricsRegistry();
+            JvmMetrics.register(metricsRegistry);
+            ApplicationMetrics.register(metricsRegistry, twitterService, agentMeshService);
+            if (localAnswerWorker != null) {
+                ApplicationMetrics.register(metricsRegistry, localAnswerWorker);
+            }
+            metricsExporter = MetricsExporter.start(configManager, metricsRegistry);
+            
+            // Apply changes to config.properties without a restart
+            configWatcher = ConfigWatcher.start(configManager);
+            
+            // Drain in-flight work and flush persistent state on exit
+            Runtime.getRuntime().addShutdownHook(new Thread(this::shutdown, "shutdown"));
+            
             LOGGER.info("All services initialized successfully");
         } catch (Exception e) {
             LOGGER.log(Level.SEVERE, "Failed to initialize services", e);
-            JOptionPane.showMessageDialog(null, 
-                "Failed to initialize application services: " + e.getMessage(),
-                "Initialization Error", 
-                JOptionPane.ERROR_MESSAGE);
+            if (!headless) {
+                DesktopUi.showStartupError("Initialization Error",
+                    "Failed to initialize application services: " + e.getMessage());
+            }
             System.exit(1);
         }
     }
     
     private void initializeGUI() {
         try {
-            // Set the look and feel
-            FlatLightLaf.setup();
-            
-            // Create and show the main frame
-            SwingUtilities.invokeLater(() -> {
-                mainFrame = new MainFrame(configManager, twitterService, agentMeshService);
-                mainFrame.setVisible(true);
-            });
+            desktopUi = new DesktopUi(configManager, twitterService, agentMeshService);
+            desktopUi.show(() -> logStartup("GUI shown"));
         } catch (Exception e) {
             LOGGER.log(Level.SEVERE, "Failed to initialize GUI", e);
-            JOptionPane.showMessageDialog(null, 
-                "Failed to initialize application GUI: " + e.getMessage(),
-                "GUI Error", 
-                JOptionPane.ERROR_MESSAGE);
+            DesktopUi.showStartupError("GUI Error",
+                "Failed to initialize application GUI: " + e.getMessage());
             System.exit(1);
         }
     }
@@ -76,17 +127,106 @@ public class SolaceTwitterApp {
             // Start the Twitter service
             twitterService.startMonitoring();
             LOGGER.info("Application started successfully");
+            if (headless) {
+                logStartup("Headless services started");
+            }
         } catch (Exception e) {
             LOGGER.log(Level.SEVERE, "Failed to start application", e);
-            JOptionPane.showMessageDialog(mainFrame, 
-                "Failed to start application: " + e.getMessage(),
-                "Startup Error", 
-                JOptionPane.ERROR_MESSAGE);
+            if (headless) {
+                // Nobody can fix the configuration without the window, so stop through the shutdown hook
+                System.exit(1);
+            }
+            desktopUi.showError("Startup Error", "Failed to start application: " + e.getMessage());
+        }
+    }
+    
+    /**
+     * Block until the shutdown hook has drained the services
+     */
+    public void awaitShutdown() {
+        try {
+            stopped.await();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+    
+    /**
+     * Log the time since JVM start and the resident set size
+     * @param milestone Startup milestone reached
+     */
+    private static void logStartup(String milestone) {
+        long uptimeMillis = ManagementFactory.getRuntimeMXBean().getUptime();
+        LOGGER.info(milestone + " " + uptimeMillis + " ms after JVM start, " + describeMemory());
+    }
+    
+    /**
+     * Describe the memory use of the process
+     * @return Resident set size on Linux, otherwise used heap
+     */
+    private static String describeMemory() {
+        try {
+            for (String line : Files.readAllLines(Paths.get("/proc/self/status"))) {
+                if (line.startsWith("VmRSS:")) {
+                    return "RSS " + line.substring("VmRSS:".length()).trim();
+                }
+            }
+        } catch (IOException | RuntimeException e) {
+            // Not on Linux
+        }
+        Runtime runtime = Runtime.getRuntime();
+        return "heap used " + (runtime.totalMemory() - runtime.freeMemory()) / (1024 * 1024) + " MB";
+    }
+    
+    /**
+     * Stop the services, draining queued tweets and persisting state
+     */
+    private void shutdown() {
+        if (configWatcher != null) {
+            configWatcher.close();
         }
+        twitterService.shutdown(SHUTDOWN_TIMEOUT_MS);
+        if (localAnswerWorker != null) {
+            localAnswerWorker.close(SHUTDOWN_TIMEOUT_MS);
+        }
+        if (remoteAnswerClient != null) {
+            remoteAnswerClient.close(SHUTDOWN_TIMEOUT_MS);
+        }
+        if (tweetPublisher != null) {
+            tweetPublisher.close(SHUTDOWN_TIMEOUT_MS);
+        }
+        agentMeshService.close();
+        if (metricsExporter != null) {
+            metricsExporter.close();
+        }
+        LOGGER.info("Application stopped");
+        stopped.countDown();
     }
     
     public static void main(String[] args) {
-        SolaceTwitterApp app = new SolaceTwitterApp();
+        // Run as a headless answer worker instead of the ingest application
+        if (Arrays.asList(args).contains("--worker")) {
+            AnswerWorkerApp.main(args);
+            return;
+        }
+        
+        // Replay recorded statuses against a mock Agent Mesh instead of monitoring Twitter
+        if (Arrays.asList(args).contains("--loadtest")) {
+            LoadTestApp.main(args);
+            return;
+        }
+        
+        ConfigManager configManager = new ConfigManager();
+        boolean headless = Arrays.asList(args).contains("--headless")
+            || configManager.getBooleanConfig(ConfigManager.APP_HEADLESS)
+            || Boolean.getBoolean("java.awt.headless");
+        
+        SolaceTwitterApp app = new SolaceTwitterApp(configManager, headless);
         app.start();
+        
+        // Without a window nothing else keeps the JVM alive until it is signalled to stop
+        if (headless) {
+            app.awaitShutdown();
+        }
     }
 }
\ No newline at end of file
@@ -0,0 +1,63 @@
+package com.solace.twitter.gui;
+
+import com.formdev.flatlaf.FlatLightLaf;
+import com.solace.twitter.service.AgentMeshService;
+import com.solace.twitter.service.ConfigManager;
+import com.solace.twitter.service.TwitterService;
+
+import javax.swing.*;
+
+/**
+ * Entry point to the Swing user interface
+ * All AWT and Swing class loading starts here, so the application can run headless without it
+ */
+public class DesktopUi {
+    private final ConfigManager configManager;
+    private final TwitterService twitterService;
+    private final AgentMeshService agentMeshService;
+    private volatile MainFrame mainFrame;
+    
+    public DesktopUi(ConfigManager configManager, TwitterService twitterService, AgentMeshService agentMeshService) {
+        this.configManager = configManager;
+        this.twitterService = twitterService;
+        this.agentMeshService = agentMeshService;
+    }
+    
+    /**
+     * Set the look and feel and show the main frame
+     * @param onShown Called on the event dispatch thread once the frame is visible
+     */
+    public void show(Runnable onShown) {
+        // Set the look and feel
+        FlatLightLaf.setup();
+        
+        // Create and show the main frame
+        SwingUtilities.invokeLater(() -> {
+            mainFrame = new MainFrame(configManager, twitterService, agentMeshService);
+            mainFrame.setVisible(true);
+            onShown.run();
+        });
+    }
+    
+    /**
+     * Show an error dialog over the main frame, if it is shown yet
+     * @param title Dialog title
+     * @param message Error message
+     */
+    public void showError(String title, String message) {
+        showError(mainFrame, title, message);
+    }
+    
+    /**
+     * Show an error dialog before the user interface exists
+     * @param title Dialog title
+     * @param message Error message
+     */
+    public static void showStartupError(String title, String message) {
+        showError(null, title, message);
+    }
+    
+    private static void showError(MainFrame parent, String title, String message) {
+        JOptionPane.showMessageDialog(parent, message, title, JOptionPane.ERROR_MESSAGE);
+    }
+}
\ No newline at end of file
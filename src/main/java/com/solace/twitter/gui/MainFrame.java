@@ -1,39 +1,55 @@
 package com.solace.twitter.gui;
 
 import com.solace.twitter.model.ProcessedTweet;
+import com.solace.twitter.model.TweetTiming;
+import com.solace.twitter.service.AdmissionQueue;
 import com.solace.twitter.service.AgentMeshService;
+import com.solace.twitter.service.AnswerCache;
+import com.solace.twitter.service.CircuitBreaker;
 import com.solace.twitter.service.ConfigManager;
+import com.solace.twitter.service.NearDuplicateDetector;
+import com.solace.twitter.service.PipelineStage;
 import com.solace.twitter.service.TwitterService;
 
+
 import javax.swing.*;
 import javax.swing.border.EmptyBorder;
-import javax.swing.table.DefaultTableModel;
 import java.awt.*;
 import java.awt.event.ActionEvent;
 import java.awt.event.MouseAdapter;
 import java.awt.event.MouseEvent;
-import java.text.SimpleDateFormat;
 import java.util.List;
+import java.util.concurrent.atomic.AtomicReference;
 
 /**
  * Main application window
  */
 public class MainFrame extends JFrame implements TwitterService.TweetUpdateListener {
-    private static final SimpleDateFormat DATE_FORMAT = new SimpleDateFormat("yyyy-MM-dd HH:mm:ss");
+    private static final long serialVersionUID = 1L;
+    private static final int STATS_REFRESH_MS = 1000;
     
     private final ConfigManager configManager;
     private final TwitterService twitterService;
     private final AgentMeshService agentMeshService;
     
     private JTable tweetsTable;
-    private DefaultTableModel tableModel;
+    private TweetTableModel tableModel;
+    private TableUpdateDispatcher updateDispatcher;
     private JTextArea tweetTextArea;
     private JTextArea questionTextArea;
     private JTextArea answerTextArea;
+    private JTextArea timingTextArea;
     private JButton replyButton;
     private JButton settingsButton;
     private JButton startStopButton;
     private JLabel statusLabel;
+    private JLabel pipelineLabel;
+    
+    // Twitter ID of the tweet shown in the detail panel, stable while rows are trimmed
+    private long selectedTweetId = -1;
+    
+    // Latest partial answer streamed from Agent Mesh and not yet shown, null once the EDT has taken it
+    private final AtomicReference<AnswerProgress> pendingAnswerProgress = new AtomicReference<>();
     
     public MainFrame(ConfigManager configManager, TwitterService twitterService, AgentMeshService agentMeshService) {
         this.configManager = configManager;
@@ -43,8 +59,15 @@ public class MainFrame extends JFrame implements TwitterService.TweetUpdateListe
         initializeUI();
         loadTweets();
         
+        // Apply tweet updates to the table in batches, at most once per flush interval
+        updateDispatcher = new TableUpdateDispatcher(tableModel, configManager.getIntConfig(ConfigManager.GUI_FLUSH_INTERVAL_MS));
+        updateDispatcher.start();
+        
         // Register as listener for tweet updates
         twitterService.addUpdateListener(this);
+        
+        // Periodically show pipeline queue depths and Agent Mesh health
+        new Timer(STATS_REFRESH_MS, e -> updatePipelineStatus()).start();
     }
     
     /**
@@ -83,18 +106,8 @@ public class MainFrame extends JFrame implements TwitterService.TweetUpdateListe
      * Create the tweets table
      */
     private void createTweetsTable() {
-        // Create table model with columns
-        tableModel = new DefaultTableModel() {
-            @Override
-            public boolean isCellEditable(int row, int column) {
-                return false;
-            }
-        };
-        
-        tableModel.addColumn("Date");
-        tableModel.addColumn("Username");
-        tableModel.addColumn("Tweet");
-        tableModel.addColumn("Replied");
+        // Create table model that reads rows from the tweet store on demand
+        tableModel = new TweetTableModel(twitterService);
         
         // Create table
         tweetsTable = new JTable(tableModel);
@@ -164,10 +177,17 @@ public class MainFrame extends JFrame implements TwitterService.TweetUpdateListe
         answerTextArea.setWrapStyleWord(true);
         JScrollPane answerScrollPane = new JScrollPane(answerTextArea);
         
+        // Create timing text area, monospaced so the durations line up
+        timingTextArea = new JTextArea();
+        timingTextArea.setEditable(false);
+        timingTextArea.setFont(new Font(Font.MONOSPACED, Font.PLAIN, timingTextArea.getFont().getSize()));
+        JScrollPane timingScrollPane = new JScrollPane(timingTextArea);
+        
         // Add tabs
         tabbedPane.addTab("Tweet", tweetScrollPane);
         tabbedPane.addTab("Question", questionScrollPane);
         tabbedPane.addTab("Answer", answerScrollPane);
+        tabbedPane.addTab("Timing", timingScrollPane);
         
         // Create reply button
         replyButton = new JButton("Reply with AI Answer");
@@ -192,6 +212,8 @@ public class MainFrame extends JFrame implements TwitterService.TweetUpdateListe
         JPanel leftPanel = new JPanel(new FlowLayout(FlowLayout.LEFT));
         statusLabel = new JLabel("Status: Not monitoring");
         leftPanel.add(statusLabel);
+        pipelineLabel = new JLabel();
+        leftPanel.add(pipelineLabel);
         
         // Create right panel for buttons
         JPanel rightPanel = new JPanel(new FlowLayout(FlowLayout.RIGHT));
@@ -219,29 +241,7 @@ public class MainFrame extends JFrame implements TwitterService.TweetUpdateListe
      * Load tweets from the Twitter service
      */
     private void loadTweets() {
-        // Clear table
-        tableModel.setRowCount(0);
-        
-        // Get tweets from service
-        List<ProcessedTweet> tweets = twitterService.getProcessedTweets();
-        
-        // Add tweets to table
-        for (ProcessedTweet tweet : tweets) {
-            addTweetToTable(tweet);
-        }
-    }
-    
-    /**
-     * Add a tweet to the table
-     * @param tweet Processed tweet
-     */
-    private void addTweetToTable(ProcessedTweet tweet) {
-        tableModel.addRow(new Object[]{
-            DATE_FORMAT.format(tweet.getCreatedAt()),
-            tweet.getUsername(),
-            tweet.getTweetText(),
-            tweet.isReplied() ? "Yes" : "No"
-        });
+        tableModel.refresh();
     }
     
     /**
@@ -249,27 +249,60 @@ public class MainFrame extends JFrame implements TwitterService.TweetUpdateListe
      * @param row Table row
      */
     private void displayTweetDetails(int row) {
-        List<ProcessedTweet> tweets = twitterService.getProcessedTweets();
-        if (row >= 0 && row < tweets.size()) {
-            ProcessedTweet tweet = tweets.get(row);
+        ProcessedTweet tweet = tableModel.getTweet(row);
+        if (tweet != null) {
+            selectedTweetId = tweet.getTweetId();
             
             tweetTextArea.setText(tweet.getTweetText());
             questionTextArea.setText(tweet.getExtractedQuestion());
             answerTextArea.setText(tweet.getAnswer());
+            timingTextArea.setText(formatTiming(tweet.getTiming()));
             
             replyButton.setEnabled(!tweet.isReplied());
         }
     }
     
+    /**
+     * Format the time a tweet spent in each processing step
+     * @param timing Timing of the tweet, or null if it was processed before timings were recorded
+     * @return One line per step and the total
+     */
+    private static String formatTiming(TweetTiming timing) {
+        if (timing == null) {
+            return "No timing recorded for this tweet";
+        }
+        
+        StringBuilder text = new StringBuilder();
+        for (TweetTiming.Span span : TweetTiming.Span.values()) {
+            text.append(String.format("%-14s %10s%n", span.getLabel(), formatDuration(timing.getDurationMicros(span))));
+        }
+        text.append(String.format("%-14s %10s", "Total", formatDuration(timing.getTotalMicros())));
+        return text.toString();
+    }
+    
+    /**
+     * Format a duration in the unit that suits it
+     * @param micros Duration in microseconds, negative if unknown
+     * @return Formatted duration, or "-" if unknown
+     */
+    private static String formatDuration(long micros) {
+        if (micros < 0) {
+            return "-";
+        } else if (micros < 1000) {
+            return micros + " \u00b5s";
+        } else if (micros < 1_000_000) {
+            return String.format("%.1f ms", micros / 1000.0);
+        }
+        return String.format("%.2f s", micros / 1_000_000.0);
+    }
+    
     /**
      * Open tweet in browser
      * @param row Table row
      */
     private void openTweetInBrowser(int row) {
-        List<ProcessedTweet> tweets = twitterService.getProcessedTweets();
-        if (row >= 0 && row < tweets.size()) {
-            ProcessedTweet tweet = tweets.get(row);
-            
+        ProcessedTweet tweet = tableModel.getTweet(row);
+        if (tweet != null) {
             try {
                 Desktop.getDesktop().browse(new java.net.URI(tweet.getTwitterUrl()));
             } catch (Exception e) {
@@ -286,12 +319,9 @@ public class MainFrame extends JFrame implements TwitterService.TweetUpdateListe
      * @param e Action event
      */
     private void replyToTweet(ActionEvent e) {
-        int selectedRow = tweetsTable.getSelectedRow();
-        if (selectedRow >= 0) {
-            List<ProcessedTweet> tweets = twitterService.getProcessedTweets();
-            if (selectedRow < tweets.size()) {
-                ProcessedTweet tweet = tweets.get(selectedRow);
-                
+        if (tweetsTable.getSelectedRow() >= 0) {
+            ProcessedTweet tweet = twitterService.findProcessedTweet(selectedTweetId);
+            if (tweet != null) {
                 // Confirm reply
                 int result = JOptionPane.showConfirmDialog(this,
                     "Are you sure you want to reply to this tweet with the AI-generated answer?",
@@ -299,26 +329,18 @@ public class MainFrame extends JFrame implements TwitterService.TweetUpdateListe
                     JOptionPane.YES_NO_OPTION);
                 
                 if (result == JOptionPane.YES_OPTION) {
-                    try {
-                        // Reply to tweet
-                        twitterService.replyToTweet(tweet);
-                        
-                        // Update table
-                        tableModel.setValueAt("Yes", selectedRow, 3);
-                        
-                        // Disable reply button
-                        replyButton.setEnabled(false);
-                        
-                        JOptionPane.showMessageDialog(this,
-                            "Reply sent successfully!",
-                            "Success",
-                            JOptionPane.INFORMATION_MESSAGE);
-                    } catch (Exception ex) {
-                        JOptionPane.showMessageDialog(this,
-                            "Failed to send reply: " + ex.getMessage(),
-                            "Error",
-                            JOptionPane.ERROR_MESSAGE);
-                    }
+                    // Queue the reply; it is sent when Twitter's rate limits allow
+                    boolean queued = twitterService.replyToTweet(tweet);
+                    
+                    // Disable reply button
+                    replyButton.setEnabled(false);
+                    
+                    JOptionPane.showMessageDialog(this,
+                        queued ? "Reply queued, it will be sent within Twitter's rate limits. "
+                            + twitterService.getReplyScheduler().getQueueDepth() + " replies waiting."
+                            : "A reply to this tweet is already queued.",
+                        "Reply Queued",
+                        JOptionPane.INFORMATION_MESSAGE);
                 }
             }
         }
@@ -367,15 +389,104 @@ public class MainFrame extends JFrame implements TwitterService.TweetUpdateListe
         }
     }
     
+    /**
+     * Show the current queue depth of each pipeline stage, the answer cache hit ratio, load shedding and the circuit breaker state while Agent Mesh is unavailable
+     */
+    private void updatePipelineStatus() {
+        List<PipelineStage.Stats> pipelineStats = twitterService.getPipelineStats();
+        StringBuilder text = new StringBuilder("Queues:");
+        for (PipelineStage.Stats stats : pipelineStats) {
+            text.append(' ').append(stats.getName()).append(' ')
+                .append(stats.getDepth()).append('/').append(stats.getCapacity());
+        }
+        
+        AnswerCache answerCache = agentMeshService.getAnswerCache();
+        if (answerCache != null) {
+            text.append(" | Cache: ").append(Math.round(answerCache.getHitRatio() * 100)).append("% hits");
+        }
+        
+        AdmissionQueue answerQueue = twitterService.getAnswerQueue();
+        if (answerQueue != null && answerQueue.isOverloaded()) {
+            text.append(" | Shedding low-priority questions, wait ").append(answerQueue.getLastWaitMillis() / 1000).append(" s");
+        }
+        
+        CircuitBreaker circuitBreaker = agentMeshService.getCircuitBreaker();
+        CircuitBreaker.State circuitState = circuitBreaker.getState();
+        if (circuitState != CircuitBreaker.State.CLOSED) {
+            text.append(" | Agent Mesh ").append(circuitState == CircuitBreaker.State.OPEN ? "unavailable" : "recovering")
+                .append(", ").append(twitterService.getParkedQuestionCount()).append(" questions waiting");
+        }
+        
+        pipelineLabel.setText(text.toString());
+        NearDuplicateDetector duplicateDetector = agentMeshService.getDuplicateDetector();
+        pipelineLabel.setToolTipText(pipelineStats + " duplicateTweets=" + twitterService.getDuplicateTweets() +
+            " " + updateDispatcher + " " + twitterService.getReplyScheduler() +
+            (answerQueue != null ? " " + answerQueue : "") +
+            " " + circuitBreaker + " " + agentMeshService.getRetryBudget() +
+            " parkedQuestions=" + twitterService.getParkedQuestionCount() +
+            " droppedQuestions=" + twitterService.getDroppedQuestionCount() +
+            (answerCache != null ? " " + answerCache : "") +
+            (duplicateDetector != null ? " " + duplicateDetector : ""));
+    }
+    
     /**
      * Handle tweet update event
      * @param tweet Processed tweet
      */
     @Override
     public void onTweetProcessed(ProcessedTweet tweet) {
-        // Add tweet to table on EDT
-        SwingUtilities.invokeLater(() -> {
-            addTweetToTable(tweet);
-        });
+        // Added to the table with the next batch on the EDT
+        updateDispatcher.tweetAdded();
+    }
+    
+    /**
+     * Handle tweet reply event
+     * @param tweet Processed tweet
+     */
+    @Override
+    public void onTweetReplied(ProcessedTweet tweet) {
+        updateDispatcher.tweetChanged(tweet.getTweetId());
+    }
+    
+    /**
+     * Handle streamed answer progress
+     * Updates are coalesced: the EDT is only asked to repaint once the previous update has been shown
+     * @param tweetId Twitter ID of the tweet asking the question
+     * @param question Extracted question
+     * @param partialAnswer Answer received so far
+     */
+    @Override
+    public void onAnswerProgress(long tweetId, String question, String partialAnswer) {
+        if (pendingAnswerProgress.getAndSet(new AnswerProgress(question, partialAnswer)) == null) {
+            SwingUtilities.invokeLater(this::showAnswerProgress);
+        }
+    }
+    
+    /**
+     * Show the latest streamed answer in the detail panel while no tweet is selected
+     */
+    private void showAnswerProgress() {
+        AnswerProgress progress = pendingAnswerProgress.getAndSet(null);
+        if (progress == null || tweetsTable.getSelectedRow() >= 0) {
+            return;
+        }
+        
+        questionTextArea.setText(progress.question);
+        answerTextArea.setText(progress.partialAnswer);
+        timingTextArea.setText("");
+        replyButton.setEnabled(false);
+    }
+    
+    /**
+     * Partial answer to a question being streamed from Agent Mesh
+     */
+    private static final class AnswerProgress {
+        private final String question;
+        private final String partialAnswer;
+        
+        AnswerProgress(String question, String partialAnswer) {
+            this.question = question;
+            this.partialAnswer = partialAnswer;
+        }
     }
 }
\ No newline at end of file
@@ -11,6 +11,8 @@ import java.awt.event.ActionEvent;
  * Dialog for configuring application settings
  */
 public class SettingsDialog extends JDialog {
+    private static final long serialVersionUID = 1L;
+    
     private final ConfigManager configManager;
     
     private JTextField twitterApiKeyField;
@@ -0,0 +1,130 @@
+package com.solace.twitter.gui;
+
+import javax.swing.Timer;
+import java.util.Iterator;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Coalesces tweet updates from pipeline threads into batched table updates on the event dispatch thread
+ * Pipeline threads only record that something changed; a Swing timer applies everything recorded
+ * since the previous tick in one pass, so a burst of tweets costs one row insertion event and one
+ * repaint per frame instead of one per tweet
+ */
+public class TableUpdateDispatcher {
+    private final TweetTableModel tableModel;
+    private final Timer timer;
+    private final int intervalMillis;
+    
+    // Pending work, written by pipeline threads and drained on the event dispatch thread
+    private final AtomicBoolean tweetsAdded = new AtomicBoolean();
+    private final Set<Long> changedTweetIds = ConcurrentHashMap.newKeySet();
+    
+    // Runtime counters
+    private final AtomicLong updates = new AtomicLong();
+    private final AtomicLong flushes = new AtomicLong();
+    private final AtomicLong droppedFrames = new AtomicLong();
+    private volatile long maxFlushNanos = 0;
+    private long lastTick = 0;
+    
+    /**
+     * Constructor for TableUpdateDispatcher
+     * @param tableModel Table model to update
+     * @param intervalMillis Minimum time between two flushes in milliseconds
+     */
+    public TableUpdateDispatcher(TweetTableModel tableModel, int intervalMillis) {
+        this.tableModel = tableModel;
+        this.intervalMillis = Math.max(1, intervalMillis);
+        this.timer = new Timer(this.intervalMillis, e -> flush());
+        this.timer.setCoalesce(true);
+    }
+    
+    public void start() {
+        timer.start();
+    }
+    
+    public void stop() {
+        timer.stop();
+    }
+    
+    /**
+     * Record that new tweets were processed
+     * Safe to call from any thread
+     */
+    public void tweetAdded() {
+        updates.incrementAndGet();
+        tweetsAdded.set(true);
+    }
+    
+    /**
+     * Record that the state of a tweet changed
+     * Safe to call from any thread
+     * @param tweetId Twitter ID of the tweet
+     */
+    public void tweetChanged(long tweetId) {
+        updates.incrementAndGet();
+        changedTweetIds.add(tweetId);
+    }
+    
+    /**
+     * Apply the pending updates to the table model
+     * Runs on the event dispatch thread
+     */
+    private void flush() {
+        long start = System.nanoTime();
+        
+        // Frames the timer could not fire on time because the event dispatch thread was busy
+        if (lastTick != 0) {
+            long late = (start - lastTick) / 1_000_000L / intervalMillis - 1;
+            if (late > 0) {
+                droppedFrames.addAndGet(late);
+            }
+        }
+        lastTick = start;
+        
+        boolean added = tweetsAdded.getAndSet(false);
+        if (!added && changedTweetIds.isEmpty()) {
+            return;
+        }
+        
+        if (added) {
+            tableModel.refresh();
+        }
+        for (Iterator<Long> iterator = changedTweetIds.iterator(); iterator.hasNext(); ) {
+            tableModel.tweetUpdated(iterator.next());
+            iterator.remove();
+        }
+        
+        flushes.incrementAndGet();
+        maxFlushNanos = Math.max(maxFlushNanos, System.nanoTime() - start);
+    }
+    
+    public long getUpdates() {
+        return updates.get();
+    }
+    
+    public long getFlushes() {
+        return flushes.get();
+    }
+    
+    public long getDroppedFrames() {
+        return droppedFrames.get();
+    }
+    
+    public long getMaxFlushMillis() {
+        return maxFlushNanos / 1_000_000L;
+    }
+    
+    @Override
+    public String toString() {
+        return "TableUpdateDispatcher{" +
+                "intervalMillis=" + intervalMillis +
+                ", updates=" + updates +
+                ", flushes=" + flushes +
+                ", droppedFrames=" + droppedFrames +
+                ", maxFlushMillis=" + getMaxFlushMillis() +
+                '}';
+    }
+}
\ No newline at end of file
@@ -0,0 +1,159 @@
+package com.solace.twitter.gui;
+
+import com.solace.twitter.model.ProcessedTweet;
+import com.solace.twitter.service.TwitterService;
+
+import javax.swing.table.AbstractTableModel;
+import java.time.ZoneId;
+import java.time.format.DateTimeFormatter;
+
+/**
+ * Table model that reads processed tweets lazily from the Twitter service
+ * Rows are not copied into the model: each cell is formatted on demand from the tweet store,
+ * so memory use does not depend on the number of rows. The model only tracks which span of the
+ * history it has announced to the table, and turns appends and retention trims into row events.
+ * All methods must be called on the event dispatch thread
+ */
+public class TweetTableModel extends AbstractTableModel {
+    private static final long serialVersionUID = 1L;
+    private static final String[] COLUMNS = {"Date", "Username", "Tweet", "Replied"};
+    private static final DateTimeFormatter DATE_FORMAT =
+        DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm:ss").withZone(ZoneId.systemDefault());
+    
+    private final TwitterService twitterService;
+    
+    // Rows announced to the table: history ordinals firstOrdinal to firstOrdinal + rowCount - 1
+    private long firstOrdinal = 0;
+    private int rowCount = 0;
+    
+    // The table asks for each column of a row in turn, so keep the last tweet read
+    private int cachedRow = -1;
+    private ProcessedTweet cachedTweet;
+    
+    /**
+     * Constructor for TweetTableModel
+     * @param twitterService Twitter service holding the processed tweets
+     */
+    public TweetTableModel(TwitterService twitterService) {
+        this.twitterService = twitterService;
+    }
+    
+    /**
+     * Catch up with the tweet history, firing deletions for trimmed rows and one insertion for new rows
+     */
+    public void refresh() {
+        // Read a size that matches the trim count, retrying if a trim happened in between
+        long trimmed;
+        int size;
+        do {
+            trimmed = twitterService.getTrimmedTweetCount();
+            size = twitterService.getProcessedTweetCount();
+        } while (trimmed != twitterService.getTrimmedTweetCount());
+        
+        cachedRow = -1;
+        cachedTweet = null;
+        
+        if (trimmed > firstOrdinal) {
+            int removed = (int) Math.min(rowCount, trimmed - firstOrdinal);
+            firstOrdinal = trimmed;
+            if (removed > 0) {
+                rowCount -= removed;
+                fireTableRowsDeleted(0, removed - 1);
+            }
+        }
+        
+        if (size > rowCount) {
+            int firstNew = rowCount;
+            rowCount = size;
+            fireTableRowsInserted(firstNew, size - 1);
+        } else if (size < rowCount) {
+            rowCount = size;
+            fireTableDataChanged();
+        }
+    }
+    
+    /**
+     * Repaint the row of a tweet whose state changed
+     * @param tweetId Twitter ID of the tweet
+     */
+    public void tweetUpdated(long tweetId) {
+        int index = twitterService.indexOfProcessedTweet(tweetId);
+        if (index < 0) {
+            return;
+        }
+        
+        int row = (int) (index + twitterService.getTrimmedTweetCount() - firstOrdinal);
+        if (row >= 0 && row < rowCount) {
+            if (row == cachedRow) {
+                cachedRow = -1;
+                cachedTweet = null;
+            }
+            fireTableRowsUpdated(row, row);
+        }
+    }
+    
+    /**
+     * Get the tweet shown in a row
+     * @param row Table row
+     * @return Processed tweet, or null if it has been trimmed since the table was last refreshed
+     */
+    public ProcessedTweet getTweet(int row) {
+        if (row == cachedRow) {
+            return cachedTweet;
+        }
+        
+        if (row < 0 || row >= rowCount) {
+            return null;
+        }
+        
+        long index = firstOrdinal + row - twitterService.getTrimmedTweetCount();
+        if (index < 0 || index >= twitterService.getProcessedTweetCount()) {
+            return null;
+        }
+        
+        try {
+            cachedTweet = twitterService.getProcessedTweet((int) index);
+            cachedRow = row;
+            return cachedTweet;
+        } catch (IndexOutOfBoundsException e) {
+            // Trimmed by a pipeline thread after the bounds check
+            return null;
+        }
+    }
+    
+    @Override
+    public int getRowCount() {
+        return rowCount;
+    }
+    
+    @Override
+    public int getColumnCount() {
+        return COLUMNS.length;
+    }
+    
+    @Override
+    public String getColumnName(int column) {
+        return COLUMNS[column];
+    }
+    
+    @Override
+    public Object getValueAt(int row, int column) {
+        ProcessedTweet tweet = getTweet(row);
+        if (tweet == null) {
+            return "";
+        }
+        
+        switch (column) {
+            case 0:
+                return tweet.getCreatedAt() != null ? DATE_FORMAT.format(tweet.getCreatedAt().toInstant()) : "";
+            case 1:
+                return tweet.getUsername();
+            case 2:
+                return tweet.getTweetText();
+            case 3:
+                return tweet.isReplied() ? "Yes" : "No";
+            default:
+                return null;
+        }
+    }
+}
\ No newline at end of file
@@ -0,0 +1,88 @@
+package com.solace.twitter.loadtest;
+
+import java.util.Random;
+
+/**
+ * Distribution of response times for the mock Agent Mesh server
+ * Parsed from a specification of the form kind:parameters, with times in milliseconds:
+ * fixed:200, uniform:100:800, exponential:300 (mean) or lognormal:400:0.6 (median and sigma).
+ * LLM response times are long-tailed, so lognormal is the most realistic choice
+ */
+public final class LatencyDistribution {
+    private enum Kind { FIXED, UNIFORM, EXPONENTIAL, LOGNORMAL }
+    
+    private final Kind kind;
+    private final double first;
+    private final double second;
+    private final String spec;
+    
+    private LatencyDistribution(Kind kind, double first, double second, String spec) {
+        this.kind = kind;
+        this.first = first;
+        this.second = second;
+        this.spec = spec;
+    }
+    
+    /**
+     * Parse a distribution specification
+     * @param spec Specification such as lognormal:400:0.6
+     * @return Latency distribution
+     * @throws IllegalArgumentException if the specification is invalid
+     */
+    public static LatencyDistribution parse(String spec) {
+        String[] parts = spec.trim().split(":");
+        Kind kind;
+        try {
+            kind = Kind.valueOf(parts[0].trim().toUpperCase());
+        } catch (IllegalArgumentException e) {
+            throw new IllegalArgumentException("Unknown latency distribution: " + spec
+                + " (expected fixed, uniform, exponential or lognormal)", e);
+        }
+        
+        int expectedParameters = kind == Kind.UNIFORM || kind == Kind.LOGNORMAL ? 2 : 1;
+        if (parts.length != expectedParameters + 1) {
+            throw new IllegalArgumentException("Expected " + expectedParameters + " parameters in latency distribution: " + spec);
+        }
+        
+        double first;
+        double second;
+        try {
+            first = Double.parseDouble(parts[1].trim());
+            second = expectedParameters == 2 ? Double.parseDouble(parts[2].trim()) : 0;
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("Invalid number in latency distribution: " + spec, e);
+        }
+        if (first < 0 || second < 0 || (kind == Kind.UNIFORM && second < first)) {
+            throw new IllegalArgumentException("Invalid parameters in latency distribution: " + spec);
+        }
+        return new LatencyDistribution(kind, first, second, spec.trim());
+    }
+    
+    /**
+     * Draw a response time
+     * @param random Source of randomness
+     * @return Response time in milliseconds
+     */
+    public long sampleMillis(Random random) {
+        double millis;
+        switch (kind) {
+            case UNIFORM:
+                millis = first + random.nextDouble() * (second - first);
+                break;
+            case EXPONENTIAL:
+                millis = -first * Math.log(1 - random.nextDouble());
+                break;
+            case LOGNORMAL:
+                millis = first * Math.exp(second * random.nextGaussian());
+                break;
+            default:
+                millis = first;
+        }
+        return Math.round(millis);
+    }
+    
+    @Override
+    public String toString() {
+        return spec;
+    }
+}
\ No newline at end of file
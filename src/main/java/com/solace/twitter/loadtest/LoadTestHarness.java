@@ -0,0 +1,302 @@
+package com.solace.twitter.loadtest;
+
+import com.solace.twitter.metrics.Histogram;
+import com.solace.twitter.model.TweetTiming;
+import com.solace.twitter.service.AdmissionQueue;
+import com.solace.twitter.service.AgentMeshService;
+import com.solace.twitter.service.ConfigManager;
+import com.solace.twitter.service.PipelineStage;
+import com.solace.twitter.service.TweetTracer;
+import com.solace.twitter.service.TwitterService;
+import twitter4j.Status;
+import twitter4j.TwitterException;
+import twitter4j.TwitterObjectFactory;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.LockSupport;
+import java.util.logging.Logger;
+import java.util.zip.GZIPInputStream;
+
+/**
+ * Replays recorded stream statuses through TwitterService and measures each pipeline stage
+ * Statuses are read from a JSONL file, optionally gzipped, with one status JSON object per line as
+ * the stream delivers them. They are handed to the ingest stage exactly as the stream listener
+ * does, on the schedule of a ReplayRate. Latency is measured from the time each tweet was due
+ * rather than when it was submitted, so a replay that falls behind still reports the queueing
+ * delay the tweets would have seen. Stage latencies come from the trace TweetTracer finishes for
+ * each answered tweet
+ */
+public class LoadTestHarness implements TweetTracer.TraceListener {
+    private static final Logger LOGGER = Logger.getLogger(LoadTestHarness.class.getName());
+    private static final long DRAIN_POLL_MS = 100;
+    
+    // Segments of a question's path between consecutive points: due, received, classified,
+    // sent to Agent Mesh, answered and recorded
+    private static final String[] SEGMENTS = {"submit", "classify", "answer queue", "agent mesh", "record"};
+    
+    private final TwitterService twitterService;
+    private final AgentMeshService agentMeshService;
+    private final ReplayRate rate;
+    private final List<RecordedStatus> recording = new ArrayList<>();
+    
+    // Due time of each tweet in flight, in microseconds since the epoch
+    private final Map<Long, Long> dueTimes = new ConcurrentHashMap<>();
+    
+    // Latency in microseconds of each segment and end to end, and how late tweets were submitted
+    private final Histogram[] segmentLatency = new Histogram[SEGMENTS.length];
+    private final Histogram endToEndLatency = new Histogram();
+    private final Histogram submitLag = new Histogram();
+    
+    // Runtime counters
+    private final LongAdder submitted = new LongAdder();
+    private final LongAdder dropped = new LongAdder();
+    private final LongAdder recorded = new LongAdder();
+    private long startClassified;
+    private long startQuestions;
+    private long startNanos;
+    private long replayEndNanos;
+    private volatile long lastRecordedNanos;
+    
+    /**
+     * Constructor for LoadTestHarness
+     * @param twitterService Twitter service to replay through, not monitoring the live stream
+     * @param agentMeshService Agent Mesh service used by the Twitter service
+     * @param rate Schedule to replay tweets on
+     */
+    public LoadTestHarness(TwitterService twitterService, AgentMeshService agentMeshService, ReplayRate rate) {
+        this.twitterService = twitterService;
+        this.agentMeshService = agentMeshService;
+        this.rate = rate;
+        for (int i = 0; i < segmentLatency.length; i++) {
+            segmentLatency[i] = new Histogram();
+        }
+    }
+    
+    /**
+     * Create a harness from the application configuration
+     * @param configManager Configuration manager
+     * @param twitterService Twitter service to replay through
+     * @param agentMeshService Agent Mesh service used by the Twitter service
+     * @return Load test harness
+     */
+    public static LoadTestHarness fromConfig(ConfigManager configManager, TwitterService twitterService,
+                                             AgentMeshService agentMeshService) {
+        return new LoadTestHarness(twitterService, agentMeshService,
+            ReplayRate.parse(configManager.getConfig(ConfigManager.LOADTEST_RATE), new Random()));
+    }
+    
+    /**
+     * Read recorded statuses, parsing them up front so parsing does not slow down the replay
+     * Lines that are not statuses, such as deletion notices, are skipped
+     * @param file JSONL file, gzipped or plain
+     * @return Number of statuses read
+     * @throws IOException if the file cannot be read
+     */
+    public int load(Path file) throws IOException {
+        int skipped = 0;
+        try (BufferedReader reader = new BufferedReader(new InputStreamReader(open(file), StandardCharsets.UTF_8))) {
+            String line;
+            while ((line = reader.readLine()) != null) {
+                if (line.isBlank()) {
+                    continue;
+                }
+                try {
+                    recording.add(new RecordedStatus(line, TwitterObjectFactory.createStatus(line)));
+                } catch (TwitterException e) {
+                    skipped++;
+                }
+            }
+        }
+        
+        LOGGER.info("Loaded " + recording.size() + " statuses from " + file + (skipped > 0 ? ", skipped " + skipped + " other messages" : ""));
+        return recording.size();
+    }
+    
+    /**
+     * Open a recording, decompressing it if it starts with the gzip magic number
+     */
+    private static InputStream open(Path file) throws IOException {
+        InputStream in = new BufferedInputStream(Files.newInputStream(file));
+        in.mark(2);
+        int first = in.read();
+        int second = in.read();
+        in.reset();
+        return first == 0x1f && second == 0x8b ? new GZIPInputStream(in) : in;
+    }
+    
+    /**
+     * Replay the recording and wait for the pipeline to drain
+     * @param drainTimeoutMillis Maximum time to wait for queued and in-flight tweets after the replay
+     * @return true if the pipeline drained within the timeout
+     */
+    public boolean run(long drainTimeoutMillis) {
+        boolean raw = twitterService.isRawIngestMode();
+        twitterService.getTweetTracer().setTraceListener(this);
+        LOGGER.info("Replaying " + recording.size() + " statuses at " + rate + (raw ? " as raw messages" : ""));
+        
+        startClassified = twitterService.getClassifiedTweets();
+        startQuestions = twitterService.getQuestionTweets();
+        startNanos = System.nanoTime();
+        for (RecordedStatus recorded : recording) {
+            long due = startNanos + rate.nextOffsetNanos(recorded.status.getCreatedAt().getTime());
+            long now;
+            while ((now = System.nanoTime()) < due) {
+                LockSupport.parkNanos(due - now);
+            }
+            submitLag.record((now - due) / 1000);
+            
+            dueTimes.put(recorded.status.getId(), TweetTracer.fromNanoTime(due));
+            submitted.increment();
+            boolean queued = raw ? twitterService.submitRawMessage(recorded.json) : twitterService.submitStatus(recorded.status);
+            if (!queued) {
+                dropped.increment();
+                dueTimes.remove(recorded.status.getId());
+            }
+        }
+        replayEndNanos = System.nanoTime();
+        
+        boolean drained = awaitDrained(drainTimeoutMillis);
+        twitterService.getTweetTracer().setTraceListener(null);
+        return drained;
+    }
+    
+    /**
+     * Wait until no stage has queued or in-flight work and no question is waiting for Agent Mesh
+     */
+    private boolean awaitDrained(long timeoutMillis) {
+        long deadline = System.currentTimeMillis() + timeoutMillis;
+        int idleChecks = 0;
+        while (System.currentTimeMillis() < deadline) {
+            boolean idle = twitterService.getParkedQuestionCount() == 0;
+            for (PipelineStage.Stats stats : twitterService.getPipelineStats()) {
+                idle &= stats.getDepth() == 0 && stats.getActive() == 0 && stats.getInFlight() == 0;
+            }
+            
+            // A task moves between stages without being counted by either, so require two idle checks in a row
+            idleChecks = idle ? idleChecks + 1 : 0;
+            if (idleChecks >= 2) {
+                return true;
+            }
+            
+            try {
+                Thread.sleep(DRAIN_POLL_MS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return false;
+            }
+        }
+        LOGGER.warning("Pipeline did not drain within " + timeoutMillis + " ms");
+        return false;
+    }
+    
+    @Override
+    public void onAnswered(long tweetId, TweetTiming timing) {
+        long recordedAt = TweetTracer.now();
+        Long due = dueTimes.remove(tweetId);
+        if (due == null) {
+            return;
+        }
+        
+        recorded.increment();
+        long[] points = {due, timing.getReceivedAt(), timing.getClassifiedAt(), timing.getRequestSentAt(),
+            timing.getAnsweredAt(), recordedAt};
+        for (int i = 0; i < SEGMENTS.length; i++) {
+            if (points[i] != 0 && points[i + 1] != 0) {
+                segmentLatency[i].record(points[i + 1] - points[i]);
+            }
+        }
+        endToEndLatency.record(recordedAt - due);
+        lastRecordedNanos = System.nanoTime();
+    }
+    
+    /**
+     * Format the throughput and per-stage latency percentiles of the last run
+     * @return Multi-line report
+     */
+    public String formatReport() {
+        double replaySeconds = Math.max(1, replayEndNanos - startNanos) / 1e9;
+        double recordSeconds = Math.max(1, lastRecordedNanos - startNanos) / 1e9;
+        long recordedTweets = recorded.sum();
+        
+        StringBuilder report = new StringBuilder();
+        report.append(String.format("Replayed %d statuses in %.1f s (%.1f/s) at %s, %d dropped by a full ingest queue%n",
+            submitted.sum(), replaySeconds, submitted.sum() / replaySeconds, rate, dropped.sum()));
+        report.append(String.format("Submission lag behind schedule: p50 %.1f ms, p99 %.1f ms, max %.1f ms%n",
+            submitLag.getValueAtQuantile(0.5) / 1000.0, submitLag.getValueAtQuantile(0.99) / 1000.0, submitLag.getMax() / 1000.0));
+        report.append(String.format("Ingested %d, questions %d, recorded %d (%.1f/s)%n",
+            twitterService.getClassifiedTweets() - startClassified,
+            twitterService.getQuestionTweets() - startQuestions,
+            recordedTweets, recordedTweets / recordSeconds));
+        report.append(String.format("Agent Mesh: %d failed requests, %d retries, circuit %s, %d questions dropped, %d shed%n",
+            agentMeshService.getFailedRequests(), agentMeshService.getRetriedRequests(),
+            agentMeshService.getCircuitBreaker().getState(), twitterService.getDroppedQuestionCount(),
+            getShedQuestions()));
+        if (agentMeshService.isStreaming()) {
+            report.append(String.format("Streamed answers cut off at the reply limit: %d%n", agentMeshService.getCutOffAnswers()));
+        }
+        
+        report.append(String.format("%n%-14s %8s %10s %10s %10s %10s %10s%n", "stage (ms)", "count", "p50", "p90", "p99", "p99.9", "max"));
+        for (int i = 0; i < SEGMENTS.length; i++) {
+            appendRow(report, SEGMENTS[i], segmentLatency[i]);
+        }
+        appendRow(report, "end to end", endToEndLatency);
+        return report.toString();
+    }
+    
+    /**
+     * Get the number of questions shed by the answer queue for any reason
+     */
+    private long getShedQuestions() {
+        AdmissionQueue answerQueue = twitterService.getAnswerQueue();
+        if (answerQueue == null) {
+            return 0;
+        }
+        
+        long shed = 0;
+        for (AdmissionQueue.ShedReason reason : AdmissionQueue.ShedReason.values()) {
+            shed += answerQueue.getShed(reason);
+        }
+        return shed;
+    }
+    
+    private static void appendRow(StringBuilder report, String name, Histogram histogram) {
+        report.append(String.format("%-14s %8d %10.1f %10.1f %10.1f %10.1f %10.1f%n", name, histogram.getCount(),
+            histogram.getValueAtQuantile(0.5) / 1000.0, histogram.getValueAtQuantile(0.9) / 1000.0,
+            histogram.getValueAtQuantile(0.99) / 1000.0, histogram.getValueAtQuantile(0.999) / 1000.0,
+            histogram.getMax() / 1000.0));
+    }
+    
+    /**
+     * Get the latency from each tweet's due time until it was recorded with its answer
+     * @return Histogram in microseconds
+     */
+    public Histogram getEndToEndLatency() {
+        return endToEndLatency;
+    }
+    
+    /**
+     * A recorded status with the message it was parsed from
+     */
+    private static class RecordedStatus {
+        private final String json;
+        private final Status status;
+        
+        RecordedStatus(String json, Status status) {
+            this.json = json;
+            this.status = status;
+        }
+    }
+}
\ No newline at end of file
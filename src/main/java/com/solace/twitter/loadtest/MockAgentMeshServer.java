@@ -0,0 +1,215 @@
+package com.solace.twitter.loadtest;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import org.json.JSONException;
+import org.json.JSONObject;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Embedded stand-in for the Agent Mesh API, for load tests that must not hit the real endpoint
+ * Answers every POST with a canned answer after a delay drawn from a latency distribution, and
+ * fails a configurable fraction of requests with 500 or 429 so retries, the circuit breaker and
+ * load shedding can be exercised. Each request holds a server thread for its delay, as a
+ * generating model holds a connection. Requests that ask for a stream are answered with
+ * server-sent events, one word at a time spread over the delay
+ */
+public class MockAgentMeshServer {
+    private static final Logger LOGGER = Logger.getLogger(MockAgentMeshServer.class.getName());
+    private static final String ANSWER = "Thanks for asking! PubSub+ event brokers support this out of the box. "
+        + "Check the queue and client profile settings in Broker Manager, and see docs.solace.com for a step by step "
+        + "guide. If you are still stuck, the Solace Community is a great place to share your configuration.";
+    private static final String[] ANSWER_WORDS = ANSWER.split("(?<= )");
+    
+    private final LatencyDistribution latency;
+    private final double errorRate;
+    private final double throttleRate;
+    private final int port;
+    private HttpServer server;
+    private ExecutorService executor;
+    
+    // Runtime counters
+    private final AtomicLong requests = new AtomicLong();
+    private final AtomicLong errors = new AtomicLong();
+    private final AtomicLong throttled = new AtomicLong();
+    private final AtomicLong abandonedStreams = new AtomicLong();
+    
+    /**
+     * Constructor for MockAgentMeshServer
+     * @param latency Distribution of response times
+     * @param errorRate Fraction of requests answered with 500 Internal Server Error
+     * @param throttleRate Fraction of requests answered with 429 Too Many Requests
+     * @param port Port to listen on, 0 for any free port
+     */
+    public MockAgentMeshServer(LatencyDistribution latency, double errorRate, double throttleRate, int port) {
+        this.latency = latency;
+        this.errorRate = Math.max(0, errorRate);
+        this.throttleRate = Math.max(0, throttleRate);
+        this.port = port;
+    }
+    
+    /**
+     * Start listening on the loopback address
+     * @throws IOException if the port cannot be bound
+     */
+    public void start() throws IOException {
+        server = HttpServer.create(new InetSocketAddress(InetAddress.getLoopbackAddress(), port), 0);
+        server.createContext("/", this::handleRequest);
+        executor = Executors.newCachedThreadPool(runnable -> {
+            Thread thread = new Thread(runnable, "mock-agent-mesh");
+            thread.setDaemon(true);
+            return thread;
+        });
+        server.setExecutor(executor);
+        server.start();
+        LOGGER.info("Mock Agent Mesh listening at " + getEndpoint() + " with latency " + latency
+            + ", error rate " + errorRate + " and throttle rate " + throttleRate);
+    }
+    
+    private void handleRequest(HttpExchange exchange) throws IOException {
+        try {
+            if (!"POST".equals(exchange.getRequestMethod())) {
+                exchange.sendResponseHeaders(405, -1);
+                return;
+            }
+            requests.incrementAndGet();
+            
+            String question;
+            boolean stream;
+            try (InputStream in = exchange.getRequestBody()) {
+                JSONObject request = new JSONObject(new String(in.readAllBytes(), StandardCharsets.UTF_8));
+                question = request.optString("message", "");
+                stream = request.optBoolean("stream", false);
+            } catch (JSONException e) {
+                exchange.sendResponseHeaders(400, -1);
+                return;
+            }
+            
+            // A streamed answer starts after a quarter of the delay and spends the rest generating
+            ThreadLocalRandom random = ThreadLocalRandom.current();
+            long delay = latency.sampleMillis(random);
+            long firstTokenDelay = stream ? delay / 4 : delay;
+            if (firstTokenDelay > 0) {
+                Thread.sleep(firstTokenDelay);
+            }
+            
+            double outcome = random.nextDouble();
+            if (outcome < errorRate) {
+                errors.incrementAndGet();
+                exchange.sendResponseHeaders(500, -1);
+                return;
+            }
+            if (outcome < errorRate + throttleRate) {
+                throttled.incrementAndGet();
+                exchange.sendResponseHeaders(429, -1);
+                return;
+            }
+            
+            if (stream) {
+                streamAnswer(exchange, delay - firstTokenDelay);
+                return;
+            }
+            
+            JSONObject response = new JSONObject();
+            response.put("response", ANSWER);
+            response.put("model", "mock");
+            response.put("question_length", question.length());
+            byte[] body = response.toString().getBytes(StandardCharsets.UTF_8);
+            exchange.getResponseHeaders().set("Content-Type", "application/json");
+            exchange.sendResponseHeaders(200, body.length);
+            try (OutputStream out = exchange.getResponseBody()) {
+                out.write(body);
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            exchange.sendResponseHeaders(503, -1);
+        } catch (RuntimeException e) {
+            LOGGER.log(Level.WARNING, "Mock Agent Mesh failed to answer", e);
+            exchange.sendResponseHeaders(500, -1);
+        } finally {
+            exchange.close();
+        }
+    }
+    
+    /**
+     * Send the canned answer as server-sent events, one word per event
+     * @param exchange Exchange to answer
+     * @param generationMillis Time to spread the words over
+     */
+    private void streamAnswer(HttpExchange exchange, long generationMillis) throws IOException, InterruptedException {
+        exchange.getResponseHeaders().set("Content-Type", "text/event-stream");
+        exchange.getResponseHeaders().set("Cache-Control", "no-cache");
+        exchange.sendResponseHeaders(200, 0);
+        long wordDelay = generationMillis / ANSWER_WORDS.length;
+        try (OutputStream out = exchange.getResponseBody()) {
+            for (String word : ANSWER_WORDS) {
+                JSONObject chunk = new JSONObject();
+                chunk.put("response", word);
+                out.write(("data: " + chunk + "\n\n").getBytes(StandardCharsets.UTF_8));
+                out.flush();
+                if (wordDelay > 0) {
+                    Thread.sleep(wordDelay);
+                }
+            }
+            out.write("data: [DONE]\n\n".getBytes(StandardCharsets.UTF_8));
+        } catch (IOException e) {
+            // The client stopped reading, as it does once it has enough of the answer
+            abandonedStreams.incrementAndGet();
+        }
+    }
+    
+    /**
+     * Get the URL to configure as the Agent Mesh endpoint
+     * @return Endpoint URL
+     */
+    public String getEndpoint() {
+        int boundPort = server != null ? server.getAddress().getPort() : port;
+        return "http://" + InetAddress.getLoopbackAddress().getHostAddress() + ":" + boundPort + "/agent-mesh/v1";
+    }
+    
+    public long getRequests() {
+        return requests.get();
+    }
+    
+    public long getErrors() {
+        return errors.get();
+    }
+    
+    public long getThrottled() {
+        return throttled.get();
+    }
+    
+    public long getAbandonedStreams() {
+        return abandonedStreams.get();
+    }
+    
+    public void close() {
+        if (server != null) {
+            server.stop(0);
+            executor.shutdownNow();
+            server = null;
+        }
+    }
+    
+    @Override
+    public String toString() {
+        return "MockAgentMeshServer{" +
+                "requests=" + requests +
+                ", errors=" + errors +
+                ", throttled=" + throttled +
+                ", abandonedStreams=" + abandonedStreams +
+                '}';
+    }
+}
\ No newline at end of file
@@ -0,0 +1,86 @@
+package com.solace.twitter.loadtest;
+
+import java.util.Random;
+
+/**
+ * Schedule on which recorded tweets are replayed
+ * Parsed from fixed:&lt;tweets per second&gt; for evenly spaced tweets, poisson:&lt;tweets per second&gt;
+ * for exponentially distributed gaps as independent arrivals have, or recorded:&lt;speedup&gt; to keep
+ * the gaps between the recorded creation times, divided by the speedup
+ * Not thread-safe: offsets must be requested in replay order by a single thread
+ */
+public final class ReplayRate {
+    private enum Mode { FIXED, POISSON, RECORDED }
+    
+    private final Mode mode;
+    private final double value;
+    private final String spec;
+    private final Random random;
+    
+    private long nextOffsetNanos = 0;
+    private long firstRecordedMillis = -1;
+    
+    private ReplayRate(Mode mode, double value, String spec, Random random) {
+        this.mode = mode;
+        this.value = value;
+        this.spec = spec;
+        this.random = random;
+    }
+    
+    /**
+     * Parse a replay rate specification
+     * @param spec Specification such as poisson:200
+     * @param random Source of randomness for Poisson arrivals
+     * @return Replay rate
+     * @throws IllegalArgumentException if the specification is invalid
+     */
+    public static ReplayRate parse(String spec, Random random) {
+        String[] parts = spec.trim().split(":");
+        if (parts.length != 2) {
+            throw new IllegalArgumentException("Invalid replay rate: " + spec + " (expected fixed:<rate>, poisson:<rate> or recorded:<speedup>)");
+        }
+        
+        Mode mode;
+        double value;
+        try {
+            mode = Mode.valueOf(parts[0].trim().toUpperCase());
+            value = Double.parseDouble(parts[1].trim());
+        } catch (IllegalArgumentException e) {
+            throw new IllegalArgumentException("Invalid replay rate: " + spec + " (expected fixed:<rate>, poisson:<rate> or recorded:<speedup>)", e);
+        }
+        if (value <= 0) {
+            throw new IllegalArgumentException("Replay rate must be positive: " + spec);
+        }
+        return new ReplayRate(mode, value, spec.trim(), random);
+    }
+    
+    /**
+     * Get the time at which the next tweet is due
+     * @param recordedMillis Recorded creation time of the tweet
+     * @return Offset from the start of the replay in nanoseconds
+     */
+    public long nextOffsetNanos(long recordedMillis) {
+        long offset;
+        switch (mode) {
+            case POISSON:
+                offset = nextOffsetNanos;
+                nextOffsetNanos += (long) (-Math.log(1 - random.nextDouble()) / value * 1e9);
+                return offset;
+            case RECORDED:
+                if (firstRecordedMillis < 0) {
+                    firstRecordedMillis = recordedMillis;
+                }
+                // Tweets recorded out of order are sent straight away
+                return (long) (Math.max(0, recordedMillis - firstRecordedMillis) * 1e6 / value);
+            default:
+                offset = nextOffsetNanos;
+                nextOffsetNanos += (long) (1e9 / value);
+                return offset;
+        }
+    }
+    
+    @Override
+    public String toString() {
+        return spec;
+    }
+}
\ No newline at end of file
@@ -0,0 +1,303 @@
+package com.solace.twitter.messaging;
+
+import com.solace.twitter.model.ProcessedTweet;
+import com.solace.twitter.service.AgentMeshException;
+import com.solace.twitter.service.AgentMeshService;
+import com.solace.twitter.service.ConfigManager;
+import com.solace.twitter.store.TweetCodec;
+
+import java.nio.ByteBuffer;
+import java.util.Collections;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Answers questions taken from a durable Solace queue and publishes the answers back
+ * Any number of workers bind to the question queue as non-exclusive consumers, so the broker
+ * spreads questions across them. A question is only removed from the queue once its answer has
+ * been acknowledged by the broker; questions that Agent Mesh fails to answer are settled as failed
+ * and redelivered, possibly to another worker, until the queue's redelivery limit is reached.
+ * While the Agent Mesh circuit breaker is open questions are held unsettled and asked again, so
+ * an outage does not use up their redeliveries
+ */
+public class AnswerWorker implements InboundMessage.Listener {
+    private static final Logger LOGGER = Logger.getLogger(AnswerWorker.class.getName());
+    private static final long HOLD_RETRY_MS = 1000;
+    
+    private final MessageBroker broker;
+    private final AgentMeshService agentMeshService;
+    private final String topicPrefix;
+    private final String queueName;
+    private final int prefetch;
+    private final int maxInFlight;
+    private final int maxRedelivery;
+    private QueueConsumer consumer;
+    
+    // Questions sent to Agent Mesh whose answer has not been acknowledged yet, guarded by this
+    private int inFlight = 0;
+    private boolean paused = false;
+    private volatile boolean closing = false;
+    
+    // Runtime counters
+    private final AtomicLong received = new AtomicLong();
+    private final AtomicLong redelivered = new AtomicLong();
+    private final AtomicLong answered = new AtomicLong();
+    private final AtomicLong failed = new AtomicLong();
+    private final AtomicLong held = new AtomicLong();
+    private final AtomicLong poison = new AtomicLong();
+    
+    /**
+     * Constructor for AnswerWorker
+     * @param broker Broker to consume questions from and publish answers to
+     * @param agentMeshService Agent Mesh service that answers the questions
+     * @param topicPrefix First level of every topic
+     * @param queueName Name of the question queue
+     * @param prefetch Maximum number of unsettled questions the broker delivers ahead
+     * @param maxInFlight Number of questions in flight at which deliveries are paused
+     * @param maxRedelivery Number of redeliveries before a question is moved to the dead message queue
+     */
+    public AnswerWorker(MessageBroker broker, AgentMeshService agentMeshService, String topicPrefix,
+                        String queueName, int prefetch, int maxInFlight, int maxRedelivery) {
+        this.broker = broker;
+        this.agentMeshService = agentMeshService;
+        this.topicPrefix = topicPrefix;
+        this.queueName = queueName;
+        this.prefetch = Math.max(1, prefetch);
+        this.maxInFlight = Math.max(1, maxInFlight);
+        this.maxRedelivery = maxRedelivery;
+    }
+    
+    /**
+     * Create a worker from the application configuration
+     * @param configManager Configuration manager
+     * @param broker Broker to consume from and publish to
+     * @param agentMeshService Agent Mesh service
+     * @return Answer worker
+     */
+    public static AnswerWorker fromConfig(ConfigManager configManager, MessageBroker broker, AgentMeshService agentMeshService) {
+        return new AnswerWorker(
+            broker,
+            agentMeshService,
+            configManager.getConfig(ConfigManager.MESSAGING_TOPIC_PREFIX).trim(),
+            configManager.getConfig(ConfigManager.MESSAGING_QUESTION_QUEUE).trim(),
+            configManager.getIntConfig(ConfigManager.WORKER_PREFETCH),
+            configManager.getIntConfig(ConfigManager.WORKER_MAX_IN_FLIGHT),
+            configManager.getIntConfig(ConfigManager.WORKER_MAX_REDELIVERY));
+    }
+    
+    /**
+     * Bind to the question queue and start answering
+     * @throws MessagingException if the queue cannot be bound
+     */
+    public void start() throws MessagingException {
+        consumer = broker.consume(queueName, Topics.subscription(topicPrefix, Topics.ASK), prefetch, maxRedelivery, this);
+        LOGGER.info("Answer worker consuming from queue " + queueName);
+    }
+    
+    @Override
+    public void onMessage(InboundMessage message) {
+        received.incrementAndGet();
+        if (message.isRedelivered()) {
+            redelivered.incrementAndGet();
+        }
+        
+        // A question that cannot be decoded will never succeed, so remove it instead of redelivering it
+        ProcessedTweet question;
+        try {
+            question = TweetCodec.decode(ByteBuffer.wrap(message.getPayload()));
+        } catch (RuntimeException e) {
+            poison.incrementAndGet();
+            LOGGER.log(Level.WARNING, "Discarding undecodable message on " + message.getTopic(), e);
+            message.accept();
+            return;
+        }
+        
+        if (message.isRedelivered()) {
+            LOGGER.fine("Redelivered question for tweet " + question.getTweetId() + ", delivery " + message.getDeliveryCount());
+        } else {
+            agentMeshService.registerQuestion(question.getExtractedQuestion());
+        }
+        
+        acquire();
+        ask(message, question);
+    }
+    
+    /**
+     * Send a question to Agent Mesh and settle its message with the outcome
+     */
+    private void ask(InboundMessage message, ProcessedTweet question) {
+        try {
+            agentMeshService.processQuestionAsync(question.getExtractedQuestion())
+                .whenComplete((answer, error) -> {
+                    Throwable cause = error instanceof CompletionException && error.getCause() != null ? error.getCause() : error;
+                    if (cause instanceof AgentMeshException
+                            && ((AgentMeshException) cause).getReason() == AgentMeshException.Reason.CIRCUIT_OPEN) {
+                        hold(message, question);
+                    } else if (error != null) {
+                        settleFailed(message);
+                    } else {
+                        publishAnswer(message, question, answer);
+                    }
+                });
+        } catch (RuntimeException e) {
+            LOGGER.log(Level.WARNING, "Failed to send question for tweet " + question.getTweetId(), e);
+            settleFailed(message);
+        }
+    }
+    
+    /**
+     * Keep a question the circuit breaker turned away and ask again shortly
+     * Held questions count as in flight, so deliveries pause while Agent Mesh is down. When the
+     * worker is closing the question is left unsettled and redelivered to another worker
+     */
+    private void hold(InboundMessage message, ProcessedTweet question) {
+        if (closing) {
+            release();
+            return;
+        }
+        
+        held.incrementAndGet();
+        CompletableFuture.delayedExecutor(HOLD_RETRY_MS, TimeUnit.MILLISECONDS).execute(() -> {
+            if (closing) {
+                release();
+            } else {
+                ask(message, question);
+            }
+        });
+    }
+    
+    /**
+     * Publish an answer and settle its question once the broker has acknowledged the answer
+     */
+    private void publishAnswer(InboundMessage message, ProcessedTweet question, String answer) {
+        ProcessedTweet answeredTweet = new ProcessedTweet(
+            question.getTweetId(),
+            question.getUsername(),
+            question.getUserDisplayName(),
+            question.getCreatedAt(),
+            question.getTweetText(),
+            question.getExtractedQuestion(),
+            answer,
+            false,
+            question.getLang()
+        );
+        // The application adds the time it receives the answer, as the clocks may differ
+        answeredTweet.setTiming(question.getTiming());
+        
+        OutboundMessage outbound = new OutboundMessage(
+            Topics.forTweet(topicPrefix, Topics.ANSWER, answeredTweet),
+            TweetCodec.encode(answeredTweet),
+            true,
+            new OutboundMessage.AckListener() {
+                @Override
+                public void onAck(OutboundMessage ignored) {
+                    answered.incrementAndGet();
+                    message.accept();
+                    release();
+                }
+                
+                @Override
+                public void onNack(OutboundMessage ignored, Exception cause) {
+                    LOGGER.warning("Broker rejected answer for tweet " + question.getTweetId() + ": " + cause.getMessage());
+                    settleFailed(message);
+                }
+            });
+        
+        try {
+            broker.publish(Collections.singletonList(outbound));
+        } catch (MessagingException e) {
+            LOGGER.log(Level.WARNING, "Failed to publish answer for tweet " + question.getTweetId(), e);
+            settleFailed(message);
+        }
+    }
+    
+    private void settleFailed(InboundMessage message) {
+        failed.incrementAndGet();
+        message.fail();
+        release();
+    }
+    
+    /**
+     * Count a question in flight, pausing deliveries when the limit is reached
+     */
+    private synchronized void acquire() {
+        inFlight++;
+        if (inFlight >= maxInFlight && !paused && consumer != null) {
+            paused = true;
+            consumer.pause();
+        }
+    }
+    
+    /**
+     * Count a settled question, resuming deliveries once half of the limit has drained
+     */
+    private synchronized void release() {
+        inFlight--;
+        if (paused && inFlight <= maxInFlight / 2) {
+            paused = false;
+            consumer.resume();
+        }
+        notifyAll();
+    }
+    
+    /**
+     * Stop taking questions, wait for those in flight and unbind from the queue
+     * Questions still unsettled at the deadline are redelivered to other workers
+     * @param timeoutMillis Maximum time to wait in milliseconds
+     */
+    public void close(long timeoutMillis) {
+        if (consumer == null) {
+            return;
+        }
+        
+        long deadline = System.currentTimeMillis() + timeoutMillis;
+        closing = true;
+        synchronized (this) {
+            paused = true;
+            consumer.pause();
+            try {
+                long remaining;
+                while (inFlight > 0 && (remaining = deadline - System.currentTimeMillis()) > 0) {
+                    wait(remaining);
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            if (inFlight > 0) {
+                LOGGER.warning("Closing answer worker with " + inFlight + " questions in flight");
+            }
+        }
+        
+        consumer.close();
+        LOGGER.info("Closed answer worker: " + this);
+    }
+    
+    public long getReceived() {
+        return received.get();
+    }
+    
+    public long getAnswered() {
+        return answered.get();
+    }
+    
+    public long getFailed() {
+        return failed.get();
+    }
+    
+    @Override
+    public synchronized String toString() {
+        return "AnswerWorker{" +
+                "received=" + received +
+                ", redelivered=" + redelivered +
+                ", answered=" + answered +
+                ", failed=" + failed +
+                ", held=" + held +
+                ", poison=" + poison +
+                ", inFlight=" + inFlight +
+                '}';
+    }
+}
\ No newline at end of file
@@ -0,0 +1,391 @@
+package com.solace.twitter.messaging;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Deque;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * In-process stand-in for a Solace broker, for running and testing without a live broker
+ * Topic subscriptions follow Solace wildcard rules: '*' matches the rest of one level and '>'
+ * as the last level matches one or more levels. Messages are delivered to subscribers on the
+ * publishing thread; guaranteed messages are acknowledged asynchronously, as a broker would.
+ * Durable queues are emulated too: each queue consumer gets its own delivery thread, is limited
+ * to a prefetch window of unsettled messages and failed messages are redelivered until the
+ * redelivery limit is reached
+ */
+public class InMemoryMessageBroker implements MessageBroker {
+    private final List<Subscription> subscriptions = new CopyOnWriteArrayList<>();
+    private final Map<String, MemoryQueue> queues = new ConcurrentHashMap<>();
+    private final ExecutorService ackExecutor = Executors.newSingleThreadExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "in-memory-broker-ack");
+        thread.setDaemon(true);
+        return thread;
+    });
+    
+    // Runtime counters
+    private final AtomicLong published = new AtomicLong();
+    
+    @Override
+    public void publish(List<OutboundMessage> messages) throws MessagingException {
+        if (ackExecutor.isShutdown()) {
+            throw new MessagingException("Broker is closed");
+        }
+        
+        for (OutboundMessage message : messages) {
+            published.incrementAndGet();
+            String[] topic = message.getTopic().split("/");
+            for (Subscription subscription : subscriptions) {
+                if (matches(subscription.levels, topic)) {
+                    subscription.handler.onMessage(message.getTopic(), message.getPayload());
+                }
+            }
+            for (MemoryQueue queue : queues.values()) {
+                if (queue.attracts(topic)) {
+                    queue.enqueue(message.getTopic(), message.getPayload());
+                }
+            }
+            
+            if (message.isGuaranteed() && message.getAckListener() != null) {
+                ackExecutor.execute(() -> message.getAckListener().onAck(message));
+            }
+        }
+    }
+    
+    /**
+     * Subscribe to a topic
+     * @param topicSubscription Topic, optionally with wildcards
+     * @param handler Handler called for each matching message
+     */
+    public void subscribe(String topicSubscription, MessageHandler handler) {
+        subscriptions.add(new Subscription(topicSubscription.split("/"), handler));
+    }
+    
+    @Override
+    public QueueConsumer consume(String queueName, String topicSubscription, int prefetch, int maxRedelivery,
+                                 InboundMessage.Listener listener) throws MessagingException {
+        if (ackExecutor.isShutdown()) {
+            throw new MessagingException("Broker is closed");
+        }
+        
+        MemoryQueue queue = queues.computeIfAbsent(queueName, name -> new MemoryQueue(name, maxRedelivery));
+        queue.subscribe(topicSubscription);
+        MemoryConsumer consumer = new MemoryConsumer(queue, Math.max(1, prefetch), listener);
+        consumer.start();
+        return consumer;
+    }
+    
+    public long getPublished() {
+        return published.get();
+    }
+    
+    /**
+     * Get the number of messages waiting on a queue, not counting those delivered but unsettled
+     * @param queueName Name of the queue
+     * @return Number of pending messages
+     */
+    public int getQueueDepth(String queueName) {
+        MemoryQueue queue = queues.get(queueName);
+        if (queue == null) {
+            return 0;
+        }
+        synchronized (queue) {
+            return queue.pending.size();
+        }
+    }
+    
+    /**
+     * Get the number of messages a queue discarded after reaching its redelivery limit
+     * @param queueName Name of the queue
+     * @return Number of dead messages
+     */
+    public long getDeadMessages(String queueName) {
+        MemoryQueue queue = queues.get(queueName);
+        return queue == null ? 0 : queue.dead.get();
+    }
+    
+    @Override
+    public void close() {
+        for (MemoryQueue queue : queues.values()) {
+            queue.closeConsumers();
+        }
+        ackExecutor.shutdown();
+        try {
+            ackExecutor.awaitTermination(1, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+    
+    /**
+     * Match topic levels against subscription levels
+     */
+    static boolean matches(String[] subscription, String[] topic) {
+        for (int i = 0; i < subscription.length; i++) {
+            String level = subscription[i];
+            if (level.equals(">") && i == subscription.length - 1) {
+                return topic.length > i;
+            }
+            if (i >= topic.length) {
+                return false;
+            }
+            if (level.endsWith("*")) {
+                if (!topic[i].startsWith(level.substring(0, level.length() - 1))) {
+                    return false;
+                }
+            } else if (!level.equals(topic[i])) {
+                return false;
+            }
+        }
+        return subscription.length == topic.length;
+    }
+    
+    /**
+     * Handler for messages delivered to a topic subscription
+     */
+    public interface MessageHandler {
+        void onMessage(String topic, byte[] payload);
+    }
+    
+    /**
+     * Durable queue shared by its consumers, guarded by its own monitor
+     */
+    private static class MemoryQueue {
+        private final String name;
+        private final int maxRedelivery;
+        private final List<String[]> subscriptions = new CopyOnWriteArrayList<>();
+        private final Deque<Delivery> pending = new ArrayDeque<>();
+        private final List<MemoryConsumer> consumers = new ArrayList<>();
+        private final AtomicLong dead = new AtomicLong();
+        
+        MemoryQueue(String name, int maxRedelivery) {
+            this.name = name;
+            this.maxRedelivery = Math.max(0, maxRedelivery);
+        }
+        
+        void subscribe(String topicSubscription) {
+            String[] levels = topicSubscription.split("/");
+            for (String[] existing : subscriptions) {
+                if (Arrays.equals(existing, levels)) {
+                    return;
+                }
+            }
+            subscriptions.add(levels);
+        }
+        
+        boolean attracts(String[] topic) {
+            for (String[] levels : subscriptions) {
+                if (matches(levels, topic)) {
+                    return true;
+                }
+            }
+            return false;
+        }
+        
+        synchronized void enqueue(String topic, byte[] payload) {
+            pending.addLast(new Delivery(this, topic, payload, 1));
+            notifyAll();
+        }
+        
+        /**
+         * Put an unsettled message back at the head of the queue for another delivery
+         */
+        synchronized void redeliver(Delivery delivery) {
+            if (delivery.deliveryCount > maxRedelivery) {
+                dead.incrementAndGet();
+            } else {
+                pending.addFirst(new Delivery(this, delivery.topic, delivery.payload, delivery.deliveryCount + 1));
+            }
+            notifyAll();
+        }
+        
+        void closeConsumers() {
+            List<MemoryConsumer> open;
+            synchronized (this) {
+                open = new ArrayList<>(consumers);
+            }
+            for (MemoryConsumer consumer : open) {
+                consumer.close();
+            }
+        }
+        
+        @Override
+        public String toString() {
+            return name;
+        }
+    }
+    
+    /**
+     * Non-exclusive consumer that competes with the other consumers of its queue
+     */
+    private static class MemoryConsumer implements QueueConsumer, Runnable {
+        private final MemoryQueue queue;
+        private final int prefetch;
+        private final InboundMessage.Listener listener;
+        private final Set<Delivery> unsettled = new LinkedHashSet<>();
+        private final Thread thread;
+        private boolean paused = false;
+        private boolean closed = false;
+        
+        MemoryConsumer(MemoryQueue queue, int prefetch, InboundMessage.Listener listener) {
+            this.queue = queue;
+            this.prefetch = prefetch;
+            this.listener = listener;
+            this.thread = new Thread(this, "in-memory-broker-" + queue);
+            this.thread.setDaemon(true);
+        }
+        
+        void start() {
+            synchronized (queue) {
+                queue.consumers.add(this);
+            }
+            thread.start();
+        }
+        
+        @Override
+        public void run() {
+            while (true) {
+                Delivery delivery;
+                synchronized (queue) {
+                    while (!closed && (paused || unsettled.size() >= prefetch || queue.pending.isEmpty())) {
+                        try {
+                            queue.wait();
+                        } catch (InterruptedException e) {
+                            return;
+                        }
+                    }
+                    if (closed) {
+                        return;
+                    }
+                    delivery = queue.pending.pollFirst();
+                    delivery.consumer = this;
+                    unsettled.add(delivery);
+                }
+                listener.onMessage(delivery);
+            }
+        }
+        
+        /**
+         * Settle a delivery, returning false if it was already settled or its consumer closed
+         */
+        boolean settle(Delivery delivery) {
+            synchronized (queue) {
+                if (!unsettled.remove(delivery)) {
+                    return false;
+                }
+                queue.notifyAll();
+                return true;
+            }
+        }
+        
+        @Override
+        public void pause() {
+            synchronized (queue) {
+                paused = true;
+            }
+        }
+        
+        @Override
+        public void resume() {
+            synchronized (queue) {
+                paused = false;
+                queue.notifyAll();
+            }
+        }
+        
+        @Override
+        public void close() {
+            synchronized (queue) {
+                if (closed) {
+                    return;
+                }
+                closed = true;
+                queue.consumers.remove(this);
+                
+                // Unsettled messages go back to the queue for the remaining consumers
+                for (Delivery delivery : unsettled) {
+                    queue.pending.addFirst(new Delivery(queue, delivery.topic, delivery.payload, delivery.deliveryCount + 1));
+                }
+                unsettled.clear();
+                queue.notifyAll();
+            }
+            if (Thread.currentThread() != thread) {
+                try {
+                    thread.join(1000);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+            }
+        }
+    }
+    
+    /**
+     * A message delivered from a queue to one consumer
+     */
+    private static class Delivery implements InboundMessage {
+        private final MemoryQueue queue;
+        private final String topic;
+        private final byte[] payload;
+        private final int deliveryCount;
+        private MemoryConsumer consumer;
+        
+        Delivery(MemoryQueue queue, String topic, byte[] payload, int deliveryCount) {
+            this.queue = queue;
+            this.topic = topic;
+            this.payload = payload;
+            this.deliveryCount = deliveryCount;
+        }
+        
+        @Override
+        public String getTopic() {
+            return topic;
+        }
+        
+        @Override
+        public byte[] getPayload() {
+            return payload;
+        }
+        
+        @Override
+        public boolean isRedelivered() {
+            return deliveryCount > 1;
+        }
+        
+        @Override
+        public int getDeliveryCount() {
+            return deliveryCount;
+        }
+        
+        @Override
+        public void accept() {
+            consumer.settle(this);
+        }
+        
+        @Override
+        public void fail() {
+            if (consumer.settle(this)) {
+                queue.redeliver(this);
+            }
+        }
+    }
+    
+    private static class Subscription {
+        private final String[] levels;
+        private final MessageHandler handler;
+        
+        Subscription(String[] levels, MessageHandler handler) {
+            this.levels = levels;
+            this.handler = handler;
+        }
+    }
+}
\ No newline at end of file
@@ -0,0 +1,42 @@
+package com.solace.twitter.messaging;
+
+/**
+ * A message delivered from a durable queue, which stays on the queue until it is settled
+ */
+public interface InboundMessage {
+    
+    String getTopic();
+    
+    byte[] getPayload();
+    
+    /**
+     * Check if the message was delivered before, to a consumer that did not settle it
+     * @return true if this is a redelivery
+     */
+    boolean isRedelivered();
+    
+    /**
+     * Get the number of times the message has been delivered, including this delivery
+     * @return Delivery count
+     */
+    int getDeliveryCount();
+    
+    /**
+     * Settle the message as processed, removing it from the queue
+     */
+    void accept();
+    
+    /**
+     * Settle the message as failed, so the broker redelivers it until its redelivery limit is
+     * reached and then moves it to the dead message queue
+     */
+    void fail();
+    
+    /**
+     * Listener for queue deliveries
+     * Called on a broker thread, so implementations must hand slow work off
+     */
+    interface Listener {
+        void onMessage(InboundMessage message);
+    }
+}
\ No newline at end of file
@@ -0,0 +1,256 @@
+package com.solace.twitter.messaging;
+
+import com.solace.twitter.service.ConfigManager;
+import com.solacesystems.jcsmp.BytesMessage;
+import com.solacesystems.jcsmp.BytesXMLMessage;
+import com.solacesystems.jcsmp.ConsumerFlowProperties;
+import com.solacesystems.jcsmp.DeliveryMode;
+import com.solacesystems.jcsmp.EndpointProperties;
+import com.solacesystems.jcsmp.FlowReceiver;
+import com.solacesystems.jcsmp.JCSMPErrorResponseException;
+import com.solacesystems.jcsmp.JCSMPErrorResponseSubcodeEx;
+import com.solacesystems.jcsmp.JCSMPException;
+import com.solacesystems.jcsmp.JCSMPFactory;
+import com.solacesystems.jcsmp.JCSMPProperties;
+import com.solacesystems.jcsmp.JCSMPSendMultipleEntry;
+import com.solacesystems.jcsmp.JCSMPSession;
+import com.solacesystems.jcsmp.JCSMPStreamingPublishCorrelatingEventHandler;
+import com.solacesystems.jcsmp.Queue;
+import com.solacesystems.jcsmp.XMLMessage;
+import com.solacesystems.jcsmp.XMLMessageListener;
+import com.solacesystems.jcsmp.XMLMessageProducer;
+
+import java.util.List;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Message broker backed by a Solace PubSub+ event broker, using the JCSMP API
+ * Batches are sent with a single sendMultiple call. Guaranteed messages carry themselves as the
+ * correlation key, so the streaming publish callbacks can route each acknowledgement back to its listener
+ */
+public class JcsmpMessageBroker implements MessageBroker {
+    private static final Logger LOGGER = Logger.getLogger(JcsmpMessageBroker.class.getName());
+    
+    private final JCSMPSession session;
+    private final XMLMessageProducer producer;
+    
+    /**
+     * Constructor for JcsmpMessageBroker
+     * @param properties JCSMP session properties
+     * @throws MessagingException if the session cannot be connected
+     */
+    public JcsmpMessageBroker(JCSMPProperties properties) throws MessagingException {
+        try {
+            this.session = JCSMPFactory.onlyInstance().createSession(properties);
+            session.connect();
+            this.producer = session.getMessageProducer(new PublishEventHandler());
+        } catch (JCSMPException e) {
+            throw new MessagingException("Failed to connect to Solace broker " + properties.getStringProperty(JCSMPProperties.HOST), e);
+        }
+        
+        LOGGER.info("Connected to Solace broker " + properties.getStringProperty(JCSMPProperties.HOST));
+    }
+    
+    /**
+     * Connect to the Solace broker in the application configuration
+     * @param configManager Configuration manager
+     * @return Message broker
+     * @throws MessagingException if the broker cannot be reached
+     */
+    public static JcsmpMessageBroker fromConfig(ConfigManager configManager) throws MessagingException {
+        JCSMPProperties properties = new JCSMPProperties();
+        properties.setProperty(JCSMPProperties.HOST, configManager.getConfig(ConfigManager.SOLACE_HOST));
+        properties.setProperty(JCSMPProperties.VPN_NAME, configManager.getConfig(ConfigManager.SOLACE_VPN));
+        properties.setProperty(JCSMPProperties.USERNAME, configManager.getConfig(ConfigManager.SOLACE_USERNAME));
+        properties.setProperty(JCSMPProperties.PASSWORD, configManager.getConfig(ConfigManager.SOLACE_PASSWORD));
+        
+        // The publish window bounds unacknowledged guaranteed messages in the API; the broker allows at most 255
+        properties.setProperty(JCSMPProperties.PUB_ACK_WINDOW_SIZE,
+            Math.max(1, Math.min(255, configManager.getIntConfig(ConfigManager.MESSAGING_ACK_WINDOW))));
+        return new JcsmpMessageBroker(properties);
+    }
+    
+    @Override
+    public void publish(List<OutboundMessage> messages) throws MessagingException {
+        JCSMPFactory factory = JCSMPFactory.onlyInstance();
+        JCSMPSendMultipleEntry[] entries = new JCSMPSendMultipleEntry[messages.size()];
+        for (int i = 0; i < entries.length; i++) {
+            OutboundMessage message = messages.get(i);
+            BytesMessage jcsmpMessage = factory.createMessage(BytesMessage.class);
+            jcsmpMessage.setData(message.getPayload());
+            if (message.isGuaranteed()) {
+                jcsmpMessage.setDeliveryMode(DeliveryMode.PERSISTENT);
+                jcsmpMessage.setCorrelationKey(message);
+            } else {
+                jcsmpMessage.setDeliveryMode(DeliveryMode.DIRECT);
+            }
+            entries[i] = factory.createSendMultipleEntry(jcsmpMessage, factory.createTopic(message.getTopic()));
+        }
+        
+        try {
+            // sendMultiple may take only part of the batch when the publish window is full
+            int sent = 0;
+            while (sent < entries.length) {
+                sent += producer.sendMultiple(entries, sent, entries.length - sent, 0);
+            }
+        } catch (JCSMPException e) {
+            throw new MessagingException("Failed to publish " + entries.length + " messages", e);
+        }
+    }
+    
+    @Override
+    public QueueConsumer consume(String queueName, String topicSubscription, int prefetch, int maxRedelivery,
+                                 InboundMessage.Listener listener) throws MessagingException {
+        JCSMPFactory factory = JCSMPFactory.onlyInstance();
+        Queue queue = factory.createQueue(queueName);
+        EndpointProperties endpointProperties = new EndpointProperties();
+        endpointProperties.setPermission(EndpointProperties.PERMISSION_CONSUME);
+        endpointProperties.setAccessType(EndpointProperties.ACCESSTYPE_NONEXCLUSIVE);
+        endpointProperties.setMaxMsgRedelivery(maxRedelivery);
+        
+        // The transport window caps messages in flight to this consumer; the broker allows at most 255
+        ConsumerFlowProperties flowProperties = new ConsumerFlowProperties();
+        flowProperties.setEndpoint(queue);
+        flowProperties.setAckMode(JCSMPProperties.SUPPORTED_MESSAGE_ACK_CLIENT);
+        flowProperties.setTransportWindowSize(Math.max(1, Math.min(255, prefetch)));
+        flowProperties.addRequiredSettlementOutcomes(XMLMessage.Outcome.FAILED);
+        
+        try {
+            session.provision(queue, endpointProperties, JCSMPSession.FLAG_IGNORE_ALREADY_EXISTS);
+            addSubscription(queue, topicSubscription);
+            
+            FlowReceiver flow = session.createFlow(new XMLMessageListener() {
+                @Override
+                public void onReceive(BytesXMLMessage message) {
+                    listener.onMessage(new JcsmpInboundMessage(message));
+                }
+                
+                @Override
+                public void onException(JCSMPException e) {
+                    LOGGER.log(Level.WARNING, "Flow from queue " + queueName + " failed", e);
+                }
+            }, flowProperties, endpointProperties);
+            flow.start();
+            LOGGER.info("Bound to queue " + queueName + " with prefetch " + flowProperties.getTransportWindowSize());
+            return new JcsmpQueueConsumer(flow);
+        } catch (JCSMPException e) {
+            throw new MessagingException("Failed to bind to queue " + queueName, e);
+        }
+    }
+    
+    private void addSubscription(Queue queue, String topicSubscription) throws JCSMPException {
+        try {
+            session.addSubscription(queue, JCSMPFactory.onlyInstance().createTopic(topicSubscription), JCSMPSession.WAIT_FOR_CONFIRM);
+        } catch (JCSMPErrorResponseException e) {
+            // Another consumer already added it
+            if (e.getSubcodeEx() != JCSMPErrorResponseSubcodeEx.SUBSCRIPTION_ALREADY_PRESENT) {
+                throw e;
+            }
+        }
+    }
+    
+    @Override
+    public void close() {
+        producer.close();
+        session.closeSession();
+        LOGGER.info("Disconnected from Solace broker");
+    }
+    
+    /**
+     * A guaranteed message delivered by a client-acknowledged flow
+     */
+    private static class JcsmpInboundMessage implements InboundMessage {
+        private final BytesXMLMessage message;
+        
+        JcsmpInboundMessage(BytesXMLMessage message) {
+            this.message = message;
+        }
+        
+        @Override
+        public String getTopic() {
+            return message.getDestination().getName();
+        }
+        
+        @Override
+        public byte[] getPayload() {
+            return message instanceof BytesMessage ? ((BytesMessage) message).getData() : message.getBytes();
+        }
+        
+        @Override
+        public boolean isRedelivered() {
+            return message.getRedelivered();
+        }
+        
+        @Override
+        public int getDeliveryCount() {
+            if (message.isDeliveryCountSupported()) {
+                return message.getDeliveryCount();
+            }
+            return message.getRedelivered() ? 2 : 1;
+        }
+        
+        @Override
+        public void accept() {
+            message.ackMessage();
+        }
+        
+        @Override
+        public void fail() {
+            try {
+                message.settle(XMLMessage.Outcome.FAILED);
+            } catch (JCSMPException e) {
+                LOGGER.log(Level.WARNING, "Failed to settle message as failed, it will be redelivered on reconnect", e);
+            }
+        }
+    }
+    
+    private static class JcsmpQueueConsumer implements QueueConsumer {
+        private final FlowReceiver flow;
+        
+        JcsmpQueueConsumer(FlowReceiver flow) {
+            this.flow = flow;
+        }
+        
+        @Override
+        public void pause() {
+            flow.stop();
+        }
+        
+        @Override
+        public void resume() {
+            try {
+                flow.start();
+            } catch (JCSMPException e) {
+                LOGGER.log(Level.WARNING, "Failed to restart flow", e);
+            }
+        }
+        
+        @Override
+        public void close() {
+            flow.close();
+        }
+    }
+    
+    /**
+     * Routes publish acknowledgements to the listener of the acknowledged message
+     */
+    private static class PublishEventHandler implements JCSMPStreamingPublishCorrelatingEventHandler {
+        
+        @Override
+        public void responseReceivedEx(Object key) {
+            if (key instanceof OutboundMessage && ((OutboundMessage) key).getAckListener() != null) {
+                ((OutboundMessage) key).getAckListener().onAck((OutboundMessage) key);
+            }
+        }
+        
+        @Override
+        public void handleErrorEx(Object key, JCSMPException cause, long timestamp) {
+            if (key instanceof OutboundMessage && ((OutboundMessage) key).getAckListener() != null) {
+                ((OutboundMessage) key).getAckListener().onNack((OutboundMessage) key, cause);
+            } else {
+                LOGGER.warning("Solace publish error: " + cause.getMessage());
+            }
+        }
+    }
+}
\ No newline at end of file
@@ -0,0 +1,52 @@
+package com.solace.twitter.messaging;
+
+import com.solace.twitter.service.ConfigManager;
+
+import java.util.List;
+
+/**
+ * Connection to a publish/subscribe message broker
+ */
+public interface MessageBroker {
+    
+    /**
+     * Publish a batch of messages
+     * Returns once the broker has taken the messages; guaranteed messages are acknowledged
+     * asynchronously through their ack listener
+     * @param messages Messages to publish, in order
+     * @throws MessagingException if the messages could not be handed to the broker
+     */
+    void publish(List<OutboundMessage> messages) throws MessagingException;
+    
+    /**
+     * Bind to a durable queue as one of any number of non-exclusive consumers, provisioning the
+     * queue and its topic subscription first if they do not exist
+     * @param queueName Name of the queue
+     * @param topicSubscription Topic subscription that attracts messages to the queue
+     * @param prefetch Maximum number of unsettled messages delivered to this consumer
+     * @param maxRedelivery Number of redeliveries before a failed message is moved to the dead message queue
+     * @param listener Listener called for each delivery
+     * @return Started queue consumer
+     * @throws MessagingException if the queue cannot be provisioned or bound
+     */
+    QueueConsumer consume(String queueName, String topicSubscription, int prefetch, int maxRedelivery,
+                          InboundMessage.Listener listener) throws MessagingException;
+    
+    /**
+     * Disconnect from the broker
+     */
+    void close();
+    
+    /**
+     * Connect to the broker selected in the application configuration
+     * @param configManager Configuration manager
+     * @return Message broker
+     * @throws MessagingException if the broker cannot be reached
+     */
+    static MessageBroker fromConfig(ConfigManager configManager) throws MessagingException {
+        if ("memory".equalsIgnoreCase(configManager.getConfig(ConfigManager.MESSAGING_BROKER).trim())) {
+            return new InMemoryMessageBroker();
+        }
+        return JcsmpMessageBroker.fromConfig(configManager);
+    }
+}
\ No newline at end of file
@@ -0,0 +1,16 @@
+package com.solace.twitter.messaging;
+
+/**
+ * Failure to connect to a message broker or to hand a message to it
+ */
+public class MessagingException extends Exception {
+    private static final long serialVersionUID = 1L;
+    
+    public MessagingException(String message) {
+        super(message);
+    }
+    
+    public MessagingException(String message, Throwable cause) {
+        super(message, cause);
+    }
+}
\ No newline at end of file
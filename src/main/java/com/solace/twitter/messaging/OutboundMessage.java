@@ -0,0 +1,51 @@
+package com.solace.twitter.messaging;
+
+/**
+ * A message to publish to a topic
+ */
+public final class OutboundMessage {
+    private final String topic;
+    private final byte[] payload;
+    private final boolean guaranteed;
+    private final AckListener ackListener;
+    
+    /**
+     * Constructor for OutboundMessage
+     * @param topic Destination topic
+     * @param payload Message body
+     * @param guaranteed Whether to publish with guaranteed (persistent) delivery instead of direct delivery
+     * @param ackListener Listener told when the broker settles a guaranteed message, or null
+     */
+    public OutboundMessage(String topic, byte[] payload, boolean guaranteed, AckListener ackListener) {
+        this.topic = topic;
+        this.payload = payload;
+        this.guaranteed = guaranteed;
+        this.ackListener = ackListener;
+    }
+    
+    public String getTopic() {
+        return topic;
+    }
+    
+    public byte[] getPayload() {
+        return payload;
+    }
+    
+    public boolean isGuaranteed() {
+        return guaranteed;
+    }
+    
+    public AckListener getAckListener() {
+        return ackListener;
+    }
+    
+    /**
+     * Listener for broker acknowledgements of guaranteed messages
+     * Called on a broker thread, so implementations must not block
+     */
+    public interface AckListener {
+        void onAck(OutboundMessage message);
+        
+        void onNack(OutboundMessage message, Exception cause);
+    }
+}
\ No newline at end of file
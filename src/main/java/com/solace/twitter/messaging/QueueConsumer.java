@@ -0,0 +1,22 @@
+package com.solace.twitter.messaging;
+
+/**
+ * A consumer bound to a durable queue
+ */
+public interface QueueConsumer {
+    
+    /**
+     * Stop deliveries to this consumer; messages already delivered can still be settled
+     */
+    void pause();
+    
+    /**
+     * Resume deliveries after pause
+     */
+    void resume();
+    
+    /**
+     * Unbind from the queue; unsettled messages are redelivered, possibly to another consumer
+     */
+    void close();
+}
\ No newline at end of file
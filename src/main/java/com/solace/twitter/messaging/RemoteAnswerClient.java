@@ -0,0 +1,159 @@
+package com.solace.twitter.messaging;
+
+import com.solace.twitter.model.ProcessedTweet;
+import com.solace.twitter.service.ConfigManager;
+import com.solace.twitter.store.TweetCodec;
+
+import java.nio.ByteBuffer;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Consumer;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Ingest side of remote answering: hands questions to answer workers through the broker and
+ * receives their answers from the answer queue
+ * Questions are published with guaranteed delivery to {prefix}/ask/{lang}/{user}, which the
+ * question queue subscribes to; workers publish answers to {prefix}/answer/{lang}/{user}, which
+ * the answer queue subscribes to. Both queues survive restarts of either side
+ */
+public class RemoteAnswerClient {
+    private static final Logger LOGGER = Logger.getLogger(RemoteAnswerClient.class.getName());
+    
+    private final MessageBroker broker;
+    private final TweetPublisher questionPublisher;
+    private final String topicPrefix;
+    private final String answerQueueName;
+    private final int prefetch;
+    private final int maxRedelivery;
+    private final long dispatchTimeoutMillis;
+    private final Consumer<ProcessedTweet> answerHandler;
+    private QueueConsumer answerConsumer;
+    
+    // Runtime counters
+    private final AtomicLong answers = new AtomicLong();
+    private final AtomicLong failedAnswers = new AtomicLong();
+    
+    /**
+     * Constructor for RemoteAnswerClient
+     * @param broker Broker to publish questions to and consume answers from; closed with the client
+     * @param topicPrefix First level of every topic
+     * @param answerQueueName Name of the answer queue
+     * @param prefetch Maximum number of unsettled answers the broker delivers ahead
+     * @param maxRedelivery Number of redeliveries before an answer is moved to the dead message queue
+     * @param batchSize Maximum number of questions published in one call
+     * @param ackWindow Maximum number of questions waiting for acknowledgement
+     * @param queueCapacity Maximum number of questions waiting to be published
+     * @param dispatchTimeoutMillis Maximum time to wait for space in a full publish queue
+     * @param answerHandler Handler called with each answered tweet, on a broker thread
+     */
+    public RemoteAnswerClient(MessageBroker broker, String topicPrefix, String answerQueueName, int prefetch,
+                              int maxRedelivery, int batchSize, int ackWindow, int queueCapacity,
+                              long dispatchTimeoutMillis, Consumer<ProcessedTweet> answerHandler) {
+        this.broker = broker;
+        this.questionPublisher = new TweetPublisher(broker, topicPrefix, true, batchSize, ackWindow, queueCapacity);
+        this.topicPrefix = topicPrefix;
+        this.answerQueueName = answerQueueName;
+        this.prefetch = prefetch;
+        this.maxRedelivery = maxRedelivery;
+        this.dispatchTimeoutMillis = Math.max(0, dispatchTimeoutMillis);
+        this.answerHandler = answerHandler;
+    }
+    
+    /**
+     * Create a client from the application configuration
+     * @param configManager Configuration manager
+     * @param answerHandler Handler called with each answered tweet
+     * @return Remote answer client, or null if questions are answered locally
+     * @throws MessagingException if the broker cannot be reached
+     */
+    public static RemoteAnswerClient fromConfig(ConfigManager configManager, Consumer<ProcessedTweet> answerHandler) throws MessagingException {
+        if (!"remote".equalsIgnoreCase(configManager.getConfig(ConfigManager.PIPELINE_ANSWER_MODE).trim())) {
+            return null;
+        }
+        
+        return new RemoteAnswerClient(
+            MessageBroker.fromConfig(configManager),
+            configManager.getConfig(ConfigManager.MESSAGING_TOPIC_PREFIX).trim(),
+            configManager.getConfig(ConfigManager.MESSAGING_ANSWER_QUEUE).trim(),
+            configManager.getIntConfig(ConfigManager.WORKER_PREFETCH),
+            configManager.getIntConfig(ConfigManager.WORKER_MAX_REDELIVERY),
+            configManager.getIntConfig(ConfigManager.MESSAGING_BATCH_SIZE),
+            configManager.getIntConfig(ConfigManager.MESSAGING_ACK_WINDOW),
+            configManager.getIntConfig(ConfigManager.MESSAGING_QUEUE_CAPACITY),
+            configManager.getIntConfig(ConfigManager.MESSAGING_DISPATCH_TIMEOUT_MS),
+            answerHandler);
+    }
+    
+    /**
+     * Start publishing questions and bind to the answer queue
+     * @throws MessagingException if the answer queue cannot be bound
+     */
+    public void start() throws MessagingException {
+        questionPublisher.start();
+        answerConsumer = broker.consume(answerQueueName, Topics.subscription(topicPrefix, Topics.ANSWER), prefetch, maxRedelivery, this::onAnswer);
+        LOGGER.info("Answering questions remotely, consuming answers from queue " + answerQueueName);
+    }
+    
+    /**
+     * Hand a question to the answer workers
+     * While the publish queue is full the calling thread waits for space, so a burst holds back the
+     * classify stage as the answer stage does when questions are answered locally
+     * @param question Processed tweet without an answer
+     * @return true if the question was queued, false if the queue stayed full for the dispatch timeout
+     */
+    public boolean dispatch(ProcessedTweet question) {
+        if (!questionPublisher.publish(Topics.ASK, question, dispatchTimeoutMillis)) {
+            LOGGER.warning("Question queue full for " + dispatchTimeoutMillis + " ms, not answering tweet: " + question.getTweetId());
+            return false;
+        }
+        return true;
+    }
+    
+    private void onAnswer(InboundMessage message) {
+        ProcessedTweet tweet;
+        try {
+            tweet = TweetCodec.decode(ByteBuffer.wrap(message.getPayload()));
+        } catch (RuntimeException e) {
+            LOGGER.log(Level.WARNING, "Discarding undecodable answer on " + message.getTopic(), e);
+            message.accept();
+            return;
+        }
+        
+        // Settle only once the answer is recorded, so a crash in between redelivers it
+        try {
+            answerHandler.accept(tweet);
+            answers.incrementAndGet();
+            message.accept();
+        } catch (RuntimeException e) {
+            failedAnswers.incrementAndGet();
+            LOGGER.log(Level.WARNING, "Failed to record answer for tweet " + tweet.getTweetId(), e);
+            message.fail();
+        }
+    }
+    
+    public MessageBroker getBroker() {
+        return broker;
+    }
+    
+    /**
+     * Publish queued questions, unbind from the answer queue and close the broker
+     * @param timeoutMillis Maximum time to wait for outstanding acknowledgements in milliseconds
+     */
+    public void close(long timeoutMillis) {
+        if (answerConsumer != null) {
+            answerConsumer.close();
+        }
+        questionPublisher.close(timeoutMillis);
+        LOGGER.info("Closed remote answer client: " + this);
+    }
+    
+    @Override
+    public String toString() {
+        return "RemoteAnswerClient{" +
+                "questions=" + questionPublisher +
+                ", answers=" + answers +
+                ", failedAnswers=" + failedAnswers +
+                '}';
+    }
+}
\ No newline at end of file
@@ -0,0 +1,54 @@
+package com.solace.twitter.messaging;
+
+import com.solace.twitter.model.ProcessedTweet;
+
+/**
+ * Topic hierarchy for tweets: {prefix}/{kind}/{lang}/{user}
+ */
+public final class Topics {
+    // Answered questions, published for downstream consumers
+    public static final String QUESTION = "question";
+    
+    // Replies sent to tweets
+    public static final String REPLIED = "replied";
+    
+    // Questions waiting for an answer worker
+    public static final String ASK = "ask";
+    
+    // Questions answered by an answer worker
+    public static final String ANSWER = "answer";
+    
+    private Topics() {
+    }
+    
+    /**
+     * Build the topic for a tweet, e.g. twitter/question/en/solacedotcom
+     * @param prefix First level of the topic
+     * @param kind Kind of event
+     * @param tweet Processed tweet
+     * @return Topic
+     */
+    public static String forTweet(String prefix, String kind, ProcessedTweet tweet) {
+        return prefix + "/" + kind + "/" + level(tweet.getLang(), "und") + "/" + level(tweet.getUsername(), "unknown");
+    }
+    
+    /**
+     * Build the subscription matching every tweet of a kind
+     * @param prefix First level of the topic
+     * @param kind Kind of event
+     * @return Topic subscription
+     */
+    public static String subscription(String prefix, String kind) {
+        return prefix + "/" + kind + "/>";
+    }
+    
+    /**
+     * Make a value safe to use as a single topic level
+     */
+    private static String level(String value, String fallback) {
+        if (value == null || value.isEmpty()) {
+            return fallback;
+        }
+        return value.replace('/', '_').replace('*', '_').replace('>', '_');
+    }
+}
\ No newline at end of file
@@ -0,0 +1,243 @@
+package com.solace.twitter.messaging;
+
+import com.solace.twitter.model.ProcessedTweet;
+import com.solace.twitter.service.ConfigManager;
+import com.solace.twitter.service.TwitterService;
+import com.solace.twitter.store.TweetCodec;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Publishes processed tweets and reply state changes to hierarchical Solace topics
+ * Topics are {prefix}/question/{lang}/{user} for answered questions and {prefix}/replied/{lang}/{user}
+ * for sent replies, carrying the tweet in the compact binary encoding of TweetCodec. Listener calls
+ * only enqueue; a publisher thread sends the queue in batches, and for guaranteed delivery keeps
+ * at most a window of messages waiting for broker acknowledgement
+ */
+public class TweetPublisher implements TwitterService.TweetUpdateListener, OutboundMessage.AckListener {
+    private static final Logger LOGGER = Logger.getLogger(TweetPublisher.class.getName());
+    
+    private final MessageBroker broker;
+    private final String topicPrefix;
+    private final boolean guaranteed;
+    private final int batchSize;
+    private final int ackWindow;
+    private final BlockingQueue<OutboundMessage> queue;
+    private final Semaphore unacknowledged;
+    private final Thread publisherThread;
+    private volatile boolean running = false;
+    
+    // Runtime counters
+    private final AtomicLong published = new AtomicLong();
+    private final AtomicLong batches = new AtomicLong();
+    private final AtomicLong acknowledged = new AtomicLong();
+    private final AtomicLong rejected = new AtomicLong();
+    private final AtomicLong failed = new AtomicLong();
+    private final AtomicLong dropped = new AtomicLong();
+    
+    /**
+     * Constructor for TweetPublisher
+     * @param broker Broker to publish to
+     * @param topicPrefix First level of every topic
+     * @param guaranteed Whether to publish with guaranteed instead of direct delivery
+     * @param batchSize Maximum number of messages sent in one call
+     * @param ackWindow Maximum number of guaranteed messages waiting for acknowledgement
+     * @param queueCapacity Maximum number of messages waiting to be published
+     */
+    public TweetPublisher(MessageBroker broker, String topicPrefix, boolean guaranteed,
+                          int batchSize, int ackWindow, int queueCapacity) {
+        this.broker = broker;
+        this.topicPrefix = topicPrefix;
+        this.guaranteed = guaranteed;
+        this.ackWindow = Math.max(1, ackWindow);
+        this.batchSize = Math.max(1, Math.min(batchSize, this.ackWindow));
+        this.queue = new ArrayBlockingQueue<>(Math.max(1, queueCapacity));
+        this.unacknowledged = new Semaphore(this.ackWindow);
+        this.publisherThread = new Thread(this::publishLoop, "tweet-publisher");
+        this.publisherThread.setDaemon(true);
+    }
+    
+    /**
+     * Create a publisher from the application configuration
+     * @param configManager Configuration manager
+     * @return Tweet publisher, or null if publishing is disabled or the broker cannot be reached
+     */
+    public static TweetPublisher fromConfig(ConfigManager configManager) {
+        if (!configManager.getBooleanConfig(ConfigManager.MESSAGING_ENABLED)) {
+            return null;
+        }
+        
+        try {
+            return new TweetPublisher(
+                MessageBroker.fromConfig(configManager),
+                configManager.getConfig(ConfigManager.MESSAGING_TOPIC_PREFIX).trim(),
+                "guaranteed".equalsIgnoreCase(configManager.getConfig(ConfigManager.MESSAGING_DELIVERY).trim()),
+                configManager.getIntConfig(ConfigManager.MESSAGING_BATCH_SIZE),
+                configManager.getIntConfig(ConfigManager.MESSAGING_ACK_WINDOW),
+                configManager.getIntConfig(ConfigManager.MESSAGING_QUEUE_CAPACITY));
+        } catch (MessagingException e) {
+            LOGGER.log(Level.SEVERE, "Failed to connect to message broker, not publishing tweets", e);
+            return null;
+        }
+    }
+    
+    public void start() {
+        running = true;
+        publisherThread.start();
+    }
+    
+    @Override
+    public void onTweetProcessed(ProcessedTweet tweet) {
+        publish(Topics.QUESTION, tweet);
+    }
+    
+    @Override
+    public void onTweetReplied(ProcessedTweet tweet) {
+        publish(Topics.REPLIED, tweet);
+    }
+    
+    /**
+     * Queue a tweet for publishing without blocking the calling thread
+     * @param kind Kind of event, the second topic level
+     * @param tweet Processed tweet
+     * @return true if the tweet was queued, false if the queue was full
+     */
+    public boolean publish(String kind, ProcessedTweet tweet) {
+        OutboundMessage message = new OutboundMessage(Topics.forTweet(topicPrefix, kind, tweet), TweetCodec.encode(tweet), guaranteed, this);
+        if (!running || !queue.offer(message)) {
+            dropped.incrementAndGet();
+            LOGGER.fine("Publish queue full, dropped tweet: " + tweet.getTweetId());
+            return false;
+        }
+        return true;
+    }
+    
+    /**
+     * Queue a tweet for publishing, waiting for space if the queue is full
+     * @param kind Kind of event, the second topic level
+     * @param tweet Processed tweet
+     * @param timeoutMillis Maximum time to wait for space in milliseconds
+     * @return true if the tweet was queued, false if the queue stayed full or the publisher is closed
+     */
+    public boolean publish(String kind, ProcessedTweet tweet, long timeoutMillis) {
+        OutboundMessage message = new OutboundMessage(Topics.forTweet(topicPrefix, kind, tweet), TweetCodec.encode(tweet), guaranteed, this);
+        try {
+            if (running && queue.offer(message, timeoutMillis, TimeUnit.MILLISECONDS)) {
+                return true;
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        dropped.incrementAndGet();
+        return false;
+    }
+    
+    /**
+     * Send the queue in batches until the publisher is closed and the queue is empty
+     */
+    private void publishLoop() {
+        List<OutboundMessage> batch = new ArrayList<>(batchSize);
+        while (running || !queue.isEmpty()) {
+            try {
+                OutboundMessage first = queue.poll(100, TimeUnit.MILLISECONDS);
+                if (first == null) {
+                    continue;
+                }
+                
+                batch.add(first);
+                queue.drainTo(batch, batchSize - 1);
+                publishBatch(batch);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            } finally {
+                batch.clear();
+            }
+        }
+    }
+    
+    private void publishBatch(List<OutboundMessage> batch) throws InterruptedException {
+        // Wait for room in the acknowledgement window before handing more guaranteed messages to the broker
+        if (guaranteed) {
+            unacknowledged.acquire(batch.size());
+        }
+        
+        try {
+            broker.publish(batch);
+            published.addAndGet(batch.size());
+            batches.incrementAndGet();
+        } catch (MessagingException e) {
+            failed.addAndGet(batch.size());
+            if (guaranteed) {
+                unacknowledged.release(batch.size());
+            }
+            LOGGER.log(Level.WARNING, "Failed to publish " + batch.size() + " tweets", e);
+        }
+    }
+    
+    @Override
+    public void onAck(OutboundMessage message) {
+        acknowledged.incrementAndGet();
+        unacknowledged.release();
+    }
+    
+    @Override
+    public void onNack(OutboundMessage message, Exception cause) {
+        rejected.incrementAndGet();
+        unacknowledged.release();
+        LOGGER.warning("Broker rejected message on " + message.getTopic() + ": " + cause.getMessage());
+    }
+    
+    /**
+     * Stop accepting tweets, publish what is queued and wait for outstanding acknowledgements
+     * @param timeoutMillis Maximum time to wait in milliseconds
+     */
+    public void close(long timeoutMillis) {
+        long deadline = System.currentTimeMillis() + timeoutMillis;
+        running = false;
+        try {
+            publisherThread.join(Math.max(1, timeoutMillis));
+            if (guaranteed && !unacknowledged.tryAcquire(ackWindow, Math.max(0, deadline - System.currentTimeMillis()), TimeUnit.MILLISECONDS)) {
+                LOGGER.warning("Closing publisher with " + (ackWindow - unacknowledged.availablePermits()) + " unacknowledged messages");
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        
+        broker.close();
+        LOGGER.info("Closed tweet publisher: " + this);
+    }
+    
+    public long getPublished() {
+        return published.get();
+    }
+    
+    public long getAcknowledged() {
+        return acknowledged.get();
+    }
+    
+    public long getDropped() {
+        return dropped.get();
+    }
+    
+    @Override
+    public String toString() {
+        return "TweetPublisher{" +
+                "published=" + published +
+                ", batches=" + batches +
+                ", acknowledged=" + acknowledged +
+                ", rejected=" + rejected +
+                ", failed=" + failed +
+                ", dropped=" + dropped +
+                ", queued=" + queue.size() +
+                '}';
+    }
+}
\ No newline at end of file
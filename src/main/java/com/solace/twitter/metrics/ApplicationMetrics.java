@@ -0,0 +1,153 @@
+package com.solace.twitter.metrics;
+
+import com.solace.twitter.messaging.AnswerWorker;
+import com.solace.twitter.model.TweetTiming;
+import com.solace.twitter.service.AdmissionQueue;
+import com.solace.twitter.service.AgentMeshService;
+import com.solace.twitter.service.AnswerCache;
+import com.solace.twitter.service.CircuitBreaker;
+import com.solace.twitter.service.NearDuplicateDetector;
+import com.solace.twitter.service.PipelineStage;
+import com.solace.twitter.service.ReplyScheduler;
+import com.solace.twitter.service.SpanExporter;
+import com.solace.twitter.service.TweetTracer;
+import com.solace.twitter.service.TwitterService;
+
+import java.util.Locale;
+
+/**
+ * Registers the counters and histograms kept by the application's components
+ */
+public final class ApplicationMetrics {
+    
+    private ApplicationMetrics() {
+    }
+    
+    /**
+     * Register the metrics of the ingest application: stream, classifier, pipeline, replies and Agent Mesh
+     * @param registry Metrics registry
+     * @param twitterService Twitter service
+     * @param agentMeshService Agent Mesh service
+     */
+    public static void register(MetricsRegistry registry, TwitterService twitterService, AgentMeshService agentMeshService) {
+        registry.counter("tweets_received_total", "Tweets received from the stream", twitterService::getReceivedTweets);
+        registry.counter("tweets_duplicate_total", "Tweets skipped as already ingested", twitterService::getDuplicateTweets);
+        registry.counter("tweets_classified_total", "Tweets checked for a question", twitterService::getClassifiedTweets);
+        registry.counter("tweets_questions_total", "Tweets found to ask a question", twitterService::getQuestionTweets);
+        registry.gauge("classifier_pass_ratio", "Fraction of classified tweets that ask a question", () -> {
+            long classified = twitterService.getClassifiedTweets();
+            return classified == 0 ? 0.0 : (double) twitterService.getQuestionTweets() / classified;
+        });
+        
+        for (PipelineStage stage : twitterService.getPipelineStages()) {
+            String labels = "{stage=\"" + stage.getName() + "\"}";
+            registry.gauge("pipeline_queue_depth" + labels, "Tasks queued in a pipeline stage", () -> stage.getStats().getDepth());
+            registry.gauge("pipeline_queue_capacity" + labels, "Queue capacity of a pipeline stage", () -> stage.getStats().getCapacity());
+            registry.gauge("pipeline_in_flight" + labels, "Asynchronous operations in flight for a pipeline stage",
+                () -> stage.getStats().getInFlight());
+            registry.counter("pipeline_tasks_completed_total" + labels, "Tasks run by a pipeline stage",
+                () -> stage.getStats().getCompleted());
+            registry.counter("pipeline_tasks_rejected_total" + labels, "Tasks rejected by a full or stopped pipeline stage",
+                () -> stage.getStats().getRejected());
+            registry.counter("pipeline_tasks_failed_total" + labels, "Tasks that threw in a pipeline stage",
+                () -> stage.getStats().getFailed());
+        }
+        
+        AdmissionQueue answerQueue = twitterService.getAnswerQueue();
+        if (answerQueue != null) {
+            for (AdmissionQueue.ShedReason reason : AdmissionQueue.ShedReason.values()) {
+                registry.counter("answer_queue_shed_total{reason=\"" + reason.name().toLowerCase(Locale.ROOT) + "\"}",
+                    "Questions shed from the answer queue", () -> answerQueue.getShed(reason));
+            }
+            registry.gauge("answer_queue_wait_seconds", "Time the last answered question waited in the answer queue",
+                () -> answerQueue.getLastWaitMillis() / 1000.0);
+        }
+        registry.gauge("questions_parked", "Questions waiting for Agent Mesh to recover", twitterService::getParkedQuestionCount);
+        registry.counter("questions_dropped_total", "Questions given up on while Agent Mesh was unavailable",
+            twitterService::getDroppedQuestionCount);
+        
+        ReplyScheduler replyScheduler = twitterService.getReplyScheduler();
+        registry.gauge("reply_queue_depth", "Replies waiting to be sent", replyScheduler::getQueueDepth);
+        registry.counter("replies_queued_total", "Replies queued", replyScheduler::getQueued);
+        registry.counter("replies_total{outcome=\"sent\"}", "Reply outcomes", replyScheduler::getSent);
+        registry.counter("replies_total{outcome=\"deferred\"}", "Reply outcomes", replyScheduler::getDeferred);
+        registry.counter("replies_total{outcome=\"retried\"}", "Reply outcomes", replyScheduler::getRetried);
+        registry.counter("replies_total{outcome=\"failed\"}", "Reply outcomes", replyScheduler::getFailed);
+        registry.counter("replies_total{outcome=\"dropped\"}", "Reply outcomes", replyScheduler::getDropped);
+        
+        TweetTracer tweetTracer = twitterService.getTweetTracer();
+        for (TweetTiming.Span span : TweetTiming.Span.values()) {
+            registry.histogram("trace_span_seconds{span=\"" + span.name().toLowerCase(Locale.ROOT) + "\"}",
+                "Time answered tweets spent in each processing step", tweetTracer.getSpanLatency(span), 1e-6);
+        }
+        registry.histogram("trace_answered_seconds", "Time from tweet creation to the recorded answer",
+            tweetTracer.getAnswerLatency(), 1e-6);
+        registry.histogram("trace_replied_seconds", "Time from tweet creation to the posted reply",
+            tweetTracer.getReplyLatency(), 1e-6);
+        registry.counter("trace_slow_total", "Traces slower than the slow trace threshold", tweetTracer::getSlowTraces);
+        SpanExporter spanExporter = tweetTracer.getExporter();
+        if (spanExporter != null) {
+            registry.counter("trace_spans_exported_total", "Spans written to the span export file", spanExporter::getExportedSpans);
+            registry.counter("trace_spans_dropped_total", "Traces not exported because the exporter fell behind",
+                spanExporter::getDroppedTraces);
+        }
+        
+        register(registry, agentMeshService);
+    }
+    
+    /**
+     * Register the metrics of Agent Mesh requests, the answer cache and near-duplicate detection
+     * @param registry Metrics registry
+     * @param agentMeshService Agent Mesh service
+     */
+    public static void register(MetricsRegistry registry, AgentMeshService agentMeshService) {
+        registry.histogram("agentmesh_request_seconds", "Latency of Agent Mesh HTTP requests",
+            agentMeshService.getRequestLatency(), 1e-6);
+        registry.histogram("agentmesh_answer_seconds", "Time to answer a question through Agent Mesh, including retries",
+            agentMeshService.getAnswerLatency(), 1e-6);
+        registry.counter("agentmesh_request_failures_total", "Agent Mesh requests that failed with a network or server error",
+            agentMeshService::getFailedRequests);
+        registry.counter("agentmesh_retries_total", "Agent Mesh requests retried", agentMeshService::getRetriedRequests);
+        registry.counter("agentmesh_coalesced_total", "Questions that shared an Agent Mesh request in flight",
+            agentMeshService::getCoalescedRequests);
+        registry.counter("agentmesh_stream_cutoff_total", "Streamed answers stopped once they were too long for a reply",
+            agentMeshService::getCutOffAnswers);
+        registry.counter("agentmesh_client_rebuilds_total", "HTTP clients rebuilt after a configuration change",
+            agentMeshService::getTransportRebuilds);
+        
+        CircuitBreaker circuitBreaker = agentMeshService.getCircuitBreaker();
+        registry.gauge("agentmesh_circuit_state", "Circuit breaker state: 0 closed, 1 half-open, 2 open",
+            () -> circuitBreaker.getState() == CircuitBreaker.State.CLOSED ? 0
+                : circuitBreaker.getState() == CircuitBreaker.State.HALF_OPEN ? 1 : 2);
+        registry.counter("agentmesh_circuit_opened_total", "Times the circuit breaker opened", circuitBreaker::getOpened);
+        registry.counter("agentmesh_circuit_rejected_total", "Requests rejected by the open circuit breaker",
+            circuitBreaker::getRejected);
+        registry.counter("agentmesh_retry_budget_exhausted_total", "Retries refused by the retry budget",
+            agentMeshService.getRetryBudget()::getExhausted);
+        
+        AnswerCache answerCache = agentMeshService.getAnswerCache();
+        if (answerCache != null) {
+            registry.counter("answer_cache_hits_total", "Questions answered from the cache", answerCache::getHits);
+            registry.counter("answer_cache_misses_total", "Questions not found in the cache", answerCache::getMisses);
+            registry.counter("answer_cache_evictions_total", "Answers evicted from the cache", answerCache::getEvictions);
+            registry.gauge("answer_cache_hit_ratio", "Fraction of cache lookups that hit", answerCache::getHitRatio);
+        }
+        
+        NearDuplicateDetector duplicateDetector = agentMeshService.getDuplicateDetector();
+        if (duplicateDetector != null) {
+            registry.counter("questions_near_duplicate_total", "Questions grouped with a near-duplicate",
+                duplicateDetector::getDuplicates);
+        }
+    }
+    
+    /**
+     * Register the metrics of an answer worker
+     * @param registry Metrics registry
+     * @param worker Answer worker
+     */
+    public static void register(MetricsRegistry registry, AnswerWorker worker) {
+        registry.counter("worker_questions_received_total", "Questions received from the question queue", worker::getReceived);
+        registry.counter("worker_questions_answered_total", "Questions answered and acknowledged", worker::getAnswered);
+        registry.counter("worker_questions_failed_total", "Questions settled as failed for redelivery", worker::getFailed);
+    }
+}
\ No newline at end of file
@@ -0,0 +1,112 @@
+package com.solace.twitter.metrics;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Histogram of non-negative long values with bounded relative error, in the style of HdrHistogram
+ * Values below 32 are counted exactly; larger values fall into one of 32 linear sub-buckets per
+ * power of two, so any value is reported within about 3% of its true value. Recording is a few
+ * arithmetic operations and atomic increments, without locks or allocation
+ */
+public class Histogram {
+    private static final int SUB_BUCKET_BITS = 5;
+    private static final int SUB_BUCKETS = 1 << SUB_BUCKET_BITS;
+    private static final int BUCKETS = SUB_BUCKETS + (63 - SUB_BUCKET_BITS) * SUB_BUCKETS;
+    
+    private final AtomicLongArray counts = new AtomicLongArray(BUCKETS);
+    private final LongAdder count = new LongAdder();
+    private final LongAdder sum = new LongAdder();
+    private final AtomicLong max = new AtomicLong();
+    
+    /**
+     * Record a value
+     * @param value Value to record, negative values are recorded as 0
+     */
+    public void record(long value) {
+        long recorded = Math.max(0, value);
+        counts.incrementAndGet(indexOf(recorded));
+        count.increment();
+        sum.add(recorded);
+        
+        long currentMax = max.get();
+        while (recorded > currentMax && !max.compareAndSet(currentMax, recorded)) {
+            currentMax = max.get();
+        }
+    }
+    
+    /**
+     * Get the bucket of a value
+     */
+    private static int indexOf(long value) {
+        if (value < SUB_BUCKETS) {
+            return (int) value;
+        }
+        int exponent = 63 - Long.numberOfLeadingZeros(value);
+        int shift = exponent - SUB_BUCKET_BITS;
+        int subBucket = (int) (value >>> shift) - SUB_BUCKETS;
+        return SUB_BUCKETS + shift * SUB_BUCKETS + subBucket;
+    }
+    
+    /**
+     * Get the highest value that falls into a bucket
+     */
+    private static long highestValueOf(int index) {
+        if (index < SUB_BUCKETS) {
+            return index;
+        }
+        int shift = (index - SUB_BUCKETS) / SUB_BUCKETS;
+        long subBucket = (index - SUB_BUCKETS) % SUB_BUCKETS + SUB_BUCKETS;
+        return ((subBucket + 1) << shift) - 1;
+    }
+    
+    /**
+     * Get the value below which a given fraction of the recorded values fall
+     * Values recorded concurrently with the call may or may not be included
+     * @param quantile Fraction between 0 and 1
+     * @return Value at the quantile, or 0 if nothing was recorded
+     */
+    public long getValueAtQuantile(double quantile) {
+        long total = 0;
+        for (int i = 0; i < BUCKETS; i++) {
+            total += counts.get(i);
+        }
+        if (total == 0) {
+            return 0;
+        }
+        
+        long rank = Math.max(1, (long) Math.ceil(Math.min(1.0, Math.max(0.0, quantile)) * total));
+        long seen = 0;
+        for (int i = 0; i < BUCKETS; i++) {
+            seen += counts.get(i);
+            if (seen >= rank) {
+                return Math.min(highestValueOf(i), max.get());
+            }
+        }
+        return max.get();
+    }
+    
+    public long getCount() {
+        return count.sum();
+    }
+    
+    public long getSum() {
+        return sum.sum();
+    }
+    
+    public long getMax() {
+        return max.get();
+    }
+    
+    @Override
+    public String toString() {
+        return "Histogram{" +
+                "count=" + getCount() +
+                ", p50=" + getValueAtQuantile(0.5) +
+                ", p99=" + getValueAtQuantile(0.99) +
+                ", p999=" + getValueAtQuantile(0.999) +
+                ", max=" + getMax() +
+                '}';
+    }
+}
\ No newline at end of file
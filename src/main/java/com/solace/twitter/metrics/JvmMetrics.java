@@ -0,0 +1,53 @@
+package com.solace.twitter.metrics;
+
+import java.lang.management.ClassLoadingMXBean;
+import java.lang.management.GarbageCollectorMXBean;
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryMXBean;
+import java.lang.management.RuntimeMXBean;
+import java.lang.management.ThreadMXBean;
+
+/**
+ * Registers JVM memory, garbage collection, thread and class loading metrics
+ */
+public final class JvmMetrics {
+    
+    private JvmMetrics() {
+    }
+    
+    /**
+     * Register the JVM metrics
+     * @param registry Metrics registry
+     */
+    public static void register(MetricsRegistry registry) {
+        MemoryMXBean memory = ManagementFactory.getMemoryMXBean();
+        registry.gauge("jvm_memory_used_bytes{area=\"heap\"}", "Used JVM memory",
+            () -> memory.getHeapMemoryUsage().getUsed());
+        registry.gauge("jvm_memory_used_bytes{area=\"nonheap\"}", "Used JVM memory",
+            () -> memory.getNonHeapMemoryUsage().getUsed());
+        registry.gauge("jvm_memory_committed_bytes{area=\"heap\"}", "Committed JVM memory",
+            () -> memory.getHeapMemoryUsage().getCommitted());
+        registry.gauge("jvm_memory_committed_bytes{area=\"nonheap\"}", "Committed JVM memory",
+            () -> memory.getNonHeapMemoryUsage().getCommitted());
+        registry.gauge("jvm_memory_max_bytes{area=\"heap\"}", "Maximum JVM heap",
+            () -> memory.getHeapMemoryUsage().getMax());
+        
+        for (GarbageCollectorMXBean collector : ManagementFactory.getGarbageCollectorMXBeans()) {
+            String labels = "{gc=\"" + collector.getName() + "\"}";
+            registry.counter("jvm_gc_collections_total" + labels, "Garbage collections", collector::getCollectionCount);
+            registry.gauge("jvm_gc_collection_seconds" + labels, "Total time spent in garbage collection",
+                () -> collector.getCollectionTime() / 1000.0);
+        }
+        
+        ThreadMXBean threads = ManagementFactory.getThreadMXBean();
+        registry.gauge("jvm_threads_live", "Live threads", threads::getThreadCount);
+        registry.gauge("jvm_threads_daemon", "Live daemon threads", threads::getDaemonThreadCount);
+        registry.gauge("jvm_threads_peak", "Peak live threads", threads::getPeakThreadCount);
+        
+        ClassLoadingMXBean classLoading = ManagementFactory.getClassLoadingMXBean();
+        registry.gauge("jvm_classes_loaded", "Currently loaded classes", classLoading::getLoadedClassCount);
+        
+        RuntimeMXBean runtime = ManagementFactory.getRuntimeMXBean();
+        registry.gauge("process_uptime_seconds", "Time since the JVM started", () -> runtime.getUptime() / 1000.0);
+    }
+}
\ No newline at end of file
@@ -0,0 +1,66 @@
+package com.solace.twitter.metrics;
+
+import com.solace.twitter.service.ConfigManager;
+
+import javax.management.ObjectName;
+import java.io.IOException;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Publishes a metrics registry over JMX and the HTTP scrape endpoint, as configured
+ * Failing to bind the endpoint is logged and does not stop the application
+ */
+public class MetricsExporter {
+    private static final Logger LOGGER = Logger.getLogger(MetricsExporter.class.getName());
+    private static final String OBJECT_NAME = "com.solace.twitter:type=Metrics";
+    
+    private final ObjectName objectName;
+    private final MetricsServer server;
+    
+    private MetricsExporter(ObjectName objectName, MetricsServer server) {
+        this.objectName = objectName;
+        this.server = server;
+    }
+    
+    /**
+     * Start exporting the metrics
+     * @param configManager Configuration manager
+     * @param registry Metrics to export
+     * @return Running exporter
+     */
+    public static MetricsExporter start(ConfigManager configManager, MetricsRegistry registry) {
+        ObjectName objectName = null;
+        if (configManager.getBooleanConfig(ConfigManager.METRICS_JMX_ENABLED)) {
+            objectName = MetricsMBean.register(registry, OBJECT_NAME);
+        }
+        
+        MetricsServer server = MetricsServer.fromConfig(configManager, registry);
+        if (server != null) {
+            try {
+                server.start();
+            } catch (IOException e) {
+                LOGGER.log(Level.WARNING, "Failed to start metrics endpoint on port " + server.getPort(), e);
+                server = null;
+            }
+        }
+        return new MetricsExporter(objectName, server);
+    }
+    
+    /**
+     * Get the metrics endpoint
+     * @return Running server, or null if the endpoint is disabled or failed to start
+     */
+    public MetricsServer getServer() {
+        return server;
+    }
+    
+    public void close() {
+        if (server != null) {
+            server.close();
+        }
+        if (objectName != null) {
+            MetricsMBean.unregister(objectName);
+        }
+    }
+}
\ No newline at end of file
@@ -0,0 +1,112 @@
+package com.solace.twitter.metrics;
+
+import javax.management.Attribute;
+import javax.management.AttributeList;
+import javax.management.AttributeNotFoundException;
+import javax.management.DynamicMBean;
+import javax.management.MBeanAttributeInfo;
+import javax.management.MBeanInfo;
+import javax.management.MBeanServer;
+import javax.management.MBeanOperationInfo;
+import javax.management.ObjectName;
+import java.lang.management.ManagementFactory;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Exposes the metrics registry as read-only attributes of one MBean
+ * Attributes are read from the registry on every request, so JConsole and JMX exporters see
+ * the same values as the HTTP endpoint
+ */
+public class MetricsMBean implements DynamicMBean {
+    private static final Logger LOGGER = Logger.getLogger(MetricsMBean.class.getName());
+    
+    private final MetricsRegistry registry;
+    
+    public MetricsMBean(MetricsRegistry registry) {
+        this.registry = registry;
+    }
+    
+    /**
+     * Register the metrics with the platform MBean server
+     * @param registry Metrics registry
+     * @param name Object name, e.g. com.solace.twitter:type=Metrics
+     * @return Registered object name, or null if registration failed
+     */
+    public static ObjectName register(MetricsRegistry registry, String name) {
+        try {
+            ObjectName objectName = new ObjectName(name);
+            MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+            if (server.isRegistered(objectName)) {
+                server.unregisterMBean(objectName);
+            }
+            server.registerMBean(new MetricsMBean(registry), objectName);
+            return objectName;
+        } catch (Exception e) {
+            LOGGER.log(Level.WARNING, "Failed to register metrics MBean " + name, e);
+            return null;
+        }
+    }
+    
+    /**
+     * Remove the metrics from the platform MBean server
+     * @param objectName Name returned by register
+     */
+    public static void unregister(ObjectName objectName) {
+        try {
+            ManagementFactory.getPlatformMBeanServer().unregisterMBean(objectName);
+        } catch (Exception e) {
+            LOGGER.log(Level.FINE, "Failed to unregister metrics MBean " + objectName, e);
+        }
+    }
+    
+    @Override
+    public Object getAttribute(String attribute) throws AttributeNotFoundException {
+        Double value = registry.snapshot().get(attribute);
+        if (value == null) {
+            throw new AttributeNotFoundException(attribute);
+        }
+        return value;
+    }
+    
+    @Override
+    public AttributeList getAttributes(String[] attributes) {
+        Map<String, Double> values = registry.snapshot();
+        AttributeList list = new AttributeList();
+        for (String attribute : attributes) {
+            Double value = values.get(attribute);
+            if (value != null) {
+                list.add(new Attribute(attribute, value));
+            }
+        }
+        return list;
+    }
+    
+    @Override
+    public void setAttribute(Attribute attribute) {
+        throw new UnsupportedOperationException("Metrics are read-only");
+    }
+    
+    @Override
+    public AttributeList setAttributes(AttributeList attributes) {
+        return new AttributeList();
+    }
+    
+    @Override
+    public Object invoke(String actionName, Object[] params, String[] signature) {
+        throw new UnsupportedOperationException("No operations");
+    }
+    
+    @Override
+    public MBeanInfo getMBeanInfo() {
+        List<MBeanAttributeInfo> attributes = new ArrayList<>();
+        for (String name : registry.snapshot().keySet()) {
+            attributes.add(new MBeanAttributeInfo(name, Double.class.getName(), name, true, false, false));
+        }
+        return new MBeanInfo(getClass().getName(), "Solace Twitter Integration metrics",
+            attributes.toArray(new MBeanAttributeInfo[0]), null, new MBeanOperationInfo[0], null);
+    }
+}
\ No newline at end of file
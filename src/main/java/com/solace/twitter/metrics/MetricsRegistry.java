@@ -0,0 +1,196 @@
+package com.solace.twitter.metrics;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.DoubleSupplier;
+import java.util.function.LongSupplier;
+
+/**
+ * Named metrics of the application, exported over JMX and in Prometheus text format
+ * Components keep their own counters and histograms and the registry only reads them when
+ * metrics are exported, so registering a metric adds nothing to the recording path. A name may
+ * carry Prometheus labels, e.g. pipeline_queue_depth{stage="answer"}; metrics sharing a base name
+ * are exported as one metric family
+ */
+public class MetricsRegistry {
+    private static final double[] QUANTILES = {0.5, 0.99, 0.999};
+    
+    /**
+     * Kind of a metric, as exported to Prometheus
+     */
+    public enum Type { COUNTER, GAUGE, SUMMARY }
+    
+    private final List<Metric> metrics = new CopyOnWriteArrayList<>();
+    
+    /**
+     * Create and register a counter
+     * @param name Metric name, optionally with labels
+     * @param help Description of the metric
+     * @return Counter to increment
+     */
+    public LongAdder counter(String name, String help) {
+        LongAdder counter = new LongAdder();
+        register(name, help, Type.COUNTER, counter::sum, null, 1.0);
+        return counter;
+    }
+    
+    /**
+     * Register a counter kept by a component
+     * @param name Metric name, optionally with labels
+     * @param help Description of the metric
+     * @param value Reads the current count
+     */
+    public void counter(String name, String help, LongSupplier value) {
+        register(name, help, Type.COUNTER, value::getAsLong, null, 1.0);
+    }
+    
+    /**
+     * Register a value that can go up and down
+     * @param name Metric name, optionally with labels
+     * @param help Description of the metric
+     * @param value Reads the current value
+     */
+    public void gauge(String name, String help, DoubleSupplier value) {
+        register(name, help, Type.GAUGE, value, null, 1.0);
+    }
+    
+    /**
+     * Register a histogram kept by a component, exported as a summary with p50, p99 and p999
+     * @param name Metric name, optionally with labels
+     * @param help Description of the metric
+     * @param histogram Histogram to export
+     * @param scale Factor converting recorded values to the exported unit, e.g. 1e-6 for microseconds to seconds
+     */
+    public void histogram(String name, String help, Histogram histogram, double scale) {
+        register(name, help, Type.SUMMARY, null, histogram, scale);
+    }
+    
+    private void register(String name, String help, Type type, DoubleSupplier value, Histogram histogram, double scale) {
+        metrics.add(new Metric(name, help, type, value, histogram, scale));
+    }
+    
+    /**
+     * Read every metric, expanding histograms into quantiles, count, sum and max
+     * @return Current values by metric name, in registration order
+     */
+    public Map<String, Double> snapshot() {
+        Map<String, Double> values = new LinkedHashMap<>();
+        for (Metric metric : metrics) {
+            if (metric.histogram == null) {
+                values.put(metric.name, read(metric.value));
+                continue;
+            }
+            
+            String labels = metric.labels != null ? "{" + metric.labels + "}" : "";
+            for (double quantile : QUANTILES) {
+                values.put(metric.family + "_p" + quantileSuffix(quantile) + labels,
+                    metric.histogram.getValueAtQuantile(quantile) * metric.scale);
+            }
+            values.put(metric.family + "_count" + labels, (double) metric.histogram.getCount());
+            values.put(metric.family + "_sum" + labels, metric.histogram.getSum() * metric.scale);
+            values.put(metric.family + "_max" + labels, metric.histogram.getMax() * metric.scale);
+        }
+        return values;
+    }
+    
+    /**
+     * Write every metric in the Prometheus text exposition format
+     * @param out Destination
+     */
+    public void writePrometheus(StringBuilder out) {
+        // Group metrics by family so each family is announced once
+        Map<String, List<Metric>> families = new LinkedHashMap<>();
+        for (Metric metric : metrics) {
+            families.computeIfAbsent(metric.family, family -> new ArrayList<>()).add(metric);
+        }
+        
+        for (Map.Entry<String, List<Metric>> family : families.entrySet()) {
+            Metric first = family.getValue().get(0);
+            out.append("# HELP ").append(family.getKey()).append(' ').append(first.help).append('\n');
+            out.append("# TYPE ").append(family.getKey()).append(' ').append(first.type.name().toLowerCase(Locale.ROOT)).append('\n');
+            for (Metric metric : family.getValue()) {
+                if (metric.histogram == null) {
+                    sample(out, metric.family, metric.labels, null, read(metric.value));
+                    continue;
+                }
+                
+                for (double quantile : QUANTILES) {
+                    sample(out, metric.family, metric.labels, "quantile=\"" + quantile + "\"",
+                        metric.histogram.getValueAtQuantile(quantile) * metric.scale);
+                }
+                sample(out, metric.family + "_sum", metric.labels, null, metric.histogram.getSum() * metric.scale);
+                sample(out, metric.family + "_count", metric.labels, null, metric.histogram.getCount());
+            }
+        }
+    }
+    
+    private static void sample(StringBuilder out, String name, String labels, String extraLabel, double value) {
+        out.append(name);
+        if (labels != null || extraLabel != null) {
+            out.append('{');
+            if (labels != null) {
+                out.append(labels);
+            }
+            if (extraLabel != null) {
+                out.append(labels != null ? "," : "").append(extraLabel);
+            }
+            out.append('}');
+        }
+        out.append(' ').append(format(value)).append('\n');
+    }
+    
+    private static String format(double value) {
+        if (Double.isNaN(value)) {
+            return "NaN";
+        }
+        if (value == Math.rint(value) && Math.abs(value) < 1e15) {
+            return Long.toString((long) value);
+        }
+        return Double.toString(value);
+    }
+    
+    private static double read(DoubleSupplier value) {
+        try {
+            return value.getAsDouble();
+        } catch (RuntimeException e) {
+            // A component that has been closed may fail to report
+            return Double.NaN;
+        }
+    }
+    
+    private static String quantileSuffix(double quantile) {
+        String digits = Double.toString(quantile).substring(2);
+        return digits.length() == 1 ? digits + "0" : digits;
+    }
+    
+    /**
+     * A registered metric
+     */
+    private static class Metric {
+        private final String name;
+        private final String family;
+        private final String labels;
+        private final String help;
+        private final Type type;
+        private final DoubleSupplier value;
+        private final Histogram histogram;
+        private final double scale;
+        
+        Metric(String name, String help, Type type, DoubleSupplier value, Histogram histogram, double scale) {
+            int brace = name.indexOf('{');
+            this.name = name;
+            this.family = brace < 0 ? name : name.substring(0, brace);
+            this.labels = brace < 0 ? null : name.substring(brace + 1, name.length() - 1);
+            this.help = help;
+            this.type = type;
+            this.value = value;
+            this.histogram = histogram;
+            this.scale = scale;
+        }
+    }
+}
\ No newline at end of file
@@ -0,0 +1,121 @@
+package com.solace.twitter.metrics;
+
+import com.solace.twitter.service.ConfigManager;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Embedded HTTP endpoint serving the metrics in Prometheus text format at /metrics
+ * Runs on the JDK's built-in HTTP server with a single daemon thread, so scrapes never
+ * compete with the pipeline for threads
+ */
+public class MetricsServer {
+    private static final Logger LOGGER = Logger.getLogger(MetricsServer.class.getName());
+    private static final String CONTENT_TYPE = "text/plain; version=0.0.4; charset=utf-8";
+    
+    private final MetricsRegistry registry;
+    private final String host;
+    private final int port;
+    private HttpServer server;
+    private ExecutorService executor;
+    
+    /**
+     * Constructor for MetricsServer
+     * @param registry Metrics to serve
+     * @param host Address to bind to, empty for the loopback address only
+     * @param port Port to listen on, 0 for any free port
+     */
+    public MetricsServer(MetricsRegistry registry, String host, int port) {
+        this.registry = registry;
+        this.host = host;
+        this.port = port;
+    }
+    
+    /**
+     * Create a metrics server from the application configuration
+     * @param configManager Configuration manager
+     * @param registry Metrics to serve
+     * @return Metrics server, or null if the endpoint is disabled
+     */
+    public static MetricsServer fromConfig(ConfigManager configManager, MetricsRegistry registry) {
+        if (!configManager.getBooleanConfig(ConfigManager.METRICS_HTTP_ENABLED)) {
+            return null;
+        }
+        return new MetricsServer(
+            registry,
+            configManager.getConfig(ConfigManager.METRICS_HTTP_HOST).trim(),
+            configManager.getIntConfig(ConfigManager.METRICS_HTTP_PORT));
+    }
+    
+    /**
+     * Start listening
+     * @throws IOException if the port cannot be bound
+     */
+    public void start() throws IOException {
+        InetSocketAddress address = host.isEmpty()
+            ? new InetSocketAddress(InetAddress.getLoopbackAddress(), port) : new InetSocketAddress(host, port);
+        server = HttpServer.create(address, 0);
+        server.createContext("/metrics", this::handleScrape);
+        executor = Executors.newSingleThreadExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "metrics-http");
+            thread.setDaemon(true);
+            return thread;
+        });
+        server.setExecutor(executor);
+        server.start();
+        LOGGER.info("Serving metrics at http://" + (host.isEmpty() ? address.getHostString() : host) + ":" + getPort() + "/metrics");
+    }
+    
+    private void handleScrape(HttpExchange exchange) throws IOException {
+        try {
+            if (!"GET".equals(exchange.getRequestMethod()) && !"HEAD".equals(exchange.getRequestMethod())) {
+                exchange.sendResponseHeaders(405, -1);
+                return;
+            }
+            
+            StringBuilder text = new StringBuilder(8192);
+            registry.writePrometheus(text);
+            byte[] body = text.toString().getBytes(StandardCharsets.UTF_8);
+            exchange.getResponseHeaders().set("Content-Type", CONTENT_TYPE);
+            if ("HEAD".equals(exchange.getRequestMethod())) {
+                exchange.sendResponseHeaders(200, -1);
+                return;
+            }
+            exchange.sendResponseHeaders(200, body.length);
+            try (OutputStream out = exchange.getResponseBody()) {
+                out.write(body);
+            }
+        } catch (RuntimeException e) {
+            LOGGER.log(Level.WARNING, "Failed to serve metrics", e);
+            exchange.sendResponseHeaders(500, -1);
+        } finally {
+            exchange.close();
+        }
+    }
+    
+    /**
+     * Get the port the server listens on
+     * @return Bound port, or the configured port if not started
+     */
+    public int getPort() {
+        return server != null ? server.getAddress().getPort() : port;
+    }
+    
+    public void close() {
+        if (server != null) {
+            server.stop(0);
+            executor.shutdownNow();
+            server = null;
+        }
+    }
+}
\ No newline at end of file
@@ -13,7 +13,9 @@ public class ProcessedTweet {
     private final String tweetText;
     private final String extractedQuestion;
     private final String answer;
-    private boolean replied;
+    private final String lang;
+    private volatile boolean replied;
+    private volatile TweetTiming timing;
     
     /**
      * Constructor for ProcessedTweet
@@ -29,6 +31,24 @@ public class ProcessedTweet {
     public ProcessedTweet(long tweetId, String username, String userDisplayName, 
                           Date createdAt, String tweetText, String extractedQuestion, 
                           String answer, boolean replied) {
+        this(tweetId, username, userDisplayName, createdAt, tweetText, extractedQuestion, answer, replied, null);
+    }
+    
+    /**
+     * Constructor for ProcessedTweet
+     * @param tweetId Twitter ID of the tweet
+     * @param username Twitter username of the author
+     * @param userDisplayName Display name of the author
+     * @param createdAt Date the tweet was created
+     * @param tweetText Full text of the tweet
+     * @param extractedQuestion Question extracted from the tweet
+     * @param answer AI-generated answer
+     * @param replied Whether a reply has been sent
+     * @param lang Language code detected by Twitter, or null if unknown
+     */
+    public ProcessedTweet(long tweetId, String username, String userDisplayName, 
+                          Date createdAt, String tweetText, String extractedQuestion, 
+                          String answer, boolean replied, String lang) {
         this.tweetId = tweetId;
         this.username = username;
         this.userDisplayName = userDisplayName;
@@ -37,6 +57,7 @@ public class ProcessedTweet {
         this.extractedQuestion = extractedQuestion;
         this.answer = answer;
         this.replied = replied;
+        this.lang = lang;
     }
     
     /**
@@ -95,6 +116,14 @@ public class ProcessedTweet {
         return answer;
     }
     
+    /**
+     * Get the language code detected by Twitter
+     * @return Language code, or null if unknown
+     */
+    public String getLang() {
+        return lang;
+    }
+    
     /**
      * Check if a reply has been sent
      * @return true if a reply has been sent
@@ -111,6 +140,22 @@ public class ProcessedTweet {
         this.replied = replied;
     }
     
+    /**
+     * Get the time the tweet spent in each processing step
+     * @return Timing, or null if it was not recorded
+     */
+    public TweetTiming getTiming() {
+        return timing;
+    }
+    
+    /**
+     * Set the time the tweet spent in each processing step
+     * @param timing Timing, or null if unknown
+     */
+    public void setTiming(TweetTiming timing) {
+        this.timing = timing;
+    }
+    
     /**
      * Get a Twitter URL for the tweet
      * @return Twitter URL
@@ -0,0 +1,169 @@
+package com.solace.twitter.model;
+
+import java.util.Arrays;
+import java.util.Locale;
+
+/**
+ * Time a processed tweet spent in each step from its creation on Twitter to the reply
+ * Points are wall-clock times in microseconds since the epoch, or 0 if the tweet has not passed
+ * the point, such as a tweet not replied to yet. Twitter only reports the creation time to the
+ * second, so the stream span is approximate
+ */
+public final class TweetTiming {
+    /**
+     * Steps between consecutive points, in the order a tweet passes them
+     */
+    public enum Span {
+        // Created on Twitter to received from the stream
+        STREAM("Stream"),
+        // Received to found to ask a question, including the ingest and classify queues
+        CLASSIFY("Classify"),
+        // Found to ask a question to sent to Agent Mesh, waiting in the answer queue
+        QUEUE("Answer queue"),
+        // Sent to Agent Mesh to answer received, including retries
+        AGENT_MESH("Agent Mesh"),
+        // Answer received to reply posted, including the reply rate limit
+        REPLY("Reply");
+        
+        private final String label;
+        
+        Span(String label) {
+            this.label = label;
+        }
+        
+        /**
+         * Get the name to show to users
+         * @return Display label
+         */
+        public String getLabel() {
+            return label;
+        }
+    }
+    
+    // Created, received, classified, request sent, answered and replied
+    private final long[] points;
+    
+    /**
+     * Constructor for TweetTiming
+     * @param createdAt Creation time on Twitter
+     * @param receivedAt Time the tweet was received from the stream
+     * @param classifiedAt Time the tweet was found to ask a question
+     * @param requestSentAt Time the question was sent to Agent Mesh
+     * @param answeredAt Time the answer was received
+     * @param repliedAt Time the reply was posted, 0 if not replied
+     */
+    public TweetTiming(long createdAt, long receivedAt, long classifiedAt, long requestSentAt, long answeredAt, long repliedAt) {
+        this(new long[] {createdAt, receivedAt, classifiedAt, requestSentAt, answeredAt, repliedAt});
+    }
+    
+    private TweetTiming(long[] points) {
+        this.points = points;
+    }
+    
+    /**
+     * Copy this timing with the time the answer was received
+     * @param answeredAt Time the answer was received, in microseconds since the epoch
+     * @return New timing
+     */
+    public TweetTiming withAnsweredAt(long answeredAt) {
+        return withEnd(Span.AGENT_MESH, answeredAt);
+    }
+    
+    /**
+     * Copy this timing with the time the reply was posted
+     * @param repliedAt Time the reply was posted, in microseconds since the epoch
+     * @return New timing
+     */
+    public TweetTiming withRepliedAt(long repliedAt) {
+        return withEnd(Span.REPLY, repliedAt);
+    }
+    
+    private TweetTiming withEnd(Span span, long time) {
+        long[] copy = Arrays.copyOf(points, points.length);
+        copy[span.ordinal() + 1] = time;
+        return new TweetTiming(copy);
+    }
+    
+    /**
+     * Get the time a span started
+     * @param span Span
+     * @return Microseconds since the epoch, 0 if unknown
+     */
+    public long getStart(Span span) {
+        return points[span.ordinal()];
+    }
+    
+    /**
+     * Get the time a span ended
+     * @param span Span
+     * @return Microseconds since the epoch, 0 if the tweet has not finished the span
+     */
+    public long getEnd(Span span) {
+        return points[span.ordinal() + 1];
+    }
+    
+    /**
+     * Get the duration of a span
+     * @param span Span
+     * @return Duration in microseconds, or -1 if either end is unknown
+     */
+    public long getDurationMicros(Span span) {
+        long start = getStart(span);
+        long end = getEnd(span);
+        return start > 0 && end > 0 ? end - start : -1;
+    }
+    
+    /**
+     * Get the time from creation, or from receipt if the creation time is unknown, to the last point passed
+     * @return Duration in microseconds, or -1 if no span is complete
+     */
+    public long getTotalMicros() {
+        int first = points[0] > 0 ? 0 : 1;
+        for (int last = points.length - 1; last > first; last--) {
+            if (points[last] > 0) {
+                return points[first] > 0 ? points[last] - points[first] : -1;
+            }
+        }
+        return -1;
+    }
+    
+    public long getCreatedAt() {
+        return points[0];
+    }
+    
+    public long getReceivedAt() {
+        return points[1];
+    }
+    
+    public long getClassifiedAt() {
+        return points[2];
+    }
+    
+    public long getRequestSentAt() {
+        return points[3];
+    }
+    
+    public long getAnsweredAt() {
+        return points[4];
+    }
+    
+    public long getRepliedAt() {
+        return points[5];
+    }
+    
+    public boolean isReplied() {
+        return points[5] > 0;
+    }
+    
+    @Override
+    public String toString() {
+        StringBuilder text = new StringBuilder("TweetTiming{");
+        for (Span span : Span.values()) {
+            text.append(span.ordinal() > 0 ? ", " : "")
+                .append(span.name().toLowerCase(Locale.ROOT))
+                .append("Micros=")
+                .append(getDurationMicros(span));
+        }
+        return text.append(", totalMicros=").append(getTotalMicros()).append('}').toString();
+    }
+}
\ No newline at end of file
@@ -0,0 +1,434 @@
+package com.solace.twitter.service;
+
+import java.util.AbstractQueue;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.List;
+import java.util.TreeSet;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Bounded task queue that serves the highest priority first and sheds the lowest under load
+ * Tasks implementing Prioritized are ordered by their priority and by arrival within the same
+ * priority; other tasks get priority 0. The queue measures how long served tasks waited and how
+ * quickly tasks are taken. Once the wait exceeds the target latency, the lowest-priority tasks are
+ * shed until the projected wait of the remaining tasks is back under the target. A full queue
+ * makes room for a task by displacing a lower-priority one, and otherwise blocks or rejects it.
+ * An offered task that would be shed as soon as it is queued is rejected instead
+ */
+public class AdmissionQueue extends AbstractQueue<Runnable> implements BlockingQueue<Runnable> {
+    
+    /**
+     * Why a task was removed without being run
+     */
+    public enum ShedReason {
+        // The queue was full and a task with a higher priority arrived
+        DISPLACED,
+        // Tasks waited longer than the target latency
+        LATENCY
+    }
+    
+    /**
+     * A task with a priority, higher is served first
+     */
+    public interface Prioritized {
+        double getPriority();
+    }
+    
+    /**
+     * Notified of every shed task, outside the queue lock
+     */
+    public interface ShedListener {
+        void onShed(Runnable task, ShedReason reason);
+    }
+    
+    // Weight of the latest interval in the moving average of the interval between taken tasks
+    private static final double INTERVAL_SMOOTHING = 0.2;
+    
+    private final int capacity;
+    private final long targetLatencyNanos;
+    
+    // Queued tasks, highest priority first, guarded by lock
+    private final TreeSet<Entry> entries = new TreeSet<>();
+    private final ReentrantLock lock = new ReentrantLock();
+    private final Condition notEmpty = lock.newCondition();
+    private final Condition notFull = lock.newCondition();
+    private long sequence = 0;
+    
+    // Latency of the most recently taken task and the average interval between taken tasks, guarded by lock
+    private long lastWaitNanos = 0;
+    private long lastTakenAt = 0;
+    private double takeIntervalNanos = 0;
+    private boolean overloaded = false;
+    
+    private volatile ShedListener shedListener;
+    
+    // Runtime counters
+    private final AtomicLong admitted = new AtomicLong();
+    private final AtomicLong shedDisplaced = new AtomicLong();
+    private final AtomicLong shedLatency = new AtomicLong();
+    
+    /**
+     * Constructor for AdmissionQueue
+     * @param capacity Maximum number of queued tasks
+     * @param targetLatencyMillis Wait in milliseconds above which low-priority tasks are shed
+     */
+    public AdmissionQueue(int capacity, long targetLatencyMillis) {
+        this.capacity = Math.max(1, capacity);
+        this.targetLatencyNanos = TimeUnit.MILLISECONDS.toNanos(Math.max(1, targetLatencyMillis));
+    }
+    
+    public void setShedListener(ShedListener shedListener) {
+        this.shedListener = shedListener;
+    }
+    
+    @Override
+    public boolean offer(Runnable task) {
+        List<Entry> shed = new ArrayList<>();
+        lock.lock();
+        try {
+            if (!makeRoom(task, shed) || !admit(insert(task, shed), shed)) {
+                return false;
+            }
+        } finally {
+            lock.unlock();
+            notifyShed(shed);
+        }
+        return true;
+    }
+    
+    @Override
+    public void put(Runnable task) throws InterruptedException {
+        List<Entry> shed = new ArrayList<>();
+        lock.lockInterruptibly();
+        try {
+            while (!makeRoom(task, shed)) {
+                notFull.await();
+            }
+            insert(task, shed);
+        } finally {
+            lock.unlock();
+            notifyShed(shed);
+        }
+    }
+    
+    @Override
+    public boolean offer(Runnable task, long timeout, TimeUnit unit) throws InterruptedException {
+        List<Entry> shed = new ArrayList<>();
+        long remaining = unit.toNanos(timeout);
+        lock.lockInterruptibly();
+        try {
+            while (!makeRoom(task, shed)) {
+                if (remaining <= 0) {
+                    return false;
+                }
+                remaining = notFull.awaitNanos(remaining);
+            }
+            if (!admit(insert(task, shed), shed)) {
+                return false;
+            }
+        } finally {
+            lock.unlock();
+            notifyShed(shed);
+        }
+        return true;
+    }
+    
+    /**
+     * Check for space, displacing the lowest-priority task if the new task outranks it
+     * @return true if the task can be inserted
+     */
+    private boolean makeRoom(Runnable task, List<Entry> shed) {
+        if (task == null) {
+            throw new NullPointerException();
+        }
+        if (entries.size() < capacity) {
+            return true;
+        }
+        
+        Entry lowest = entries.last();
+        if (priorityOf(task) <= lowest.priority) {
+            return false;
+        }
+        entries.pollLast();
+        lowest.shedReason = ShedReason.DISPLACED;
+        shedDisplaced.incrementAndGet();
+        shed.add(lowest);
+        return true;
+    }
+    
+    private Entry insert(Runnable task, List<Entry> shed) {
+        Entry entry = new Entry(task, priorityOf(task), System.nanoTime(), sequence++);
+        entries.add(entry);
+        admitted.incrementAndGet();
+        shedOverTarget(shed);
+        notEmpty.signal();
+        return entry;
+    }
+    
+    /**
+     * Check that an offered task survived the shedding its own insert triggered
+     * A task shed straight away is reported to the caller as rejected rather than to the shed listener,
+     * so a caller that gets true knows the task is still queued
+     * @return true if the task is still queued
+     */
+    private boolean admit(Entry entry, List<Entry> shed) {
+        if (entry.shedReason == null) {
+            return true;
+        }
+        shed.remove(entry);
+        shedLatency.decrementAndGet();
+        admitted.decrementAndGet();
+        return false;
+    }
+    
+    @Override
+    public Runnable poll() {
+        List<Entry> shed = new ArrayList<>();
+        lock.lock();
+        try {
+            return entries.isEmpty() ? null : takeFirst(shed);
+        } finally {
+            lock.unlock();
+            notifyShed(shed);
+        }
+    }
+    
+    @Override
+    public Runnable take() throws InterruptedException {
+        List<Entry> shed = new ArrayList<>();
+        lock.lockInterruptibly();
+        try {
+            while (entries.isEmpty()) {
+                notEmpty.await();
+            }
+            return takeFirst(shed);
+        } finally {
+            lock.unlock();
+            notifyShed(shed);
+        }
+    }
+    
+    @Override
+    public Runnable poll(long timeout, TimeUnit unit) throws InterruptedException {
+        List<Entry> shed = new ArrayList<>();
+        long remaining = unit.toNanos(timeout);
+        lock.lockInterruptibly();
+        try {
+            while (entries.isEmpty()) {
+                if (remaining <= 0) {
+                    return null;
+                }
+                remaining = notEmpty.awaitNanos(remaining);
+            }
+            return takeFirst(shed);
+        } finally {
+            lock.unlock();
+            notifyShed(shed);
+        }
+    }
+    
+    /**
+     * Take the highest-priority task and update the latency estimates
+     */
+    private Runnable takeFirst(List<Entry> shed) {
+        Entry entry = entries.pollFirst();
+        long now = System.nanoTime();
+        lastWaitNanos = now - entry.enqueuedAt;
+        
+        // Only intervals while tasks were waiting measure how quickly the consumers take them
+        if (lastTakenAt != 0 && entry.enqueuedAt < lastTakenAt) {
+            long interval = now - lastTakenAt;
+            takeIntervalNanos = takeIntervalNanos == 0
+                ? interval
+                : takeIntervalNanos + INTERVAL_SMOOTHING * (interval - takeIntervalNanos);
+        }
+        lastTakenAt = now;
+        
+        overloaded = lastWaitNanos > targetLatencyNanos;
+        shedOverTarget(shed);
+        notFull.signal();
+        return entry.task;
+    }
+    
+    /**
+     * While overloaded, shed the lowest-priority tasks until the rest can be taken within the target latency
+     */
+    private void shedOverTarget(List<Entry> shed) {
+        if (!overloaded || takeIntervalNanos == 0) {
+            return;
+        }
+        
+        long maxQueued = Math.max(1, (long) (targetLatencyNanos / takeIntervalNanos));
+        while (entries.size() > maxQueued) {
+            Entry lowest = entries.pollLast();
+            lowest.shedReason = ShedReason.LATENCY;
+            shedLatency.incrementAndGet();
+            shed.add(lowest);
+            notFull.signal();
+        }
+    }
+    
+    private void notifyShed(List<Entry> shed) {
+        ShedListener listener = shedListener;
+        if (listener == null) {
+            return;
+        }
+        for (Entry entry : shed) {
+            listener.onShed(entry.task, entry.shedReason);
+        }
+    }
+    
+    private static double priorityOf(Runnable task) {
+        return task instanceof Prioritized ? ((Prioritized) task).getPriority() : 0.0;
+    }
+    
+    @Override
+    public Runnable peek() {
+        lock.lock();
+        try {
+            return entries.isEmpty() ? null : entries.first().task;
+        } finally {
+            lock.unlock();
+        }
+    }
+    
+    @Override
+    public int size() {
+        lock.lock();
+        try {
+            return entries.size();
+        } finally {
+            lock.unlock();
+        }
+    }
+    
+    @Override
+    public int remainingCapacity() {
+        lock.lock();
+        try {
+            return capacity - entries.size();
+        } finally {
+            lock.unlock();
+        }
+    }
+    
+    @Override
+    public int drainTo(Collection<? super Runnable> collection) {
+        return drainTo(collection, Integer.MAX_VALUE);
+    }
+    
+    @Override
+    public int drainTo(Collection<? super Runnable> collection, int maxElements) {
+        lock.lock();
+        try {
+            int drained = 0;
+            while (drained < maxElements && !entries.isEmpty()) {
+                collection.add(entries.pollFirst().task);
+                drained++;
+            }
+            notFull.signalAll();
+            return drained;
+        } finally {
+            lock.unlock();
+        }
+    }
+    
+    /**
+     * Iterate over a snapshot of the queued tasks in priority order
+     */
+    @Override
+    public Iterator<Runnable> iterator() {
+        List<Runnable> tasks = new ArrayList<>();
+        lock.lock();
+        try {
+            for (Entry entry : entries) {
+                tasks.add(entry.task);
+            }
+        } finally {
+            lock.unlock();
+        }
+        return Collections.unmodifiableList(tasks).iterator();
+    }
+    
+    /**
+     * Get the time the most recently taken task waited in the queue
+     * @return Wait in milliseconds
+     */
+    public long getLastWaitMillis() {
+        lock.lock();
+        try {
+            return TimeUnit.NANOSECONDS.toMillis(lastWaitNanos);
+        } finally {
+            lock.unlock();
+        }
+    }
+    
+    /**
+     * Check if queued tasks currently wait longer than the target latency
+     * @return true while low-priority tasks are being shed
+     */
+    public boolean isOverloaded() {
+        lock.lock();
+        try {
+            return overloaded && !entries.isEmpty();
+        } finally {
+            lock.unlock();
+        }
+    }
+    
+    public long getAdmitted() {
+        return admitted.get();
+    }
+    
+    /**
+     * Get the number of tasks shed for a reason
+     * @param reason Shed reason
+     * @return Number of shed tasks
+     */
+    public long getShed(ShedReason reason) {
+        return reason == ShedReason.DISPLACED ? shedDisplaced.get() : shedLatency.get();
+    }
+    
+    @Override
+    public String toString() {
+        return "AdmissionQueue{" +
+                "depth=" + size() + "/" + capacity +
+                ", lastWaitMs=" + getLastWaitMillis() +
+                ", overloaded=" + isOverloaded() +
+                ", admitted=" + admitted +
+                ", shedDisplaced=" + shedDisplaced +
+                ", shedLatency=" + shedLatency +
+                '}';
+    }
+    
+    /**
+     * A queued task
+     */
+    private static class Entry implements Comparable<Entry> {
+        private final Runnable task;
+        private final double priority;
+        private final long enqueuedAt;
+        private final long sequence;
+        private ShedReason shedReason;
+        
+        Entry(Runnable task, double priority, long enqueuedAt, long sequence) {
+            this.task = task;
+            this.priority = priority;
+            this.enqueuedAt = enqueuedAt;
+            this.sequence = sequence;
+        }
+        
+        @Override
+        public int compareTo(Entry other) {
+            int byPriority = Double.compare(other.priority, priority);
+            return byPriority != 0 ? byPriority : Long.compare(sequence, other.sequence);
+        }
+    }
+}
\ No newline at end of file
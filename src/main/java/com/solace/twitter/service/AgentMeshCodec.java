@@ -0,0 +1,177 @@
+package com.solace.twitter.service;
+
+import com.fasterxml.jackson.core.JsonEncoding;
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.JsonParseException;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+
+/**
+ * Streaming JSON codec for Agent Mesh requests and responses
+ * Requests are generated with a streaming generator into a buffer sized for the question, which
+ * is sent with its length and resent as is on a retry. Only the top-level response field is pulled
+ * from a response; other fields, such as token usage, are skipped without being materialized. The JsonFactory is thread-safe and shared by all calls,
+ * so its buffer recycling applies across requests
+ */
+final class AgentMeshCodec {
+    private static final JsonFactory JSON_FACTORY = new JsonFactory();
+    private static final String MODEL = "solace-chat";
+    private static final String RESPONSE_FIELD = "response";
+    private static final String DONE_FIELD = "done";
+    
+    private AgentMeshCodec() {
+    }
+    
+    /**
+     * Write the JSON request body for a question
+     * @param question Question to process
+     * @param out Stream to write to, left open
+     * @throws IOException if the stream cannot be written
+     */
+    static void writeRequest(String question, OutputStream out) throws IOException {
+        writeRequest(question, false, out);
+    }
+    
+    /**
+     * Write the JSON request body for a question
+     * @param question Question to process
+     * @param stream Whether to ask for the answer to be streamed as it is generated
+     * @param out Stream to write to, left open
+     * @throws IOException if the stream cannot be written
+     */
+    static void writeRequest(String question, boolean stream, OutputStream out) throws IOException {
+        try (JsonGenerator generator = JSON_FACTORY.createGenerator(out, JsonEncoding.UTF8)) {
+            generator.disable(JsonGenerator.Feature.AUTO_CLOSE_TARGET);
+            generator.writeStartObject();
+            generator.writeStringField("message", question);
+            generator.writeStringField("model", MODEL);
+            if (stream) {
+                generator.writeBooleanField("stream", true);
+            }
+            generator.writeEndObject();
+        }
+    }
+    
+    /**
+     * Encode the JSON request body for a question
+     * @param question Question to process
+     * @return UTF-8 request body
+     */
+    static byte[] encodeRequest(String question) {
+        return encodeRequest(question, false);
+    }
+    
+    /**
+     * Encode the JSON request body for a question
+     * @param question Question to process
+     * @param stream Whether to ask for the answer to be streamed as it is generated
+     * @return UTF-8 request body
+     */
+    static byte[] encodeRequest(String question, boolean stream) {
+        ByteArrayOutputStream out = new ByteArrayOutputStream(question.length() + 64);
+        try {
+            writeRequest(question, stream, out);
+        } catch (IOException e) {
+            // Not thrown by an in-memory stream
+            throw new IllegalStateException(e);
+        }
+        return out.toByteArray();
+    }
+    
+    /**
+     * Read the answer from an Agent Mesh response body
+     * Stops reading as soon as the answer is found; the caller must consume the rest of the stream
+     * @param in Response body
+     * @return AI-generated answer or null if the response has no answer
+     * @throws IOException if the body cannot be read or is not a JSON object
+     */
+    static String readAnswer(InputStream in) throws IOException {
+        try (JsonParser parser = JSON_FACTORY.createParser(in)) {
+            parser.disable(JsonParser.Feature.AUTO_CLOSE_SOURCE);
+            return readAnswer(parser);
+        }
+    }
+    
+    /**
+     * Read the answer from an Agent Mesh response body
+     * @param body Response body
+     * @return AI-generated answer or null if the response has no answer
+     * @throws IOException if the body is not a JSON object
+     */
+    static String readAnswer(byte[] body) throws IOException {
+        try (JsonParser parser = JSON_FACTORY.createParser(body)) {
+            return readAnswer(parser);
+        }
+    }
+    
+    private static String readAnswer(JsonParser parser) throws IOException {
+        if (parser.nextToken() != JsonToken.START_OBJECT) {
+            throw new JsonParseException(parser, "Agent Mesh response is not a JSON object");
+        }
+        
+        // Only look at top-level fields; nested objects are skipped
+        while (parser.nextToken() == JsonToken.FIELD_NAME) {
+            String field = parser.getCurrentName();
+            JsonToken value = parser.nextToken();
+            if (RESPONSE_FIELD.equals(field)) {
+                return value == JsonToken.VALUE_STRING ? parser.getText() : null;
+            }
+            parser.skipChildren();
+        }
+        return null;
+    }
+    
+    /**
+     * Read one chunk of a streamed Agent Mesh response
+     * Each chunk is a JSON object holding the next fragment of the answer in its response field,
+     * and the last one may set done to true
+     * @param line Buffer holding the chunk
+     * @param offset Start of the chunk in the buffer
+     * @param length Length of the chunk in bytes
+     * @return Chunk read
+     * @throws IOException if the chunk is not a JSON object
+     */
+    static Chunk readChunk(byte[] line, int offset, int length) throws IOException {
+        try (JsonParser parser = JSON_FACTORY.createParser(line, offset, length)) {
+            if (parser.nextToken() != JsonToken.START_OBJECT) {
+                throw new JsonParseException(parser, "Agent Mesh response chunk is not a JSON object");
+            }
+            
+            String text = null;
+            boolean done = false;
+            while (parser.nextToken() == JsonToken.FIELD_NAME) {
+                String field = parser.getCurrentName();
+                JsonToken value = parser.nextToken();
+                if (RESPONSE_FIELD.equals(field) && value == JsonToken.VALUE_STRING) {
+                    text = parser.getText();
+                } else if (DONE_FIELD.equals(field)) {
+                    done = value == JsonToken.VALUE_TRUE;
+                } else {
+                    parser.skipChildren();
+                }
+            }
+            return new Chunk(text, done);
+        }
+    }
+    
+    /**
+     * Fragment of a streamed answer
+     */
+    static final class Chunk {
+        // Next part of the answer, null if the chunk carries none
+        final String text;
+        // Set on the last chunk of the answer
+        final boolean done;
+        
+        Chunk(String text, boolean done) {
+            this.text = text;
+            this.done = done;
+        }
+    }
+}
\ No newline at end of file
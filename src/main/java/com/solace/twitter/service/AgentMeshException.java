@@ -0,0 +1,39 @@
+package com.solace.twitter.service;
+
+/**
+ * Signals that Agent Mesh did not answer a question
+ */
+public class AgentMeshException extends RuntimeException {
+    private static final long serialVersionUID = 1L;
+    
+    /**
+     * Why a question was not answered
+     */
+    public enum Reason {
+        // The circuit breaker is open, so the request was not sent
+        CIRCUIT_OPEN,
+        // The request failed or timed out, or the server returned an error, after all retries
+        UNAVAILABLE,
+        // Agent Mesh rejected the request or returned no answer, so retrying will not help
+        INVALID_RESPONSE
+    }
+    
+    private final Reason reason;
+    
+    public AgentMeshException(Reason reason, String message, Throwable cause) {
+        super(message, cause);
+        this.reason = reason;
+    }
+    
+    public Reason getReason() {
+        return reason;
+    }
+    
+    /**
+     * Check if the question may be answered when asked again later
+     * @return true unless the response was invalid
+     */
+    public boolean isRetryable() {
+        return reason != Reason.INVALID_RESPONSE;
+    }
+}
\ No newline at end of file
@@ -1,15 +1,25 @@
 package com.solace.twitter.service;
 
-import org.apache.http.HttpEntity;
-import org.apache.http.client.methods.CloseableHttpResponse;
-import org.apache.http.client.methods.HttpPost;
-import org.apache.http.entity.StringEntity;
-import org.apache.http.impl.client.CloseableHttpClient;
-import org.apache.http.impl.client.HttpClients;
-import org.apache.http.util.EntityUtils;
-import org.json.JSONObject;
+import com.solace.twitter.metrics.Histogram;
 
 import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.Collections;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Consumer;
+import java.util.function.Function;
 import java.util.logging.Level;
 import java.util.logging.Logger;
 
@@ -19,77 +29,427 @@ import java.util.logging.Logger;
 public class AgentMeshService {
     private static final Logger LOGGER = Logger.getLogger(AgentMeshService.class.getName());
     
+    // Settings that require a new HTTP client when they change
+    private static final Set<String> TRANSPORT_KEYS = Set.of(
+        ConfigManager.AGENT_MESH_ENDPOINT, ConfigManager.AGENT_MESH_API_KEY, ConfigManager.AGENT_MESH_STREAMING,
+        ConfigManager.AGENT_MESH_CONNECT_TIMEOUT_MS, ConfigManager.AGENT_MESH_SOCKET_TIMEOUT_MS);
+    
     private final ConfigManager configManager;
-    private final CloseableHttpClient httpClient;
+    
+    // HTTP client and request settings, replaced when the configuration changes
+    private volatile Transport transport;
+    private final AtomicLong transportRebuilds = new AtomicLong();
+    
+    // Streamed answers stopped once they were too long for a reply
+    private final AtomicLong cutOffAnswers = new AtomicLong();
+    
+    // Cache of answers to previously seen questions, null if disabled
+    private final AnswerCache answerCache;
+    
+    // Clusters near-duplicate questions so they share one request and one answer, null if disabled
+    private final NearDuplicateDetector duplicateDetector;
+    private final Map<String, CompletableFuture<String>> inFlightRequests = new ConcurrentHashMap<>();
+    private final AtomicLong coalescedRequests = new AtomicLong();
+    
+    // Fails fast while the endpoint is unhealthy and limits retries across all requests
+    private final CircuitBreaker circuitBreaker;
+    private final RetryBudget retryBudget;
+    private final int retryMaxAttempts;
+    private final long retryBackoffMillis;
+    private final long retryMaxBackoffMillis;
+    private final AtomicLong retriedRequests = new AtomicLong();
+    
+    // Latency in microseconds of each HTTP request, and of each question including retries
+    private final Histogram requestLatency = new Histogram();
+    private final Histogram answerLatency = new Histogram();
+    private final LongAdder failedRequests = new LongAdder();
     
     public AgentMeshService(ConfigManager configManager) {
         this.configManager = configManager;
-        this.httpClient = HttpClients.createDefault();
+        this.transport = new Transport(configManager.getSnapshot());
+        this.answerCache = AnswerCache.fromConfig(configManager);
+        this.duplicateDetector = NearDuplicateDetector.fromConfig(configManager);
+        this.circuitBreaker = CircuitBreaker.fromConfig(configManager);
+        this.retryBudget = RetryBudget.fromConfig(configManager);
+        this.retryMaxAttempts = Math.max(1, configManager.getIntConfig(ConfigManager.AGENT_MESH_RETRY_MAX_ATTEMPTS));
+        this.retryBackoffMillis = Math.max(1, configManager.getIntConfig(ConfigManager.AGENT_MESH_RETRY_BACKOFF_MS));
+        this.retryMaxBackoffMillis = Math.max(retryBackoffMillis, configManager.getIntConfig(ConfigManager.AGENT_MESH_RETRY_MAX_BACKOFF_MS));
+        configManager.addConfigListener(this::onConfigChanged);
     }
     
     /**
-     * Process a question through Solace Agent Mesh
+     * Rebuild the HTTP client when the endpoint, credentials or transport settings change
+     * Requests in flight finish on the previous client, whose idle connections are closed by the
+     * JDK once it is no longer referenced; other settings, such as retries and the circuit breaker,
+     * apply after a restart
+     * @param config New configuration
+     * @param changedKeys Keys that changed
+     */
+    private synchronized void onConfigChanged(ConfigSnapshot config, Set<String> changedKeys) {
+        if (Collections.disjoint(changedKeys, TRANSPORT_KEYS)) {
+            return;
+        }
+        
+        transport = new Transport(config);
+        transportRebuilds.incrementAndGet();
+        LOGGER.info("Rebuilt Agent Mesh HTTP client for " + transport.endpoint);
+    }
+    
+    /**
+     * Process a question through Solace Agent Mesh, blocking until it is answered
+     * Sent like processQuestionAsync, with the same retries and circuit breaker
      * @param question Question to process
      * @return AI-generated answer
+     * @throws AgentMeshException if the question was not answered
      */
     public String processQuestion(String question) {
+        try {
+            return processQuestionAsync(question).join();
+        } catch (CompletionException e) {
+            throw e.getCause() instanceof RuntimeException ? (RuntimeException) e.getCause() : e;
+        }
+    }
+    
+    /**
+     * Process a question through Solace Agent Mesh without blocking the calling thread
+     * Failed requests are retried with jittered exponential backoff while the retry budget allows,
+     * and no request is sent while the circuit breaker is open
+     * @param question Question to process
+     * @return Future completed with the AI-generated answer, or exceptionally with an
+     *         AgentMeshException if the question was not answered
+     */
+    public CompletableFuture<String> processQuestionAsync(String question) {
+        return processQuestionAsync(question, 0, null);
+    }
+    
+    /**
+     * Process a question through Solace Agent Mesh without blocking the calling thread
+     * When agentmesh.streaming is enabled the answer is streamed, so its progress can be shown
+     * while it is generated and generation can be stopped once the answer is long enough
+     * @param question Question to process
+     * @param maxLength Stop a streamed answer once it is longer than this, 0 for no limit
+     * @param progress Called with the partial answer each time a streamed answer grows, or null;
+     *                 called on an HTTP client thread, and again from the start if the request is retried
+     * @return Future completed with the AI-generated answer, or exceptionally with an
+     *         AgentMeshException if the question was not answered
+     */
+    public CompletableFuture<String> processQuestionAsync(String question, int maxLength, Consumer<String> progress) {
         if (!configManager.isConfigValid()) {
             LOGGER.severe("Cannot process question: Configuration is invalid");
-            throw new IllegalStateException("Configuration is invalid");
+            return CompletableFuture.failedFuture(new IllegalStateException("Configuration is invalid"));
         }
         
-        try {
-            // Create request to Agent Mesh API
-            String endpoint = configManager.getConfig(ConfigManager.AGENT_MESH_ENDPOINT);
-            HttpPost request = new HttpPost(endpoint);
-            
-            // Set headers
-            request.setHeader("Content-Type", "application/json");
-            request.setHeader("Authorization", "Bearer " + configManager.getConfig(ConfigManager.AGENT_MESH_API_KEY));
-            
-            // Create request body
-            JSONObject requestBody = new JSONObject();
-            requestBody.put("message", question);
-            requestBody.put("model", "solace-chat"); // Use Solace Chat model
-            
-            // Set request entity
-            request.setEntity(new StringEntity(requestBody.toString()));
-            
-            // Execute request
-            try (CloseableHttpResponse response = httpClient.execute(request)) {
-                HttpEntity entity = response.getEntity();
+        // Serve repeated questions without an HTTP round trip
+        String cacheKey = questionKey(question);
+        String cachedAnswer = getCachedAnswer(cacheKey);
+        if (cachedAnswer != null) {
+            return CompletableFuture.completedFuture(cachedAnswer);
+        }
+        
+        // Share the request already in flight for the same or a near-duplicate question
+        CompletableFuture<String> answerFuture = new CompletableFuture<>();
+        CompletableFuture<String> pending = inFlightRequests.putIfAbsent(cacheKey, answerFuture);
+        if (pending != null) {
+            coalescedRequests.incrementAndGet();
+            return pending;
+        }
+        
+        // Create request to Agent Mesh API
+        Transport transport = this.transport;
+        HttpRequest request = HttpRequest.newBuilder(URI.create(transport.endpoint))
+            .timeout(transport.requestTimeout)
+            .header("Content-Type", "application/json")
+            .header("Accept", transport.streaming ? "text/event-stream, application/x-ndjson, application/json" : "application/json")
+            .header("Authorization", transport.authorization)
+            .POST(HttpRequest.BodyPublishers.ofByteArray(AgentMeshCodec.encodeRequest(question, transport.streaming)))
+            .build();
+        
+        // Execute request and parse the response as it arrives
+        retryBudget.onRequest();
+        long startedAt = System.nanoTime();
+        CompletableFuture<String> response = transport.streaming
+            ? send(transport, request, info -> streamedBody(info, maxLength, progress), 1)
+            : send(transport, request, HttpResponse.BodyHandlers.ofByteArray(), 1).thenApply(AgentMeshService::decodeAnswer);
+        response
+            .thenApply(answer -> {
+                if (answer == null) {
+                    throw new AgentMeshException(AgentMeshException.Reason.INVALID_RESPONSE, "No answer in Agent Mesh response", null);
+                }
+                return cacheAnswer(cacheKey, answer);
+            })
+            .whenComplete((answer, error) -> {
+                answerLatency.record((System.nanoTime() - startedAt) / 1000);
+                inFlightRequests.remove(cacheKey, answerFuture);
+                if (error == null) {
+                    answerFuture.complete(answer);
+                    return;
+                }
                 
-                if (entity != null) {
-                    // Parse response
-                    String responseString = EntityUtils.toString(entity);
-                    JSONObject responseJson = new JSONObject(responseString);
-                    
-                    // Extract answer from response
-                    if (responseJson.has("response")) {
-                        return responseJson.getString("response");
-                    } else {
-                        LOGGER.warning("Unexpected response format: " + responseString);
-                        return "Sorry, I couldn't process your question at this time.";
-                    }
-                } else {
-                    LOGGER.warning("Empty response from Agent Mesh API");
-                    return "Sorry, I couldn't process your question at this time.";
+                Throwable cause = error.getCause() != null ? error.getCause() : error;
+                AgentMeshException failure = cause instanceof AgentMeshException
+                    ? (AgentMeshException) cause
+                    : new AgentMeshException(AgentMeshException.Reason.INVALID_RESPONSE, "Invalid Agent Mesh response", cause);
+                if (failure.getReason() != AgentMeshException.Reason.CIRCUIT_OPEN) {
+                    LOGGER.log(Level.WARNING, "Failed to process question through Agent Mesh API", failure);
                 }
-            }
+                answerFuture.completeExceptionally(failure);
+            });
+        return answerFuture;
+    }
+    
+    /**
+     * Decode the answer from a complete response body
+     * @param body Response body
+     * @return AI-generated answer or null if the response has no answer
+     */
+    private static String decodeAnswer(byte[] body) {
+        try {
+            return body == null || body.length == 0 ? null : AgentMeshCodec.readAnswer(body);
         } catch (IOException e) {
-            LOGGER.log(Level.SEVERE, "Failed to process question through Agent Mesh API", e);
-            return "Sorry, I encountered an error while processing your question.";
+            throw new AgentMeshException(AgentMeshException.Reason.INVALID_RESPONSE, "Invalid Agent Mesh response", e);
+        }
+    }
+    
+    /**
+     * Choose how to read the body of a response to a streamed request
+     * Error bodies are discarded, and a server that ignores the stream flag and returns the whole
+     * answer as one JSON object is still understood
+     * @param info Status and headers of the response
+     * @param maxLength Stop the stream once the answer is longer than this, 0 for no limit
+     * @param progress Called with the partial answer each time it grows, or null
+     * @return Body subscriber completed with the answer, or null if there is none
+     */
+    private HttpResponse.BodySubscriber<String> streamedBody(HttpResponse.ResponseInfo info, int maxLength, Consumer<String> progress) {
+        if (info.statusCode() >= 300) {
+            return HttpResponse.BodySubscribers.replacing(null);
+        }
+        String contentType = info.headers().firstValue("Content-Type").orElse("");
+        if (contentType.startsWith("application/json")) {
+            // Decoding errors must not count as network failures, so they are reported as a missing answer
+            return HttpResponse.BodySubscribers.mapping(HttpResponse.BodySubscribers.ofByteArray(), body -> {
+                try {
+                    return decodeAnswer(body);
+                } catch (AgentMeshException e) {
+                    LOGGER.log(Level.WARNING, "Invalid Agent Mesh response", e.getCause());
+                    return null;
+                }
+            });
+        }
+        return new StreamingAnswerSubscriber(maxLength, progress, cutOffAnswers::incrementAndGet);
+    }
+    
+    /**
+     * Send a request, retrying server and network errors
+     * @param transport Clients to send the request with, kept for the retries
+     * @param request Agent Mesh request
+     * @param bodyHandler Handler for the body of each response
+     * @param attempt Number of this attempt, starting at 1
+     * @return Future completed with the response body
+     */
+    private <T> CompletableFuture<T> send(Transport transport, HttpRequest request, HttpResponse.BodyHandler<T> bodyHandler, int attempt) {
+        if (!circuitBreaker.tryAcquire()) {
+            return CompletableFuture.failedFuture(
+                new AgentMeshException(AgentMeshException.Reason.CIRCUIT_OPEN, "Agent Mesh circuit breaker is open", null));
+        }
+        
+        long sentAt = System.nanoTime();
+        return transport.httpClient.sendAsync(request, bodyHandler)
+            .handle((response, error) -> {
+                requestLatency.record((System.nanoTime() - sentAt) / 1000);
+                if (error == null && !isRetryableStatus(response.statusCode())) {
+                    // Client errors mean the endpoint is healthy but rejects this request
+                    circuitBreaker.onSuccess();
+                    if (response.statusCode() >= 400) {
+                        return CompletableFuture.<T>failedFuture(new AgentMeshException(AgentMeshException.Reason.INVALID_RESPONSE,
+                            "Agent Mesh rejected the request with status " + response.statusCode(), null));
+                    }
+                    return CompletableFuture.completedFuture(response.body());
+                }
+                
+                circuitBreaker.onFailure();
+                failedRequests.increment();
+                Throwable cause = error != null && error.getCause() != null ? error.getCause() : error;
+                if (attempt < retryMaxAttempts && retryBudget.tryRetry()) {
+                    retriedRequests.incrementAndGet();
+                    return CompletableFuture.runAsync(() -> { }, CompletableFuture.delayedExecutor(backoff(attempt), TimeUnit.MILLISECONDS))
+                        .thenCompose(ignored -> send(transport, request, bodyHandler, attempt + 1));
+                }
+                
+                String failure = cause != null ? cause.toString() : "status " + response.statusCode();
+                return CompletableFuture.<T>failedFuture(new AgentMeshException(AgentMeshException.Reason.UNAVAILABLE,
+                    "Agent Mesh request failed after " + attempt + " attempts: " + failure, cause));
+            })
+            .thenCompose(Function.identity());
+    }
+    
+    /**
+     * Check if a response status means the endpoint is unhealthy and the request may succeed later
+     */
+    private static boolean isRetryableStatus(int status) {
+        return status == 429 || status >= 500;
+    }
+    
+    /**
+     * Pick a random delay up to the exponential backoff for an attempt, so that retries from
+     * many requests failing together are spread out instead of arriving in waves
+     * @param attempt Number of the failed attempt, starting at 1
+     * @return Delay in milliseconds
+     */
+    private long backoff(int attempt) {
+        long ceiling = Math.min(retryMaxBackoffMillis, retryBackoffMillis << Math.min(attempt - 1, 20));
+        return ThreadLocalRandom.current().nextLong(ceiling + 1);
+    }
+    
+    /**
+     * Add a newly asked question to the near-duplicate clusters, so later paraphrases share its answer
+     * Call once per tweet before asking it; retries of the same question must not call this again
+     * @param question Question asked in the tweet
+     */
+    public void registerQuestion(String question) {
+        if (duplicateDetector != null) {
+            duplicateDetector.add(question);
         }
     }
     
     /**
-     * Close the HTTP client
+     * Map a question to the key of the answer cache and of the requests in flight
+     * @param question Question to process
+     * @return Canonical question of its near-duplicate cluster, or the normalized question if detection is disabled
+     */
+    private String questionKey(String question) {
+        return duplicateDetector != null ? duplicateDetector.find(question) : QuestionNormalizer.normalize(question);
+    }
+    
+    /**
+     * Look up a previously received answer
+     * @param question Question to process
+     * @return Cached answer or null if caching is disabled or the question is not cached
+     */
+    private String getCachedAnswer(String question) {
+        return answerCache != null ? answerCache.get(question) : null;
+    }
+    
+    /**
+     * Remember a successful answer; failures are never cached
+     * @param question Question that was processed
+     * @param answer Answer received from Agent Mesh, never null
+     * @return Answer to return to the caller
+     */
+    private String cacheAnswer(String question, String answer) {
+        if (answerCache != null) {
+            answerCache.put(question, answer);
+        }
+        return answer;
+    }
+    
+    public CircuitBreaker getCircuitBreaker() {
+        return circuitBreaker;
+    }
+    
+    public RetryBudget getRetryBudget() {
+        return retryBudget;
+    }
+    
+    public long getRetriedRequests() {
+        return retriedRequests.get();
+    }
+    
+    public long getFailedRequests() {
+        return failedRequests.sum();
+    }
+    
+    /**
+     * Get the latency of individual Agent Mesh HTTP requests
+     * @return Histogram in microseconds
+     */
+    public Histogram getRequestLatency() {
+        return requestLatency;
+    }
+    
+    /**
+     * Get the time to answer questions sent to Agent Mesh, including retries
+     * @return Histogram in microseconds
+     */
+    public Histogram getAnswerLatency() {
+        return answerLatency;
+    }
+    
+    /**
+     * Get the answer cache
+     * @return Answer cache or null if caching is disabled
+     */
+    public AnswerCache getAnswerCache() {
+        return answerCache;
+    }
+    
+    /**
+     * Get the near-duplicate question detector
+     * @return Near-duplicate detector or null if detection is disabled
+     */
+    public NearDuplicateDetector getDuplicateDetector() {
+        return duplicateDetector;
+    }
+    
+    /**
+     * Get the number of questions that shared an in-flight request for a near-duplicate
+     * @return Number of coalesced requests
+     */
+    public long getCoalescedRequests() {
+        return coalescedRequests.get();
+    }
+    
+    /**
+     * Get the number of streamed answers cut off once they were too long for a reply
+     * @return Number of cut-off answers
+     */
+    public long getCutOffAnswers() {
+        return cutOffAnswers.get();
+    }
+    
+    public boolean isStreaming() {
+        return transport.streaming;
+    }
+    
+    /**
+     * Get the number of times the HTTP client was rebuilt after a configuration change
+     * @return Number of rebuilds
+     */
+    public long getTransportRebuilds() {
+        return transportRebuilds.get();
+    }
+    
+    /**
+     * Persist the answer cache
      */
     public void close() {
-        try {
-            httpClient.close();
-        } catch (IOException e) {
-            LOGGER.log(Level.WARNING, "Failed to close HTTP client", e);
+        if (answerCache != null) {
+            answerCache.save();
+        }
+    }
+    
+    /**
+     * HTTP client and request settings built from one configuration snapshot
+     * Replaced as a whole, so a request never mixes old and new settings. The JDK client keeps
+     * connections to the endpoint alive and reuses them, and multiplexes requests over HTTP/2
+     * when the endpoint supports it
+     */
+    private static final class Transport {
+        private final HttpClient httpClient;
+        private final String endpoint;
+        private final String authorization;
+        private final Duration requestTimeout;
+        
+        // Whether processQuestionAsync asks for answers to be streamed as they are generated
+        private final boolean streaming;
+        
+        Transport(ConfigSnapshot config) {
+            this.httpClient = HttpClient.newBuilder()
+                .connectTimeout(Duration.ofMillis(config.getInt(ConfigManager.AGENT_MESH_CONNECT_TIMEOUT_MS)))
+                .build();
+            this.endpoint = config.getAgentMeshEndpoint();
+            this.authorization = "Bearer " + config.getAgentMeshApiKey();
+            this.requestTimeout = Duration.ofMillis(config.getInt(ConfigManager.AGENT_MESH_SOCKET_TIMEOUT_MS));
+            this.streaming = config.getBoolean(ConfigManager.AGENT_MESH_STREAMING);
         }
     }
 }
\ No newline at end of file
@@ -0,0 +1,233 @@
+package com.solace.twitter.service;
+
+import org.json.JSONArray;
+import org.json.JSONObject;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Size-bounded LRU cache of Agent Mesh answers keyed on normalized question text
+ * Entries expire after a configurable time to live and can optionally be persisted across restarts
+ */
+public class AnswerCache {
+    private static final Logger LOGGER = Logger.getLogger(AnswerCache.class.getName());
+    
+    private final int maxEntries;
+    private final long ttlMillis;
+    private final File persistFile;
+    private final Map<String, CachedAnswer> entries;
+    
+    // Runtime counters
+    private final AtomicLong hits = new AtomicLong();
+    private final AtomicLong misses = new AtomicLong();
+    private final AtomicLong evictions = new AtomicLong();
+    private final AtomicLong expirations = new AtomicLong();
+    
+    /**
+     * Constructor for AnswerCache
+     * @param maxEntries Maximum number of cached answers
+     * @param ttlMillis Time to live of a cached answer in milliseconds
+     * @param persistFile File to persist the cache to, or null to keep it in memory only
+     */
+    public AnswerCache(int maxEntries, long ttlMillis, File persistFile) {
+        this.maxEntries = Math.max(1, maxEntries);
+        this.ttlMillis = ttlMillis;
+        this.persistFile = persistFile;
+        
+        // Access-ordered map that drops the least recently used entry when full
+        this.entries = new LinkedHashMap<String, CachedAnswer>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, CachedAnswer> eldest) {
+                if (size() > AnswerCache.this.maxEntries) {
+                    evictions.incrementAndGet();
+                    return true;
+                }
+                return false;
+            }
+        };
+        
+        load();
+    }
+    
+    /**
+     * Create a cache from the application configuration
+     * @param configManager Configuration manager
+     * @return Answer cache, or null if caching is disabled
+     */
+    public static AnswerCache fromConfig(ConfigManager configManager) {
+        if (!configManager.getBooleanConfig(ConfigManager.CACHE_ENABLED)) {
+            return null;
+        }
+        
+        return new AnswerCache(
+            configManager.getIntConfig(ConfigManager.CACHE_MAX_ENTRIES),
+            configManager.getIntConfig(ConfigManager.CACHE_TTL_MINUTES) * 60_000L,
+            configManager.getDataFile(ConfigManager.CACHE_PERSIST_FILE));
+    }
+    
+    /**
+     * Look up the answer for a question
+     * @param question Question text
+     * @return Cached answer or null if not cached or expired
+     */
+    public String get(String question) {
+        String key = QuestionNormalizer.normalize(question);
+        synchronized (entries) {
+            CachedAnswer entry = entries.get(key);
+            if (entry != null && entry.isExpired(System.currentTimeMillis(), ttlMillis)) {
+                entries.remove(key);
+                expirations.incrementAndGet();
+                entry = null;
+            }
+            
+            if (entry == null) {
+                misses.incrementAndGet();
+                return null;
+            }
+            
+            hits.incrementAndGet();
+            return entry.answer;
+        }
+    }
+    
+    /**
+     * Cache the answer for a question
+     * @param question Question text
+     * @param answer AI-generated answer
+     */
+    public void put(String question, String answer) {
+        String key = QuestionNormalizer.normalize(question);
+        if (key.isEmpty()) {
+            return;
+        }
+        
+        synchronized (entries) {
+            entries.put(key, new CachedAnswer(answer, System.currentTimeMillis()));
+        }
+    }
+    
+    /**
+     * Load persisted entries, skipping those that have already expired
+     */
+    private void load() {
+        if (persistFile == null || !persistFile.exists()) {
+            return;
+        }
+        
+        try {
+            JSONArray array = new JSONArray(new String(Files.readAllBytes(persistFile.toPath()), StandardCharsets.UTF_8));
+            long now = System.currentTimeMillis();
+            synchronized (entries) {
+                for (int i = 0; i < array.length(); i++) {
+                    JSONObject json = array.getJSONObject(i);
+                    CachedAnswer entry = new CachedAnswer(json.getString("answer"), json.getLong("storedAt"));
+                    if (!entry.isExpired(now, ttlMillis)) {
+                        entries.put(json.getString("question"), entry);
+                    }
+                }
+            }
+            LOGGER.info("Loaded " + entries.size() + " cached answers from " + persistFile);
+        } catch (Exception e) {
+            LOGGER.log(Level.WARNING, "Failed to load answer cache from " + persistFile, e);
+        }
+    }
+    
+    /**
+     * Persist the cache if a persistence file is configured
+     * Written to a temporary file first so a crash never leaves a truncated cache behind
+     */
+    public void save() {
+        if (persistFile == null) {
+            return;
+        }
+        
+        JSONArray array = new JSONArray();
+        synchronized (entries) {
+            for (Map.Entry<String, CachedAnswer> entry : entries.entrySet()) {
+                JSONObject json = new JSONObject();
+                json.put("question", entry.getKey());
+                json.put("answer", entry.getValue().answer);
+                json.put("storedAt", entry.getValue().storedAt);
+                array.put(json);
+            }
+        }
+        
+        try {
+            File tempFile = new File(persistFile.getPath() + ".tmp");
+            Files.write(tempFile.toPath(), array.toString().getBytes(StandardCharsets.UTF_8));
+            Files.move(tempFile.toPath(), persistFile.toPath(),
+                StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            LOGGER.info("Saved " + array.length() + " cached answers to " + persistFile);
+        } catch (IOException e) {
+            LOGGER.log(Level.WARNING, "Failed to save answer cache to " + persistFile, e);
+        }
+    }
+    
+    public int size() {
+        synchronized (entries) {
+            return entries.size();
+        }
+    }
+    
+    public long getHits() {
+        return hits.get();
+    }
+    
+    public long getMisses() {
+        return misses.get();
+    }
+    
+    public long getEvictions() {
+        return evictions.get();
+    }
+    
+    public long getExpirations() {
+        return expirations.get();
+    }
+    
+    /**
+     * Get the fraction of lookups that were served from the cache
+     * @return Hit ratio between 0 and 1
+     */
+    public double getHitRatio() {
+        long total = hits.get() + misses.get();
+        return total == 0 ? 0.0 : (double) hits.get() / total;
+    }
+    
+    @Override
+    public String toString() {
+        return "AnswerCache{" +
+                "size=" + size() + "/" + maxEntries +
+                ", hits=" + hits +
+                ", misses=" + misses +
+                ", evictions=" + evictions +
+                ", expirations=" + expirations +
+                '}';
+    }
+    
+    /**
+     * Cached answer with the time it was stored
+     */
+    private static class CachedAnswer {
+        private final String answer;
+        private final long storedAt;
+        
+        CachedAnswer(String answer, long storedAt) {
+            this.answer = answer;
+            this.storedAt = storedAt;
+        }
+        
+        boolean isExpired(long now, long ttlMillis) {
+            return ttlMillis > 0 && now - storedAt > ttlMillis;
+        }
+    }
+}
\ No newline at end of file
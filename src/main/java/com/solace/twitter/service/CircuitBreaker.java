@@ -0,0 +1,178 @@
+package com.solace.twitter.service;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Circuit breaker that stops calls to a failing endpoint
+ * While closed, the outcomes of the most recent calls are kept in a sliding window; once the
+ * failure rate over the window reaches the threshold the breaker opens and rejects calls without
+ * trying them. After the open period a few trial calls are let through (half-open): if they all
+ * succeed the breaker closes again, if any fails it reopens
+ */
+public class CircuitBreaker {
+    
+    public enum State { CLOSED, OPEN, HALF_OPEN }
+    
+    private final int minCalls;
+    private final double failureRateThreshold;
+    private final long openNanos;
+    private final int halfOpenCalls;
+    
+    // Outcomes of the most recent calls while closed, true for a failure, guarded by this
+    private final boolean[] window;
+    private int next = 0;
+    private int recorded = 0;
+    private int failures = 0;
+    
+    private State state = State.CLOSED;
+    private long openedAt;
+    private int halfOpenPermits;
+    private int halfOpenSuccesses;
+    
+    // Runtime counters
+    private final AtomicLong opened = new AtomicLong();
+    private final AtomicLong rejected = new AtomicLong();
+    
+    /**
+     * Constructor for CircuitBreaker
+     * @param windowSize Number of recent calls the failure rate is computed over
+     * @param minCalls Minimum number of calls in the window before the breaker can open
+     * @param failureRateThreshold Failure rate between 0 and 1 at which the breaker opens
+     * @param openMillis Time in milliseconds the breaker stays open before trial calls
+     * @param halfOpenCalls Number of trial calls that must succeed to close the breaker
+     */
+    public CircuitBreaker(int windowSize, int minCalls, double failureRateThreshold, long openMillis, int halfOpenCalls) {
+        this.window = new boolean[Math.max(1, windowSize)];
+        this.minCalls = Math.max(1, Math.min(minCalls, window.length));
+        this.failureRateThreshold = failureRateThreshold;
+        this.openNanos = TimeUnit.MILLISECONDS.toNanos(Math.max(0, openMillis));
+        this.halfOpenCalls = Math.max(1, halfOpenCalls);
+    }
+    
+    /**
+     * Create a circuit breaker from the application configuration
+     * @param configManager Configuration manager
+     * @return Circuit breaker for Agent Mesh calls
+     */
+    public static CircuitBreaker fromConfig(ConfigManager configManager) {
+        return new CircuitBreaker(
+            configManager.getIntConfig(ConfigManager.AGENT_MESH_BREAKER_WINDOW),
+            configManager.getIntConfig(ConfigManager.AGENT_MESH_BREAKER_MIN_CALLS),
+            configManager.getIntConfig(ConfigManager.AGENT_MESH_BREAKER_FAILURE_RATE) / 100.0,
+            configManager.getIntConfig(ConfigManager.AGENT_MESH_BREAKER_OPEN_MS),
+            configManager.getIntConfig(ConfigManager.AGENT_MESH_BREAKER_HALF_OPEN_CALLS));
+    }
+    
+    /**
+     * Ask permission for a call; every permitted call must be followed by onSuccess or onFailure
+     * @return true if the call may be made, false if it must fail fast
+     */
+    public synchronized boolean tryAcquire() {
+        if (state == State.OPEN && System.nanoTime() - openedAt >= openNanos) {
+            state = State.HALF_OPEN;
+            halfOpenPermits = halfOpenCalls;
+            halfOpenSuccesses = 0;
+        }
+        
+        if (state == State.CLOSED) {
+            return true;
+        }
+        if (state == State.HALF_OPEN && halfOpenPermits > 0) {
+            halfOpenPermits--;
+            return true;
+        }
+        rejected.incrementAndGet();
+        return false;
+    }
+    
+    /**
+     * Record a successful call
+     */
+    public synchronized void onSuccess() {
+        if (state == State.CLOSED) {
+            record(false);
+        } else if (state == State.HALF_OPEN && ++halfOpenSuccesses >= halfOpenCalls) {
+            close();
+        }
+    }
+    
+    /**
+     * Record a failed call
+     */
+    public synchronized void onFailure() {
+        if (state == State.HALF_OPEN) {
+            open();
+        } else if (state == State.CLOSED) {
+            record(true);
+            if (recorded >= minCalls && (double) failures / recorded >= failureRateThreshold) {
+                open();
+            }
+        }
+    }
+    
+    private void record(boolean failure) {
+        if (recorded == window.length) {
+            if (window[next]) {
+                failures--;
+            }
+        } else {
+            recorded++;
+        }
+        window[next] = failure;
+        if (failure) {
+            failures++;
+        }
+        next = (next + 1) % window.length;
+    }
+    
+    private void open() {
+        state = State.OPEN;
+        openedAt = System.nanoTime();
+        opened.incrementAndGet();
+    }
+    
+    private void close() {
+        state = State.CLOSED;
+        next = 0;
+        recorded = 0;
+        failures = 0;
+    }
+    
+    /**
+     * Get the current state, reporting an open breaker whose open period has passed as half-open
+     * @return Breaker state
+     */
+    public synchronized State getState() {
+        if (state == State.OPEN && System.nanoTime() - openedAt >= openNanos) {
+            return State.HALF_OPEN;
+        }
+        return state;
+    }
+    
+    /**
+     * Get the failure rate over the sliding window
+     * @return Failure rate between 0 and 1
+     */
+    public synchronized double getFailureRate() {
+        return recorded == 0 ? 0.0 : (double) failures / recorded;
+    }
+    
+    public long getOpened() {
+        return opened.get();
+    }
+    
+    public long getRejected() {
+        return rejected.get();
+    }
+    
+    @Override
+    public String toString() {
+        return "CircuitBreaker{" +
+                "state=" + getState() +
+                ", failureRate=" + Math.round(getFailureRate() * 100) + "%" +
+                ", opened=" + opened +
+                ", rejected=" + rejected +
+                '}';
+    }
+}
\ No newline at end of file
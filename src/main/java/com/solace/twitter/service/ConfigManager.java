@@ -4,12 +4,23 @@ import java.io.File;
 import java.io.FileInputStream;
 import java.io.FileOutputStream;
 import java.io.IOException;
+import java.nio.file.Path;
+import java.util.List;
 import java.util.Properties;
+import java.util.Set;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
 import java.util.logging.Level;
 import java.util.logging.Logger;
 
 /**
  * Manages application configuration including API keys and settings
+ * Values are read from an immutable snapshot published through a volatile reference, so reads
+ * never lock. Saving or reloading the configuration notifies the config listeners of the keys that
+ * changed, so services can apply them without a restart. Notifications are delivered on one
+ * background thread in the order the changes were made, so a listener never sees an older
+ * configuration after a newer one
  */
 public class ConfigManager {
     private static final Logger LOGGER = Logger.getLogger(ConfigManager.class.getName());
@@ -24,12 +35,260 @@ public class ConfigManager {
     public static final String AGENT_MESH_ENDPOINT = "agentmesh.endpoint";
     public static final String AUTO_REPLY_ENABLED = "twitter.auto.reply";
     public static final String SEARCH_KEYWORDS = "twitter.search.keywords";
+    public static final String TWITTER_INGEST_MODE = "twitter.ingest.mode";
+    public static final String APP_HEADLESS = "app.headless";
+    
+    // Processing pipeline keys
+    public static final String PIPELINE_INGEST_WORKERS = "pipeline.ingest.workers";
+    public static final String PIPELINE_INGEST_CAPACITY = "pipeline.ingest.capacity";
+    public static final String PIPELINE_INGEST_DEDUPE_WINDOW = "pipeline.ingest.dedupe.window";
+    public static final String PIPELINE_CLASSIFY_WORKERS = "pipeline.classify.workers";
+    public static final String PIPELINE_CLASSIFY_CAPACITY = "pipeline.classify.capacity";
+    public static final String PIPELINE_ANSWER_WORKERS = "pipeline.answer.workers";
+    public static final String PIPELINE_ANSWER_CAPACITY = "pipeline.answer.capacity";
+    public static final String PIPELINE_ANSWER_MAX_IN_FLIGHT = "pipeline.answer.max.inflight";
+    public static final String PIPELINE_ANSWER_MODE = "pipeline.answer.mode";
+    public static final String PIPELINE_ANSWER_ADMISSION = "pipeline.answer.admission";
+    public static final String PIPELINE_ANSWER_TARGET_LATENCY_MS = "pipeline.answer.target.latency.ms";
+    public static final String PIPELINE_REPLY_WORKERS = "pipeline.reply.workers";
+    public static final String PIPELINE_REPLY_CAPACITY = "pipeline.reply.capacity";
+    
+    // Agent Mesh HTTP transport keys
+    public static final String AGENT_MESH_CONNECT_TIMEOUT_MS = "agentmesh.connect.timeout.ms";
+    public static final String AGENT_MESH_SOCKET_TIMEOUT_MS = "agentmesh.socket.timeout.ms";
+    public static final String AGENT_MESH_STREAMING = "agentmesh.streaming";
+    public static final String AGENT_MESH_STREAM_CUTOFF = "agentmesh.stream.cutoff";
+    
+    // Agent Mesh resilience keys
+    public static final String AGENT_MESH_RETRY_MAX_ATTEMPTS = "agentmesh.retry.max.attempts";
+    public static final String AGENT_MESH_RETRY_BACKOFF_MS = "agentmesh.retry.backoff.ms";
+    public static final String AGENT_MESH_RETRY_MAX_BACKOFF_MS = "agentmesh.retry.max.backoff.ms";
+    public static final String AGENT_MESH_RETRY_BUDGET_RATIO = "agentmesh.retry.budget.ratio";
+    public static final String AGENT_MESH_RETRY_BUDGET_MIN = "agentmesh.retry.budget.min";
+    public static final String AGENT_MESH_BREAKER_WINDOW = "agentmesh.breaker.window";
+    public static final String AGENT_MESH_BREAKER_MIN_CALLS = "agentmesh.breaker.min.calls";
+    public static final String AGENT_MESH_BREAKER_FAILURE_RATE = "agentmesh.breaker.failure.rate";
+    public static final String AGENT_MESH_BREAKER_OPEN_MS = "agentmesh.breaker.open.ms";
+    public static final String AGENT_MESH_BREAKER_HALF_OPEN_CALLS = "agentmesh.breaker.half.open.calls";
+    public static final String AGENT_MESH_PARKED_CAPACITY = "agentmesh.parked.capacity";
+    public static final String AGENT_MESH_PARKED_MAX_ATTEMPTS = "agentmesh.parked.max.attempts";
+    
+    // Configuration reload keys
+    public static final String CONFIG_WATCH_ENABLED = "config.watch.enabled";
+    public static final String CONFIG_WATCH_DEBOUNCE_MS = "config.watch.debounce.ms";
+    
+    // Tracing keys
+    public static final String TRACE_SLOW_THRESHOLD_MS = "trace.slow.threshold.ms";
+    public static final String TRACE_EXPORT_FILE = "trace.export.file";
+    
+    // Metrics keys
+    public static final String METRICS_JMX_ENABLED = "metrics.jmx.enabled";
+    public static final String METRICS_HTTP_ENABLED = "metrics.http.enabled";
+    public static final String METRICS_HTTP_HOST = "metrics.http.host";
+    public static final String METRICS_HTTP_PORT = "metrics.http.port";
+    
+    // Reply scheduler keys
+    public static final String REPLY_RATE_LIMIT = "reply.rate.limit";
+    public static final String REPLY_RATE_WINDOW_MINUTES = "reply.rate.window.minutes";
+    public static final String REPLY_RATE_BURST = "reply.rate.burst";
+    public static final String REPLY_MAX_ATTEMPTS = "reply.max.attempts";
+    public static final String REPLY_RETRY_BACKOFF_MS = "reply.retry.backoff.ms";
+    public static final String REPLY_RETRY_MAX_BACKOFF_MS = "reply.retry.max.backoff.ms";
+    public static final String REPLY_QUEUE_FILE = "reply.queue.file";
+    
+    // Answer cache keys
+    public static final String CACHE_ENABLED = "cache.enabled";
+    public static final String CACHE_MAX_ENTRIES = "cache.max.entries";
+    public static final String CACHE_TTL_MINUTES = "cache.ttl.minutes";
+    public static final String CACHE_PERSIST_FILE = "cache.persist.file";
+    
+    // Near-duplicate question detection keys
+    public static final String DEDUPE_ENABLED = "dedupe.enabled";
+    public static final String DEDUPE_THRESHOLD = "dedupe.threshold";
+    public static final String DEDUPE_WINDOW_SIZE = "dedupe.window.size";
+    public static final String DEDUPE_BANDS = "dedupe.bands";
+    public static final String DEDUPE_ROWS = "dedupe.rows";
+    
+    // Question classifier keys
+    public static final String CLASSIFIER_LEXICON = "classifier.lexicon";
+    
+    // Question priority keys, weights are relative to each other
+    public static final String PRIORITY_WEIGHT_FOLLOWERS = "priority.weight.followers";
+    public static final String PRIORITY_WEIGHT_VERIFIED = "priority.weight.verified";
+    public static final String PRIORITY_WEIGHT_CONFIDENCE = "priority.weight.confidence";
+    public static final String PRIORITY_WEIGHT_KEYWORDS = "priority.weight.keywords";
+    public static final String PRIORITY_FOLLOWERS_SATURATION = "priority.followers.saturation";
+    public static final String PRIORITY_KEYWORDS = "priority.keywords";
+    
+    // Directory that relative paths of the store, cache, reply queue and trace export are resolved against
+    public static final String DATA_DIRECTORY = "data.directory";
+    
+    // Tweet store keys
+    public static final String STORE_TYPE = "store.type";
+    public static final String STORE_DIRECTORY = "store.directory";
+    public static final String STORE_SEGMENT_BYTES = "store.segment.bytes";
+    public static final String STORE_SYNC_WRITES = "store.sync.writes";
+    
+    // Solace messaging keys
+    public static final String SOLACE_HOST = "solace.host";
+    public static final String SOLACE_VPN = "solace.vpn";
+    public static final String SOLACE_USERNAME = "solace.username";
+    public static final String SOLACE_PASSWORD = "solace.password";
+    public static final String MESSAGING_ENABLED = "messaging.enabled";
+    public static final String MESSAGING_BROKER = "messaging.broker";
+    public static final String MESSAGING_DELIVERY = "messaging.delivery";
+    public static final String MESSAGING_TOPIC_PREFIX = "messaging.topic.prefix";
+    public static final String MESSAGING_BATCH_SIZE = "messaging.batch.size";
+    public static final String MESSAGING_ACK_WINDOW = "messaging.ack.window";
+    public static final String MESSAGING_QUEUE_CAPACITY = "messaging.queue.capacity";
+    public static final String MESSAGING_QUESTION_QUEUE = "messaging.question.queue";
+    public static final String MESSAGING_ANSWER_QUEUE = "messaging.answer.queue";
+    public static final String MESSAGING_DISPATCH_TIMEOUT_MS = "messaging.dispatch.timeout.ms";
+    
+    // Answer worker keys
+    public static final String WORKER_PREFETCH = "worker.prefetch";
+    public static final String WORKER_MAX_IN_FLIGHT = "worker.max.inflight";
+    public static final String WORKER_MAX_REDELIVERY = "worker.max.redelivery";
+    
+    // GUI keys
+    public static final String GUI_FLUSH_INTERVAL_MS = "gui.flush.interval.ms";
+    
+    // Load test harness keys
+    public static final String LOADTEST_FILE = "loadtest.file";
+    public static final String LOADTEST_RATE = "loadtest.rate";
+    public static final String LOADTEST_DRAIN_TIMEOUT_MS = "loadtest.drain.timeout.ms";
+    public static final String LOADTEST_MOCK_ENABLED = "loadtest.mock.enabled";
+    public static final String LOADTEST_MOCK_PORT = "loadtest.mock.port";
+    public static final String LOADTEST_MOCK_LATENCY = "loadtest.mock.latency";
+    public static final String LOADTEST_MOCK_ERROR_RATE = "loadtest.mock.error.rate";
+    public static final String LOADTEST_MOCK_THROTTLE_RATE = "loadtest.mock.throttle.rate";
+    
+    // History retention keys
+    public static final String HISTORY_MAX_COUNT = "history.max.count";
+    public static final String HISTORY_MAX_AGE_HOURS = "history.max.age.hours";
+    public static final String HISTORY_HOT_WINDOW = "history.hot.window";
+    
+    // Fallback values for tuning keys that are not present in the configuration file
+    private static final Properties DEFAULTS = new Properties();
+    
+    static {
+        DEFAULTS.setProperty(TWITTER_INGEST_MODE, "status");
+        DEFAULTS.setProperty(APP_HEADLESS, "false");
+        DEFAULTS.setProperty(CLASSIFIER_LEXICON, "how,what,when,where,why,who,which,can,could");
+        DEFAULTS.setProperty(PRIORITY_WEIGHT_FOLLOWERS, "40");
+        DEFAULTS.setProperty(PRIORITY_WEIGHT_VERIFIED, "20");
+        DEFAULTS.setProperty(PRIORITY_WEIGHT_CONFIDENCE, "20");
+        DEFAULTS.setProperty(PRIORITY_WEIGHT_KEYWORDS, "20");
+        DEFAULTS.setProperty(PRIORITY_FOLLOWERS_SATURATION, "1000000");
+        DEFAULTS.setProperty(PRIORITY_KEYWORDS, "");
+        DEFAULTS.setProperty(PIPELINE_INGEST_WORKERS, "1");
+        DEFAULTS.setProperty(PIPELINE_INGEST_CAPACITY, "10000");
+        DEFAULTS.setProperty(PIPELINE_INGEST_DEDUPE_WINDOW, "100000");
+        DEFAULTS.setProperty(PIPELINE_CLASSIFY_WORKERS, "2");
+        DEFAULTS.setProperty(PIPELINE_CLASSIFY_CAPACITY, "1000");
+        DEFAULTS.setProperty(PIPELINE_ANSWER_WORKERS, "8");
+        DEFAULTS.setProperty(PIPELINE_ANSWER_CAPACITY, "500");
+        DEFAULTS.setProperty(PIPELINE_ANSWER_MAX_IN_FLIGHT, "256");
+        DEFAULTS.setProperty(PIPELINE_ANSWER_MODE, "local");
+        DEFAULTS.setProperty(PIPELINE_ANSWER_ADMISSION, "priority");
+        DEFAULTS.setProperty(PIPELINE_ANSWER_TARGET_LATENCY_MS, "10000");
+        DEFAULTS.setProperty(PIPELINE_REPLY_WORKERS, "1");
+        DEFAULTS.setProperty(PIPELINE_REPLY_CAPACITY, "500");
+        DEFAULTS.setProperty(REPLY_RATE_LIMIT, "300");
+        DEFAULTS.setProperty(REPLY_RATE_WINDOW_MINUTES, "180");
+        DEFAULTS.setProperty(REPLY_RATE_BURST, "5");
+        DEFAULTS.setProperty(REPLY_MAX_ATTEMPTS, "5");
+        DEFAULTS.setProperty(REPLY_RETRY_BACKOFF_MS, "30000");
+        DEFAULTS.setProperty(REPLY_RETRY_MAX_BACKOFF_MS, "3600000");
+        DEFAULTS.setProperty(REPLY_QUEUE_FILE, "reply-queue.json");
+        DEFAULTS.setProperty(AGENT_MESH_CONNECT_TIMEOUT_MS, "5000");
+        DEFAULTS.setProperty(AGENT_MESH_SOCKET_TIMEOUT_MS, "60000");
+        DEFAULTS.setProperty(AGENT_MESH_STREAMING, "false");
+        DEFAULTS.setProperty(AGENT_MESH_STREAM_CUTOFF, "true");
+        DEFAULTS.setProperty(AGENT_MESH_RETRY_MAX_ATTEMPTS, "3");
+        DEFAULTS.setProperty(AGENT_MESH_RETRY_BACKOFF_MS, "200");
+        DEFAULTS.setProperty(AGENT_MESH_RETRY_MAX_BACKOFF_MS, "2000");
+        DEFAULTS.setProperty(AGENT_MESH_RETRY_BUDGET_RATIO, "0.2");
+        DEFAULTS.setProperty(AGENT_MESH_RETRY_BUDGET_MIN, "10");
+        DEFAULTS.setProperty(AGENT_MESH_BREAKER_WINDOW, "20");
+        DEFAULTS.setProperty(AGENT_MESH_BREAKER_MIN_CALLS, "10");
+        DEFAULTS.setProperty(AGENT_MESH_BREAKER_FAILURE_RATE, "50");
+        DEFAULTS.setProperty(AGENT_MESH_BREAKER_OPEN_MS, "30000");
+        DEFAULTS.setProperty(AGENT_MESH_BREAKER_HALF_OPEN_CALLS, "3");
+        DEFAULTS.setProperty(AGENT_MESH_PARKED_CAPACITY, "1000");
+        DEFAULTS.setProperty(AGENT_MESH_PARKED_MAX_ATTEMPTS, "5");
+        DEFAULTS.setProperty(CONFIG_WATCH_ENABLED, "true");
+        DEFAULTS.setProperty(CONFIG_WATCH_DEBOUNCE_MS, "250");
+        DEFAULTS.setProperty(TRACE_SLOW_THRESHOLD_MS, "30000");
+        DEFAULTS.setProperty(TRACE_EXPORT_FILE, "");
+        DEFAULTS.setProperty(METRICS_JMX_ENABLED, "true");
+        DEFAULTS.setProperty(METRICS_HTTP_ENABLED, "true");
+        DEFAULTS.setProperty(METRICS_HTTP_HOST, "");
+        DEFAULTS.setProperty(METRICS_HTTP_PORT, "9464");
+        DEFAULTS.setProperty(CACHE_ENABLED, "true");
+        DEFAULTS.setProperty(CACHE_MAX_ENTRIES, "10000");
+        DEFAULTS.setProperty(CACHE_TTL_MINUTES, "1440");
+        DEFAULTS.setProperty(CACHE_PERSIST_FILE, "answer-cache.json");
+        DEFAULTS.setProperty(DATA_DIRECTORY, new File(System.getProperty("user.home"), ".agentmesh-twitter").getPath());
+        DEFAULTS.setProperty(STORE_TYPE, "mapped");
+        DEFAULTS.setProperty(STORE_DIRECTORY, "tweet-store");
+        DEFAULTS.setProperty(STORE_SEGMENT_BYTES, String.valueOf(16 * 1024 * 1024));
+        DEFAULTS.setProperty(STORE_SYNC_WRITES, "false");
+        DEFAULTS.setProperty(SOLACE_HOST, "tcp://localhost:55555");
+        DEFAULTS.setProperty(SOLACE_VPN, "default");
+        DEFAULTS.setProperty(SOLACE_USERNAME, "default");
+        DEFAULTS.setProperty(MESSAGING_ENABLED, "false");
+        DEFAULTS.setProperty(MESSAGING_BROKER, "solace");
+        DEFAULTS.setProperty(MESSAGING_DELIVERY, "direct");
+        DEFAULTS.setProperty(MESSAGING_TOPIC_PREFIX, "twitter");
+        DEFAULTS.setProperty(MESSAGING_BATCH_SIZE, "50");
+        DEFAULTS.setProperty(MESSAGING_ACK_WINDOW, "255");
+        DEFAULTS.setProperty(MESSAGING_QUEUE_CAPACITY, "10000");
+        DEFAULTS.setProperty(MESSAGING_QUESTION_QUEUE, "twitter.questions");
+        DEFAULTS.setProperty(MESSAGING_ANSWER_QUEUE, "twitter.answers");
+        DEFAULTS.setProperty(MESSAGING_DISPATCH_TIMEOUT_MS, "10000");
+        DEFAULTS.setProperty(WORKER_PREFETCH, "64");
+        DEFAULTS.setProperty(WORKER_MAX_IN_FLIGHT, "64");
+        DEFAULTS.setProperty(WORKER_MAX_REDELIVERY, "3");
+        DEFAULTS.setProperty(GUI_FLUSH_INTERVAL_MS, "50");
+        DEFAULTS.setProperty(LOADTEST_FILE, "replay.jsonl.gz");
+        DEFAULTS.setProperty(LOADTEST_RATE, "recorded:1");
+        DEFAULTS.setProperty(LOADTEST_DRAIN_TIMEOUT_MS, "60000");
+        DEFAULTS.setProperty(LOADTEST_MOCK_ENABLED, "true");
+        DEFAULTS.setProperty(LOADTEST_MOCK_PORT, "0");
+        DEFAULTS.setProperty(LOADTEST_MOCK_LATENCY, "lognormal:800:0.5");
+        DEFAULTS.setProperty(LOADTEST_MOCK_ERROR_RATE, "0");
+        DEFAULTS.setProperty(LOADTEST_MOCK_THROTTLE_RATE, "0");
+        DEFAULTS.setProperty(HISTORY_MAX_COUNT, "100000");
+        DEFAULTS.setProperty(HISTORY_MAX_AGE_HOURS, "0");
+        DEFAULTS.setProperty(HISTORY_HOT_WINDOW, "1000");
+        DEFAULTS.setProperty(DEDUPE_ENABLED, "false");
+        DEFAULTS.setProperty(DEDUPE_THRESHOLD, "0.8");
+        DEFAULTS.setProperty(DEDUPE_WINDOW_SIZE, "5000");
+        DEFAULTS.setProperty(DEDUPE_BANDS, "16");
+        DEFAULTS.setProperty(DEDUPE_ROWS, "4");
+    }
     
     private Properties properties;
     private boolean configLoaded = false;
+    private long version = 0;
+    
+    // Current values, replaced on every change
+    private volatile ConfigSnapshot snapshot;
+    
+    // Last snapshot the listeners were told about
+    private ConfigSnapshot notifiedSnapshot;
+    private final List<ConfigListener> listeners = new CopyOnWriteArrayList<>();
+    
+    // Calls the listeners one change at a time, in the order the changes were queued
+    private final ExecutorService notifier = Executors.newSingleThreadExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "config-notifier");
+        thread.setDaemon(true);
+        return thread;
+    });
     
     public ConfigManager() {
-        properties = new Properties();
+        properties = new Properties(DEFAULTS);
         loadConfig();
     }
     
@@ -40,30 +299,103 @@ public class ConfigManager {
         File configFile = new File(CONFIG_FILE);
         
         if (configFile.exists()) {
-            try (FileInputStream fis = new FileInputStream(configFile)) {
-                properties.load(fis);
-                configLoaded = true;
-                LOGGER.info("Configuration loaded successfully");
-            } catch (IOException e) {
-                LOGGER.log(Level.SEVERE, "Failed to load configuration", e);
+            synchronized (this) {
+                try (FileInputStream fis = new FileInputStream(configFile)) {
+                    properties.load(fis);
+                    configLoaded = true;
+                    LOGGER.info("Configuration loaded successfully");
+                } catch (IOException e) {
+                    LOGGER.log(Level.SEVERE, "Failed to load configuration", e);
+                }
+                publish();
             }
+            notifyListeners();
         } else {
             // Create default configuration
-            setDefaultConfig();
+            synchronized (this) {
+                setDefaultConfig();
+                publish();
+            }
             saveConfig();
             LOGGER.info("Created default configuration");
         }
     }
     
+    /**
+     * Replace the configuration with the contents of the configuration file
+     * Unlike loadConfig, keys removed from the file revert to their defaults, and values set but
+     * not saved are discarded. The current configuration is kept if the file cannot be read
+     */
+    public void reload() {
+        Properties reloaded = new Properties(DEFAULTS);
+        try (FileInputStream fis = new FileInputStream(CONFIG_FILE)) {
+            reloaded.load(fis);
+        } catch (IOException e) {
+            LOGGER.log(Level.WARNING, "Failed to reload configuration, keeping the current one", e);
+            return;
+        }
+        
+        synchronized (this) {
+            properties = reloaded;
+            configLoaded = true;
+            publish();
+        }
+        notifyListeners();
+    }
+    
     /**
      * Save configuration to file
      */
     public void saveConfig() {
-        try (FileOutputStream fos = new FileOutputStream(CONFIG_FILE)) {
-            properties.store(fos, "Solace Twitter Integration Configuration");
-            LOGGER.info("Configuration saved successfully");
-        } catch (IOException e) {
-            LOGGER.log(Level.SEVERE, "Failed to save configuration", e);
+        synchronized (this) {
+            try (FileOutputStream fos = new FileOutputStream(CONFIG_FILE)) {
+                properties.store(fos, "Solace Twitter Integration Configuration");
+                LOGGER.info("Configuration saved successfully");
+            } catch (IOException e) {
+                LOGGER.log(Level.SEVERE, "Failed to save configuration", e);
+            }
+        }
+        notifyListeners();
+    }
+    
+    /**
+     * Publish a snapshot of the current values
+     * Must be called while holding the lock on this
+     */
+    private void publish() {
+        snapshot = new ConfigSnapshot(properties, configLoaded, ++version);
+    }
+    
+    /**
+     * Tell the listeners which keys changed since they were last notified
+     * The change is queued while holding the lock, so concurrent saves and reloads reach the
+     * listeners in the order their snapshots were taken. Listeners are called on the notifier
+     * thread, so a save from the Settings dialog does not restart monitoring on the event thread
+     */
+    private void notifyListeners() {
+        synchronized (this) {
+            ConfigSnapshot current = snapshot;
+            Set<String> changedKeys = notifiedSnapshot != null ? notifiedSnapshot.changedKeys(current) : Set.of();
+            notifiedSnapshot = current;
+            if (!changedKeys.isEmpty()) {
+                notifier.execute(() -> deliver(current, changedKeys));
+            }
+        }
+    }
+    
+    /**
+     * Call every listener with one change
+     * @param current Configuration after the change
+     * @param changedKeys Keys that changed
+     */
+    private void deliver(ConfigSnapshot current, Set<String> changedKeys) {
+        LOGGER.info("Configuration changed: " + changedKeys);
+        for (ConfigListener listener : listeners) {
+            try {
+                listener.onConfigChanged(current, changedKeys);
+            } catch (RuntimeException e) {
+                LOGGER.log(Level.SEVERE, "Failed to apply configuration change", e);
+            }
         }
     }
     
@@ -87,7 +419,7 @@ public class ConfigManager {
      * @return Configuration value or empty string if not found
      */
     public String getConfig(String key) {
-        return properties.getProperty(key, "");
+        return snapshot.getString(key);
     }
     
     /**
@@ -96,7 +428,35 @@ public class ConfigManager {
      * @return Boolean value or false if not found
      */
     public boolean getBooleanConfig(String key) {
-        return Boolean.parseBoolean(properties.getProperty(key, "false"));
+        return snapshot.getBoolean(key);
+    }
+    
+    /**
+     * Get a configuration value as integer
+     * @param key Configuration key
+     * @return Integer value, the built-in default if the value is not a number, or 0 if not found
+     */
+    public int getIntConfig(String key) {
+        return snapshot.getInt(key);
+    }
+    
+    /**
+     * Get the current configuration
+     * Read settings that must be consistent with each other from one snapshot
+     * @return Immutable snapshot of all values
+     */
+    public ConfigSnapshot getSnapshot() {
+        return snapshot;
+    }
+    
+    /**
+     * Get the built-in default of a configuration value
+     * @param key Configuration key
+     * @param fallback Value returned if the key has no default
+     * @return Default value
+     */
+    static String getDefault(String key, String fallback) {
+        return DEFAULTS.getProperty(key, fallback);
     }
     
     /**
@@ -104,8 +464,9 @@ public class ConfigManager {
      * @param key Configuration key
      * @param value Configuration value
      */
-    public void setConfig(String key, String value) {
+    public synchronized void setConfig(String key, String value) {
         properties.setProperty(key, value);
+        publish();
     }
     
     /**
@@ -113,15 +474,63 @@ public class ConfigManager {
      * @return true if configuration is valid
      */
     public boolean isConfigValid() {
-        if (!configLoaded) {
-            return false;
+        return snapshot.isValid();
+    }
+    
+    /**
+     * Get the path of the configuration file
+     * @return Absolute path
+     */
+    public Path getConfigPath() {
+        return new File(CONFIG_FILE).getAbsoluteFile().toPath();
+    }
+    
+    /**
+     * Get a file or directory configured by path, resolving a relative path against the data directory
+     * Creates the data directory if needed, so the file can be written
+     * @param key Configuration key holding the path
+     * @return File, or null if the path is empty
+     */
+    public File getDataFile(String key) {
+        String path = getConfig(key).trim();
+        if (path.isEmpty()) {
+            return null;
+        }
+        
+        File file = new File(path);
+        if (file.isAbsolute()) {
+            return file;
         }
         
-        // Check if required configuration values are present
-        return !getConfig(TWITTER_API_KEY).isEmpty() &&
-               !getConfig(TWITTER_API_SECRET).isEmpty() &&
-               !getConfig(TWITTER_ACCESS_TOKEN).isEmpty() &&
-               !getConfig(TWITTER_ACCESS_SECRET).isEmpty() &&
-               !getConfig(AGENT_MESH_API_KEY).isEmpty();
+        File dataDirectory = new File(getConfig(DATA_DIRECTORY).trim()).getAbsoluteFile();
+        if (!dataDirectory.isDirectory() && !dataDirectory.mkdirs()) {
+            LOGGER.warning("Failed to create data directory " + dataDirectory);
+        }
+        return new File(dataDirectory, path);
+    }
+    
+    /**
+     * Register a listener for configuration changes
+     * @param listener Listener to add
+     */
+    public void addConfigListener(ConfigListener listener) {
+        listeners.add(listener);
+    }
+    
+    /**
+     * Unregister a listener for configuration changes
+     * @param listener Listener to remove
+     */
+    public void removeConfigListener(ConfigListener listener) {
+        listeners.remove(listener);
+    }
+    
+    /**
+     * Interface for configuration change listeners
+     * Values set with setConfig are only reported once they are saved. Called on the config
+     * notifier thread, one change at a time
+     */
+    public interface ConfigListener {
+        void onConfigChanged(ConfigSnapshot snapshot, Set<String> changedKeys);
     }
 }
\ No newline at end of file
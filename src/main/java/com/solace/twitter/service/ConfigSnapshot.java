@@ -0,0 +1,163 @@
+package com.solace.twitter.service;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Properties;
+import java.util.Set;
+import java.util.logging.Logger;
+
+/**
+ * Immutable, typed view of the configuration at one point in time
+ * ConfigManager publishes a new snapshot for every change instead of modifying this one, so a
+ * snapshot can be read without locking and the values read from it are consistent with each other.
+ * Settings read for every tweet or Agent Mesh request are parsed once when the snapshot is taken
+ */
+public final class ConfigSnapshot {
+    private static final Logger LOGGER = Logger.getLogger(ConfigSnapshot.class.getName());
+    
+    private final Map<String, String> values;
+    private final long version;
+    private final boolean valid;
+    
+    // Hot-path settings, parsed up front
+    private final boolean autoReplyEnabled;
+    private final List<String> searchKeywords;
+    private final String agentMeshEndpoint;
+    private final String agentMeshApiKey;
+    
+    /**
+     * Constructor for ConfigSnapshot
+     * @param properties Configuration with its defaults, must not be modified while it is copied
+     * @param loaded Whether the configuration was read from the configuration file
+     * @param version Number of the snapshot, increasing with each change
+     */
+    ConfigSnapshot(Properties properties, boolean loaded, long version) {
+        Map<String, String> copy = new HashMap<>();
+        for (String key : properties.stringPropertyNames()) {
+            copy.put(key, properties.getProperty(key));
+        }
+        this.values = Collections.unmodifiableMap(copy);
+        this.version = version;
+        
+        this.autoReplyEnabled = getBoolean(ConfigManager.AUTO_REPLY_ENABLED);
+        this.agentMeshEndpoint = getString(ConfigManager.AGENT_MESH_ENDPOINT).trim();
+        this.agentMeshApiKey = getString(ConfigManager.AGENT_MESH_API_KEY);
+        List<String> keywords = new ArrayList<>();
+        for (String keyword : getString(ConfigManager.SEARCH_KEYWORDS).split(",")) {
+            if (!keyword.trim().isEmpty()) {
+                keywords.add(keyword.trim());
+            }
+        }
+        this.searchKeywords = Collections.unmodifiableList(keywords);
+        
+        // Required values for monitoring Twitter and calling Agent Mesh
+        this.valid = loaded &&
+                !getString(ConfigManager.TWITTER_API_KEY).isEmpty() &&
+                !getString(ConfigManager.TWITTER_API_SECRET).isEmpty() &&
+                !getString(ConfigManager.TWITTER_ACCESS_TOKEN).isEmpty() &&
+                !getString(ConfigManager.TWITTER_ACCESS_SECRET).isEmpty() &&
+                !agentMeshApiKey.isEmpty();
+    }
+    
+    /**
+     * Get a configuration value
+     * @param key Configuration key
+     * @return Configuration value or empty string if not found
+     */
+    public String getString(String key) {
+        return values.getOrDefault(key, "");
+    }
+    
+    /**
+     * Get a configuration value as boolean
+     * @param key Configuration key
+     * @return Boolean value or false if not found
+     */
+    public boolean getBoolean(String key) {
+        return Boolean.parseBoolean(values.get(key));
+    }
+    
+    /**
+     * Get a configuration value as integer
+     * @param key Configuration key
+     * @return Integer value, the built-in default if the value is not a number, or 0 if not found
+     */
+    public int getInt(String key) {
+        String value = getString(key).trim();
+        if (value.isEmpty()) {
+            return 0;
+        }
+        
+        try {
+            return Integer.parseInt(value);
+        } catch (NumberFormatException e) {
+            LOGGER.warning("Invalid integer value for " + key + ": " + value);
+            return Integer.parseInt(ConfigManager.getDefault(key, "0"));
+        }
+    }
+    
+    /**
+     * Get the keys whose values differ between this snapshot and another
+     * @param other Snapshot to compare with
+     * @return Keys added, removed or changed
+     */
+    public Set<String> changedKeys(ConfigSnapshot other) {
+        Set<String> changed = new HashSet<>();
+        for (Map.Entry<String, String> entry : values.entrySet()) {
+            if (!entry.getValue().equals(other.values.get(entry.getKey()))) {
+                changed.add(entry.getKey());
+            }
+        }
+        for (String key : other.values.keySet()) {
+            if (!values.containsKey(key)) {
+                changed.add(key);
+            }
+        }
+        return changed;
+    }
+    
+    /**
+     * Check if the configuration was loaded and contains the required values
+     * @return true if configuration is valid
+     */
+    public boolean isValid() {
+        return valid;
+    }
+    
+    public long getVersion() {
+        return version;
+    }
+    
+    public boolean isAutoReplyEnabled() {
+        return autoReplyEnabled;
+    }
+    
+    /**
+     * Get the keywords to track on the Twitter stream
+     * @return Trimmed, non-empty keywords
+     */
+    public List<String> getSearchKeywords() {
+        return searchKeywords;
+    }
+    
+    public String getAgentMeshEndpoint() {
+        return agentMeshEndpoint;
+    }
+    
+    public String getAgentMeshApiKey() {
+        return agentMeshApiKey;
+    }
+    
+    @Override
+    public String toString() {
+        return "ConfigSnapshot{" +
+                "version=" + version +
+                ", valid=" + valid +
+                ", keys=" + values.size() +
+                '}';
+    }
+}
\ No newline at end of file
@@ -0,0 +1,120 @@
+package com.solace.twitter.service;
+
+import java.io.IOException;
+import java.nio.file.ClosedWatchServiceException;
+import java.nio.file.Path;
+import java.nio.file.StandardWatchEventKinds;
+import java.nio.file.WatchEvent;
+import java.nio.file.WatchKey;
+import java.nio.file.WatchService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Reloads the configuration when the configuration file changes on disk
+ * Watches the directory of the file, since a file cannot be watched directly and editors often
+ * replace it instead of writing it in place. Events are collected until the file has been quiet
+ * for the debounce interval, so a save written in several steps is reloaded once
+ */
+public class ConfigWatcher {
+    private static final Logger LOGGER = Logger.getLogger(ConfigWatcher.class.getName());
+    
+    private final ConfigManager configManager;
+    private final WatchService watchService;
+    private final Path fileName;
+    private final long debounceMillis;
+    private final Thread thread;
+    private final AtomicLong reloads = new AtomicLong();
+    
+    private ConfigWatcher(ConfigManager configManager, WatchService watchService, Path fileName, long debounceMillis) {
+        this.configManager = configManager;
+        this.watchService = watchService;
+        this.fileName = fileName;
+        this.debounceMillis = debounceMillis;
+        this.thread = new Thread(this::run, "config-watcher");
+        this.thread.setDaemon(true);
+    }
+    
+    /**
+     * Start watching the configuration file if enabled in the configuration
+     * @param configManager Configuration manager to reload
+     * @return Running watcher, or null if watching is disabled or not supported
+     */
+    public static ConfigWatcher start(ConfigManager configManager) {
+        if (!configManager.getBooleanConfig(ConfigManager.CONFIG_WATCH_ENABLED)) {
+            return null;
+        }
+        
+        Path file = configManager.getConfigPath();
+        try {
+            WatchService watchService = file.getFileSystem().newWatchService();
+            file.getParent().register(watchService, StandardWatchEventKinds.ENTRY_CREATE, StandardWatchEventKinds.ENTRY_MODIFY);
+            ConfigWatcher watcher = new ConfigWatcher(configManager, watchService, file.getFileName(),
+                Math.max(0, configManager.getIntConfig(ConfigManager.CONFIG_WATCH_DEBOUNCE_MS)));
+            watcher.thread.start();
+            LOGGER.info("Watching " + file + " for configuration changes");
+            return watcher;
+        } catch (IOException | UnsupportedOperationException e) {
+            LOGGER.log(Level.WARNING, "Cannot watch " + file + ", configuration changes apply after a restart", e);
+            return null;
+        }
+    }
+    
+    private void run() {
+        try {
+            while (true) {
+                if (!isConfigFileChanged(watchService.take())) {
+                    continue;
+                }
+                
+                // Wait for the writes to settle before reading the file
+                WatchKey key;
+                while ((key = watchService.poll(debounceMillis, TimeUnit.MILLISECONDS)) != null) {
+                    isConfigFileChanged(key);
+                }
+                reloads.incrementAndGet();
+                configManager.reload();
+            }
+        } catch (InterruptedException | ClosedWatchServiceException e) {
+            // Closed
+        }
+    }
+    
+    /**
+     * Check the events of a watch key for a change to the configuration file, and reset the key
+     * @param key Signalled watch key
+     * @return true if the configuration file may have changed
+     */
+    private boolean isConfigFileChanged(WatchKey key) {
+        boolean changed = false;
+        for (WatchEvent<?> event : key.pollEvents()) {
+            // Events were lost, so the file may have changed
+            if (event.kind() == StandardWatchEventKinds.OVERFLOW || fileName.equals(event.context())) {
+                changed = true;
+            }
+        }
+        if (!key.reset()) {
+            LOGGER.warning("Configuration directory is no longer accessible, configuration changes apply after a restart");
+        }
+        return changed;
+    }
+    
+    /**
+     * Get the number of times the configuration was reloaded after the file changed
+     * @return Number of reloads
+     */
+    public long getReloads() {
+        return reloads.get();
+    }
+    
+    public void close() {
+        try {
+            watchService.close();
+        } catch (IOException e) {
+            LOGGER.log(Level.WARNING, "Failed to close configuration watcher", e);
+        }
+        thread.interrupt();
+    }
+}
\ No newline at end of file
@@ -0,0 +1,300 @@
+package com.solace.twitter.service;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.Map;
+import java.util.SortedMap;
+import java.util.TreeMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Groups near-duplicate questions (paraphrases, quote tweets, copy-paste spam) into clusters
+ * Questions are shingled into character n-grams, summarised as MinHash signatures and indexed
+ * in LSH band buckets. Only the most recent questions are kept, in a fixed-size window, so
+ * memory use does not grow with the number of questions seen
+ */
+public class NearDuplicateDetector {
+    private static final int SHINGLE_LENGTH = 5;
+    
+    private final int bands;
+    private final int rows;
+    private final double threshold;
+    private final long[] seeds;
+    
+    // Ring buffer of recent questions and the LSH buckets pointing into it
+    private final Slot[] window;
+    private final Map<Long, Integer> buckets = new HashMap<>();
+    private int next = 0;
+    
+    // Runtime counters
+    private final AtomicLong questions = new AtomicLong();
+    private final AtomicLong duplicates = new AtomicLong();
+    
+    /**
+     * Constructor for NearDuplicateDetector
+     * @param windowSize Number of recent questions to compare against
+     * @param bands Number of LSH bands
+     * @param rows Number of MinHash values per band
+     * @param threshold Minimum estimated Jaccard similarity for two questions to share a cluster
+     */
+    public NearDuplicateDetector(int windowSize, int bands, int rows, double threshold) {
+        this.bands = Math.max(1, bands);
+        this.rows = Math.max(1, rows);
+        this.threshold = threshold;
+        this.window = new Slot[Math.max(1, windowSize)];
+        this.seeds = new long[this.bands * this.rows];
+        long seed = 0x9E3779B97F4A7C15L;
+        for (int i = 0; i < seeds.length; i++) {
+            seed = mix(seed + i);
+            seeds[i] = seed;
+        }
+    }
+    
+    /**
+     * Create a detector from the application configuration
+     * @param configManager Configuration manager
+     * @return Near-duplicate detector, or null if detection is disabled
+     */
+    public static NearDuplicateDetector fromConfig(ConfigManager configManager) {
+        if (!configManager.getBooleanConfig(ConfigManager.DEDUPE_ENABLED)) {
+            return null;
+        }
+        
+        double threshold;
+        try {
+            threshold = Double.parseDouble(configManager.getConfig(ConfigManager.DEDUPE_THRESHOLD));
+        } catch (NumberFormatException e) {
+            threshold = 0.8;
+        }
+        
+        return new NearDuplicateDetector(
+            configManager.getIntConfig(ConfigManager.DEDUPE_WINDOW_SIZE),
+            configManager.getIntConfig(ConfigManager.DEDUPE_BANDS),
+            configManager.getIntConfig(ConfigManager.DEDUPE_ROWS),
+            threshold);
+    }
+    
+    /**
+     * Find the cluster a question belongs to without adding it to the window
+     * Used for every lookup of a question, including retries, so it leaves the clusters unchanged
+     * @param question Question text
+     * @return Canonical question of the matching cluster, or the normalized question if none matches
+     */
+    public String find(String question) {
+        String normalized = QuestionNormalizer.normalize(question);
+        long[] signature = signature(normalized);
+        long[] bandKeys = bandKeys(signature);
+        
+        synchronized (this) {
+            Slot best = findBest(signature, bandKeys);
+            return best != null ? best.cluster.canonical : normalized;
+        }
+    }
+    
+    /**
+     * Assign a newly asked question to a cluster of near-duplicates, starting a new cluster if none matches
+     * Called once per tweet, so that retries of the same question do not grow its cluster
+     * @param question Question text
+     * @return Canonical question of the cluster, shared by all of its members
+     */
+    public String add(String question) {
+        String normalized = QuestionNormalizer.normalize(question);
+        long[] signature = signature(normalized);
+        long[] bandKeys = bandKeys(signature);
+        questions.incrementAndGet();
+        
+        synchronized (this) {
+            Slot best = findBest(signature, bandKeys);
+            if (best != null) {
+                duplicates.incrementAndGet();
+                best.cluster.size++;
+                
+                // Exact copies add nothing new to match against, so keep the window for distinct wording
+                if (similarity(signature, best.signature) < 1.0) {
+                    insert(new Slot(signature, bandKeys, best.cluster));
+                }
+                return best.cluster.canonical;
+            }
+            
+            insert(new Slot(signature, bandKeys, new Cluster(normalized)));
+            return normalized;
+        }
+    }
+    
+    /**
+     * Find the most similar recent question sharing at least one band bucket
+     * @param signature MinHash signature of the question
+     * @param bandKeys Bucket key per band of the signature
+     * @return Most similar question at or above the threshold, or null if none
+     */
+    private Slot findBest(long[] signature, long[] bandKeys) {
+        Slot best = null;
+        double bestSimilarity = 0.0;
+        for (long bandKey : bandKeys) {
+            Integer index = buckets.get(bandKey);
+            if (index == null) {
+                continue;
+            }
+            
+            Slot candidate = window[index];
+            double similarity = similarity(signature, candidate.signature);
+            if (similarity >= threshold && similarity > bestSimilarity) {
+                best = candidate;
+                bestSimilarity = similarity;
+            }
+        }
+        return best;
+    }
+    
+    /**
+     * Store a question in the window, evicting the oldest one and its buckets
+     * @param slot Question signature and cluster
+     */
+    private void insert(Slot slot) {
+        Slot evicted = window[next];
+        if (evicted != null) {
+            for (long bandKey : evicted.bandKeys) {
+                buckets.remove(bandKey, next);
+            }
+        }
+        
+        window[next] = slot;
+        for (long bandKey : slot.bandKeys) {
+            buckets.put(bandKey, next);
+        }
+        next = (next + 1) % window.length;
+    }
+    
+    /**
+     * Compute the MinHash signature of the character shingles of a text
+     * @param text Normalized text
+     * @return MinHash signature
+     */
+    private long[] signature(String text) {
+        long[] signature = new long[seeds.length];
+        Arrays.fill(signature, Long.MAX_VALUE);
+        
+        int shingles = Math.max(1, text.length() - SHINGLE_LENGTH + 1);
+        for (int start = 0; start < shingles; start++) {
+            long hash = 0;
+            int end = Math.min(text.length(), start + SHINGLE_LENGTH);
+            for (int i = start; i < end; i++) {
+                hash = hash * 31 + text.charAt(i);
+            }
+            
+            for (int i = 0; i < seeds.length; i++) {
+                long value = mix(hash ^ seeds[i]);
+                if (value < signature[i]) {
+                    signature[i] = value;
+                }
+            }
+        }
+        return signature;
+    }
+    
+    /**
+     * Hash each band of a signature into an LSH bucket key
+     * @param signature MinHash signature
+     * @return Bucket key per band
+     */
+    private long[] bandKeys(long[] signature) {
+        long[] keys = new long[bands];
+        for (int band = 0; band < bands; band++) {
+            long key = band;
+            for (int row = 0; row < rows; row++) {
+                key = mix(key * 31 + signature[band * rows + row]);
+            }
+            keys[band] = key;
+        }
+        return keys;
+    }
+    
+    /**
+     * Estimate the Jaccard similarity of two signatures
+     */
+    private static double similarity(long[] a, long[] b) {
+        int equal = 0;
+        for (int i = 0; i < a.length; i++) {
+            if (a[i] == b[i]) {
+                equal++;
+            }
+        }
+        return (double) equal / a.length;
+    }
+    
+    /**
+     * 64-bit finalizer from MurmurHash3
+     */
+    private static long mix(long value) {
+        value ^= value >>> 33;
+        value *= 0xFF51AFD7ED558CCDL;
+        value ^= value >>> 33;
+        value *= 0xC4CEB9FE1A85EC53L;
+        value ^= value >>> 33;
+        return value;
+    }
+    
+    /**
+     * Get the distribution of cluster sizes among the questions in the window
+     * @return Map from cluster size to number of clusters of that size
+     */
+    public synchronized SortedMap<Integer, Integer> getClusterSizes() {
+        Map<Cluster, Boolean> clusters = new IdentityHashMap<>();
+        for (Slot slot : window) {
+            if (slot != null) {
+                clusters.put(slot.cluster, Boolean.TRUE);
+            }
+        }
+        
+        SortedMap<Integer, Integer> sizes = new TreeMap<>();
+        for (Cluster cluster : clusters.keySet()) {
+            sizes.merge(cluster.size, 1, Integer::sum);
+        }
+        return sizes;
+    }
+    
+    public long getQuestions() {
+        return questions.get();
+    }
+    
+    public long getDuplicates() {
+        return duplicates.get();
+    }
+    
+    @Override
+    public String toString() {
+        return "NearDuplicateDetector{" +
+                "questions=" + questions +
+                ", duplicates=" + duplicates +
+                ", clusterSizes=" + getClusterSizes() +
+                '}';
+    }
+    
+    /**
+     * Group of near-duplicate questions
+     */
+    private static class Cluster {
+        private final String canonical;
+        private int size = 1;
+        
+        Cluster(String canonical) {
+            this.canonical = canonical;
+        }
+    }
+    
+    /**
+     * A recent question in the window
+     */
+    private static class Slot {
+        private final long[] signature;
+        private final long[] bandKeys;
+        private final Cluster cluster;
+        
+        Slot(long[] signature, long[] bandKeys, Cluster cluster) {
+            this.signature = signature;
+            this.bandKeys = bandKeys;
+            this.cluster = cluster;
+        }
+    }
+}
\ No newline at end of file
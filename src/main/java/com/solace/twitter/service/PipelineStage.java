@@ -0,0 +1,325 @@
+package com.solace.twitter.service;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * A single stage of the tweet processing pipeline
+ * Tasks are queued in a bounded queue and executed by a fixed pool of worker threads.
+ * Tasks may also start asynchronous work, which is bounded by a separate in-flight limit
+ */
+public class PipelineStage {
+    private static final Logger LOGGER = Logger.getLogger(PipelineStage.class.getName());
+    private static final long POLL_INTERVAL_MS = 100;
+    
+    private final String name;
+    private final int workerCount;
+    private final int capacity;
+    private final int maxInFlight;
+    private final BlockingQueue<Runnable> queue;
+    private final Semaphore inFlightPermits;
+    private final List<Thread> workers = new ArrayList<>();
+    
+    // Runtime counters
+    private final AtomicInteger active = new AtomicInteger();
+    private final AtomicLong submitted = new AtomicLong();
+    private final AtomicLong completed = new AtomicLong();
+    private final AtomicLong rejected = new AtomicLong();
+    private final AtomicLong failed = new AtomicLong();
+    
+    private volatile boolean running = false;
+    
+    /**
+     * Constructor for PipelineStage
+     * @param name Stage name, used for thread names and statistics
+     * @param workerCount Number of worker threads
+     * @param capacity Maximum number of queued tasks
+     */
+    public PipelineStage(String name, int workerCount, int capacity) {
+        this(name, workerCount, capacity, Integer.MAX_VALUE);
+    }
+    
+    /**
+     * Constructor for PipelineStage
+     * @param name Stage name, used for thread names and statistics
+     * @param workerCount Number of worker threads
+     * @param capacity Maximum number of queued tasks
+     * @param maxInFlight Maximum number of asynchronous operations started by tasks of this stage
+     */
+    public PipelineStage(String name, int workerCount, int capacity, int maxInFlight) {
+        this(name, workerCount, new ArrayBlockingQueue<>(Math.max(1, capacity)), maxInFlight);
+    }
+    
+    /**
+     * Constructor for PipelineStage with a custom task queue, such as a priority queue
+     * @param name Stage name, used for thread names and statistics
+     * @param workerCount Number of worker threads
+     * @param queue Empty bounded queue for the stage's tasks
+     * @param maxInFlight Maximum number of asynchronous operations started by tasks of this stage
+     */
+    public PipelineStage(String name, int workerCount, BlockingQueue<Runnable> queue, int maxInFlight) {
+        this.name = name;
+        this.workerCount = Math.max(1, workerCount);
+        this.capacity = queue.remainingCapacity();
+        this.maxInFlight = Math.max(1, maxInFlight);
+        this.queue = queue;
+        this.inFlightPermits = new Semaphore(this.maxInFlight);
+    }
+    
+    /**
+     * Start the worker threads
+     */
+    public synchronized void start() {
+        if (running) {
+            return;
+        }
+        
+        running = true;
+        for (int i = 0; i < workerCount; i++) {
+            Thread worker = new Thread(this::runWorker, "pipeline-" + name + "-" + i);
+            worker.setDaemon(true);
+            workers.add(worker);
+            worker.start();
+        }
+    }
+    
+    /**
+     * Queue a task without blocking
+     * @param task Task to execute
+     * @return true if the task was queued, false if the stage is full, stopped or would shed it at once
+     */
+    public boolean offer(Runnable task) {
+        if (!running || !queue.offer(task)) {
+            rejected.incrementAndGet();
+            return false;
+        }
+        
+        submitted.incrementAndGet();
+        return true;
+    }
+    
+    /**
+     * Queue a task, waiting for space if the stage is full
+     * @param task Task to execute
+     * @throws InterruptedException if interrupted while waiting
+     */
+    public void put(Runnable task) throws InterruptedException {
+        if (!running) {
+            rejected.incrementAndGet();
+            throw new IllegalStateException("Pipeline stage " + name + " is not running");
+        }
+        
+        queue.put(task);
+        submitted.incrementAndGet();
+    }
+    
+    /**
+     * Start asynchronous work on behalf of this stage, waiting while the in-flight limit is reached
+     * @param work Supplier that starts the asynchronous operation
+     * @param <T> Result type
+     * @return Future of the asynchronous operation
+     * @throws InterruptedException if interrupted while waiting for an in-flight slot
+     */
+    public <T> CompletableFuture<T> track(Supplier<CompletableFuture<T>> work) throws InterruptedException {
+        inFlightPermits.acquire();
+        CompletableFuture<T> future;
+        try {
+            future = work.get();
+        } catch (RuntimeException e) {
+            inFlightPermits.release();
+            throw e;
+        }
+        
+        future.whenComplete((result, error) -> inFlightPermits.release());
+        return future;
+    }
+    
+    /**
+     * Stop accepting tasks and wait for queued tasks and in-flight work to drain
+     * @param timeoutMillis Maximum time to wait for the workers to finish
+     * @return true if all workers finished within the timeout
+     */
+    public boolean shutdown(long timeoutMillis) {
+        List<Thread> toJoin;
+        synchronized (this) {
+            running = false;
+            toJoin = new ArrayList<>(workers);
+            workers.clear();
+        }
+        
+        long deadline = System.currentTimeMillis() + timeoutMillis;
+        for (Thread worker : toJoin) {
+            long remaining = deadline - System.currentTimeMillis();
+            if (remaining <= 0) {
+                break;
+            }
+            
+            try {
+                worker.join(remaining);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                break;
+            }
+        }
+        
+        boolean drained = toJoin.stream().noneMatch(Thread::isAlive);
+        
+        // Wait for asynchronous work started by the drained tasks
+        try {
+            long remaining = Math.max(0, deadline - System.currentTimeMillis());
+            if (inFlightPermits.tryAcquire(maxInFlight, remaining, TimeUnit.MILLISECONDS)) {
+                inFlightPermits.release(maxInFlight);
+            } else {
+                drained = false;
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            drained = false;
+        }
+        
+        if (!drained) {
+            LOGGER.warning("Pipeline stage " + name + " did not drain in time, " + queue.size() +
+                " tasks queued and " + getInFlight() + " in flight");
+        }
+        return drained;
+    }
+    
+    /**
+     * Worker loop: execute tasks until stopped and the queue is empty
+     */
+    private void runWorker() {
+        while (running || !queue.isEmpty()) {
+            Runnable task;
+            try {
+                task = queue.poll(POLL_INTERVAL_MS, TimeUnit.MILLISECONDS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            }
+            
+            if (task == null) {
+                continue;
+            }
+            
+            active.incrementAndGet();
+            try {
+                task.run();
+            } catch (Exception e) {
+                failed.incrementAndGet();
+                LOGGER.log(Level.SEVERE, "Task failed in pipeline stage " + name, e);
+            } finally {
+                active.decrementAndGet();
+                completed.incrementAndGet();
+            }
+        }
+    }
+    
+    public String getName() {
+        return name;
+    }
+    
+    private int getInFlight() {
+        return maxInFlight - inFlightPermits.availablePermits();
+    }
+    
+    /**
+     * Get a snapshot of the stage counters
+     * @return Stage statistics
+     */
+    public Stats getStats() {
+        return new Stats(name, workerCount, capacity, queue.size(), active.get(), getInFlight(),
+            submitted.get(), completed.get(), rejected.get(), failed.get());
+    }
+    
+    /**
+     * Point-in-time statistics for a pipeline stage
+     */
+    public static class Stats {
+        private final String name;
+        private final int workers;
+        private final int capacity;
+        private final int depth;
+        private final int active;
+        private final int inFlight;
+        private final long submitted;
+        private final long completed;
+        private final long rejected;
+        private final long failed;
+        
+        public Stats(String name, int workers, int capacity, int depth, int active, int inFlight,
+                     long submitted, long completed, long rejected, long failed) {
+            this.name = name;
+            this.workers = workers;
+            this.capacity = capacity;
+            this.depth = depth;
+            this.active = active;
+            this.inFlight = inFlight;
+            this.submitted = submitted;
+            this.completed = completed;
+            this.rejected = rejected;
+            this.failed = failed;
+        }
+        
+        public String getName() {
+            return name;
+        }
+        
+        public int getWorkers() {
+            return workers;
+        }
+        
+        public int getCapacity() {
+            return capacity;
+        }
+        
+        public int getDepth() {
+            return depth;
+        }
+        
+        public int getActive() {
+            return active;
+        }
+        
+        public int getInFlight() {
+            return inFlight;
+        }
+        
+        public long getSubmitted() {
+            return submitted;
+        }
+        
+        public long getCompleted() {
+            return completed;
+        }
+        
+        public long getRejected() {
+            return rejected;
+        }
+        
+        public long getFailed() {
+            return failed;
+        }
+        
+        @Override
+        public String toString() {
+            return name + "{depth=" + depth + "/" + capacity +
+                    ", active=" + active + "/" + workers +
+                    ", inFlight=" + inFlight +
+                    ", submitted=" + submitted +
+                    ", completed=" + completed +
+                    ", rejected=" + rejected +
+                    ", failed=" + failed +
+                    '}';
+        }
+    }
+}
\ No newline at end of file
@@ -0,0 +1,199 @@
+package com.solace.twitter.service;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Detects whether a tweet asks a question
+ * A tweet is a question if it contains a question mark or one of the interrogative words of the
+ * lexicon as a whole word. The lexicon is compiled once into a trie-based automaton that is run
+ * over the text in a single pass, folding case per character, so classification does not allocate
+ */
+public class QuestionClassifier {
+    private static final int ASCII = 128;
+    private static final int DEAD = -1;
+    
+    // Transition table for ASCII characters, indexed by state * ASCII + character
+    private final int[] asciiTransitions;
+    
+    // Transitions for non-ASCII characters, searched linearly per state
+    private final char[][] otherChars;
+    private final int[][] otherTargets;
+    
+    private final boolean[] accepting;
+    
+    /**
+     * Constructor for QuestionClassifier
+     * @param lexicon Interrogative words that mark a question
+     */
+    public QuestionClassifier(List<String> lexicon) {
+        // Build the trie with growable per-state transition lists
+        List<int[]> ascii = new ArrayList<>();
+        List<char[]> otherKeys = new ArrayList<>();
+        List<int[]> otherValues = new ArrayList<>();
+        List<Boolean> terminal = new ArrayList<>();
+        addState(ascii, otherKeys, otherValues, terminal);
+        
+        for (String word : lexicon) {
+            String folded = word.trim();
+            if (folded.isEmpty()) {
+                continue;
+            }
+            
+            int state = 0;
+            for (int i = 0; i < folded.length(); i++) {
+                char c = Character.toLowerCase(folded.charAt(i));
+                int target = transition(ascii, otherKeys, otherValues, state, c);
+                if (target == DEAD) {
+                    target = addState(ascii, otherKeys, otherValues, terminal);
+                    if (c < ASCII) {
+                        ascii.get(state)[c] = target;
+                    } else {
+                        char[] keys = Arrays.copyOf(otherKeys.get(state), otherKeys.get(state).length + 1);
+                        int[] values = Arrays.copyOf(otherValues.get(state), otherValues.get(state).length + 1);
+                        keys[keys.length - 1] = c;
+                        values[values.length - 1] = target;
+                        otherKeys.set(state, keys);
+                        otherValues.set(state, values);
+                    }
+                }
+                state = target;
+            }
+            terminal.set(state, true);
+        }
+        
+        // Flatten into arrays for the matching loop
+        int states = ascii.size();
+        this.asciiTransitions = new int[states * ASCII];
+        this.otherChars = new char[states][];
+        this.otherTargets = new int[states][];
+        this.accepting = new boolean[states];
+        for (int state = 0; state < states; state++) {
+            System.arraycopy(ascii.get(state), 0, asciiTransitions, state * ASCII, ASCII);
+            otherChars[state] = otherKeys.get(state);
+            otherTargets[state] = otherValues.get(state);
+            accepting[state] = terminal.get(state);
+        }
+    }
+    
+    /**
+     * Create a classifier from the lexicon in the application configuration
+     * @param configManager Configuration manager
+     * @return Question classifier
+     */
+    public static QuestionClassifier fromConfig(ConfigManager configManager) {
+        return new QuestionClassifier(Arrays.asList(configManager.getConfig(ConfigManager.CLASSIFIER_LEXICON).split(",")));
+    }
+    
+    /**
+     * Check if a text contains a question
+     * @param text Tweet text
+     * @return true if the text contains a question mark or an interrogative word
+     */
+    public boolean containsQuestion(CharSequence text) {
+        int state = 0;
+        boolean inMention = false;
+        int length = text.length();
+        for (int i = 0; i < length; i++) {
+            char c = text.charAt(i);
+            if (c == '?' || c == '\uFF1F') {
+                return true;
+            }
+            
+            if (isWordChar(c)) {
+                if (!inMention && state != DEAD) {
+                    state = next(state, Character.toLowerCase(c));
+                }
+            } else {
+                // Word boundary: accept if a whole lexicon word was just read
+                if (!inMention && state != DEAD && accepting[state]) {
+                    return true;
+                }
+                
+                // Mentioned usernames are not words of the tweet
+                inMention = c == '@';
+                state = 0;
+            }
+        }
+        return !inMention && state != DEAD && accepting[state];
+    }
+    
+    /**
+     * Estimate how clearly a text asks a question
+     * @param text Tweet text
+     * @return 1 for a question mark and an interrogative word, 0.75 for a question mark only,
+     *         0.5 for an interrogative word only and 0 for neither
+     */
+    public double questionConfidence(CharSequence text) {
+        boolean questionMark = false;
+        boolean interrogative = false;
+        int state = 0;
+        boolean inMention = false;
+        int length = text.length();
+        for (int i = 0; i < length && !(questionMark && interrogative); i++) {
+            char c = text.charAt(i);
+            if (isWordChar(c)) {
+                if (!inMention && state != DEAD) {
+                    state = next(state, Character.toLowerCase(c));
+                }
+            } else {
+                interrogative |= !inMention && state != DEAD && accepting[state];
+                questionMark |= c == '?' || c == '\uFF1F';
+                inMention = c == '@';
+                state = 0;
+            }
+        }
+        interrogative |= !inMention && state != DEAD && accepting[state];
+        
+        if (questionMark) {
+            return interrogative ? 1.0 : 0.75;
+        }
+        return interrogative ? 0.5 : 0.0;
+    }
+    
+    /**
+     * Follow the transition for a lowercase character
+     */
+    private int next(int state, char c) {
+        if (c < ASCII) {
+            return asciiTransitions[state * ASCII + c];
+        }
+        
+        char[] keys = otherChars[state];
+        for (int i = 0; i < keys.length; i++) {
+            if (keys[i] == c) {
+                return otherTargets[state][i];
+            }
+        }
+        return DEAD;
+    }
+    
+    private static boolean isWordChar(char c) {
+        return Character.isLetterOrDigit(c) || c == '_';
+    }
+    
+    private static int addState(List<int[]> ascii, List<char[]> otherKeys, List<int[]> otherValues, List<Boolean> terminal) {
+        int[] transitions = new int[ASCII];
+        Arrays.fill(transitions, DEAD);
+        ascii.add(transitions);
+        otherKeys.add(new char[0]);
+        otherValues.add(new int[0]);
+        terminal.add(false);
+        return ascii.size() - 1;
+    }
+    
+    private static int transition(List<int[]> ascii, List<char[]> otherKeys, List<int[]> otherValues, int state, char c) {
+        if (c < ASCII) {
+            return ascii.get(state)[c];
+        }
+        
+        char[] keys = otherKeys.get(state);
+        for (int i = 0; i < keys.length; i++) {
+            if (keys[i] == c) {
+                return otherValues.get(state)[i];
+            }
+        }
+        return DEAD;
+    }
+}
\ No newline at end of file
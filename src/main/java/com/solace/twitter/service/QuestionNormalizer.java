@@ -0,0 +1,57 @@
+package com.solace.twitter.service;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.regex.Pattern;
+
+/**
+ * Normalizes question text so that trivially different tweets map to the same cache key,
+ * and splits it into words for keyword matching
+ */
+public final class QuestionNormalizer {
+    private static final Pattern URLS = Pattern.compile("https?://\\S+");
+    private static final Pattern MENTIONS_AND_HASHTAGS = Pattern.compile("[@#]\\w+");
+    private static final Pattern WHITESPACE = Pattern.compile("\\s+");
+    private static final Pattern SURROUNDING_PUNCTUATION = Pattern.compile("^[.,;:!?\"'()\\[\\]{}]+|[.,;:!?\"'()\\[\\]{}]+$");
+    
+    private QuestionNormalizer() {
+    }
+    
+    /**
+     * Normalize a question: lowercase, strip URLs, mentions and hashtags, and collapse whitespace
+     * @param question Question text
+     * @return Normalized question
+     */
+    public static String normalize(String question) {
+        if (question == null) {
+            return "";
+        }
+        
+        String normalized = question.toLowerCase(Locale.ROOT);
+        normalized = URLS.matcher(normalized).replaceAll(" ");
+        normalized = MENTIONS_AND_HASHTAGS.matcher(normalized).replaceAll(" ");
+        return WHITESPACE.matcher(normalized).replaceAll(" ").trim();
+    }
+    
+    /**
+     * Split a question into the words of its normalized form, without the punctuation around them
+     * @param question Question text
+     * @return Words in order, empty if there are none
+     */
+    public static List<String> tokens(String question) {
+        List<String> tokens = new ArrayList<>();
+        String normalized = normalize(question);
+        if (normalized.isEmpty()) {
+            return tokens;
+        }
+        
+        for (String word : WHITESPACE.split(normalized)) {
+            String token = SURROUNDING_PUNCTUATION.matcher(word).replaceAll("");
+            if (!token.isEmpty()) {
+                tokens.add(token);
+            }
+        }
+        return tokens;
+    }
+}
\ No newline at end of file
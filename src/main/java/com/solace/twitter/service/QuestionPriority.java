@@ -0,0 +1,140 @@
+package com.solace.twitter.service;
+
+import twitter4j.Status;
+import twitter4j.User;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.logging.Logger;
+
+/**
+ * Scores how important it is to answer a question
+ * The score is a weighted average of four signals between 0 and 1: the author's follower count
+ * on a logarithmic scale, whether the author is verified, how clearly the tweet asks a question
+ * and the highest weight of the configured keywords it mentions as whole words
+ */
+public class QuestionPriority {
+    private static final Logger LOGGER = Logger.getLogger(QuestionPriority.class.getName());
+    
+    private final QuestionClassifier questionClassifier;
+    private final double followersWeight;
+    private final double verifiedWeight;
+    private final double confidenceWeight;
+    private final double keywordsWeight;
+    private final double logFollowersSaturation;
+    
+    // Words of each keyword, and its weight between 0 and 1
+    private final List<List<String>> keywords = new ArrayList<>();
+    private final List<Double> keywordWeights = new ArrayList<>();
+    
+    /**
+     * Constructor for QuestionPriority
+     * @param questionClassifier Classifier used to estimate question confidence
+     * @param followersWeight Relative weight of the follower count
+     * @param verifiedWeight Relative weight of a verified author
+     * @param confidenceWeight Relative weight of the question confidence
+     * @param keywordsWeight Relative weight of the keywords
+     * @param followersSaturation Follower count at and above which the follower signal is 1
+     * @param keywords Keywords and their weights between 0 and 1
+     */
+    public QuestionPriority(QuestionClassifier questionClassifier, int followersWeight, int verifiedWeight,
+                            int confidenceWeight, int keywordsWeight, int followersSaturation, Map<String, Double> keywords) {
+        this.questionClassifier = questionClassifier;
+        double total = Math.max(1, Math.max(0, followersWeight) + Math.max(0, verifiedWeight)
+            + Math.max(0, confidenceWeight) + Math.max(0, keywordsWeight));
+        this.followersWeight = Math.max(0, followersWeight) / total;
+        this.verifiedWeight = Math.max(0, verifiedWeight) / total;
+        this.confidenceWeight = Math.max(0, confidenceWeight) / total;
+        this.keywordsWeight = Math.max(0, keywordsWeight) / total;
+        this.logFollowersSaturation = Math.log1p(Math.max(1, followersSaturation));
+        for (Map.Entry<String, Double> keyword : keywords.entrySet()) {
+            List<String> words = QuestionNormalizer.tokens(keyword.getKey());
+            if (!words.isEmpty()) {
+                this.keywords.add(words);
+                this.keywordWeights.add(Math.max(0.0, Math.min(1.0, keyword.getValue())));
+            }
+        }
+    }
+    
+    /**
+     * Create a scorer from the application configuration
+     * Keywords are configured as a comma-separated list of keyword:weight pairs, with weights
+     * from 0 to 100; a keyword without a weight counts fully
+     * @param configManager Configuration manager
+     * @param questionClassifier Classifier used to estimate question confidence
+     * @return Question priority scorer
+     */
+    public static QuestionPriority fromConfig(ConfigManager configManager, QuestionClassifier questionClassifier) {
+        Map<String, Double> keywords = new LinkedHashMap<>();
+        for (String pair : configManager.getConfig(ConfigManager.PRIORITY_KEYWORDS).split(",")) {
+            int separator = pair.lastIndexOf(':');
+            String keyword = (separator < 0 ? pair : pair.substring(0, separator)).trim();
+            if (keyword.isEmpty()) {
+                continue;
+            }
+            
+            double weight = 1.0;
+            if (separator >= 0) {
+                try {
+                    weight = Integer.parseInt(pair.substring(separator + 1).trim()) / 100.0;
+                } catch (NumberFormatException e) {
+                    LOGGER.warning("Invalid priority keyword weight, counting fully: " + pair.trim());
+                }
+            }
+            keywords.put(keyword, weight);
+        }
+        
+        return new QuestionPriority(
+            questionClassifier,
+            configManager.getIntConfig(ConfigManager.PRIORITY_WEIGHT_FOLLOWERS),
+            configManager.getIntConfig(ConfigManager.PRIORITY_WEIGHT_VERIFIED),
+            configManager.getIntConfig(ConfigManager.PRIORITY_WEIGHT_CONFIDENCE),
+            configManager.getIntConfig(ConfigManager.PRIORITY_WEIGHT_KEYWORDS),
+            configManager.getIntConfig(ConfigManager.PRIORITY_FOLLOWERS_SATURATION),
+            keywords);
+    }
+    
+    /**
+     * Score a question
+     * @param status Tweet asking the question
+     * @param question Extracted question
+     * @return Priority between 0 and 1, higher is answered first
+     */
+    public double score(Status status, String question) {
+        User user = status.getUser();
+        double followers = 0.0;
+        double verified = 0.0;
+        if (user != null) {
+            followers = Math.min(1.0, Math.log1p(Math.max(0, user.getFollowersCount())) / logFollowersSaturation);
+            verified = user.isVerified() ? 1.0 : 0.0;
+        }
+        
+        return followersWeight * followers
+            + verifiedWeight * verified
+            + confidenceWeight * questionClassifier.questionConfidence(question)
+            + keywordsWeight * keywordScore(question);
+    }
+    
+    /**
+     * Get the highest weight of the keywords a text mentions
+     * A keyword only counts as whole words, so "solace" matches "Solace?" but not "solacecloud"
+     */
+    private double keywordScore(String text) {
+        if (keywords.isEmpty()) {
+            return 0.0;
+        }
+        
+        List<String> words = QuestionNormalizer.tokens(text);
+        double score = 0.0;
+        for (int i = 0; i < keywords.size(); i++) {
+            double weight = keywordWeights.get(i);
+            if (weight > score && Collections.indexOfSubList(words, keywords.get(i)) >= 0) {
+                score = weight;
+            }
+        }
+        return score;
+    }
+}
\ No newline at end of file
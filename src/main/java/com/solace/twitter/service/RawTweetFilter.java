@@ -0,0 +1,111 @@
+package com.solace.twitter.service;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+
+import java.io.IOException;
+import java.nio.CharBuffer;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Prefilter for raw stream messages
+ * Scans the raw JSON of a message with a streaming parser and rejects retweets, non-status
+ * messages and tweets without a question before twitter4j materializes a Status for them
+ */
+public class RawTweetFilter {
+    private static final Logger LOGGER = Logger.getLogger(RawTweetFilter.class.getName());
+    private static final JsonFactory JSON_FACTORY = new JsonFactory();
+    
+    private final QuestionClassifier questionClassifier;
+    
+    // Runtime counters
+    private final AtomicLong accepted = new AtomicLong();
+    private final AtomicLong retweets = new AtomicLong();
+    private final AtomicLong nonQuestions = new AtomicLong();
+    private final AtomicLong nonStatuses = new AtomicLong();
+    
+    public RawTweetFilter(QuestionClassifier questionClassifier) {
+        this.questionClassifier = questionClassifier;
+    }
+    
+    /**
+     * Check if a raw stream message is a status worth processing
+     * @param rawJson Raw JSON message from the stream
+     * @return true if the message is an original tweet that contains a question
+     */
+    public boolean accept(String rawJson) {
+        boolean hasText = false;
+        boolean question = false;
+        
+        try (JsonParser parser = JSON_FACTORY.createParser(rawJson)) {
+            if (parser.nextToken() != JsonToken.START_OBJECT) {
+                nonStatuses.incrementAndGet();
+                return false;
+            }
+            
+            // Only look at top-level fields; nested objects such as user or entities are skipped
+            while (parser.nextToken() == JsonToken.FIELD_NAME) {
+                String field = parser.getCurrentName();
+                JsonToken value = parser.nextToken();
+                
+                if ("retweeted_status".equals(field) && value != JsonToken.VALUE_NULL) {
+                    retweets.incrementAndGet();
+                    return false;
+                } else if ("text".equals(field) && value == JsonToken.VALUE_STRING) {
+                    hasText = true;
+                    question = questionClassifier.containsQuestion(CharBuffer.wrap(
+                        parser.getTextCharacters(), parser.getTextOffset(), parser.getTextLength()));
+                } else {
+                    parser.skipChildren();
+                }
+            }
+        } catch (IOException e) {
+            LOGGER.log(Level.FINE, "Unparseable stream message", e);
+            nonStatuses.incrementAndGet();
+            return false;
+        }
+        
+        if (!hasText) {
+            // Delete notices, limit notices and other control messages
+            nonStatuses.incrementAndGet();
+            return false;
+        }
+        
+        if (!question) {
+            nonQuestions.incrementAndGet();
+            return false;
+        }
+        
+        accepted.incrementAndGet();
+        return true;
+    }
+    
+    public long getAccepted() {
+        return accepted.get();
+    }
+    
+    public long getRetweets() {
+        return retweets.get();
+    }
+    
+    public long getNonQuestions() {
+        return nonQuestions.get();
+    }
+    
+    public long getNonStatuses() {
+        return nonStatuses.get();
+    }
+    
+    @Override
+    public String toString() {
+        return "RawTweetFilter{" +
+                "accepted=" + accepted +
+                ", retweets=" + retweets +
+                ", nonQuestions=" + nonQuestions +
+                ", nonStatuses=" + nonStatuses +
+                '}';
+    }
+}
\ No newline at end of file
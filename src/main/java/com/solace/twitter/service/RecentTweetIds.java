@@ -0,0 +1,65 @@
+package com.solace.twitter.service;
+
+import com.solace.twitter.store.LongIntHashMap;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Remembers the IDs of recently ingested tweets so that a tweet delivered twice, for example
+ * after a stream reconnect, is only processed once
+ * IDs are kept in a fixed-size window with the oldest evicted first, so memory use is constant
+ */
+public class RecentTweetIds {
+    private final long[] window;
+    private final LongIntHashMap slots;
+    private int next = 0;
+    private int filled = 0;
+    
+    // Runtime counters
+    private final AtomicLong duplicates = new AtomicLong();
+    
+    /**
+     * Constructor for RecentTweetIds
+     * @param windowSize Number of recent tweet IDs to remember
+     */
+    public RecentTweetIds(int windowSize) {
+        this.window = new long[Math.max(1, windowSize)];
+        this.slots = new LongIntHashMap(window.length);
+    }
+    
+    /**
+     * Create the window from the application configuration
+     * @param configManager Configuration manager
+     * @return Recent tweet IDs
+     */
+    public static RecentTweetIds fromConfig(ConfigManager configManager) {
+        return new RecentTweetIds(configManager.getIntConfig(ConfigManager.PIPELINE_INGEST_DEDUPE_WINDOW));
+    }
+    
+    /**
+     * Record a tweet ID unless it was seen recently
+     * @param tweetId Twitter ID of the tweet
+     * @return true if the ID was not in the window
+     */
+    public synchronized boolean add(long tweetId) {
+        if (slots.containsKey(tweetId)) {
+            duplicates.incrementAndGet();
+            return false;
+        }
+        
+        if (filled == window.length) {
+            slots.remove(window[next]);
+        } else {
+            filled++;
+        }
+        
+        window[next] = tweetId;
+        slots.put(tweetId, next);
+        next = (next + 1) % window.length;
+        return true;
+    }
+    
+    public long getDuplicates() {
+        return duplicates.get();
+    }
+}
\ No newline at end of file
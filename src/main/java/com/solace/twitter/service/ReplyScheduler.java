@@ -0,0 +1,482 @@
+package com.solace.twitter.service;
+
+import com.solace.twitter.model.ProcessedTweet;
+import com.solace.twitter.store.LongIntHashMap;
+import org.json.JSONArray;
+import org.json.JSONObject;
+import twitter4j.RateLimitStatus;
+import twitter4j.Status;
+import twitter4j.TwitterException;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.LinkedHashSet;
+import java.util.PriorityQueue;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Consumer;
+import java.util.function.LongFunction;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Sends replies within Twitter's write rate limits
+ * Replies are queued and released by a token bucket sized to the account's limits, which is
+ * aligned with the rate limit status Twitter returns. A rate-limited reply is deferred until the
+ * limit resets and holds back all other replies; a reply that fails for a transient reason is
+ * retried with exponential backoff. The queue is persisted so pending replies survive a restart
+ */
+public class ReplyScheduler {
+    private static final Logger LOGGER = Logger.getLogger(ReplyScheduler.class.getName());
+    private static final long SAVE_INTERVAL_MS = 1000;
+    
+    // Twitter error code for an exhausted daily update limit, and HTTP statuses of rate-limited requests
+    private static final int OVER_DAILY_LIMIT = 185;
+    private static final int TOO_MANY_REQUESTS = 429;
+    private static final int ENHANCE_YOUR_CALM = 420;
+    
+    private final ReplySender sender;
+    private final Consumer<ProcessedTweet> sentListener;
+    private final LongFunction<ProcessedTweet> tweetLookup;
+    private final PipelineStage replyStage;
+    private final TokenBucket bucket;
+    private final int maxAttempts;
+    private final long backoffMillis;
+    private final long maxBackoffMillis;
+    private final File persistFile;
+    
+    // Pending replies ordered by due time, replies being sent and the IDs of both, guarded by this
+    private final PriorityQueue<Entry> queue = new PriorityQueue<>();
+    private final Set<Entry> sending = new LinkedHashSet<>();
+    private final LongIntHashMap scheduled = new LongIntHashMap(64);
+    private long sequence = 0;
+    private boolean dirty = false;
+    private long savedAt = 0;
+    
+    private final Thread schedulerThread;
+    private volatile boolean running = false;
+    
+    // Runtime counters
+    private final AtomicLong queued = new AtomicLong();
+    private final AtomicLong sent = new AtomicLong();
+    private final AtomicLong deferred = new AtomicLong();
+    private final AtomicLong retried = new AtomicLong();
+    private final AtomicLong failed = new AtomicLong();
+    private final AtomicLong dropped = new AtomicLong();
+    
+    /**
+     * Constructor for ReplyScheduler
+     * @param sender Sends a reply to Twitter
+     * @param sentListener Records a sent reply; called once per reply and never retried
+     * @param tweetLookup Finds a processed tweet by ID, returning null if it is no longer retained
+     * @param replyStage Pipeline stage that sends the replies
+     * @param bucket Token bucket matched to the account's write limits
+     * @param maxAttempts Maximum number of attempts for a reply that fails for a transient reason
+     * @param backoffMillis Delay before the first retry, doubled for each further retry
+     * @param maxBackoffMillis Maximum delay between retries
+     * @param persistFile File to persist the queue to, or null to keep it in memory only
+     */
+    public ReplyScheduler(ReplySender sender, Consumer<ProcessedTweet> sentListener, LongFunction<ProcessedTweet> tweetLookup,
+                          PipelineStage replyStage, TokenBucket bucket, int maxAttempts, long backoffMillis, long maxBackoffMillis,
+                          File persistFile) {
+        this.sender = sender;
+        this.sentListener = sentListener;
+        this.tweetLookup = tweetLookup;
+        this.replyStage = replyStage;
+        this.bucket = bucket;
+        this.maxAttempts = Math.max(1, maxAttempts);
+        this.backoffMillis = Math.max(1, backoffMillis);
+        this.maxBackoffMillis = Math.max(this.backoffMillis, maxBackoffMillis);
+        this.persistFile = persistFile;
+        this.schedulerThread = new Thread(this::dispatchLoop, "reply-scheduler");
+        this.schedulerThread.setDaemon(true);
+        load();
+    }
+    
+    /**
+     * Create a scheduler from the application configuration
+     * @param configManager Configuration manager
+     * @param sender Sends a reply to Twitter
+     * @param sentListener Records a sent reply
+     * @param tweetLookup Finds a processed tweet by ID
+     * @param replyStage Pipeline stage that sends the replies
+     * @return Reply scheduler
+     */
+    public static ReplyScheduler fromConfig(ConfigManager configManager, ReplySender sender, Consumer<ProcessedTweet> sentListener,
+                                            LongFunction<ProcessedTweet> tweetLookup, PipelineStage replyStage) {
+        return new ReplyScheduler(
+            sender,
+            sentListener,
+            tweetLookup,
+            replyStage,
+            new TokenBucket(
+                configManager.getIntConfig(ConfigManager.REPLY_RATE_BURST),
+                configManager.getIntConfig(ConfigManager.REPLY_RATE_LIMIT),
+                configManager.getIntConfig(ConfigManager.REPLY_RATE_WINDOW_MINUTES) * 60_000L,
+                System.currentTimeMillis()),
+            configManager.getIntConfig(ConfigManager.REPLY_MAX_ATTEMPTS),
+            configManager.getIntConfig(ConfigManager.REPLY_RETRY_BACKOFF_MS),
+            configManager.getIntConfig(ConfigManager.REPLY_RETRY_MAX_BACKOFF_MS),
+            configManager.getDataFile(ConfigManager.REPLY_QUEUE_FILE));
+    }
+    
+    public void start() {
+        running = true;
+        schedulerThread.start();
+    }
+    
+    /**
+     * Queue a reply to a tweet
+     * @param tweet Processed tweet with its answer
+     * @return true if the reply was queued, false if it is already queued or sent
+     */
+    public synchronized boolean schedule(ProcessedTweet tweet) {
+        if (tweet.isReplied() || scheduled.containsKey(tweet.getTweetId())) {
+            return false;
+        }
+        
+        enqueue(new Entry(tweet.getTweetId(), 0, System.currentTimeMillis(), sequence++));
+        queued.incrementAndGet();
+        return true;
+    }
+    
+    private void enqueue(Entry entry) {
+        queue.add(entry);
+        scheduled.put(entry.tweetId, entry.attempts);
+        dirty = true;
+        notifyAll();
+    }
+    
+    /**
+     * Release due replies to the reply stage as tokens become available
+     */
+    private void dispatchLoop() {
+        while (running) {
+            Entry entry = null;
+            try {
+                entry = nextDue();
+                if (entry != null) {
+                    Entry due = entry;
+                    replyStage.put(() -> send(due));
+                }
+            } catch (InterruptedException | IllegalStateException e) {
+                // Stopping, or the reply stage has shut down; keep the reply for the persisted queue
+                if (entry != null) {
+                    requeue(entry);
+                }
+                return;
+            }
+        }
+    }
+    
+    private synchronized void requeue(Entry entry) {
+        sending.remove(entry);
+        queue.add(entry);
+        dirty = true;
+    }
+    
+    /**
+     * Wait until the head of the queue is due and a token is available
+     * @return Entry to send, or null if the scheduler is stopping
+     */
+    private synchronized Entry nextDue() throws InterruptedException {
+        while (running) {
+            long now = System.currentTimeMillis();
+            if (dirty && now - savedAt >= SAVE_INTERVAL_MS) {
+                save();
+            }
+            
+            long delay = SAVE_INTERVAL_MS;
+            Entry head = queue.peek();
+            if (head != null) {
+                delay = head.notBefore - now;
+                if (delay <= 0) {
+                    delay = bucket.tryTake(now);
+                    if (delay == 0) {
+                        Entry entry = queue.poll();
+                        sending.add(entry);
+                        return entry;
+                    }
+                }
+            }
+            wait(Math.min(delay, SAVE_INTERVAL_MS));
+        }
+        return null;
+    }
+    
+    /**
+     * Send a reply on a reply stage worker and reschedule it if it fails
+     * Only a failure to post the reply is retried: once Twitter has accepted it the reply counts as
+     * sent, so a failure to record it can never post it a second time
+     */
+    private void send(Entry entry) {
+        ProcessedTweet tweet = tweetLookup.apply(entry.tweetId);
+        if (tweet == null || tweet.isReplied()) {
+            if (tweet == null) {
+                dropped.incrementAndGet();
+                LOGGER.warning("Dropping reply to tweet no longer in the history: " + entry.tweetId);
+            }
+            done(entry);
+            return;
+        }
+        
+        Status status;
+        try {
+            status = sender.send(tweet);
+        } catch (TwitterException e) {
+            onFailure(entry, e, isRateLimited(e));
+            return;
+        } catch (RuntimeException e) {
+            onFailure(entry, e, false);
+            return;
+        }
+        
+        sent.incrementAndGet();
+        done(entry);
+        syncRateLimit(status != null ? status.getRateLimitStatus() : null);
+        try {
+            sentListener.accept(tweet);
+        } catch (RuntimeException e) {
+            LOGGER.log(Level.SEVERE, "Replied to tweet " + entry.tweetId + " but failed to record the reply", e);
+        }
+    }
+    
+    private void onFailure(Entry entry, Exception e, boolean rateLimited) {
+        long now = System.currentTimeMillis();
+        synchronized (this) {
+            sending.remove(entry);
+            if (rateLimited) {
+                // Hold back every reply until the limit resets; the deferred reply does not use up an attempt
+                long resetAt = resetTime((TwitterException) e, now, entry.attempts + 1);
+                bucket.block(resetAt);
+                deferred.incrementAndGet();
+                enqueue(new Entry(entry.tweetId, entry.attempts, resetAt, entry.sequence));
+                LOGGER.warning("Rate limited, deferring replies for " + (resetAt - now) / 1000 + " s");
+                return;
+            }
+            
+            int attempts = entry.attempts + 1;
+            if (isTransient(e) && attempts < maxAttempts) {
+                retried.incrementAndGet();
+                enqueue(new Entry(entry.tweetId, attempts, now + backoff(attempts), entry.sequence));
+                LOGGER.log(Level.WARNING, "Failed to reply to tweet " + entry.tweetId + ", retrying in " + backoff(attempts) / 1000 + " s", e);
+                return;
+            }
+            
+            failed.incrementAndGet();
+            done(entry);
+        }
+        LOGGER.log(Level.SEVERE, "Failed to reply to tweet " + entry.tweetId + " after " + (entry.attempts + 1) + " attempts", e);
+    }
+    
+    private synchronized void done(Entry entry) {
+        sending.remove(entry);
+        scheduled.remove(entry.tweetId);
+        dirty = true;
+    }
+    
+    private synchronized void syncRateLimit(RateLimitStatus rateLimitStatus) {
+        if (rateLimitStatus != null && rateLimitStatus.getLimit() > 0) {
+            bucket.sync(rateLimitStatus.getRemaining(), rateLimitStatus.getResetTimeInSeconds() * 1000L, System.currentTimeMillis());
+        }
+    }
+    
+    private static boolean isRateLimited(TwitterException e) {
+        return e.exceededRateLimitation()
+            || e.getStatusCode() == TOO_MANY_REQUESTS
+            || e.getStatusCode() == ENHANCE_YOUR_CALM
+            || e.getErrorCode() == OVER_DAILY_LIMIT;
+    }
+    
+    /**
+     * Check if a failure may succeed when retried: network errors and server errors do,
+     * client errors such as a duplicate status or a deleted tweet do not
+     */
+    private static boolean isTransient(Exception e) {
+        if (!(e instanceof TwitterException)) {
+            return true;
+        }
+        TwitterException twitterException = (TwitterException) e;
+        return twitterException.isCausedByNetworkIssue()
+            || twitterException.getStatusCode() <= 0
+            || twitterException.getStatusCode() >= 500;
+    }
+    
+    /**
+     * Get the time the rate limit resets from the response headers, falling back to backoff
+     */
+    private long resetTime(TwitterException e, long now, int attempts) {
+        RateLimitStatus rateLimitStatus = e.getRateLimitStatus();
+        if (rateLimitStatus != null && rateLimitStatus.getSecondsUntilReset() > 0) {
+            return now + rateLimitStatus.getSecondsUntilReset() * 1000L;
+        }
+        if (e.getRetryAfter() > 0) {
+            return now + e.getRetryAfter() * 1000L;
+        }
+        return now + backoff(attempts);
+    }
+    
+    private long backoff(int attempts) {
+        long delay = backoffMillis << Math.min(attempts - 1, 20);
+        return Math.min(delay, maxBackoffMillis);
+    }
+    
+    /**
+     * Load the persisted queue
+     */
+    private void load() {
+        if (persistFile == null || !persistFile.exists()) {
+            return;
+        }
+        
+        try {
+            JSONArray array = new JSONArray(new String(Files.readAllBytes(persistFile.toPath()), StandardCharsets.UTF_8));
+            synchronized (this) {
+                for (int i = 0; i < array.length(); i++) {
+                    JSONObject json = array.getJSONObject(i);
+                    long tweetId = json.getLong("tweetId");
+                    if (!scheduled.containsKey(tweetId)) {
+                        enqueue(new Entry(tweetId, json.getInt("attempts"), json.getLong("notBefore"), sequence++));
+                    }
+                }
+                dirty = false;
+            }
+            LOGGER.info("Loaded " + array.length() + " queued replies from " + persistFile);
+        } catch (Exception e) {
+            LOGGER.log(Level.WARNING, "Failed to load reply queue from " + persistFile, e);
+        }
+    }
+    
+    /**
+     * Persist the queue if a persistence file is configured
+     * Replies being sent are kept until their result is known, so a crash resends rather than loses them
+     */
+    public synchronized void save() {
+        dirty = false;
+        savedAt = System.currentTimeMillis();
+        if (persistFile == null) {
+            return;
+        }
+        
+        JSONArray array = new JSONArray();
+        for (Entry entry : sending) {
+            array.put(toJson(entry));
+        }
+        for (Entry entry : queue) {
+            array.put(toJson(entry));
+        }
+        
+        try {
+            File tempFile = new File(persistFile.getPath() + ".tmp");
+            Files.write(tempFile.toPath(), array.toString().getBytes(StandardCharsets.UTF_8));
+            Files.move(tempFile.toPath(), persistFile.toPath(),
+                StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (IOException e) {
+            LOGGER.log(Level.WARNING, "Failed to save reply queue to " + persistFile, e);
+        }
+    }
+    
+    private static JSONObject toJson(Entry entry) {
+        JSONObject json = new JSONObject();
+        json.put("tweetId", entry.tweetId);
+        json.put("attempts", entry.attempts);
+        json.put("notBefore", entry.notBefore);
+        return json;
+    }
+    
+    /**
+     * Stop releasing replies; queued replies stay in the persisted queue
+     * Call save once the reply stage has drained to record the outcome of replies being sent
+     */
+    public void close() {
+        running = false;
+        synchronized (this) {
+            notifyAll();
+        }
+        schedulerThread.interrupt();
+        try {
+            schedulerThread.join(1000);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+    
+    /**
+     * Get the number of replies waiting to be sent, including those being sent
+     * @return Number of scheduled replies
+     */
+    public synchronized int getQueueDepth() {
+        return scheduled.size();
+    }
+    
+    public long getQueued() {
+        return queued.get();
+    }
+    
+    public long getSent() {
+        return sent.get();
+    }
+    
+    public long getDeferred() {
+        return deferred.get();
+    }
+    
+    public long getRetried() {
+        return retried.get();
+    }
+    
+    public long getFailed() {
+        return failed.get();
+    }
+    
+    public long getDropped() {
+        return dropped.get();
+    }
+    
+    @Override
+    public synchronized String toString() {
+        return "ReplyScheduler{" +
+                "depth=" + scheduled.size() +
+                ", queued=" + queued +
+                ", sent=" + sent +
+                ", deferred=" + deferred +
+                ", retried=" + retried +
+                ", failed=" + failed +
+                ", dropped=" + dropped +
+                ", tokens=" + bucket.getAvailable(System.currentTimeMillis()) +
+                '}';
+    }
+    
+    /**
+     * Sends a reply to Twitter, without recording it
+     */
+    public interface ReplySender {
+        Status send(ProcessedTweet tweet) throws TwitterException;
+    }
+    
+    /**
+     * A queued reply
+     */
+    private static class Entry implements Comparable<Entry> {
+        private final long tweetId;
+        private final int attempts;
+        private final long notBefore;
+        private final long sequence;
+        
+        Entry(long tweetId, int attempts, long notBefore, long sequence) {
+            this.tweetId = tweetId;
+            this.attempts = attempts;
+            this.notBefore = notBefore;
+            this.sequence = sequence;
+        }
+        
+        @Override
+        public int compareTo(Entry other) {
+            int byTime = Long.compare(notBefore, other.notBefore);
+            return byTime != 0 ? byTime : Long.compare(sequence, other.sequence);
+        }
+    }
+}
\ No newline at end of file
@@ -0,0 +1,116 @@
+package com.solace.twitter.service;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Limits retries to a fraction of recent requests, shared by all callers
+ * Without a global limit every failing request multiplies the load on an endpoint that is
+ * already struggling. Requests and retries are counted over a sliding window of one-second
+ * buckets, and a retry is allowed while retries stay below the configured ratio of requests,
+ * or below a small minimum so that retries still work at low traffic
+ */
+public class RetryBudget {
+    private static final int BUCKETS = 10;
+    
+    private final double ratio;
+    private final int minRetries;
+    
+    // Counts per one-second bucket, guarded by this
+    private final long[] requests = new long[BUCKETS];
+    private final long[] retries = new long[BUCKETS];
+    private long currentSecond;
+    
+    // Runtime counters
+    private final AtomicLong exhausted = new AtomicLong();
+    
+    /**
+     * Constructor for RetryBudget
+     * @param ratio Maximum retries as a fraction of requests over the window
+     * @param minRetries Number of retries allowed over the window regardless of the ratio
+     */
+    public RetryBudget(double ratio, int minRetries) {
+        this.ratio = Math.max(0.0, ratio);
+        this.minRetries = Math.max(0, minRetries);
+        this.currentSecond = System.currentTimeMillis() / 1000;
+    }
+    
+    /**
+     * Create a retry budget from the application configuration
+     * @param configManager Configuration manager
+     * @return Retry budget for Agent Mesh calls
+     */
+    public static RetryBudget fromConfig(ConfigManager configManager) {
+        double ratio;
+        try {
+            ratio = Double.parseDouble(configManager.getConfig(ConfigManager.AGENT_MESH_RETRY_BUDGET_RATIO));
+        } catch (NumberFormatException e) {
+            ratio = 0.2;
+        }
+        return new RetryBudget(ratio, configManager.getIntConfig(ConfigManager.AGENT_MESH_RETRY_BUDGET_MIN));
+    }
+    
+    /**
+     * Count a first attempt of a request
+     */
+    public synchronized void onRequest() {
+        requests[advance()]++;
+    }
+    
+    /**
+     * Take a retry from the budget
+     * @return true if the retry may be made
+     */
+    public synchronized boolean tryRetry() {
+        int bucket = advance();
+        long totalRequests = 0;
+        long totalRetries = 0;
+        for (int i = 0; i < BUCKETS; i++) {
+            totalRequests += requests[i];
+            totalRetries += retries[i];
+        }
+        
+        if (totalRetries >= Math.max(minRetries, (long) (ratio * totalRequests))) {
+            exhausted.incrementAndGet();
+            return false;
+        }
+        retries[bucket]++;
+        return true;
+    }
+    
+    /**
+     * Move the window to the current second, clearing buckets that fell out of it
+     * @return Bucket of the current second
+     */
+    private int advance() {
+        long second = System.currentTimeMillis() / 1000;
+        long elapsed = Math.min(BUCKETS, second - currentSecond);
+        for (long i = 1; i <= elapsed; i++) {
+            int bucket = (int) ((currentSecond + i) % BUCKETS);
+            requests[bucket] = 0;
+            retries[bucket] = 0;
+        }
+        if (second > currentSecond) {
+            currentSecond = second;
+        }
+        return (int) (currentSecond % BUCKETS);
+    }
+    
+    public long getExhausted() {
+        return exhausted.get();
+    }
+    
+    @Override
+    public synchronized String toString() {
+        long totalRequests = 0;
+        long totalRetries = 0;
+        for (int i = 0; i < BUCKETS; i++) {
+            totalRequests += requests[i];
+            totalRetries += retries[i];
+        }
+        return "RetryBudget{" +
+                "requests=" + totalRequests +
+                ", retries=" + totalRetries +
+                ", exhausted=" + exhausted +
+                '}';
+    }
+}
\ No newline at end of file
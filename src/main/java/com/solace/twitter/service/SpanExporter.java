@@ -0,0 +1,151 @@
+package com.solace.twitter.service;
+
+import com.fasterxml.jackson.core.JsonEncoding;
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.solace.twitter.model.TweetTiming;
+
+import java.io.BufferedOutputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.Locale;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Appends trace spans to a file as JSON lines, one span per line, for offline analysis
+ * Spans are written by a background thread so the pipeline never waits for the disk; when the
+ * writer falls behind by more than the queue capacity, further traces are dropped and counted.
+ * Each line holds the tweet ID as trace ID, the span name, and its start, end and duration in
+ * microseconds
+ */
+public class SpanExporter {
+    private static final Logger LOGGER = Logger.getLogger(SpanExporter.class.getName());
+    private static final int QUEUE_CAPACITY = 10000;
+    private static final JsonFactory JSON_FACTORY = new JsonFactory();
+    private static final TweetTiming.Span[] SPANS = TweetTiming.Span.values();
+    
+    private final String path;
+    private final BlockingQueue<Trace> queue = new ArrayBlockingQueue<>(QUEUE_CAPACITY);
+    private final Thread thread;
+    private volatile boolean closed = false;
+    
+    // Runtime counters
+    private final AtomicLong exportedSpans = new AtomicLong();
+    private final AtomicLong droppedTraces = new AtomicLong();
+    
+    /**
+     * Constructor for SpanExporter
+     * @param path File to append the spans to
+     */
+    public SpanExporter(String path) {
+        this.path = path;
+        this.thread = new Thread(this::run, "span-exporter");
+        this.thread.setDaemon(true);
+    }
+    
+    public void start() {
+        thread.start();
+        LOGGER.info("Exporting trace spans to " + path);
+    }
+    
+    /**
+     * Queue the spans of a trace for export
+     * @param tweetId Twitter ID of the traced tweet
+     * @param timing Timing of the tweet
+     * @param first First span to export
+     * @param last Last span to export
+     */
+    public void export(long tweetId, TweetTiming timing, TweetTiming.Span first, TweetTiming.Span last) {
+        if (closed || !queue.offer(new Trace(tweetId, timing, first, last))) {
+            droppedTraces.incrementAndGet();
+        }
+    }
+    
+    private void run() {
+        try (OutputStream out = new BufferedOutputStream(new FileOutputStream(path, true));
+             JsonGenerator generator = JSON_FACTORY.createGenerator(out, JsonEncoding.UTF8)) {
+            // Each span ends its own line instead of being separated by a space
+            generator.setRootValueSeparator(null);
+            while (!closed || !queue.isEmpty()) {
+                Trace trace = queue.poll(100, TimeUnit.MILLISECONDS);
+                if (trace == null) {
+                    continue;
+                }
+                
+                write(generator, trace);
+                if (queue.isEmpty()) {
+                    generator.flush();
+                }
+            }
+        } catch (IOException e) {
+            LOGGER.log(Level.SEVERE, "Failed to export trace spans to " + path, e);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+    
+    private void write(JsonGenerator generator, Trace trace) throws IOException {
+        for (int i = trace.first.ordinal(); i <= trace.last.ordinal(); i++) {
+            TweetTiming.Span span = SPANS[i];
+            long start = trace.timing.getStart(span);
+            long end = trace.timing.getEnd(span);
+            if (start <= 0 || end <= 0) {
+                continue;
+            }
+            
+            generator.writeStartObject();
+            generator.writeStringField("trace_id", Long.toString(trace.tweetId));
+            generator.writeStringField("span", span.name().toLowerCase(Locale.ROOT));
+            generator.writeNumberField("start_us", start);
+            generator.writeNumberField("end_us", end);
+            generator.writeNumberField("duration_us", end - start);
+            generator.writeEndObject();
+            generator.writeRaw('\n');
+            exportedSpans.incrementAndGet();
+        }
+    }
+    
+    public long getExportedSpans() {
+        return exportedSpans.get();
+    }
+    
+    public long getDroppedTraces() {
+        return droppedTraces.get();
+    }
+    
+    /**
+     * Stop accepting spans and wait for the queued ones to be written
+     * @param timeoutMillis Maximum time to wait
+     */
+    public void close(long timeoutMillis) {
+        closed = true;
+        try {
+            thread.join(timeoutMillis);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+    
+    /**
+     * Spans of one tweet waiting to be written
+     */
+    private static final class Trace {
+        private final long tweetId;
+        private final TweetTiming timing;
+        private final TweetTiming.Span first;
+        private final TweetTiming.Span last;
+        
+        Trace(long tweetId, TweetTiming timing, TweetTiming.Span first, TweetTiming.Span last) {
+            this.tweetId = tweetId;
+            this.timing = timing;
+            this.first = first;
+            this.last = last;
+        }
+    }
+}
\ No newline at end of file
@@ -0,0 +1,166 @@
+package com.solace.twitter.service;
+
+import java.io.IOException;
+import java.net.http.HttpResponse;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionStage;
+import java.util.concurrent.Flow;
+import java.util.function.Consumer;
+import java.util.logging.Logger;
+
+/**
+ * Body subscriber that assembles an answer streamed by Agent Mesh as it is generated
+ * Accepts server-sent events, whose data lines hold the chunks and which end with [DONE], and
+ * newline-delimited JSON with one chunk per line. The partial answer is passed on as soon as each
+ * line is complete, and the stream is cancelled once the answer is longer than the limit, since
+ * anything after that would be cut from the reply anyway
+ */
+final class StreamingAnswerSubscriber implements HttpResponse.BodySubscriber<String> {
+    private static final Logger LOGGER = Logger.getLogger(StreamingAnswerSubscriber.class.getName());
+    private static final byte[] DATA_FIELD = "data:".getBytes(StandardCharsets.US_ASCII);
+    private static final byte[] DONE_EVENT = "[DONE]".getBytes(StandardCharsets.US_ASCII);
+    
+    private final int maxLength;
+    private final Consumer<String> progress;
+    private final Runnable onCutOff;
+    private final CompletableFuture<String> body = new CompletableFuture<>();
+    private final StringBuilder answer = new StringBuilder();
+    private Flow.Subscription subscription;
+    
+    // Bytes of the line being received, which may span several buffers
+    private byte[] line = new byte[256];
+    private int lineLength = 0;
+    
+    /**
+     * Constructor for StreamingAnswerSubscriber
+     * @param maxLength Cancel the stream once the answer is longer than this, 0 for no limit
+     * @param progress Called with the partial answer each time it grows, or null
+     * @param onCutOff Called when the stream is cancelled for exceeding the limit
+     */
+    StreamingAnswerSubscriber(int maxLength, Consumer<String> progress, Runnable onCutOff) {
+        this.maxLength = maxLength;
+        this.progress = progress;
+        this.onCutOff = onCutOff;
+    }
+    
+    @Override
+    public void onSubscribe(Flow.Subscription subscription) {
+        this.subscription = subscription;
+        subscription.request(1);
+    }
+    
+    @Override
+    public void onNext(List<ByteBuffer> buffers) {
+        // Anything after the end of the answer is drained without being parsed
+        for (ByteBuffer buffer : buffers) {
+            while (buffer.hasRemaining() && !body.isDone()) {
+                byte b = buffer.get();
+                if (b == '\n') {
+                    processLine();
+                } else {
+                    if (lineLength == line.length) {
+                        line = Arrays.copyOf(line, line.length * 2);
+                    }
+                    line[lineLength++] = b;
+                }
+            }
+        }
+        subscription.request(1);
+    }
+    
+    @Override
+    public void onError(Throwable throwable) {
+        body.completeExceptionally(throwable);
+    }
+    
+    @Override
+    public void onComplete() {
+        if (lineLength > 0 && !body.isDone()) {
+            processLine();
+        }
+        finish();
+    }
+    
+    @Override
+    public CompletionStage<String> getBody() {
+        return body;
+    }
+    
+    /**
+     * Handle a complete line, without its line feed
+     */
+    private void processLine() {
+        int start = 0;
+        int end = lineLength;
+        lineLength = 0;
+        if (end > 0 && line[end - 1] == '\r') {
+            end--;
+        }
+        
+        // Blank lines separate events and comments start with a colon
+        if (end == 0 || line[0] == ':') {
+            return;
+        }
+        if (startsWith(DATA_FIELD, start, end)) {
+            start += DATA_FIELD.length;
+            if (start < end && line[start] == ' ') {
+                start++;
+            }
+            if (end - start == DONE_EVENT.length && startsWith(DONE_EVENT, start, end)) {
+                finish();
+                return;
+            }
+        } else if (line[0] != '{') {
+            // Other event fields, such as event and id
+            return;
+        }
+        
+        AgentMeshCodec.Chunk chunk;
+        try {
+            chunk = AgentMeshCodec.readChunk(line, start, end - start);
+        } catch (IOException e) {
+            LOGGER.fine("Skipped invalid Agent Mesh response chunk: " + e.getMessage());
+            return;
+        }
+        
+        if (chunk.text != null && !chunk.text.isEmpty()) {
+            answer.append(chunk.text);
+            if (progress != null) {
+                progress.accept(answer.toString());
+            }
+            if (maxLength > 0 && answer.length() > maxLength) {
+                // Stop generation: the reply cannot use the rest of the answer
+                onCutOff.run();
+                finish();
+                subscription.cancel();
+                return;
+            }
+        }
+        if (chunk.done) {
+            finish();
+        }
+    }
+    
+    private boolean startsWith(byte[] prefix, int start, int end) {
+        if (end - start < prefix.length) {
+            return false;
+        }
+        for (int i = 0; i < prefix.length; i++) {
+            if (line[start + i] != prefix[i]) {
+                return false;
+            }
+        }
+        return true;
+    }
+    
+    /**
+     * Complete the body with the answer received so far, or null if none was
+     */
+    private void finish() {
+        body.complete(answer.length() > 0 ? answer.toString() : null);
+    }
+}
\ No newline at end of file
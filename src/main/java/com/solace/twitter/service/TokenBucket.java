@@ -0,0 +1,95 @@
+package com.solace.twitter.service;
+
+/**
+ * Token bucket rate limiter
+ * Tokens are refilled continuously at a fixed rate up to the bucket capacity, so short bursts
+ * are allowed while the long-run rate never exceeds the limit. Not thread-safe
+ */
+public class TokenBucket {
+    private final double capacity;
+    private final double tokensPerMilli;
+    private double tokens;
+    private long refilledAt;
+    
+    // Time until which no tokens are handed out, set when the server reports the limit exhausted
+    private long blockedUntil = 0;
+    
+    /**
+     * Constructor for TokenBucket
+     * @param capacity Maximum number of tokens, the largest allowed burst
+     * @param limit Number of tokens refilled per window
+     * @param windowMillis Length of the window in milliseconds
+     * @param now Current time in milliseconds
+     */
+    public TokenBucket(int capacity, int limit, long windowMillis, long now) {
+        this.capacity = Math.max(1, capacity);
+        this.tokensPerMilli = Math.max(1, limit) / (double) Math.max(1, windowMillis);
+        this.tokens = this.capacity;
+        this.refilledAt = now;
+    }
+    
+    /**
+     * Take a token if one is available
+     * @param now Current time in milliseconds
+     * @return 0 if a token was taken, otherwise the time in milliseconds until one is available
+     */
+    public long tryTake(long now) {
+        if (now < blockedUntil) {
+            return blockedUntil - now;
+        }
+        
+        refill(now);
+        if (tokens >= 1) {
+            tokens -= 1;
+            return 0;
+        }
+        return Math.max(1, (long) Math.ceil((1 - tokens) / tokensPerMilli));
+    }
+    
+    /**
+     * Align the bucket with the rate limit status reported by the server
+     * @param remaining Number of requests the server still allows in its current window
+     * @param resetAt Time in milliseconds at which the server window resets
+     * @param now Current time in milliseconds
+     */
+    public void sync(int remaining, long resetAt, long now) {
+        refill(now);
+        if (remaining <= 0) {
+            block(resetAt);
+        } else if (remaining < tokens) {
+            tokens = remaining;
+        }
+    }
+    
+    /**
+     * Hand out no tokens until a given time and start again with an empty bucket
+     * @param until Time in milliseconds
+     */
+    public void block(long until) {
+        if (until > blockedUntil) {
+            blockedUntil = until;
+            tokens = 0;
+            refilledAt = until;
+        }
+    }
+    
+    private void refill(long now) {
+        if (now > refilledAt) {
+            tokens = Math.min(capacity, tokens + (now - refilledAt) * tokensPerMilli);
+            refilledAt = now;
+        }
+    }
+    
+    /**
+     * Get the number of whole tokens available
+     * @param now Current time in milliseconds
+     * @return Available tokens
+     */
+    public int getAvailable(long now) {
+        if (now < blockedUntil) {
+            return 0;
+        }
+        refill(now);
+        return (int) tokens;
+    }
+}
\ No newline at end of file
@@ -0,0 +1,119 @@
+package com.solace.twitter.service;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.logging.Logger;
+
+/**
+ * Staged processing pipeline for incoming tweets
+ * Tweets flow through ingest, classify, answer and reply stages, each with its own
+ * bounded queue and worker pool, so the Twitter stream thread only has to enqueue
+ */
+public class TweetPipeline {
+    private static final Logger LOGGER = Logger.getLogger(TweetPipeline.class.getName());
+    private static final String PRIORITY_ADMISSION = "priority";
+    
+    private final PipelineStage ingestStage;
+    private final PipelineStage classifyStage;
+    private final PipelineStage answerStage;
+    private final PipelineStage replyStage;
+    
+    // Priority queue of the answer stage, null when questions are answered in arrival order
+    private final AdmissionQueue answerQueue;
+    
+    public TweetPipeline(ConfigManager configManager) {
+        this.ingestStage = new PipelineStage("ingest",
+            configManager.getIntConfig(ConfigManager.PIPELINE_INGEST_WORKERS),
+            configManager.getIntConfig(ConfigManager.PIPELINE_INGEST_CAPACITY));
+        this.classifyStage = new PipelineStage("classify",
+            configManager.getIntConfig(ConfigManager.PIPELINE_CLASSIFY_WORKERS),
+            configManager.getIntConfig(ConfigManager.PIPELINE_CLASSIFY_CAPACITY));
+        if (PRIORITY_ADMISSION.equalsIgnoreCase(configManager.getConfig(ConfigManager.PIPELINE_ANSWER_ADMISSION).trim())) {
+            this.answerQueue = new AdmissionQueue(
+                configManager.getIntConfig(ConfigManager.PIPELINE_ANSWER_CAPACITY),
+                configManager.getIntConfig(ConfigManager.PIPELINE_ANSWER_TARGET_LATENCY_MS));
+            this.answerStage = new PipelineStage("answer",
+                configManager.getIntConfig(ConfigManager.PIPELINE_ANSWER_WORKERS),
+                answerQueue,
+                configManager.getIntConfig(ConfigManager.PIPELINE_ANSWER_MAX_IN_FLIGHT));
+        } else {
+            this.answerQueue = null;
+            this.answerStage = new PipelineStage("answer",
+                configManager.getIntConfig(ConfigManager.PIPELINE_ANSWER_WORKERS),
+                configManager.getIntConfig(ConfigManager.PIPELINE_ANSWER_CAPACITY),
+                configManager.getIntConfig(ConfigManager.PIPELINE_ANSWER_MAX_IN_FLIGHT));
+        }
+        this.replyStage = new PipelineStage("reply",
+            configManager.getIntConfig(ConfigManager.PIPELINE_REPLY_WORKERS),
+            configManager.getIntConfig(ConfigManager.PIPELINE_REPLY_CAPACITY));
+    }
+    
+    /**
+     * Start the worker threads of all stages
+     */
+    public void start() {
+        for (PipelineStage stage : getStages()) {
+            stage.start();
+        }
+        LOGGER.info("Tweet pipeline started: " + getStats());
+    }
+    
+    /**
+     * Drain and stop all stages, upstream first so queued work can still flow downstream
+     * @param timeoutMillis Maximum time to wait for each stage to drain
+     * @return true if every stage drained within the timeout
+     */
+    public boolean shutdown(long timeoutMillis) {
+        boolean drained = true;
+        for (PipelineStage stage : getStages()) {
+            drained &= stage.shutdown(timeoutMillis);
+        }
+        LOGGER.info("Tweet pipeline stopped: " + getStats());
+        return drained;
+    }
+    
+    public PipelineStage getIngestStage() {
+        return ingestStage;
+    }
+    
+    public PipelineStage getClassifyStage() {
+        return classifyStage;
+    }
+    
+    public PipelineStage getAnswerStage() {
+        return answerStage;
+    }
+    
+    public PipelineStage getReplyStage() {
+        return replyStage;
+    }
+    
+    /**
+     * Get the priority queue of the answer stage
+     * @return Admission queue, or null if questions are answered in arrival order
+     */
+    public AdmissionQueue getAnswerQueue() {
+        return answerQueue;
+    }
+    
+    /**
+     * Get all stages in processing order
+     * @return List of stages
+     */
+    public List<PipelineStage> getStages() {
+        return Arrays.asList(ingestStage, classifyStage, answerStage, replyStage);
+    }
+    
+    /**
+     * Get a snapshot of the statistics of all stages
+     * @return List of stage statistics in processing order
+     */
+    public List<PipelineStage.Stats> getStats() {
+        List<PipelineStage.Stats> stats = new ArrayList<>();
+        for (PipelineStage stage : getStages()) {
+            stats.add(stage.getStats());
+        }
+        return stats;
+    }
+}
\ No newline at end of file
@@ -0,0 +1,239 @@
+package com.solace.twitter.service;
+
+import com.solace.twitter.metrics.Histogram;
+import com.solace.twitter.model.TweetTiming;
+
+import java.io.File;
+import java.util.Date;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.logging.Logger;
+
+/**
+ * Records where the time of each answered tweet went, from its creation on Twitter to the reply
+ * Points are taken with System.nanoTime, anchored to the wall clock once, so taking one costs no
+ * more than reading the clock. Finished traces are added to a latency histogram per span, logged
+ * when slower than the configured threshold and exported as JSON lines if a file is configured
+ */
+public class TweetTracer {
+    private static final Logger LOGGER = Logger.getLogger(TweetTracer.class.getName());
+    private static final TweetTiming.Span[] SPANS = TweetTiming.Span.values();
+    
+    // Wall-clock time in nanoseconds since the epoch at System.nanoTime zero
+    private static final long EPOCH_OFFSET_NANOS = System.currentTimeMillis() * 1_000_000L - System.nanoTime();
+    
+    private final long slowThresholdMicros;
+    private final SpanExporter exporter;
+    
+    // Latency in microseconds of each span, and from creation to answer and to reply
+    private final Histogram[] spanLatency = new Histogram[SPANS.length];
+    private final Histogram answerLatency = new Histogram();
+    private final Histogram replyLatency = new Histogram();
+    private final AtomicLong slowTraces = new AtomicLong();
+    
+    // Observes each finished trace, null if nothing is observing
+    private volatile TraceListener traceListener;
+    
+    /**
+     * Constructor for TweetTracer
+     * @param slowThresholdMillis Log traces slower than this from creation to answer or reply, 0 to never log
+     * @param exporter Exporter for the spans, or null to not export them
+     */
+    public TweetTracer(long slowThresholdMillis, SpanExporter exporter) {
+        this.slowThresholdMicros = slowThresholdMillis * 1000;
+        this.exporter = exporter;
+        for (int i = 0; i < spanLatency.length; i++) {
+            spanLatency[i] = new Histogram();
+        }
+    }
+    
+    /**
+     * Create a tweet tracer from the trace.* settings, and start its exporter if one is configured
+     * @param configManager Configuration manager
+     * @return Tweet tracer
+     */
+    public static TweetTracer fromConfig(ConfigManager configManager) {
+        File exportFile = configManager.getDataFile(ConfigManager.TRACE_EXPORT_FILE);
+        SpanExporter exporter = null;
+        if (exportFile != null) {
+            exporter = new SpanExporter(exportFile.getPath());
+            exporter.start();
+        }
+        return new TweetTracer(Math.max(0, configManager.getIntConfig(ConfigManager.TRACE_SLOW_THRESHOLD_MS)), exporter);
+    }
+    
+    /**
+     * Get the current time for a trace point
+     * @return Wall-clock time in microseconds since the epoch
+     */
+    public static long now() {
+        return fromNanoTime(System.nanoTime());
+    }
+    
+    /**
+     * Convert a System.nanoTime reading to a trace point
+     * @param nanoTime Value of System.nanoTime
+     * @return Wall-clock time in microseconds since the epoch
+     */
+    public static long fromNanoTime(long nanoTime) {
+        return (nanoTime + EPOCH_OFFSET_NANOS) / 1000;
+    }
+    
+    /**
+     * Convert a tweet creation date to a trace point
+     * @param createdAt Creation date, or null if unknown
+     * @return Microseconds since the epoch, 0 if unknown
+     */
+    public static long toMicros(Date createdAt) {
+        return createdAt != null ? createdAt.getTime() * 1000 : 0;
+    }
+    
+    /**
+     * Finish the trace of a tweet whose answer was recorded
+     * @param tweetId Twitter ID of the tweet
+     * @param timing Timing up to the answer
+     */
+    public void onAnswered(long tweetId, TweetTiming timing) {
+        for (int i = 0; i <= TweetTiming.Span.AGENT_MESH.ordinal(); i++) {
+            recordSpan(SPANS[i], timing);
+        }
+        long total = timing.getTotalMicros();
+        if (total >= 0) {
+            answerLatency.record(total);
+        }
+        if (exporter != null) {
+            exporter.export(tweetId, timing, TweetTiming.Span.STREAM, TweetTiming.Span.AGENT_MESH);
+        }
+        if (isSlow(total)) {
+            logSlowTrace("answered", tweetId, timing);
+        }
+        TraceListener listener = traceListener;
+        if (listener != null) {
+            listener.onAnswered(tweetId, timing);
+        }
+    }
+    
+    /**
+     * Finish the trace of a tweet that was replied to
+     * The trace is only logged as slow if it was not already slow when the answer was recorded
+     * @param tweetId Twitter ID of the tweet
+     * @param timing Timing including the reply
+     */
+    public void onReplied(long tweetId, TweetTiming timing) {
+        recordSpan(TweetTiming.Span.REPLY, timing);
+        long total = timing.getTotalMicros();
+        if (total >= 0) {
+            replyLatency.record(total);
+        }
+        if (exporter != null) {
+            exporter.export(tweetId, timing, TweetTiming.Span.REPLY, TweetTiming.Span.REPLY);
+        }
+        long answered = total - Math.max(0, timing.getDurationMicros(TweetTiming.Span.REPLY));
+        if (isSlow(total) && !isSlow(answered)) {
+            logSlowTrace("replied", tweetId, timing);
+        }
+        TraceListener listener = traceListener;
+        if (listener != null) {
+            listener.onReplied(tweetId, timing);
+        }
+    }
+    
+    private void recordSpan(TweetTiming.Span span, TweetTiming timing) {
+        long duration = timing.getDurationMicros(span);
+        if (duration >= 0) {
+            spanLatency[span.ordinal()].record(duration);
+        }
+    }
+    
+    private boolean isSlow(long totalMicros) {
+        return slowThresholdMicros > 0 && totalMicros > slowThresholdMicros;
+    }
+    
+    private void logSlowTrace(String outcome, long tweetId, TweetTiming timing) {
+        slowTraces.incrementAndGet();
+        StringBuilder message = new StringBuilder("Slow trace: tweet ").append(tweetId).append(' ').append(outcome)
+            .append(String.format(" %.1f ms after creation (", timing.getTotalMicros() / 1000.0));
+        for (TweetTiming.Span span : SPANS) {
+            long duration = timing.getDurationMicros(span);
+            if (duration >= 0 || span == TweetTiming.Span.STREAM) {
+                message.append(span == TweetTiming.Span.STREAM ? "" : ", ").append(span.getLabel()).append(' ')
+                    .append(duration >= 0 ? String.format("%.1f ms", duration / 1000.0) : "unknown");
+            }
+        }
+        LOGGER.warning(message.append(')').toString());
+    }
+    
+    /**
+     * Get the latency of one span of the traced tweets
+     * @param span Span
+     * @return Histogram in microseconds
+     */
+    public Histogram getSpanLatency(TweetTiming.Span span) {
+        return spanLatency[span.ordinal()];
+    }
+    
+    /**
+     * Get the time from creation to the recorded answer
+     * @return Histogram in microseconds
+     */
+    public Histogram getAnswerLatency() {
+        return answerLatency;
+    }
+    
+    /**
+     * Get the time from creation to the posted reply
+     * @return Histogram in microseconds
+     */
+    public Histogram getReplyLatency() {
+        return replyLatency;
+    }
+    
+    public long getSlowTraces() {
+        return slowTraces.get();
+    }
+    
+    /**
+     * Observe finished traces, such as to measure per-stage latency under load
+     * @param traceListener Listener called on the processing threads, or null to stop observing
+     */
+    public void setTraceListener(TraceListener traceListener) {
+        this.traceListener = traceListener;
+    }
+    
+    /**
+     * Get the span exporter
+     * @return Exporter, or null if spans are not exported
+     */
+    public SpanExporter getExporter() {
+        return exporter;
+    }
+    
+    /**
+     * Write the spans still queued for export
+     * @param timeoutMillis Maximum time to wait
+     */
+    public void close(long timeoutMillis) {
+        if (exporter != null) {
+            exporter.close(timeoutMillis);
+        }
+    }
+    
+    @Override
+    public String toString() {
+        return "TweetTracer{" +
+                "answered=" + answerLatency.getCount() +
+                ", replied=" + replyLatency.getCount() +
+                ", slow=" + slowTraces +
+                '}';
+    }
+    
+    /**
+     * Interface for observers of finished traces
+     * Called on the pipeline threads after the trace is recorded, so implementations must be thread-safe and cheap
+     */
+    public interface TraceListener {
+        void onAnswered(long tweetId, TweetTiming timing);
+        
+        default void onReplied(long tweetId, TweetTiming timing) {
+        }
+    }
+}
\ No newline at end of file
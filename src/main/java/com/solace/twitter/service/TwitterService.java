@@ -1,14 +1,24 @@
 package com.solace.twitter.service;
 
 import com.solace.twitter.model.ProcessedTweet;
+import com.solace.twitter.model.TweetTiming;
+import com.solace.twitter.store.TweetStore;
 import twitter4j.*;
 import twitter4j.conf.Configuration;
 import twitter4j.conf.ConfigurationBuilder;
 
-import java.util.ArrayList;
-import java.util.Arrays;
+import java.util.ArrayDeque;
+import java.util.Deque;
 import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CompletionException;
 import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Predicate;
 import java.util.logging.Level;
 import java.util.logging.Logger;
 
@@ -18,23 +28,90 @@ import java.util.logging.Logger;
  */
 public class TwitterService {
     private static final Logger LOGGER = Logger.getLogger(TwitterService.class.getName());
+    private static final String RAW_INGEST_MODE = "raw";
+    
+    // Twitter's character limit for a reply
+    static final int MAX_REPLY_LENGTH = 280;
     
     private final ConfigManager configManager;
     private final AgentMeshService agentMeshService;
-    private Twitter twitter;
-    private TwitterStream twitterStream;
-    private boolean monitoring = false;
+    private volatile Twitter twitter;
+    private volatile TwitterStream twitterStream;
+    private volatile boolean monitoring = false;
+    
+    // Staged pipeline that processes tweets off the stream thread
+    private final TweetPipeline pipeline;
+    
+    // Interrogative word matcher, compiled once from the configured lexicon
+    private final QuestionClassifier questionClassifier;
+    
+    // Scores questions so the answer stage serves important ones first and sheds the rest under load
+    private final QuestionPriority questionPriority;
+    
+    // Prefilter for raw stream messages, used in raw ingest mode
+    private final RawTweetFilter rawTweetFilter;
+    
+    // Processed tweets, persisted across restarts unless configured otherwise
+    private final TweetStore tweetStore;
+    
+    // IDs of recently ingested tweets, to drop tweets redelivered after a stream reconnect
+    private final RecentTweetIds recentTweetIds;
+    
+    // Releases replies to the reply stage within Twitter's write rate limits
+    private final ReplyScheduler replyScheduler;
     
-    // List of processed tweets
-    private final List<ProcessedTweet> processedTweets = new CopyOnWriteArrayList<>();
+    // Hot-path counters of tweets received from the stream, classified and found to ask a question
+    private final LongAdder receivedTweets = new LongAdder();
+    private final LongAdder classifiedTweets = new LongAdder();
+    private final LongAdder questionTweets = new LongAdder();
     
-    // Listeners for tweet updates
-    private final List<TweetUpdateListener> updateListeners = new ArrayList<>();
+    // Listeners for tweet updates, notified from pipeline worker threads
+    private final List<TweetUpdateListener> updateListeners = new CopyOnWriteArrayList<>();
+    
+    // Hands questions to remote answer workers instead of the answer stage, null to answer locally
+    private volatile Predicate<ProcessedTweet> questionDispatcher;
+    
+    // Questions Agent Mesh could not answer yet, resubmitted once its circuit breaker lets requests through
+    private final Deque<QuestionTask> parkedQuestions = new ArrayDeque<>();
+    private final int parkedCapacity;
+    private final int parkedMaxAttempts;
+    private final AtomicLong droppedQuestions = new AtomicLong();
+    private final ScheduledExecutorService parkedQuestionExecutor;
+    
+    // Length after which a streamed answer is stopped, as formatReply would cut the rest; 0 for no limit
+    private final int streamedAnswerLimit;
+    
+    // Records the time each answered tweet spent in each pipeline step
+    private final TweetTracer tweetTracer;
     
     public TwitterService(ConfigManager configManager, AgentMeshService agentMeshService) {
         this.configManager = configManager;
         this.agentMeshService = agentMeshService;
+        this.pipeline = new TweetPipeline(configManager);
+        this.tweetStore = TweetStore.fromConfig(configManager);
+        this.recentTweetIds = RecentTweetIds.fromConfig(configManager);
+        this.questionClassifier = QuestionClassifier.fromConfig(configManager);
+        this.rawTweetFilter = new RawTweetFilter(questionClassifier);
+        this.questionPriority = QuestionPriority.fromConfig(configManager, questionClassifier);
+        this.replyScheduler = ReplyScheduler.fromConfig(configManager, this::postReply, this::onReplySent,
+            tweetStore::findById, pipeline.getReplyStage());
+        this.parkedCapacity = configManager.getIntConfig(ConfigManager.AGENT_MESH_PARKED_CAPACITY);
+        this.parkedMaxAttempts = Math.max(1, configManager.getIntConfig(ConfigManager.AGENT_MESH_PARKED_MAX_ATTEMPTS));
+        this.streamedAnswerLimit = configManager.getBooleanConfig(ConfigManager.AGENT_MESH_STREAM_CUTOFF) ? MAX_REPLY_LENGTH : 0;
+        this.tweetTracer = TweetTracer.fromConfig(configManager);
+        this.parkedQuestionExecutor = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "parked-questions");
+            thread.setDaemon(true);
+            return thread;
+        });
+        if (pipeline.getAnswerQueue() != null) {
+            pipeline.getAnswerQueue().setShedListener(this::onQuestionShed);
+        }
         initializeTwitter();
+        configManager.addConfigListener(this::onConfigChanged);
+        pipeline.start();
+        replyScheduler.start();
+        parkedQuestionExecutor.scheduleWithFixedDelay(this::resubmitParkedQuestions, 1, 1, TimeUnit.SECONDS);
     }
     
     /**
@@ -68,7 +145,7 @@ public class TwitterService {
     /**
      * Start monitoring Twitter for Solace-related questions
      */
-    public void startMonitoring() {
+    public synchronized void startMonitoring() {
         if (monitoring) {
             LOGGER.info("Twitter monitoring is already active");
             return;
@@ -80,32 +157,43 @@ public class TwitterService {
         }
         
         try {
-            // Get search keywords
-            String keywordsStr = configManager.getConfig(ConfigManager.SEARCH_KEYWORDS);
-            String[] keywords = keywordsStr.split(",");
-            
-            // Set up filtered stream
-            FilterQuery filterQuery = new FilterQuery();
-            filterQuery.track(keywords);
+            // Set up filtered stream for the search keywords
+            FilterQuery filterQuery = createFilterQuery(configManager.getSnapshot());
             
-            // Set up status listener
-            StatusListener listener = new StatusAdapter() {
-                @Override
-                public void onStatus(Status status) {
-                    processStatus(status);
-                }
-                
-                @Override
-                public void onException(Exception ex) {
-                    LOGGER.log(Level.SEVERE, "Twitter stream exception", ex);
-                }
-            };
+            // Set up the stream listener for the configured ingest mode
+            StreamListener listener;
+            if (isRawIngestMode()) {
+                // Receive raw JSON so twitter4j only builds a Status for tweets that pass the prefilter
+                listener = new RawStreamListener() {
+                    @Override
+                    public void onMessage(String rawString) {
+                        submitRawMessage(rawString);
+                    }
+                    
+                    @Override
+                    public void onException(Exception ex) {
+                        LOGGER.log(Level.SEVERE, "Twitter stream exception", ex);
+                    }
+                };
+            } else {
+                listener = new StatusAdapter() {
+                    @Override
+                    public void onStatus(Status status) {
+                        submitStatus(status);
+                    }
+                    
+                    @Override
+                    public void onException(Exception ex) {
+                        LOGGER.log(Level.SEVERE, "Twitter stream exception", ex);
+                    }
+                };
+            }
             
             twitterStream.addListener(listener);
             twitterStream.filter(filterQuery);
             
             monitoring = true;
-            LOGGER.info("Started monitoring Twitter for keywords: " + Arrays.toString(keywords));
+            LOGGER.info("Started monitoring Twitter for keywords: " + configManager.getSnapshot().getSearchKeywords());
         } catch (Exception e) {
             LOGGER.log(Level.SEVERE, "Failed to start Twitter monitoring", e);
             throw new RuntimeException("Failed to start Twitter monitoring", e);
@@ -115,7 +203,7 @@ public class TwitterService {
     /**
      * Stop monitoring Twitter
      */
-    public void stopMonitoring() {
+    public synchronized void stopMonitoring() {
         if (!monitoring) {
             return;
         }
@@ -126,53 +214,358 @@ public class TwitterService {
     }
     
     /**
-     * Process a Twitter status update
+     * Create the stream filter tracking the configured search keywords
+     * @param config Configuration snapshot
+     * @return Filter query
+     */
+    private static FilterQuery createFilterQuery(ConfigSnapshot config) {
+        FilterQuery filterQuery = new FilterQuery();
+        filterQuery.track(config.getSearchKeywords().toArray(new String[0]));
+        return filterQuery;
+    }
+    
+    /**
+     * Apply a configuration change without restarting the application
+     * New credentials replace the Twitter clients and restart monitoring if it was active, and new
+     * keywords re-issue the filter on the running stream, which reconnects it
+     * @param config New configuration
+     * @param changedKeys Keys that changed
+     */
+    private synchronized void onConfigChanged(ConfigSnapshot config, Set<String> changedKeys) {
+        if (changedKeys.contains(ConfigManager.TWITTER_API_KEY) || changedKeys.contains(ConfigManager.TWITTER_API_SECRET)
+                || changedKeys.contains(ConfigManager.TWITTER_ACCESS_TOKEN) || changedKeys.contains(ConfigManager.TWITTER_ACCESS_SECRET)) {
+            boolean wasMonitoring = monitoring;
+            stopMonitoring();
+            initializeTwitter();
+            if (wasMonitoring && config.isValid()) {
+                startMonitoring();
+            }
+            return;
+        }
+        
+        if (monitoring && changedKeys.contains(ConfigManager.SEARCH_KEYWORDS)) {
+            twitterStream.filter(createFilterQuery(config));
+            LOGGER.info("Re-issued stream filter for keywords: " + config.getSearchKeywords());
+        }
+    }
+    
+    /**
+     * Stop monitoring and drain the processing pipeline
+     * @param timeoutMillis Maximum time to wait for each pipeline stage to drain
+     * @return true if all queued work was processed within the timeout
+     */
+    public boolean shutdown(long timeoutMillis) {
+        stopMonitoring();
+        replyScheduler.close();
+        parkedQuestionExecutor.shutdownNow();
+        int parked = getParkedQuestionCount();
+        if (parked > 0) {
+            LOGGER.warning("Discarding " + parked + " questions waiting for Agent Mesh to recover");
+        }
+        boolean drained = pipeline.shutdown(timeoutMillis);
+        replyScheduler.save();
+        tweetStore.close();
+        tweetTracer.close(timeoutMillis);
+        return drained;
+    }
+    
+    /**
+     * Hand a Twitter status update to the processing pipeline
+     * Called on the stream thread, or by the load test harness to replay recorded statuses,
+     * so this only enqueues and never blocks
      * @param status Twitter status
+     * @return true if the status was queued, false if the ingest queue was full
      */
-    private void processStatus(Status status) {
+    public boolean submitStatus(Status status) {
+        receivedTweets.increment();
+        long receivedAt = TweetTracer.now();
+        if (!pipeline.getIngestStage().offer(() -> processStatus(status, receivedAt))) {
+            LOGGER.fine("Ingest queue full, dropped tweet: " + status.getId());
+            return false;
+        }
+        return true;
+    }
+    
+    /**
+     * Hand a raw stream message to the processing pipeline
+     * Called on the stream thread, or by the load test harness to replay recorded messages,
+     * so this only enqueues and never blocks
+     * @param rawJson Raw JSON message
+     * @return true if the message was queued, false if the ingest queue was full
+     */
+    public boolean submitRawMessage(String rawJson) {
+        receivedTweets.increment();
+        long receivedAt = TweetTracer.now();
+        if (!pipeline.getIngestStage().offer(() -> processRawMessage(rawJson, receivedAt))) {
+            LOGGER.fine("Ingest queue full, dropped raw message");
+            return false;
+        }
+        return true;
+    }
+    
+    /**
+     * Ingest stage for raw mode: prefilter the JSON and only materialize a Status for survivors
+     * @param rawJson Raw JSON message
+     * @param receivedAt Time the message was received, in microseconds since the epoch
+     */
+    private void processRawMessage(String rawJson, long receivedAt) {
+        if (!rawTweetFilter.accept(rawJson)) {
+            return;
+        }
+        
         try {
-            // Skip retweets
-            if (status.isRetweet()) {
+            processStatus(TwitterObjectFactory.createStatus(rawJson), receivedAt);
+        } catch (TwitterException e) {
+            LOGGER.log(Level.WARNING, "Failed to parse status from raw message", e);
+        }
+    }
+    
+    public boolean isRawIngestMode() {
+        return RAW_INGEST_MODE.equalsIgnoreCase(configManager.getConfig(ConfigManager.TWITTER_INGEST_MODE).trim());
+    }
+    
+    /**
+     * Ingest stage: filter out tweets that are never worth classifying
+     * @param status Twitter status
+     * @param receivedAt Time the status was received, in microseconds since the epoch
+     */
+    private void processStatus(Status status, long receivedAt) {
+        // Skip retweets
+        if (status.isRetweet()) {
+            return;
+        }
+        
+        // Skip tweets that were already ingested, or answered before a restart
+        if (!recentTweetIds.add(status.getId()) || tweetStore.indexOf(status.getId()) >= 0) {
+            LOGGER.fine("Skipping duplicate tweet: " + status.getId());
+            return;
+        }
+        
+        enqueue(pipeline.getClassifyStage(), () -> classifyStatus(status, receivedAt));
+    }
+    
+    /**
+     * Classify stage: check for a question and extract it
+     * @param status Twitter status
+     * @param receivedAt Time the status was received, in microseconds since the epoch
+     */
+    private void classifyStatus(Status status, long receivedAt) {
+        String tweetText = status.getText();
+        
+        // Check if the tweet contains a question
+        classifiedTweets.increment();
+        if (containsQuestion(tweetText)) {
+            questionTweets.increment();
+            long classifiedAt = TweetTracer.now();
+            LOGGER.info("Found question in tweet: " + tweetText);
+            
+            // Extract the question
+            String question = extractQuestion(tweetText);
+            
+            Predicate<ProcessedTweet> dispatcher = questionDispatcher;
+            if (dispatcher != null) {
+                // The answer worker keeps the timing, so the Agent Mesh span includes the broker round trip
+                ProcessedTweet dispatched = createProcessedTweet(status, question, null);
+                dispatched.setTiming(new TweetTiming(TweetTracer.toMicros(status.getCreatedAt()), receivedAt, classifiedAt,
+                    TweetTracer.now(), 0, 0));
+                if (!dispatcher.test(dispatched)) {
+                    droppedQuestions.incrementAndGet();
+                }
+            } else {
+                agentMeshService.registerQuestion(question);
+                enqueue(pipeline.getAnswerStage(), new QuestionTask(status, question, 0, receivedAt, classifiedAt));
+            }
+        }
+    }
+    
+    /**
+     * Answer stage: send the question to Agent Mesh without waiting for the answer
+     * The answer stage worker is only held while the in-flight limit is reached
+     * @param task Question to answer
+     */
+    private void answerQuestion(QuestionTask task) {
+        Status status = task.status;
+        String question = task.question;
+        try {
+            pipeline.getAnswerStage()
+                .track(() -> {
+                    task.requestSentAt = TweetTracer.now();
+                    return agentMeshService.processQuestionAsync(question, streamedAnswerLimit,
+                        partialAnswer -> notifyAnswerProgress(status.getId(), question, partialAnswer));
+                })
+                .thenAccept(answer -> recordAnswer(task, answer))
+                .exceptionally(e -> {
+                    Throwable cause = e instanceof CompletionException && e.getCause() != null ? e.getCause() : e;
+                    if (cause instanceof AgentMeshException && ((AgentMeshException) cause).isRetryable()) {
+                        parkQuestion(task, (AgentMeshException) cause);
+                    } else {
+                        LOGGER.log(Level.SEVERE, "Failed to process tweet", cause);
+                    }
+                    return null;
+                });
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            LOGGER.warning("Interrupted while waiting to send question for tweet: " + status.getId());
+        }
+    }
+    
+    /**
+     * Hold a question Agent Mesh could not answer until it is available again
+     * A question rejected by the open circuit breaker was never sent, so it does not use up an attempt
+     * @param task Question that was not answered
+     * @param failure Reason the question was not answered
+     */
+    private void parkQuestion(QuestionTask task, AgentMeshException failure) {
+        Status status = task.status;
+        int failedAttempts = failure.getReason() == AgentMeshException.Reason.CIRCUIT_OPEN ? task.attempts : task.attempts + 1;
+        if (failedAttempts >= parkedMaxAttempts) {
+            droppedQuestions.incrementAndGet();
+            LOGGER.log(Level.SEVERE, "Giving up on question for tweet " + status.getId() + " after " + failedAttempts + " attempts", failure);
+            return;
+        }
+        
+        synchronized (parkedQuestions) {
+            if (parkedQuestions.size() >= parkedCapacity) {
+                droppedQuestions.incrementAndGet();
+                LOGGER.warning("Too many questions waiting for Agent Mesh, dropped tweet: " + status.getId());
+                return;
+            }
+            parkedQuestions.addLast(new QuestionTask(status, task.question, failedAttempts, task.receivedAt, task.classifiedAt));
+        }
+    }
+    
+    /**
+     * Hand parked questions back to the answer stage as the circuit breaker allows:
+     * all of them while it is closed, one at a time while it is probing with trial calls
+     */
+    private void resubmitParkedQuestions() {
+        CircuitBreaker.State state = agentMeshService.getCircuitBreaker().getState();
+        if (state == CircuitBreaker.State.OPEN) {
+            return;
+        }
+        
+        int limit = state == CircuitBreaker.State.CLOSED ? Integer.MAX_VALUE : 1;
+        for (int i = 0; i < limit; i++) {
+            QuestionTask parked;
+            synchronized (parkedQuestions) {
+                parked = parkedQuestions.pollFirst();
+            }
+            if (parked == null) {
                 return;
             }
             
-            String tweetText = status.getText();
-            
-            // Check if the tweet contains a question
-            if (containsQuestion(tweetText)) {
-                LOGGER.info("Found question in tweet: " + tweetText);
-                
-                // Extract the question
-                String question = extractQuestion(tweetText);
-                
-                // Process the question through Agent Mesh
-                String answer = agentMeshService.processQuestion(question);
-                
-                // Create processed tweet
-                ProcessedTweet processedTweet = new ProcessedTweet(
-                    status.getId(),
-                    status.getUser().getScreenName(),
-                    status.getUser().getName(),
-                    status.getCreatedAt(),
-                    tweetText,
-                    question,
-                    answer,
-                    false
-                );
-                
-                // Add to list of processed tweets
-                processedTweets.add(processedTweet);
-                
-                // Notify listeners
-                notifyUpdateListeners(processedTweet);
-                
-                // Auto-reply if enabled
-                if (configManager.getBooleanConfig(ConfigManager.AUTO_REPLY_ENABLED)) {
-                    replyToTweet(processedTweet);
+            // Keep the question parked if the answer stage is full or would shed it straight away
+            if (!pipeline.getAnswerStage().offer(parked)) {
+                synchronized (parkedQuestions) {
+                    parkedQuestions.addFirst(parked);
                 }
+                return;
             }
-        } catch (Exception e) {
-            LOGGER.log(Level.SEVERE, "Failed to process tweet", e);
+        }
+    }
+    
+    /**
+     * Log a question the answer stage dropped because Agent Mesh could not keep up
+     * @param task Shed answer stage task
+     * @param reason Why it was shed
+     */
+    private void onQuestionShed(Runnable task, AdmissionQueue.ShedReason reason) {
+        if (task instanceof QuestionTask) {
+            QuestionTask shed = (QuestionTask) task;
+            LOGGER.fine("Shed question for tweet " + shed.status.getId() + " with priority "
+                + String.format("%.2f", shed.priority) + ": " + reason);
+        }
+    }
+    
+    /**
+     * Get the number of questions waiting for Agent Mesh to become available
+     * @return Number of parked questions
+     */
+    public int getParkedQuestionCount() {
+        synchronized (parkedQuestions) {
+            return parkedQuestions.size();
+        }
+    }
+    
+    /**
+     * Get the number of questions given up on because Agent Mesh stayed unavailable
+     * @return Number of dropped questions
+     */
+    public long getDroppedQuestionCount() {
+        return droppedQuestions.get();
+    }
+    
+    /**
+     * Record an answered question and hand it to the reply stage
+     * @param task Answered question
+     * @param answer AI-generated answer
+     */
+    private void recordAnswer(QuestionTask task, String answer) {
+        ProcessedTweet processedTweet = createProcessedTweet(task.status, task.question, answer);
+        processedTweet.setTiming(new TweetTiming(TweetTracer.toMicros(task.status.getCreatedAt()), task.receivedAt,
+            task.classifiedAt, task.requestSentAt, TweetTracer.now(), 0));
+        recordAnsweredTweet(processedTweet);
+    }
+    
+    /**
+     * Record an answered question and hand it to the reply stage
+     * Answers redelivered by the broker for tweets that are already recorded are ignored
+     * @param processedTweet Processed tweet with its answer
+     */
+    public void recordAnsweredTweet(ProcessedTweet processedTweet) {
+        if (tweetStore.indexOf(processedTweet.getTweetId()) >= 0) {
+            LOGGER.fine("Skipping answer for already recorded tweet: " + processedTweet.getTweetId());
+            return;
+        }
+        
+        // Answers from remote workers arrive without the time they were received
+        TweetTiming timing = processedTweet.getTiming();
+        if (timing != null && timing.getAnsweredAt() == 0) {
+            timing = timing.withAnsweredAt(TweetTracer.now());
+            processedTweet.setTiming(timing);
+        }
+        
+        // Add to the store of processed tweets
+        tweetStore.append(processedTweet);
+        
+        // Notify listeners
+        notifyUpdateListeners(processedTweet);
+        if (timing != null) {
+            tweetTracer.onAnswered(processedTweet.getTweetId(), timing);
+        }
+        
+        // Auto-reply if enabled; the scheduler sends it when the rate limit allows
+        if (configManager.getSnapshot().isAutoReplyEnabled()) {
+            replyScheduler.schedule(processedTweet);
+        }
+    }
+    
+    static ProcessedTweet createProcessedTweet(Status status, String question, String answer) {
+        return new ProcessedTweet(
+            status.getId(),
+            status.getUser().getScreenName(),
+            status.getUser().getName(),
+            status.getCreatedAt(),
+            status.getText(),
+            question,
+            answer,
+            false,
+            status.getLang()
+        );
+    }
+    
+    /**
+     * Hand a task to a downstream stage, waiting for space so a full stage
+     * pushes back on its upstream workers instead of losing the tweet
+     * @param stage Target pipeline stage
+     * @param task Task to execute
+     */
+    private void enqueue(PipelineStage stage, Runnable task) {
+        try {
+            stage.put(task);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            LOGGER.warning("Interrupted while queueing work for pipeline stage " + stage.getName());
         }
     }
     
@@ -182,16 +575,7 @@ public class TwitterService {
      * @return true if the tweet contains a question
      */
     private boolean containsQuestion(String text) {
-        return text.contains("?") || 
-               text.toLowerCase().contains("how") ||
-               text.toLowerCase().contains("what") ||
-               text.toLowerCase().contains("when") ||
-               text.toLowerCase().contains("where") ||
-               text.toLowerCase().contains("why") ||
-               text.toLowerCase().contains("who") ||
-               text.toLowerCase().contains("which") ||
-               text.toLowerCase().contains("can") ||
-               text.toLowerCase().contains("could");
+        return questionClassifier.containsQuestion(text);
     }
     
     /**
@@ -199,32 +583,56 @@ public class TwitterService {
      * @param text Tweet text
      * @return Extracted question
      */
-    private String extractQuestion(String text) {
+    static String extractQuestion(String text) {
         // Simple extraction - in a real app, this would be more sophisticated
         return text;
     }
     
     /**
-     * Reply to a tweet with the AI-generated answer
+     * Queue a reply to a tweet with the AI-generated answer
+     * The reply is sent by the reply scheduler as soon as Twitter's rate limits allow
      * @param tweet Processed tweet
+     * @return true if the reply was queued, false if it is already queued or sent
      */
-    public void replyToTweet(ProcessedTweet tweet) {
-        try {
-            // Format the reply
-            String reply = "@" + tweet.getUsername() + " " + formatReply(tweet.getAnswer());
-            
-            // Send the reply
-            StatusUpdate statusUpdate = new StatusUpdate(reply);
-            statusUpdate.inReplyToStatusId(tweet.getTweetId());
-            Status replyStatus = twitter.updateStatus(statusUpdate);
-            
-            // Update the processed tweet
-            tweet.setReplied(true);
-            
-            LOGGER.info("Replied to tweet: " + tweet.getTweetId());
-        } catch (Exception e) {
-            LOGGER.log(Level.SEVERE, "Failed to reply to tweet", e);
+    public boolean replyToTweet(ProcessedTweet tweet) {
+        return replyScheduler.schedule(tweet);
+    }
+    
+    /**
+     * Post a reply to a tweet with the AI-generated answer
+     * @param tweet Processed tweet
+     * @return Status of the reply
+     * @throws TwitterException if Twitter rejects the reply
+     */
+    private Status postReply(ProcessedTweet tweet) throws TwitterException {
+        // Format the reply
+        String reply = "@" + tweet.getUsername() + " " + formatReply(tweet.getAnswer());
+        
+        // Send the reply
+        StatusUpdate statusUpdate = new StatusUpdate(reply);
+        statusUpdate.inReplyToStatusId(tweet.getTweetId());
+        return twitter.updateStatus(statusUpdate);
+    }
+    
+    /**
+     * Record a reply Twitter has accepted
+     * @param tweet Processed tweet that was replied to
+     */
+    private void onReplySent(ProcessedTweet tweet) {
+        // Update the processed tweet and record the reply state
+        tweet.setReplied(true);
+        TweetTiming timing = tweet.getTiming();
+        if (timing != null) {
+            timing = timing.withRepliedAt(TweetTracer.now());
+            tweet.setTiming(timing);
+        }
+        tweetStore.markReplied(tweet.getTweetId());
+        notifyReplyListeners(tweet);
+        if (timing != null) {
+            tweetTracer.onReplied(tweet.getTweetId(), timing);
         }
+        
+        LOGGER.info("Replied to tweet: " + tweet.getTweetId());
     }
     
     /**
@@ -232,24 +640,102 @@ public class TwitterService {
      * @param answer AI-generated answer
      * @return Formatted reply
      */
-    private String formatReply(String answer) {
-        // Twitter's character limit is 280
-        final int MAX_LENGTH = 280;
-        
-        if (answer.length() <= MAX_LENGTH) {
+    static String formatReply(String answer) {
+        if (answer.length() <= MAX_REPLY_LENGTH) {
             return answer;
         }
         
         // Truncate and add ellipsis
-        return answer.substring(0, MAX_LENGTH - 4) + "...";
+        return answer.substring(0, MAX_REPLY_LENGTH - 4) + "...";
     }
     
     /**
-     * Get the list of processed tweets
+     * Get the list of retained processed tweets
+     * Copies the whole history, so prefer getProcessedTweet for single lookups
      * @return List of processed tweets
      */
     public List<ProcessedTweet> getProcessedTweets() {
-        return new ArrayList<>(processedTweets);
+        return tweetStore.getAll();
+    }
+    
+    /**
+     * Get a retained processed tweet by position
+     * @param index Position in arrival order, 0 being the oldest
+     * @return Processed tweet
+     */
+    public ProcessedTweet getProcessedTweet(int index) {
+        return tweetStore.get(index);
+    }
+    
+    /**
+     * Find a retained processed tweet by its Twitter ID
+     * @param tweetId Twitter ID of the tweet
+     * @return Processed tweet or null if not retained
+     */
+    public ProcessedTweet findProcessedTweet(long tweetId) {
+        return tweetStore.findById(tweetId);
+    }
+    
+    /**
+     * Get the position of a retained processed tweet
+     * @param tweetId Twitter ID of the tweet
+     * @return Position in arrival order, or -1 if not retained
+     */
+    public int indexOfProcessedTweet(long tweetId) {
+        return tweetStore.indexOf(tweetId);
+    }
+    
+    /**
+     * Get the number of processed tweets removed by the retention policy since startup
+     * @return Number of trimmed tweets
+     */
+    public long getTrimmedTweetCount() {
+        return tweetStore.getTrimmedCount();
+    }
+    
+    /**
+     * Get the number of tweets skipped because they had already been ingested
+     * @return Number of duplicate tweets
+     */
+    public long getDuplicateTweets() {
+        return recentTweetIds.getDuplicates();
+    }
+    
+    public long getReceivedTweets() {
+        return receivedTweets.sum();
+    }
+    
+    public long getClassifiedTweets() {
+        return classifiedTweets.sum();
+    }
+    
+    public long getQuestionTweets() {
+        return questionTweets.sum();
+    }
+    
+    /**
+     * Get the number of retained processed tweets
+     * @return Number of processed tweets
+     */
+    public int getProcessedTweetCount() {
+        return tweetStore.size();
+    }
+    
+    /**
+     * Get the reply scheduler
+     * @return Reply scheduler
+     */
+    public ReplyScheduler getReplyScheduler() {
+        return replyScheduler;
+    }
+    
+    /**
+     * Send questions to remote answer workers instead of answering them in this process
+     * @param questionDispatcher Dispatcher called with each question, returning false if it dropped
+     *                           the question, or null to answer locally
+     */
+    public void setQuestionDispatcher(Predicate<ProcessedTweet> questionDispatcher) {
+        this.questionDispatcher = questionDispatcher;
     }
     
     /**
@@ -277,6 +763,64 @@ public class TwitterService {
             listener.onTweetProcessed(tweet);
         }
     }
+    
+    /**
+     * Notify all listeners of the partial answer to a question being streamed from Agent Mesh
+     * @param tweetId Twitter ID of the tweet asking the question
+     * @param question Extracted question
+     * @param partialAnswer Answer received so far
+     */
+    private void notifyAnswerProgress(long tweetId, String question, String partialAnswer) {
+        for (TweetUpdateListener listener : updateListeners) {
+            listener.onAnswerProgress(tweetId, question, partialAnswer);
+        }
+    }
+    
+    /**
+     * Notify all listeners that a reply was sent for a processed tweet
+     * @param tweet Processed tweet
+     */
+    private void notifyReplyListeners(ProcessedTweet tweet) {
+        for (TweetUpdateListener listener : updateListeners) {
+            listener.onTweetReplied(tweet);
+        }
+    }
+
+    /**
+     * Get the raw message prefilter and its counters
+     * @return Raw tweet filter
+     */
+    public RawTweetFilter getRawTweetFilter() {
+        return rawTweetFilter;
+    }
+    
+    /**
+     * Get runtime statistics of the processing pipeline
+     * @return Statistics of each pipeline stage in processing order
+     */
+    public List<PipelineStage.Stats> getPipelineStats() {
+        return pipeline.getStats();
+    }
+    
+    public List<PipelineStage> getPipelineStages() {
+        return pipeline.getStages();
+    }
+    
+    /**
+     * Get the priority queue of the answer stage
+     * @return Admission queue, or null if questions are answered in arrival order
+     */
+    public AdmissionQueue getAnswerQueue() {
+        return pipeline.getAnswerQueue();
+    }
+    
+    /**
+     * Get the per-tweet latency tracer and its histograms
+     * @return Tweet tracer
+     */
+    public TweetTracer getTweetTracer() {
+        return tweetTracer;
+    }
 
     public boolean isMonitoring() {
         return monitoring;
@@ -287,5 +831,50 @@ public class TwitterService {
      */
     public interface TweetUpdateListener {
         void onTweetProcessed(ProcessedTweet tweet);
+        
+        default void onTweetReplied(ProcessedTweet tweet) {
+        }
+        
+        /**
+         * Called each time a streamed answer grows, before the tweet is processed
+         * Called on HTTP client threads, so implementations must be thread-safe and cheap
+         */
+        default void onAnswerProgress(long tweetId, String question, String partialAnswer) {
+        }
+    }
+    
+    /**
+     * Answer stage task for a question, ordered by its priority in the answer queue
+     * Also held while the question waits for Agent Mesh to become available
+     */
+    private class QuestionTask implements Runnable, AdmissionQueue.Prioritized {
+        private final Status status;
+        private final String question;
+        private final int attempts;
+        private final double priority;
+        
+        // Trace points in microseconds since the epoch; the request time is taken again for each attempt
+        private final long receivedAt;
+        private final long classifiedAt;
+        private volatile long requestSentAt;
+        
+        QuestionTask(Status status, String question, int attempts, long receivedAt, long classifiedAt) {
+            this.status = status;
+            this.question = question;
+            this.attempts = attempts;
+            this.receivedAt = receivedAt;
+            this.classifiedAt = classifiedAt;
+            this.priority = questionPriority.score(status, question);
+        }
+        
+        @Override
+        public void run() {
+            answerQuestion(this);
+        }
+        
+        @Override
+        public double getPriority() {
+            return priority;
+        }
     }
 }
\ No newline at end of file
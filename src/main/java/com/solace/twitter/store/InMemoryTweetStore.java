@@ -0,0 +1,101 @@
+package com.solace.twitter.store;
+
+import com.solace.twitter.model.ProcessedTweet;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Tweet store that keeps everything on the heap and loses it on restart
+ */
+public class InMemoryTweetStore implements TweetStore {
+    private final List<ProcessedTweet> tweets = new ArrayList<>();
+    private final LongIntHashMap positions = new LongIntHashMap();
+    
+    // Number of trimmed entries at the front of the list, released in bulk to keep trimming cheap
+    private int head = 0;
+    private long trimmed = 0;
+    
+    @Override
+    public synchronized void append(ProcessedTweet tweet) {
+        if (positions.containsKey(tweet.getTweetId())) {
+            return;
+        }
+        
+        positions.put(tweet.getTweetId(), tweets.size());
+        tweets.add(tweet);
+    }
+    
+    @Override
+    public synchronized void markReplied(long tweetId) {
+        ProcessedTweet tweet = findById(tweetId);
+        if (tweet != null) {
+            tweet.setReplied(true);
+        }
+    }
+    
+    @Override
+    public synchronized ProcessedTweet findById(long tweetId) {
+        int position = positions.get(tweetId);
+        return position != LongIntHashMap.NO_VALUE ? tweets.get(position) : null;
+    }
+    
+    @Override
+    public synchronized int indexOf(long tweetId) {
+        int position = positions.get(tweetId);
+        return position != LongIntHashMap.NO_VALUE ? position - head : -1;
+    }
+    
+    @Override
+    public synchronized ProcessedTweet get(int index) {
+        if (index < 0 || index >= size()) {
+            throw new IndexOutOfBoundsException("Index: " + index + ", Size: " + size());
+        }
+        return tweets.get(head + index);
+    }
+    
+    @Override
+    public synchronized int size() {
+        return tweets.size() - head;
+    }
+    
+    @Override
+    public synchronized List<ProcessedTweet> getAll() {
+        return new ArrayList<>(tweets.subList(head, tweets.size()));
+    }
+    
+    @Override
+    public synchronized int trim(int maxCount, long minCreatedAt) {
+        int remove = maxCount > 0 ? Math.max(0, size() - maxCount) : 0;
+        while (remove < size() && minCreatedAt > 0 && createdAt(tweets.get(head + remove)) < minCreatedAt) {
+            remove++;
+        }
+        
+        for (int i = 0; i < remove; i++) {
+            positions.remove(tweets.set(head + i, null).getTweetId());
+        }
+        head += remove;
+        trimmed += remove;
+        
+        if (head > tweets.size() / 2) {
+            int shift = head;
+            tweets.subList(0, head).clear();
+            positions.replaceValues(position -> position - shift);
+            head = 0;
+        }
+        return remove;
+    }
+    
+    @Override
+    public synchronized long getTrimmedCount() {
+        return trimmed;
+    }
+    
+    @Override
+    public void close() {
+    }
+    
+    private static long createdAt(ProcessedTweet tweet) {
+        return tweet.getCreatedAt() != null ? tweet.getCreatedAt().getTime() : Long.MIN_VALUE;
+    }
+}
\ No newline at end of file
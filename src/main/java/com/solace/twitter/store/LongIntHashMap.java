@@ -0,0 +1,205 @@
+package com.solace.twitter.store;
+
+import java.util.Arrays;
+import java.util.function.IntUnaryOperator;
+
+/**
+ * Open-addressing hash map from primitive long keys to primitive int values
+ * Keys and values live in two flat arrays probed linearly, so lookups neither box the key nor
+ * chase entry pointers. Removal shifts the following entries back instead of leaving tombstones,
+ * so probe sequences stay short under the constant churn of a sliding window. Not thread-safe
+ */
+public final class LongIntHashMap {
+    public static final int NO_VALUE = -1;
+    
+    private static final long EMPTY = 0L;
+    private static final float LOAD_FACTOR = 0.5f;
+    
+    private long[] keys;
+    private int[] values;
+    private int mask;
+    private int size = 0;
+    private int resizeThreshold;
+    
+    // The empty-slot marker is itself a valid key, so it is stored outside the table
+    private boolean hasEmptyKey = false;
+    private int emptyKeyValue = NO_VALUE;
+    
+    public LongIntHashMap() {
+        this(16);
+    }
+    
+    /**
+     * Constructor for LongIntHashMap
+     * @param expectedSize Number of entries to hold without resizing
+     */
+    public LongIntHashMap(int expectedSize) {
+        allocate(tableSize(expectedSize));
+    }
+    
+    /**
+     * Look up the value for a key
+     * @param key Key
+     * @return Value, or NO_VALUE if the key is not present
+     */
+    public int get(long key) {
+        if (key == EMPTY) {
+            return hasEmptyKey ? emptyKeyValue : NO_VALUE;
+        }
+        
+        for (int index = indexOf(key); ; index = (index + 1) & mask) {
+            long candidate = keys[index];
+            if (candidate == key) {
+                return values[index];
+            }
+            if (candidate == EMPTY) {
+                return NO_VALUE;
+            }
+        }
+    }
+    
+    public boolean containsKey(long key) {
+        return get(key) != NO_VALUE;
+    }
+    
+    /**
+     * Associate a value with a key
+     * @param key Key
+     * @param value Value, which must not be NO_VALUE
+     * @return Previous value, or NO_VALUE if the key was not present
+     */
+    public int put(long key, int value) {
+        if (key == EMPTY) {
+            int previous = hasEmptyKey ? emptyKeyValue : NO_VALUE;
+            if (!hasEmptyKey) {
+                hasEmptyKey = true;
+                size++;
+            }
+            emptyKeyValue = value;
+            return previous;
+        }
+        
+        int index = indexOf(key);
+        for (; keys[index] != EMPTY; index = (index + 1) & mask) {
+            if (keys[index] == key) {
+                int previous = values[index];
+                values[index] = value;
+                return previous;
+            }
+        }
+        
+        keys[index] = key;
+        values[index] = value;
+        if (++size > resizeThreshold) {
+            rehash(keys.length * 2);
+        }
+        return NO_VALUE;
+    }
+    
+    /**
+     * Remove a key
+     * @param key Key
+     * @return Removed value, or NO_VALUE if the key was not present
+     */
+    public int remove(long key) {
+        if (key == EMPTY) {
+            if (!hasEmptyKey) {
+                return NO_VALUE;
+            }
+            hasEmptyKey = false;
+            size--;
+            return emptyKeyValue;
+        }
+        
+        int index = indexOf(key);
+        for (; keys[index] != key; index = (index + 1) & mask) {
+            if (keys[index] == EMPTY) {
+                return NO_VALUE;
+            }
+        }
+        
+        int removed = values[index];
+        size--;
+        
+        // Shift back later entries of the probe run whose home slot is not between the gap and themselves
+        int gap = index;
+        for (int next = (gap + 1) & mask; keys[next] != EMPTY; next = (next + 1) & mask) {
+            int home = indexOf(keys[next]);
+            if (((next - home) & mask) >= ((next - gap) & mask)) {
+                keys[gap] = keys[next];
+                values[gap] = values[next];
+                gap = next;
+            }
+        }
+        keys[gap] = EMPTY;
+        return removed;
+    }
+    
+    /**
+     * Replace every value with the result of a function, keeping the keys
+     * @param function Function applied to each value
+     */
+    public void replaceValues(IntUnaryOperator function) {
+        if (hasEmptyKey) {
+            emptyKeyValue = function.applyAsInt(emptyKeyValue);
+        }
+        for (int i = 0; i < keys.length; i++) {
+            if (keys[i] != EMPTY) {
+                values[i] = function.applyAsInt(values[i]);
+            }
+        }
+    }
+    
+    public int size() {
+        return size;
+    }
+    
+    public boolean isEmpty() {
+        return size == 0;
+    }
+    
+    public void clear() {
+        Arrays.fill(keys, EMPTY);
+        hasEmptyKey = false;
+        size = 0;
+    }
+    
+    private int indexOf(long key) {
+        // Tweet IDs are Snowflake IDs with structured low bits, so spread the bits before masking
+        long hash = key * 0x9E3779B97F4A7C15L;
+        return (int) (hash ^ (hash >>> 32)) & mask;
+    }
+    
+    private void rehash(int capacity) {
+        long[] oldKeys = keys;
+        int[] oldValues = values;
+        allocate(capacity);
+        
+        for (int i = 0; i < oldKeys.length; i++) {
+            long key = oldKeys[i];
+            if (key != EMPTY) {
+                int index = indexOf(key);
+                while (keys[index] != EMPTY) {
+                    index = (index + 1) & mask;
+                }
+                keys[index] = key;
+                values[index] = oldValues[i];
+            }
+        }
+    }
+    
+    private void allocate(int capacity) {
+        keys = new long[capacity];
+        values = new int[capacity];
+        mask = capacity - 1;
+        resizeThreshold = (int) (capacity * LOAD_FACTOR);
+    }
+    
+    private static int tableSize(int expectedSize) {
+        int capacity = 16;
+        while (capacity * LOAD_FACTOR < expectedSize) {
+            capacity <<= 1;
+        }
+        return capacity;
+    }
+}
\ No newline at end of file
@@ -0,0 +1,875 @@
+package com.solace.twitter.store;
+
+import com.solace.twitter.model.ProcessedTweet;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+import java.util.zip.CRC32;
+
+/**
+ * Durable tweet store backed by an append-only log of memory-mapped segment files
+ * Every tweet and every reply state change is appended as a checksummed record. The live
+ * segments are listed in a manifest file that is replaced atomically, so rolling to a new
+ * segment and compaction are crash-safe. On startup the log is replayed to rebuild the index,
+ * and a torn record at the tail of the log is discarded. Trimmed tweets leave the index
+ * immediately and their segments are deleted once no retained tweet is left in them; the
+ * manifest records how many tweets at the head of the log are trimmed, so they stay trimmed
+ * after a restart.
+ * Compaction copies the sealed segments on a background thread and only holds the write lock
+ * to seal the active segment and to swap the copies in
+ */
+public class MappedTweetStore implements TweetStore {
+    private static final Logger LOGGER = Logger.getLogger(MappedTweetStore.class.getName());
+    private static final String SEGMENT_PREFIX = "segment-";
+    private static final String SEGMENT_SUFFIX = ".log";
+    private static final String MANIFEST = "MANIFEST";
+    private static final String TRIMMED_PREFIX = "trimmed=";
+    
+    // Record layout: body length, CRC32 of the body, then the body (record type followed by payload)
+    private static final int HEADER_BYTES = 8;
+    private static final byte TWEET_RECORD = 1;
+    private static final byte REPLIED_RECORD = 2;
+    
+    private final File directory;
+    private final int segmentBytes;
+    private final boolean syncWrites;
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+    
+    // Live segments in log order; the last one is appended to
+    private final List<Segment> segments = new ArrayList<>();
+    private final AtomicLong nextSegmentId = new AtomicLong();
+    
+    // Index of tweet records: log location by slot, slot by tweet ID. Retained tweets occupy
+    // slots head to head + count - 1; trimming frees slots at the front
+    private long[] locations = new long[1024];
+    private int head = 0;
+    private int count = 0;
+    private long firstOrdinal = 0;
+    
+    // Ordinal of the first tweet in the live segments; tweets from here up to firstOrdinal are trimmed
+    private long logStartOrdinal = 0;
+    private LongIntHashMap slots = new LongIntHashMap(1024);
+    private BitSet replied = new BitSet();
+    
+    // Segments removed from the front since the locations were last rebuilt
+    private int droppedSegments = 0;
+    
+    // Bytes taken by records that compaction can reclaim, summed over the live segments
+    private long garbageBytes = 0;
+    private boolean closed = false;
+    
+    // Runs compactions off the writing threads; at most one is scheduled or running at a time
+    private final ExecutorService compactor;
+    private boolean compacting = false;
+    
+    /**
+     * Constructor for MappedTweetStore
+     * @param directory Directory holding the segment files
+     * @param segmentBytes Size of each segment file
+     * @param syncWrites Whether to force every append to disk before returning
+     */
+    public MappedTweetStore(File directory, int segmentBytes, boolean syncWrites) {
+        this.directory = directory;
+        this.segmentBytes = segmentBytes;
+        this.syncWrites = syncWrites;
+        this.compactor = Executors.newSingleThreadExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "tweet-store-compactor");
+            thread.setDaemon(true);
+            return thread;
+        });
+        
+        try {
+            Files.createDirectories(directory.toPath());
+            recover();
+            if (segments.isEmpty()) {
+                segments.add(openSegment(nextSegmentId.getAndIncrement()));
+                writeManifest(segments, 0);
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException("Failed to open tweet store in " + directory, e);
+        }
+        
+        LOGGER.info("Opened tweet store in " + directory + " with " + count + " tweets in " + segments.size() + " segments");
+    }
+    
+    @Override
+    public void append(ProcessedTweet tweet) {
+        lock.writeLock().lock();
+        try {
+            ensureOpen();
+            if (slots.containsKey(tweet.getTweetId())) {
+                LOGGER.fine("Tweet already stored: " + tweet.getTweetId());
+                return;
+            }
+            
+            long location = writeRecord(TWEET_RECORD, TweetCodec.encode(tweet));
+            addTweet(tweet.getTweetId(), location, tweet.isReplied());
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+    
+    @Override
+    public void markReplied(long tweetId) {
+        lock.writeLock().lock();
+        try {
+            ensureOpen();
+            int slot = slots.get(tweetId);
+            if (slot == LongIntHashMap.NO_VALUE || replied.get(slot)) {
+                return;
+            }
+            
+            byte[] payload = ByteBuffer.allocate(8).putLong(tweetId).array();
+            long location = writeRecord(REPLIED_RECORD, payload);
+            replied.set(slot);
+            addGarbage(segmentOf(location), HEADER_BYTES + 1 + payload.length);
+            maybeCompact();
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+    
+    @Override
+    public ProcessedTweet findById(long tweetId) {
+        lock.readLock().lock();
+        try {
+            int slot = slots.get(tweetId);
+            return slot != LongIntHashMap.NO_VALUE ? readTweet(slot) : null;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+    
+    @Override
+    public int indexOf(long tweetId) {
+        lock.readLock().lock();
+        try {
+            int slot = slots.get(tweetId);
+            return slot != LongIntHashMap.NO_VALUE ? slot - head : -1;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+    
+    @Override
+    public ProcessedTweet get(int index) {
+        lock.readLock().lock();
+        try {
+            if (index < 0 || index >= count) {
+                throw new IndexOutOfBoundsException("Index: " + index + ", Size: " + count);
+            }
+            return readTweet(head + index);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+    
+    @Override
+    public int size() {
+        lock.readLock().lock();
+        try {
+            return count;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+    
+    @Override
+    public List<ProcessedTweet> getAll() {
+        lock.readLock().lock();
+        try {
+            List<ProcessedTweet> tweets = new ArrayList<>(count);
+            for (int i = 0; i < count; i++) {
+                tweets.add(readTweet(head + i));
+            }
+            return tweets;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+    
+    @Override
+    public int trim(int maxCount, long minCreatedAt) {
+        lock.writeLock().lock();
+        try {
+            ensureOpen();
+            int remove = maxCount > 0 ? Math.max(0, count - maxCount) : 0;
+            while (remove < count && minCreatedAt > 0 && createdAt(head + remove) < minCreatedAt) {
+                remove++;
+            }
+            
+            if (remove == 0) {
+                return 0;
+            }
+            
+            removeHead(remove);
+            dropTrimmedSegments();
+            return remove;
+        } catch (IOException e) {
+            throw new UncheckedIOException("Failed to trim tweet store in " + directory, e);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+    
+    @Override
+    public long getTrimmedCount() {
+        lock.readLock().lock();
+        try {
+            return firstOrdinal;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+    
+    /**
+     * Remove the oldest retained tweets from the index
+     * @param remove Number of tweets to remove, at most the retained count
+     */
+    private void removeHead(int remove) {
+        for (int i = 0; i < remove; i++) {
+            long location = locations[head + i];
+            slots.remove(TweetCodec.readTweetId(segmentOf(location).buffer, (int) location + HEADER_BYTES + 1));
+            replied.clear(head + i);
+        }
+        head += remove;
+        count -= remove;
+        firstOrdinal += remove;
+    }
+    
+    /**
+     * Delete leading segments that no longer hold a retained tweet, and record the new trim point
+     * Reply state records always follow their tweet, so they never outlive it in an earlier segment
+     */
+    private void dropTrimmedSegments() throws IOException {
+        List<Segment> dropped = new ArrayList<>();
+        while (segments.size() > 1 && segments.get(0).lastOrdinal < firstOrdinal) {
+            Segment segment = segments.remove(0);
+            logStartOrdinal = Math.max(logStartOrdinal, segment.lastOrdinal + 1);
+            dropped.add(segment);
+        }
+        
+        // Written even if no segment was dropped, as the trimmed tweets are still in the first segment
+        writeManifest(segments, firstOrdinal - logStartOrdinal);
+        if (dropped.isEmpty()) {
+            return;
+        }
+        
+        droppedSegments += dropped.size();
+        for (Segment segment : dropped) {
+            garbageBytes -= segment.garbageBytes;
+            if (!segment.file.delete()) {
+                LOGGER.warning("Failed to delete trimmed segment " + segment.file + ", it will be removed on restart");
+            }
+        }
+    }
+    
+    /**
+     * Rewrite the log without reply state records, folding reply state into the tweet records
+     * Runs on the calling thread, but like a background compaction only holds the write lock to
+     * seal the active segment and to swap the copies in
+     */
+    public void compact() {
+        lock.writeLock().lock();
+        try {
+            ensureOpen();
+            if (compacting) {
+                return;
+            }
+            compacting = true;
+        } finally {
+            lock.writeLock().unlock();
+        }
+        
+        try {
+            runCompaction();
+        } catch (IOException e) {
+            throw new UncheckedIOException("Failed to compact tweet store in " + directory, e);
+        }
+    }
+    
+    @Override
+    public void close() {
+        // Let a running compaction finish first, as it needs the write lock to complete
+        compactor.shutdown();
+        try {
+            if (!compactor.awaitTermination(30, TimeUnit.SECONDS)) {
+                LOGGER.warning("Compaction of tweet store in " + directory + " still running at close");
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        
+        lock.writeLock().lock();
+        try {
+            if (closed) {
+                return;
+            }
+            
+            for (Segment segment : segments) {
+                segment.buffer.force();
+            }
+            closed = true;
+            LOGGER.info("Closed tweet store in " + directory);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+    
+    /**
+     * Replay the log to rebuild the index, discarding orphaned segments and torn records
+     */
+    private void recover() throws IOException {
+        Manifest manifest = readManifest();
+        boolean manifestMissing = manifest == null;
+        List<Long> segmentIds = manifestMissing ? null : manifest.segmentIds;
+        
+        // Segment files not listed in the manifest are left over from an interrupted roll or compaction
+        long maxId = -1;
+        File[] files = directory.listFiles((dir, name) -> name.startsWith(SEGMENT_PREFIX) && name.endsWith(SEGMENT_SUFFIX));
+        List<Long> existingIds = new ArrayList<>();
+        for (File file : files != null ? files : new File[0]) {
+            long id = Long.parseLong(file.getName().substring(SEGMENT_PREFIX.length(), file.getName().length() - SEGMENT_SUFFIX.length()));
+            existingIds.add(id);
+            maxId = Math.max(maxId, id);
+        }
+        existingIds.sort(null);
+        
+        if (manifestMissing) {
+            segmentIds = existingIds;
+        } else {
+            for (long id : existingIds) {
+                if (!segmentIds.contains(id) && !segmentFile(id).delete()) {
+                    LOGGER.warning("Failed to delete orphaned segment " + segmentFile(id));
+                }
+            }
+        }
+        nextSegmentId.set(maxId + 1);
+        
+        for (long id : segmentIds) {
+            Segment segment = openSegment(id);
+            segments.add(segment);
+            scan(segment, segments.size() - 1 + droppedSegments);
+        }
+        
+        if (manifestMissing && !segments.isEmpty()) {
+            writeManifest(segments, 0);
+        } else if (!manifestMissing && manifest.trimmed > 0) {
+            removeHead((int) Math.min(count, manifest.trimmed));
+        }
+    }
+    
+    /**
+     * Index the valid records of a segment and position its write offset after the last one
+     * @param segment Segment to scan
+     * @param sequence Sequence number of the segment used in record locations
+     */
+    private void scan(Segment segment, int sequence) {
+        MappedByteBuffer buffer = segment.buffer;
+        int offset = 0;
+        while (offset + HEADER_BYTES <= buffer.capacity()) {
+            int length = buffer.getInt(offset);
+            if (length == 0) {
+                break;
+            }
+            
+            if (length < 0 || offset + HEADER_BYTES + length > buffer.capacity()
+                    || checksum(buffer, offset + HEADER_BYTES, length) != buffer.getInt(offset + 4)) {
+                LOGGER.warning("Discarding torn record at offset " + offset + " of " + segment.file);
+                for (int i = offset; i < buffer.capacity(); i++) {
+                    buffer.put(i, (byte) 0);
+                }
+                break;
+            }
+            
+            int body = offset + HEADER_BYTES;
+            byte type = buffer.get(body);
+            if (type == TWEET_RECORD) {
+                long tweetId = TweetCodec.readTweetId(buffer, body + 1);
+                boolean tweetReplied = TweetCodec.readReplied(buffer, body + 1);
+                int slot = slots.get(tweetId);
+                if (slot == LongIntHashMap.NO_VALUE) {
+                    addTweet(tweetId, location(sequence, offset), tweetReplied);
+                } else {
+                    addGarbage(segment, HEADER_BYTES + length);
+                    if (tweetReplied) {
+                        replied.set(slot);
+                    }
+                }
+            } else if (type == REPLIED_RECORD) {
+                int slot = slots.get(buffer.getLong(body + 1));
+                if (slot != LongIntHashMap.NO_VALUE) {
+                    replied.set(slot);
+                }
+                addGarbage(segment, HEADER_BYTES + length);
+            }
+            
+            offset += HEADER_BYTES + length;
+        }
+        segment.writePosition = offset;
+    }
+    
+    /**
+     * Add a tweet record to the in-memory index
+     */
+    private void addTweet(long tweetId, long location, boolean tweetReplied) {
+        if (head + count == locations.length) {
+            if (head >= locations.length / 2) {
+                compactIndex();
+            } else {
+                locations = Arrays.copyOf(locations, locations.length * 2);
+            }
+        }
+        
+        int slot = head + count;
+        locations[slot] = location;
+        slots.put(tweetId, slot);
+        if (tweetReplied) {
+            replied.set(slot);
+        }
+        segmentOf(location).lastOrdinal = firstOrdinal + count;
+        count++;
+    }
+    
+    /**
+     * Move the retained slots to the front of the index, releasing the slots of trimmed tweets
+     */
+    private void compactIndex() {
+        System.arraycopy(locations, head, locations, 0, count);
+        replied = replied.get(head, head + count);
+        int shift = head;
+        slots.replaceValues(slot -> slot - shift);
+        head = 0;
+    }
+    
+    /**
+     * Decode the tweet in a slot, applying its latest reply state
+     */
+    private ProcessedTweet readTweet(int slot) {
+        return decodeTweet(segmentOf(locations[slot]), locations[slot], replied.get(slot));
+    }
+    
+    private static ProcessedTweet decodeTweet(Segment segment, long location, boolean tweetReplied) {
+        ByteBuffer view = segment.buffer.duplicate();
+        view.position((int) location + HEADER_BYTES + 1);
+        
+        ProcessedTweet tweet = TweetCodec.decode(view);
+        if (tweetReplied) {
+            tweet.setReplied(true);
+        }
+        return tweet;
+    }
+    
+    private void addGarbage(Segment segment, long bytes) {
+        segment.garbageBytes += bytes;
+        garbageBytes += bytes;
+    }
+    
+    /**
+     * Get the creation time of the tweet in a slot without decoding it
+     */
+    private long createdAt(int slot) {
+        long location = locations[slot];
+        return TweetCodec.readCreatedAt(segmentOf(location).buffer, (int) location + HEADER_BYTES + 1);
+    }
+    
+    private Segment segmentOf(long location) {
+        return segments.get((int) (location >>> 32) - droppedSegments);
+    }
+    
+    /**
+     * Append a record to the active segment, rolling to a new segment if it does not fit
+     * @return Location of the record
+     */
+    private long writeRecord(byte type, byte[] payload) {
+        if (HEADER_BYTES + 1 + payload.length > segmentBytes) {
+            throw new IllegalArgumentException("Record of " + payload.length + " bytes does not fit in a segment");
+        }
+        
+        try {
+            Segment active = segments.get(segments.size() - 1);
+            if (!active.fits(payload)) {
+                active = rollSegment();
+            }
+            
+            int offset = active.write(type, payload);
+            if (syncWrites) {
+                active.buffer.force();
+            }
+            return location(segments.size() - 1 + droppedSegments, offset);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Failed to append to tweet store in " + directory, e);
+        }
+    }
+    
+    /**
+     * Seal the active segment and start appending to a new one
+     * @return New active segment
+     */
+    private Segment rollSegment() throws IOException {
+        segments.get(segments.size() - 1).buffer.force();
+        Segment active = openSegment(nextSegmentId.getAndIncrement());
+        segments.add(active);
+        writeManifest(segments, firstOrdinal - logStartOrdinal);
+        return active;
+    }
+    
+    /**
+     * Schedule a compaction once the reclaimable records would fill a whole segment
+     * Called with the write lock held
+     */
+    private void maybeCompact() {
+        if (garbageBytes < segmentBytes || compacting) {
+            return;
+        }
+        
+        compacting = true;
+        try {
+            compactor.execute(() -> {
+                try {
+                    runCompaction();
+                } catch (IOException | RuntimeException e) {
+                    LOGGER.log(Level.WARNING, "Failed to compact tweet store in " + directory, e);
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            // Closing
+            compacting = false;
+        }
+    }
+    
+    /**
+     * Compact the log in three steps: seal the active segment under the write lock, copy the
+     * retained tweets of the sealed segments without holding the lock, then swap the copies in
+     * under the write lock. Sealed segments are never written again, so they can be read while
+     * tweets are appended, replied to and trimmed; those changes land in the segments written
+     * after the seal, which are kept as they are
+     */
+    private void runCompaction() throws IOException {
+        CompactionSource source;
+        lock.writeLock().lock();
+        try {
+            if (closed) {
+                compacting = false;
+                return;
+            }
+            source = sealForCompaction();
+        } catch (IOException | RuntimeException e) {
+            compacting = false;
+            throw e;
+        } finally {
+            lock.writeLock().unlock();
+        }
+        
+        List<Segment> compacted = new ArrayList<>();
+        try {
+            long[] compactedLocations = copyTweets(source, compacted);
+            lock.writeLock().lock();
+            try {
+                if (closed) {
+                    deleteSegments(compacted, "abandoned compacted");
+                    return;
+                }
+                swapCompacted(source, compacted, compactedLocations);
+            } finally {
+                lock.writeLock().unlock();
+            }
+        } catch (IOException | RuntimeException e) {
+            deleteSegments(compacted, "abandoned compacted");
+            throw e;
+        } finally {
+            lock.writeLock().lock();
+            compacting = false;
+            lock.writeLock().unlock();
+        }
+    }
+    
+    /**
+     * Seal the active segment and capture the retained tweets to copy; called with the write lock held
+     */
+    private CompactionSource sealForCompaction() throws IOException {
+        Segment active = segments.get(segments.size() - 1);
+        if (active.writePosition > 0) {
+            active = rollSegment();
+        }
+        
+        return new CompactionSource(
+            new ArrayList<>(segments.subList(0, segments.size() - 1)),
+            droppedSegments,
+            Arrays.copyOfRange(locations, head, head + count),
+            replied.get(head, head + count),
+            firstOrdinal,
+            active.id);
+    }
+    
+    /**
+     * Copy the captured tweets into new segments, folding in their reply state; runs without the lock
+     * @param source Tweets to copy
+     * @param compacted Receives the new segments in log order
+     * @return Location of each copied tweet, by its position in the capture
+     */
+    private long[] copyTweets(CompactionSource source, List<Segment> compacted) throws IOException {
+        long[] compactedLocations = new long[source.locations.length];
+        Segment current = openSegment(nextSegmentId.getAndIncrement());
+        compacted.add(current);
+        
+        for (int i = 0; i < source.locations.length; i++) {
+            long location = source.locations[i];
+            Segment segment = source.segments.get((int) (location >>> 32) - source.droppedSegments);
+            byte[] payload = TweetCodec.encode(decodeTweet(segment, location, source.replied.get(i)));
+            if (!current.fits(payload)) {
+                current.buffer.force();
+                current = openSegment(nextSegmentId.getAndIncrement());
+                compacted.add(current);
+            }
+            compactedLocations[i] = location(compacted.size() - 1, current.write(TWEET_RECORD, payload));
+            current.lastOrdinal = source.firstOrdinal + i;
+        }
+        current.buffer.force();
+        return compactedLocations;
+    }
+    
+    /**
+     * Replace the sealed segments with their compacted copies; called with the write lock held
+     * Tweets trimmed while copying are left out of the index and counted as trimmed in the manifest,
+     * so recovery skips their copies, and tweets and reply state written after the seal keep their
+     * records in the segments that follow the copies
+     */
+    private void swapCompacted(CompactionSource source, List<Segment> compacted, long[] compactedLocations) throws IOException {
+        // Segments written after the seal; the active segment always is one of them
+        int firstKept = segments.size() - 1;
+        while (firstKept > 0 && segments.get(firstKept - 1).id >= source.firstUnsealedId) {
+            firstKept--;
+        }
+        List<Segment> kept = new ArrayList<>(segments.subList(firstKept, segments.size()));
+        List<Segment> sealed = new ArrayList<>(segments.subList(0, firstKept));
+        
+        long[] swappedLocations = new long[Math.max(1024, count * 2)];
+        BitSet swappedReplied = new BitSet();
+        long copiedEnd = source.firstOrdinal + source.locations.length;
+        for (int i = 0; i < count; i++) {
+            long ordinal = firstOrdinal + i;
+            if (ordinal < copiedEnd) {
+                swappedLocations[i] = compactedLocations[(int) (ordinal - source.firstOrdinal)];
+            } else {
+                long location = locations[head + i];
+                int keptIndex = (int) (location >>> 32) - droppedSegments - firstKept;
+                swappedLocations[i] = location(compacted.size() + keptIndex, (int) location);
+            }
+            swappedReplied.set(i, replied.get(head + i));
+        }
+        
+        // Commit point: from here on recovery uses the compacted segments, which start at the first copied tweet
+        List<Segment> live = new ArrayList<>(compacted);
+        live.addAll(kept);
+        writeManifest(live, firstOrdinal - source.firstOrdinal);
+        logStartOrdinal = source.firstOrdinal;
+        
+        segments.clear();
+        segments.addAll(live);
+        droppedSegments = 0;
+        locations = swappedLocations;
+        replied = swappedReplied;
+        int shift = head;
+        slots.replaceValues(slot -> slot - shift);
+        head = 0;
+        garbageBytes = 0;
+        for (Segment segment : kept) {
+            garbageBytes += segment.garbageBytes;
+        }
+        
+        deleteSegments(sealed, "compacted");
+        LOGGER.info("Compacted tweet store into " + compacted.size() + " segments");
+        
+        // Copies made entirely of tweets trimmed while copying can go straight away
+        dropTrimmedSegments();
+    }
+    
+    private void deleteSegments(List<Segment> deleted, String description) {
+        for (Segment segment : deleted) {
+            if (!segment.file.delete()) {
+                LOGGER.warning("Failed to delete " + description + " segment " + segment.file + ", it will be removed on restart");
+            }
+        }
+    }
+    
+    private Segment openSegment(long id) throws IOException {
+        File file = segmentFile(id);
+        try (RandomAccessFile randomAccessFile = new RandomAccessFile(file, "rw");
+             FileChannel channel = randomAccessFile.getChannel()) {
+            long size = Math.max(randomAccessFile.length(), segmentBytes);
+            randomAccessFile.setLength(size);
+            return new Segment(id, file, channel.map(FileChannel.MapMode.READ_WRITE, 0, size));
+        }
+    }
+    
+    /**
+     * Read the ordered list of live segment IDs and the number of trimmed tweets at their head
+     * @return Manifest or null if there is no manifest yet
+     */
+    private Manifest readManifest() throws IOException {
+        File file = new File(directory, MANIFEST);
+        if (!file.exists()) {
+            return null;
+        }
+        
+        Manifest manifest = new Manifest();
+        for (String line : Files.readAllLines(file.toPath(), StandardCharsets.UTF_8)) {
+            String value = line.trim();
+            if (value.startsWith(TRIMMED_PREFIX)) {
+                manifest.trimmed = Long.parseLong(value.substring(TRIMMED_PREFIX.length()));
+            } else if (!value.isEmpty()) {
+                manifest.segmentIds.add(Long.parseLong(value));
+            }
+        }
+        return manifest;
+    }
+    
+    /**
+     * Atomically replace the manifest with the given segments
+     * @param liveSegments Live segments in log order
+     * @param trimmed Number of tweets at the head of the segments that are trimmed
+     */
+    private void writeManifest(List<Segment> liveSegments, long trimmed) throws IOException {
+        StringBuilder content = new StringBuilder();
+        for (Segment segment : liveSegments) {
+            content.append(segment.id).append('\n');
+        }
+        if (trimmed > 0) {
+            content.append(TRIMMED_PREFIX).append(trimmed).append('\n');
+        }
+        
+        File temp = new File(directory, MANIFEST + ".tmp");
+        try (FileChannel channel = FileChannel.open(temp.toPath(),
+                StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+            channel.write(ByteBuffer.wrap(content.toString().getBytes(StandardCharsets.UTF_8)));
+            channel.force(true);
+        }
+        Files.move(temp.toPath(), new File(directory, MANIFEST).toPath(),
+            StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+    
+    private File segmentFile(long id) {
+        return new File(directory, String.format("%s%010d%s", SEGMENT_PREFIX, id, SEGMENT_SUFFIX));
+    }
+    
+    private void ensureOpen() {
+        if (closed) {
+            throw new IllegalStateException("Tweet store is closed");
+        }
+    }
+    
+    private static long location(int segmentIndex, int offset) {
+        return ((long) segmentIndex << 32) | offset;
+    }
+    
+    private static int checksum(ByteBuffer buffer, int offset, int length) {
+        ByteBuffer body = buffer.duplicate();
+        body.position(offset).limit(offset + length);
+        CRC32 crc = new CRC32();
+        crc.update(body);
+        return (int) crc.getValue();
+    }
+    
+    /**
+     * A memory-mapped segment file
+     */
+    private static class Segment {
+        private final long id;
+        private final File file;
+        private final MappedByteBuffer buffer;
+        private int writePosition = 0;
+        
+        // Ordinal of the last tweet record in this segment, -1 if it holds none
+        private long lastOrdinal = -1;
+        
+        // Bytes taken by records in this segment that compaction can reclaim
+        private long garbageBytes = 0;
+        
+        Segment(long id, File file, MappedByteBuffer buffer) {
+            this.id = id;
+            this.file = file;
+            this.buffer = buffer;
+        }
+        
+        boolean fits(byte[] payload) {
+            return writePosition + HEADER_BYTES + 1 + payload.length <= buffer.capacity();
+        }
+        
+        /**
+         * Write a record at the end of the segment
+         * The length is written last, so a record interrupted half way is never seen as complete
+         * @return Offset of the record
+         */
+        int write(byte type, byte[] payload) {
+            int offset = writePosition;
+            int length = 1 + payload.length;
+            
+            ByteBuffer view = buffer.duplicate();
+            view.position(offset + HEADER_BYTES);
+            view.put(type);
+            view.put(payload);
+            buffer.putInt(offset + 4, checksum(buffer, offset + HEADER_BYTES, length));
+            buffer.putInt(offset, length);
+            
+            writePosition = offset + HEADER_BYTES + length;
+            return offset;
+        }
+    }
+    
+    /**
+     * Contents of the manifest file
+     */
+    private static class Manifest {
+        private final List<Long> segmentIds = new ArrayList<>();
+        
+        // Tweets at the head of the live segments that were trimmed
+        private long trimmed = 0;
+    }
+    
+    /**
+     * Retained tweets captured when the active segment was sealed for a compaction
+     */
+    private static class CompactionSource {
+        private final List<Segment> segments;
+        private final int droppedSegments;
+        private final long[] locations;
+        private final BitSet replied;
+        private final long firstOrdinal;
+        
+        // ID of the first segment written after the seal
+        private final long firstUnsealedId;
+        
+        CompactionSource(List<Segment> segments, int droppedSegments, long[] locations, BitSet replied,
+                         long firstOrdinal, long firstUnsealedId) {
+            this.segments = segments;
+            this.droppedSegments = droppedSegments;
+            this.locations = locations;
+            this.replied = replied;
+            this.firstOrdinal = firstOrdinal;
+            this.firstUnsealedId = firstUnsealedId;
+        }
+    }
+}
\ No newline at end of file
@@ -0,0 +1,169 @@
+package com.solace.twitter.store;
+
+import com.solace.twitter.model.ProcessedTweet;
+
+import java.util.List;
+
+/**
+ * Tweet store that bounds history by count and age and keeps only the newest tweets decoded on the heap
+ * The newest tweets are held in a fixed-size ring buffer in front of a backing store; older tweets
+ * live only in the backing store and are paged back in when they are read. Retention is applied
+ * on every append, so memory use stays flat however long the application runs
+ */
+public class TieredTweetStore implements TweetStore {
+    private static final long AGE_CHECK_INTERVAL_MS = 1000;
+    
+    private final TweetStore backing;
+    private final int maxCount;
+    private final long maxAgeMillis;
+    
+    // Ring buffer of the newest tweets, the last hotCount tweets of the backing store
+    private final ProcessedTweet[] hot;
+    private int hotStart = 0;
+    private int hotCount = 0;
+    
+    private long nextAgeCheck = 0;
+    
+    /**
+     * Constructor for TieredTweetStore
+     * @param backing Store holding the full retained history
+     * @param hotWindow Number of newest tweets kept on the heap
+     * @param maxCount Maximum number of tweets to retain, 0 for no limit
+     * @param maxAgeMillis Maximum age of a retained tweet in milliseconds, 0 for no limit
+     */
+    public TieredTweetStore(TweetStore backing, int hotWindow, int maxCount, long maxAgeMillis) {
+        this.backing = backing;
+        this.hot = new ProcessedTweet[Math.max(0, hotWindow)];
+        this.maxCount = maxCount;
+        this.maxAgeMillis = maxAgeMillis;
+        
+        // Apply retention to the history recovered by the backing store before warming the ring
+        synchronized (this) {
+            applyRetention(System.currentTimeMillis());
+            int size = backing.size();
+            for (int i = Math.max(0, size - hot.length); i < size; i++) {
+                addHot(backing.get(i));
+            }
+        }
+    }
+    
+    @Override
+    public synchronized void append(ProcessedTweet tweet) {
+        int before = backing.size();
+        backing.append(tweet);
+        if (backing.size() == before) {
+            return;
+        }
+        
+        addHot(tweet);
+        applyRetention(System.currentTimeMillis());
+    }
+    
+    @Override
+    public synchronized void markReplied(long tweetId) {
+        ProcessedTweet tweet = getHot(backing.indexOf(tweetId));
+        if (tweet != null) {
+            tweet.setReplied(true);
+        }
+        backing.markReplied(tweetId);
+    }
+    
+    @Override
+    public synchronized ProcessedTweet findById(long tweetId) {
+        int index = backing.indexOf(tweetId);
+        return index >= 0 ? get(index) : null;
+    }
+    
+    @Override
+    public synchronized int indexOf(long tweetId) {
+        return backing.indexOf(tweetId);
+    }
+    
+    @Override
+    public synchronized ProcessedTweet get(int index) {
+        ProcessedTweet tweet = getHot(index);
+        return tweet != null ? tweet : backing.get(index);
+    }
+    
+    @Override
+    public synchronized int size() {
+        return backing.size();
+    }
+    
+    @Override
+    public synchronized List<ProcessedTweet> getAll() {
+        // Substitute the ring's instances so callers see the same objects as get()
+        List<ProcessedTweet> tweets = backing.getAll();
+        int firstHot = tweets.size() - hotCount;
+        for (int i = 0; i < hotCount; i++) {
+            tweets.set(firstHot + i, hot[(hotStart + i) % hot.length]);
+        }
+        return tweets;
+    }
+    
+    @Override
+    public synchronized int trim(int maxCount, long minCreatedAt) {
+        int removed = backing.trim(maxCount, minCreatedAt);
+        
+        // Trimming removes the oldest tweets, so the ring only loses entries once everything older is gone
+        int size = backing.size();
+        while (hotCount > size) {
+            hot[hotStart] = null;
+            hotStart = (hotStart + 1) % hot.length;
+            hotCount--;
+        }
+        return removed;
+    }
+    
+    @Override
+    public synchronized long getTrimmedCount() {
+        return backing.getTrimmedCount();
+    }
+    
+    @Override
+    public void close() {
+        backing.close();
+    }
+    
+    /**
+     * Trim to the configured count on every call and to the configured age at most once per interval
+     * @param now Current time in milliseconds
+     */
+    private void applyRetention(long now) {
+        long minCreatedAt = 0;
+        if (maxAgeMillis > 0 && now >= nextAgeCheck) {
+            minCreatedAt = now - maxAgeMillis;
+            nextAgeCheck = now + AGE_CHECK_INTERVAL_MS;
+        }
+        
+        if ((maxCount > 0 && backing.size() > maxCount) || minCreatedAt > 0) {
+            trim(maxCount, minCreatedAt);
+        }
+    }
+    
+    private void addHot(ProcessedTweet tweet) {
+        if (hot.length == 0) {
+            return;
+        }
+        
+        if (hotCount == hot.length) {
+            hot[hotStart] = tweet;
+            hotStart = (hotStart + 1) % hot.length;
+        } else {
+            hot[(hotStart + hotCount) % hot.length] = tweet;
+            hotCount++;
+        }
+    }
+    
+    /**
+     * Get a tweet from the ring by position in the backing store
+     * @return Tweet, or null if the position is not in the hot window
+     */
+    private ProcessedTweet getHot(int index) {
+        int firstHot = backing.size() - hotCount;
+        if (index < firstHot || index >= firstHot + hotCount) {
+            return null;
+        }
+        return hot[(hotStart + index - firstHot) % hot.length];
+    }
+}
\ No newline at end of file
@@ -0,0 +1,171 @@
+package com.solace.twitter.store;
+
+import com.solace.twitter.model.ProcessedTweet;
+import com.solace.twitter.model.TweetTiming;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.Date;
+
+/**
+ * Compact binary encoding of a processed tweet
+ * Version 2 appends the language code and version 3 the processing timing, when it was recorded;
+ * records of earlier versions are still decoded
+ */
+public final class TweetCodec {
+    private static final byte VERSION = 3;
+    private static final byte VERSION_WITHOUT_TIMING = 2;
+    private static final byte VERSION_WITHOUT_LANG = 1;
+    private static final int TIMING_POINTS = 6;
+    
+    private TweetCodec() {
+    }
+    
+    /**
+     * Encode a processed tweet
+     * @param tweet Processed tweet
+     * @param replied Reply state to encode
+     * @return Encoded bytes
+     */
+    public static byte[] encode(ProcessedTweet tweet, boolean replied) {
+        byte[] username = bytes(tweet.getUsername());
+        byte[] displayName = bytes(tweet.getUserDisplayName());
+        byte[] text = bytes(tweet.getTweetText());
+        byte[] question = bytes(tweet.getExtractedQuestion());
+        byte[] answer = bytes(tweet.getAnswer());
+        byte[] lang = bytes(tweet.getLang());
+        TweetTiming timing = tweet.getTiming();
+        
+        int size = 1 + 8 + 8 + 1 + stringSize(username) + stringSize(displayName) +
+            stringSize(text) + stringSize(question) + stringSize(answer) + stringSize(lang) +
+            1 + (timing != null ? 8 * TIMING_POINTS : 0);
+        ByteBuffer buffer = ByteBuffer.allocate(size);
+        buffer.put(VERSION);
+        buffer.putLong(tweet.getTweetId());
+        buffer.putLong(tweet.getCreatedAt() != null ? tweet.getCreatedAt().getTime() : Long.MIN_VALUE);
+        buffer.put((byte) (replied ? 1 : 0));
+        putString(buffer, username);
+        putString(buffer, displayName);
+        putString(buffer, text);
+        putString(buffer, question);
+        putString(buffer, answer);
+        putString(buffer, lang);
+        buffer.put((byte) (timing != null ? 1 : 0));
+        if (timing != null) {
+            buffer.putLong(timing.getCreatedAt());
+            buffer.putLong(timing.getReceivedAt());
+            buffer.putLong(timing.getClassifiedAt());
+            buffer.putLong(timing.getRequestSentAt());
+            buffer.putLong(timing.getAnsweredAt());
+            buffer.putLong(timing.getRepliedAt());
+        }
+        return buffer.array();
+    }
+    
+    /**
+     * Encode a processed tweet with its current reply state
+     * @param tweet Processed tweet
+     * @return Encoded bytes
+     */
+    public static byte[] encode(ProcessedTweet tweet) {
+        return encode(tweet, tweet.isReplied());
+    }
+    
+    /**
+     * Decode a processed tweet from the current position of a buffer
+     * @param buffer Buffer positioned at an encoded tweet; its position is advanced past it
+     * @return Processed tweet
+     */
+    public static ProcessedTweet decode(ByteBuffer buffer) {
+        byte version = buffer.get();
+        if (version != VERSION && version != VERSION_WITHOUT_TIMING && version != VERSION_WITHOUT_LANG) {
+            throw new IllegalArgumentException("Unsupported tweet encoding version: " + version);
+        }
+        
+        long tweetId = buffer.getLong();
+        long createdAt = buffer.getLong();
+        boolean replied = buffer.get() != 0;
+        String username = getString(buffer);
+        String displayName = getString(buffer);
+        String text = getString(buffer);
+        String question = getString(buffer);
+        String answer = getString(buffer);
+        String lang = version != VERSION_WITHOUT_LANG ? getString(buffer) : null;
+        TweetTiming timing = null;
+        if (version == VERSION && buffer.get() != 0) {
+            timing = new TweetTiming(buffer.getLong(), buffer.getLong(), buffer.getLong(),
+                buffer.getLong(), buffer.getLong(), buffer.getLong());
+        }
+        ProcessedTweet tweet = new ProcessedTweet(
+            tweetId,
+            username,
+            displayName,
+            createdAt != Long.MIN_VALUE ? new Date(createdAt) : null,
+            text,
+            question,
+            answer,
+            replied,
+            lang
+        );
+        tweet.setTiming(timing);
+        return tweet;
+    }
+    
+    /**
+     * Read the tweet ID of an encoded tweet without decoding it
+     * @param buffer Buffer holding the encoded tweet
+     * @param offset Offset of the encoded tweet
+     * @return Tweet ID
+     */
+    static long readTweetId(ByteBuffer buffer, int offset) {
+        return buffer.getLong(offset + 1);
+    }
+    
+    /**
+     * Read the creation time of an encoded tweet without decoding it
+     * @param buffer Buffer holding the encoded tweet
+     * @param offset Offset of the encoded tweet
+     * @return Creation time in milliseconds, Long.MIN_VALUE if unknown
+     */
+    static long readCreatedAt(ByteBuffer buffer, int offset) {
+        return buffer.getLong(offset + 9);
+    }
+    
+    /**
+     * Read the reply state of an encoded tweet without decoding it
+     * @param buffer Buffer holding the encoded tweet
+     * @param offset Offset of the encoded tweet
+     * @return Encoded reply state
+     */
+    static boolean readReplied(ByteBuffer buffer, int offset) {
+        return buffer.get(offset + 17) != 0;
+    }
+    
+    private static byte[] bytes(String value) {
+        return value != null ? value.getBytes(StandardCharsets.UTF_8) : null;
+    }
+    
+    private static int stringSize(byte[] value) {
+        return 4 + (value != null ? value.length : 0);
+    }
+    
+    private static void putString(ByteBuffer buffer, byte[] value) {
+        if (value == null) {
+            buffer.putInt(-1);
+        } else {
+            buffer.putInt(value.length);
+            buffer.put(value);
+        }
+    }
+    
+    private static String getString(ByteBuffer buffer) {
+        int length = buffer.getInt();
+        if (length < 0) {
+            return null;
+        }
+        
+        byte[] value = new byte[length];
+        buffer.get(value);
+        return new String(value, StandardCharsets.UTF_8);
+    }
+}
\ No newline at end of file
@@ -0,0 +1,103 @@
+package com.solace.twitter.store;
+
+import com.solace.twitter.model.ProcessedTweet;
+import com.solace.twitter.service.ConfigManager;
+
+import java.io.File;
+import java.util.List;
+
+/**
+ * Storage for processed tweets, in arrival order
+ */
+public interface TweetStore {
+    
+    /**
+     * Append a processed tweet
+     * @param tweet Processed tweet
+     */
+    void append(ProcessedTweet tweet);
+    
+    /**
+     * Record that a reply has been sent for a tweet
+     * @param tweetId Twitter ID of the tweet
+     */
+    void markReplied(long tweetId);
+    
+    /**
+     * Find a processed tweet by its Twitter ID
+     * @param tweetId Twitter ID of the tweet
+     * @return Processed tweet or null if not stored
+     */
+    ProcessedTweet findById(long tweetId);
+    
+    /**
+     * Get the position of a processed tweet
+     * @param tweetId Twitter ID of the tweet
+     * @return Position in arrival order, or -1 if not stored
+     */
+    int indexOf(long tweetId);
+    
+    /**
+     * Get a processed tweet by position
+     * @param index Position in arrival order, 0 being the oldest
+     * @return Processed tweet
+     */
+    ProcessedTweet get(int index);
+    
+    /**
+     * Get the number of stored tweets
+     * @return Number of tweets
+     */
+    int size();
+    
+    /**
+     * Get all stored tweets
+     * @return List of processed tweets in arrival order
+     */
+    List<ProcessedTweet> getAll();
+    
+    /**
+     * Remove the oldest tweets beyond a maximum count or created before a cutoff
+     * @param maxCount Maximum number of tweets to retain, 0 for no limit
+     * @param minCreatedAt Creation time in milliseconds before which tweets are removed, 0 for no limit
+     * @return Number of tweets removed
+     */
+    int trim(int maxCount, long minCreatedAt);
+    
+    /**
+     * Get the number of tweets removed by trimming since the store was opened
+     * Together with a position this identifies a tweet across trims
+     * @return Number of trimmed tweets
+     */
+    long getTrimmedCount();
+    
+    /**
+     * Flush and release the store
+     */
+    void close();
+    
+    /**
+     * Create the store selected in the application configuration, bounded by the history retention policy
+     * @param configManager Configuration manager
+     * @return Tweet store
+     */
+    static TweetStore fromConfig(ConfigManager configManager) {
+        int maxCount = configManager.getIntConfig(ConfigManager.HISTORY_MAX_COUNT);
+        long maxAgeMillis = configManager.getIntConfig(ConfigManager.HISTORY_MAX_AGE_HOURS) * 3_600_000L;
+        
+        // Tweets on the heap are already decoded, so only a disk-backed store needs a hot window
+        if ("memory".equalsIgnoreCase(configManager.getConfig(ConfigManager.STORE_TYPE).trim())) {
+            return new TieredTweetStore(new InMemoryTweetStore(), 0, maxCount, maxAgeMillis);
+        }
+        
+        File directory = configManager.getDataFile(ConfigManager.STORE_DIRECTORY);
+        if (directory == null) {
+            throw new IllegalStateException("No " + ConfigManager.STORE_DIRECTORY + " configured for the mapped tweet store");
+        }
+        MappedTweetStore mappedStore = new MappedTweetStore(
+            directory,
+            configManager.getIntConfig(ConfigManager.STORE_SEGMENT_BYTES),
+            configManager.getBooleanConfig(ConfigManager.STORE_SYNC_WRITES));
+        return new TieredTweetStore(mappedStore, configManager.getIntConfig(ConfigManager.HISTORY_HOT_WINDOW), maxCount, maxAgeMillis);
+    }
+}
\ No newline at end of file
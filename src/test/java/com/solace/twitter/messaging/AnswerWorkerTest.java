@@ -0,0 +1,116 @@
+package com.solace.twitter.messaging;
+
+import com.solace.twitter.model.ProcessedTweet;
+import com.solace.twitter.service.AgentMeshException;
+import com.solace.twitter.service.AgentMeshService;
+import com.solace.twitter.service.ConfigManager;
+import com.solace.twitter.store.TweetCodec;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.nio.ByteBuffer;
+import java.util.Date;
+import java.util.List;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class AnswerWorkerTest {
+    private static final String PREFIX = "twitter";
+    private static final String QUEUE = "questions";
+    
+    private final InMemoryMessageBroker broker = new InMemoryMessageBroker();
+    private final BlockingQueue<byte[]> answers = new LinkedBlockingQueue<>();
+    
+    @AfterEach
+    void closeBroker() {
+        broker.close();
+    }
+    
+    @Test
+    void questionIsHeldWhileTheCircuitIsOpenWithoutUsingRedeliveries() throws Exception {
+        ScriptedAgentMesh agentMesh = new ScriptedAgentMesh(2);
+        AnswerWorker worker = startWorker(agentMesh);
+        
+        askQuestion();
+        
+        byte[] payload = answers.poll(10, TimeUnit.SECONDS);
+        assertNotNull(payload, "Expected an answer once the circuit closed");
+        assertEquals("answer", TweetCodec.decode(ByteBuffer.wrap(payload)).getAnswer());
+        assertEquals(3, agentMesh.calls.get());
+        assertEquals(1, worker.getReceived());
+        assertEquals(0, worker.getFailed());
+        assertEquals(0, broker.getDeadMessages(QUEUE));
+        
+        worker.close(1000);
+        assertEquals(0, broker.getQueueDepth(QUEUE));
+    }
+    
+    @Test
+    void heldQuestionGoesBackToTheQueueWhenTheWorkerCloses() throws Exception {
+        ScriptedAgentMesh agentMesh = new ScriptedAgentMesh(Integer.MAX_VALUE);
+        AnswerWorker worker = startWorker(agentMesh);
+        
+        askQuestion();
+        long deadline = System.currentTimeMillis() + 5000;
+        while (agentMesh.calls.get() == 0 && System.currentTimeMillis() < deadline) {
+            Thread.sleep(10);
+        }
+        assertTrue(agentMesh.calls.get() > 0, "Expected the question to be asked");
+        
+        worker.close(100);
+        
+        assertEquals(0, worker.getFailed());
+        assertEquals(0, worker.getAnswered());
+        assertEquals(1, broker.getQueueDepth(QUEUE));
+        assertEquals(0, broker.getDeadMessages(QUEUE));
+    }
+    
+    private AnswerWorker startWorker(AgentMeshService agentMesh) throws MessagingException {
+        broker.subscribe(Topics.subscription(PREFIX, Topics.ANSWER), (topic, payload) -> answers.add(payload));
+        AnswerWorker worker = new AnswerWorker(broker, agentMesh, PREFIX, QUEUE, 4, 4, 1);
+        worker.start();
+        return worker;
+    }
+    
+    private void askQuestion() throws MessagingException {
+        ProcessedTweet question = new ProcessedTweet(1L, "alice", "Alice", new Date(), "How do I use Solace?",
+                                                     "How do I use Solace?", null, false, "en");
+        broker.publish(List.of(new OutboundMessage(
+            Topics.forTweet(PREFIX, Topics.ASK, question), TweetCodec.encode(question), true, null)));
+    }
+    
+    /**
+     * Agent Mesh stand-in whose circuit breaker turns away a number of requests before answering
+     */
+    private static class ScriptedAgentMesh extends AgentMeshService {
+        private final int rejections;
+        private final AtomicInteger calls = new AtomicInteger();
+        
+        ScriptedAgentMesh(int rejections) {
+            super(configWithoutCache());
+            this.rejections = rejections;
+        }
+        
+        @Override
+        public CompletableFuture<String> processQuestionAsync(String question) {
+            if (calls.incrementAndGet() <= rejections) {
+                return CompletableFuture.failedFuture(
+                    new AgentMeshException(AgentMeshException.Reason.CIRCUIT_OPEN, "Circuit open", null));
+            }
+            return CompletableFuture.completedFuture("answer");
+        }
+        
+        private static ConfigManager configWithoutCache() {
+            ConfigManager configManager = new ConfigManager();
+            configManager.setConfig(ConfigManager.CACHE_ENABLED, "false");
+            return configManager;
+        }
+    }
+}
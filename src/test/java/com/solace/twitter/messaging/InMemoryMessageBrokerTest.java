@@ -0,0 +1,173 @@
+package com.solace.twitter.messaging;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class InMemoryMessageBrokerTest {
+    private static final String QUEUE = "questions";
+    private static final String SUBSCRIPTION = "twitter/ask/>";
+    // How long to wait for a delivery that must not happen
+    private static final long QUIET_MS = 200;
+    
+    private final InMemoryMessageBroker broker = new InMemoryMessageBroker();
+    private final BlockingQueue<InboundMessage> deliveries = new LinkedBlockingQueue<>();
+    
+    @AfterEach
+    void closeBroker() {
+        broker.close();
+    }
+    
+    @Test
+    void exactSubscriptionMatchesOnlyTheSameTopic() {
+        assertTrue(matches("twitter/question/en/alice", "twitter/question/en/alice"));
+        assertFalse(matches("twitter/question/en/alice", "twitter/question/en/bob"));
+        assertFalse(matches("twitter/question/en/alice", "twitter/question/en"));
+        assertFalse(matches("twitter/question/en", "twitter/question/en/alice"));
+    }
+    
+    @Test
+    void starMatchesTheRestOfOneLevel() {
+        assertTrue(matches("twitter/question/*/alice", "twitter/question/en/alice"));
+        assertTrue(matches("twitter/question/e*/alice", "twitter/question/es/alice"));
+        assertFalse(matches("twitter/question/e*/alice", "twitter/question/fr/alice"));
+        assertFalse(matches("twitter/question/*", "twitter/question/en/alice"));
+    }
+    
+    @Test
+    void trailingGreaterThanMatchesOneOrMoreLevels() {
+        assertTrue(matches("twitter/question/>", "twitter/question/en"));
+        assertTrue(matches("twitter/question/>", "twitter/question/en/alice"));
+        assertFalse(matches("twitter/question/>", "twitter/question"));
+        assertFalse(matches("twitter/question/>", "twitter/replied/en/alice"));
+    }
+    
+    @Test
+    void greaterThanBeforeTheLastLevelIsLiteral() {
+        assertTrue(matches("twitter/>/en", "twitter/>/en"));
+        assertFalse(matches("twitter/>/en", "twitter/question/en"));
+    }
+    
+    @Test
+    void subscribersReceiveOnlyMatchingTopics() throws MessagingException {
+        List<String> received = new ArrayList<>();
+        broker.subscribe(Topics.subscription("twitter", Topics.QUESTION), (topic, payload) -> received.add(topic));
+        
+        broker.publish(List.of(
+            message("twitter/question/en/alice"),
+            message("twitter/replied/en/alice"),
+            message("twitter/question/und/bob")));
+        
+        assertEquals(List.of("twitter/question/en/alice", "twitter/question/und/bob"), received);
+        assertEquals(3, broker.getPublished());
+    }
+    
+    @Test
+    void publishAfterCloseFails() {
+        broker.close();
+        
+        assertThrows(MessagingException.class, () -> broker.publish(List.of(message("twitter/question/en/alice"))));
+    }
+    
+    @Test
+    void consumerStopsAtPrefetchUntilMessagesAreSettled() throws Exception {
+        broker.consume(QUEUE, SUBSCRIPTION, 2, 0, deliveries::add);
+        broker.publish(List.of(message("twitter/ask/en/a"), message("twitter/ask/en/b"), message("twitter/ask/en/c")));
+        
+        InboundMessage first = next();
+        next();
+        assertNull(deliveries.poll(QUIET_MS, TimeUnit.MILLISECONDS));
+        assertEquals(1, broker.getQueueDepth(QUEUE));
+        
+        first.accept();
+        assertEquals("twitter/ask/en/c", next().getTopic());
+        assertEquals(0, broker.getQueueDepth(QUEUE));
+    }
+    
+    @Test
+    void pausedConsumerGetsNoDeliveriesUntilResumed() throws Exception {
+        QueueConsumer consumer = broker.consume(QUEUE, SUBSCRIPTION, 10, 0, deliveries::add);
+        consumer.pause();
+        broker.publish(List.of(message("twitter/ask/en/a"), message("twitter/ask/en/b")));
+        
+        assertNull(deliveries.poll(QUIET_MS, TimeUnit.MILLISECONDS));
+        assertEquals(2, broker.getQueueDepth(QUEUE));
+        
+        consumer.resume();
+        next();
+        next();
+        assertEquals(0, broker.getQueueDepth(QUEUE));
+    }
+    
+    @Test
+    void failedMessageIsRedeliveredUntilTheLimitThenDropped() throws Exception {
+        broker.consume(QUEUE, SUBSCRIPTION, 1, 2, deliveries::add);
+        broker.publish(List.of(message("twitter/ask/en/a")));
+        
+        for (int count = 1; count <= 3; count++) {
+            InboundMessage message = next();
+            assertEquals(count, message.getDeliveryCount());
+            assertEquals(count > 1, message.isRedelivered());
+            message.fail();
+        }
+        
+        assertNull(deliveries.poll(QUIET_MS, TimeUnit.MILLISECONDS));
+        assertEquals(1, broker.getDeadMessages(QUEUE));
+        assertEquals(0, broker.getQueueDepth(QUEUE));
+    }
+    
+    @Test
+    void settlingTwiceHasNoEffect() throws Exception {
+        broker.consume(QUEUE, SUBSCRIPTION, 1, 2, deliveries::add);
+        broker.publish(List.of(message("twitter/ask/en/a")));
+        
+        InboundMessage message = next();
+        message.accept();
+        message.fail();
+        
+        assertNull(deliveries.poll(QUIET_MS, TimeUnit.MILLISECONDS));
+        assertEquals(0, broker.getDeadMessages(QUEUE));
+    }
+    
+    @Test
+    void closedConsumerReturnsUnsettledMessagesToTheQueue() throws Exception {
+        QueueConsumer closing = broker.consume(QUEUE, SUBSCRIPTION, 1, 2, deliveries::add);
+        broker.publish(List.of(message("twitter/ask/en/a")));
+        next();
+        
+        closing.close();
+        BlockingQueue<InboundMessage> other = new LinkedBlockingQueue<>();
+        broker.consume(QUEUE, SUBSCRIPTION, 1, 2, other::add);
+        
+        InboundMessage redelivered = other.poll(5, TimeUnit.SECONDS);
+        assertNotNull(redelivered);
+        assertTrue(redelivered.isRedelivered());
+    }
+    
+    private InboundMessage next() throws InterruptedException {
+        InboundMessage message = deliveries.poll(5, TimeUnit.SECONDS);
+        assertNotNull(message, "Expected a delivery");
+        return message;
+    }
+    
+    private static boolean matches(String subscription, String topic) {
+        return InMemoryMessageBroker.matches(subscription.split("/"), topic.split("/"));
+    }
+    
+    private static OutboundMessage message(String topic) {
+        return new OutboundMessage(topic, topic.getBytes(StandardCharsets.UTF_8), false, null);
+    }
+}